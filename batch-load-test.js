@@ -0,0 +1,57 @@
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter } from 'k6/metrics';
+
+// Compares transaction creation throughput of POST /transactions and POST /transactions/batch.
+//   k6 run -e PORT=8080 -e MODE=single batch-load-test.js
+//   k6 run -e PORT=8080 -e MODE=batch -e BATCH_SIZE=500 batch-load-test.js
+// Compare the created_transactions rate of both runs.
+
+const PORT = __ENV.PORT || '8080';
+const BASE_URL = `http://localhost:${PORT}`;
+const MODE = __ENV.MODE || 'batch';
+const BATCH_SIZE = parseInt(__ENV.BATCH_SIZE || '500');
+
+const createdTransactions = new Counter('created_transactions');
+
+export const options = {
+  vus: parseInt(__ENV.VUS || '16'),
+  duration: __ENV.DURATION || '1m',
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+function transaction(sequence) {
+  // Unique order ID per item, otherwise the item is rejected as duplicate
+  const orderId = `ORD-${String(__VU).padStart(4, '0')}${String(sequence).padStart(10, '0')}`;
+  return {
+    orderId: orderId,
+    accountId: `ACC-${String(100000 + (sequence % 50))}`,
+    amount: sequence % 2 === 0 ? 25.00 : -10.00,
+    type: sequence % 2 === 0 ? 'CREDIT' : 'DEBIT',
+    category: 'SHOPPING',
+    description: 'Batch load test',
+  };
+}
+
+export default function () {
+  const params = { headers: { 'Content-Type': 'application/json' } };
+
+  if (MODE === 'single') {
+    const res = http.post(`${BASE_URL}/transactions`, JSON.stringify(transaction(__ITER)), params);
+    if (check(res, { 'Create transaction status is 201': (r) => r.status === 201 })) {
+      createdTransactions.add(1);
+    }
+    return;
+  }
+
+  const items = [];
+  for (let i = 0; i < BATCH_SIZE; i++) {
+    items.push(transaction(__ITER * BATCH_SIZE + i));
+  }
+  const res = http.post(`${BASE_URL}/transactions/batch`, JSON.stringify({ transactions: items }), params);
+  if (check(res, { 'Create batch status is 200': (r) => r.status === 200 })) {
+    createdTransactions.add(res.json('succeeded'));
+  }
+}
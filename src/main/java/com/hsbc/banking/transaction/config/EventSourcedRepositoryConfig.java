@@ -0,0 +1,23 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.repository.EventSourcedTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.repository", name = "type", havingValue = "event-sourced")
+@EnableConfigurationProperties(EventSourcedRepositoryProperties.class)
+public class EventSourcedRepositoryConfig {
+
+    @Bean
+    public EventSourcedTransactionRepositoryImpl eventSourcedTransactionRepository(
+            @Qualifier("transactionIdGenerator") IdGenerator idGenerator,
+            EventSourcedRepositoryProperties properties) {
+        return new EventSourcedTransactionRepositoryImpl(idGenerator, properties.directory(),
+                properties.syncWrites(), properties.rebuildThreads());
+    }
+}
@@ -0,0 +1,15 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+// Event-sourced transaction repository; zero rebuild threads uses one per available processor
+@ConfigurationProperties(prefix = "transaction.repository.event-sourced")
+public record EventSourcedRepositoryProperties(
+        @DefaultValue("data/events") Path directory,
+        @DefaultValue("false") boolean syncWrites,
+        @DefaultValue("0") int rebuildThreads
+) {
+}
@@ -0,0 +1,124 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.service.AccountBalanceLedger;
+import com.hsbc.banking.transaction.service.CoalescingExternalAccountService;
+import com.hsbc.banking.transaction.service.ExternalAccountMetrics;
+import com.hsbc.banking.transaction.service.ExternalAccountService;
+import com.hsbc.banking.transaction.service.LedgerExternalAccountService;
+import com.hsbc.banking.transaction.service.ResilientExternalAccountService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds the ExternalAccountService used by the application by wrapping the remote
+ * implementation with the decorators enabled in configuration.
+ */
+@Configuration
+@EnableConfigurationProperties(ExternalAccountProperties.class)
+public class ExternalAccountConfig implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(ExternalAccountConfig.class);
+
+    private final ExternalAccountProperties properties;
+    private final boolean virtualThreads;
+    private final List<AutoCloseable> decorators = new ArrayList<>();
+
+    public ExternalAccountConfig(ExternalAccountProperties properties,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.properties = properties;
+        this.virtualThreads = virtualThreads;
+    }
+
+    @Bean
+    public ExternalAccountMetrics externalAccountMetrics() {
+        return new ExternalAccountMetrics();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "external-account.ledger", name = "enabled", havingValue = "true")
+    public AccountBalanceLedger accountBalanceLedger() {
+        ExternalAccountProperties.Ledger ledger = properties.ledger();
+        logger.info("Approving debits from local ledger: syncThreshold={}, maxAge={}",
+                ledger.syncThreshold(), ledger.maxAge());
+        return new AccountBalanceLedger(ledger.syncThreshold(), ledger.maxAge());
+    }
+
+    @Bean
+    @Primary
+    public ExternalAccountService externalAccountService(
+            @Qualifier("remoteAccountService") ExternalAccountService remoteAccountService,
+            ExternalAccountMetrics metrics,
+            ObjectProvider<AccountBalanceLedger> ledger) {
+        ExternalAccountService service = remoteAccountService;
+
+        ExternalAccountProperties.Batch batch = properties.batch();
+        if (batch.enabled()) {
+            logger.info("Coalescing balance checks: window={}, maxSize={}, maxInFlight={}, timeout={}",
+                    batch.window(), batch.maxSize(), batch.maxInFlight(), batch.timeout());
+            service = register(new CoalescingExternalAccountService(service, batch.window(), batch.maxSize(),
+                    batch.maxInFlight(), batch.timeout(), externalCallExecutor("balance-check-batch")));
+        }
+
+        // Outermost, so that deadlines and fallbacks apply per caller even when checks are batched
+        ExternalAccountProperties.Resilience resilience = properties.resilience();
+        if (resilience.enabled()) {
+            logger.info("Guarding balance checks: timeout={}, maxConcurrentCalls={}, fallback={}",
+                    resilience.timeout(), resilience.maxConcurrentCalls(), resilience.fallback());
+            service = register(new ResilientExternalAccountService(
+                    service,
+                    resilience.timeout(),
+                    resilience.maxConcurrentCalls(),
+                    resilience.maxWait(),
+                    new ResilientExternalAccountService.CircuitBreakerSettings(
+                            resilience.failureRateThreshold(),
+                            resilience.slidingWindowSize(),
+                            resilience.minimumCalls(),
+                            resilience.openDuration()),
+                    resilience.fallback(),
+                    resilience.fallbackLimit(),
+                    metrics,
+                    externalCallExecutor("balance-check")));
+        }
+
+        // Debits approved locally never reach the guarded remote calls
+        AccountBalanceLedger accountBalanceLedger = ledger.getIfAvailable();
+        if (accountBalanceLedger != null) {
+            service = new LedgerExternalAccountService(service, accountBalanceLedger, metrics);
+        }
+
+        return service;
+    }
+
+    // Remote calls block, so they run on virtual threads when the virtual profile is active
+    private ExecutorService externalCallExecutor(String name) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newCachedThreadPool(Thread.ofPlatform().name(name + "-", 0).daemon().factory());
+    }
+
+    private <T extends AutoCloseable> T register(T decorator) {
+        decorators.add(decorator);
+        return decorator;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (AutoCloseable decorator : decorators) {
+            decorator.close();
+        }
+    }
+}
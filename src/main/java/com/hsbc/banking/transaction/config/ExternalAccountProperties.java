@@ -0,0 +1,46 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.service.ResilientExternalAccountService.FallbackPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "external-account")
+public record ExternalAccountProperties(@DefaultValue Batch batch, @DefaultValue Resilience resilience,
+                                        @DefaultValue Ledger ledger) {
+
+    // Coalescing of concurrent balance checks into batch calls
+    public record Batch(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("2ms") Duration window,
+            @DefaultValue("256") int maxSize,
+            @DefaultValue("4") int maxInFlight,
+            @DefaultValue("5s") Duration timeout
+    ) {
+    }
+
+    // Deadline, bulkhead, circuit breaker and fallback around every balance check
+    public record Resilience(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("2s") Duration timeout,
+            @DefaultValue("64") int maxConcurrentCalls,
+            @DefaultValue("10ms") Duration maxWait,
+            @DefaultValue("50") int failureRateThreshold,
+            @DefaultValue("20") int slidingWindowSize,
+            @DefaultValue("10") int minimumCalls,
+            @DefaultValue("10s") Duration openDuration,
+            @DefaultValue("REJECT") FallbackPolicy fallback,
+            @DefaultValue("500.00") BigDecimal fallbackLimit
+    ) {
+    }
+
+    // Local per-account ledger approving debits between syncs with the account service
+    public record Ledger(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("1000.00") BigDecimal syncThreshold,
+            @DefaultValue("30s") Duration maxAge
+    ) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import com.hsbc.banking.transaction.repository.SequentialIdGenerator;
+import com.hsbc.banking.transaction.repository.SnowflakeIdGenerator;
+import com.hsbc.banking.transaction.repository.ThreadLocalBlockIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One generator per repository, so transactions and audit logs each number from their own sequence.
+ */
+@Configuration
+@EnableConfigurationProperties(IdGeneratorProperties.class)
+public class IdGeneratorConfig {
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    private final IdGeneratorProperties properties;
+
+    public IdGeneratorConfig(IdGeneratorProperties properties) {
+        this.properties = properties;
+    }
+
+    @Bean
+    public IdGenerator transactionIdGenerator() {
+        logger.info("Generating transaction IDs: generator={}, blockSize={}, nodeId={}",
+                properties.generator(), properties.blockSize(), properties.nodeId());
+        IdGenerator generator = create();
+        if (!generator.increasesInCreationOrder()) {
+            logger.warn("Transaction IDs of the {} generator do not increase in creation order: search results "
+                    + "are by ID rather than newest first, and keyset pages can miss transactions created behind "
+                    + "their cursor", properties.generator());
+        }
+        return generator;
+    }
+
+    @Bean
+    public IdGenerator auditLogIdGenerator() {
+        return create();
+    }
+
+    private IdGenerator create() {
+        return switch (properties.generator()) {
+            case SEQUENTIAL -> new SequentialIdGenerator();
+            case THREAD_LOCAL_BLOCK -> new ThreadLocalBlockIdGenerator(properties.blockSize());
+            case SNOWFLAKE -> new SnowflakeIdGenerator(properties.nodeId(), properties.epoch());
+        };
+    }
+}
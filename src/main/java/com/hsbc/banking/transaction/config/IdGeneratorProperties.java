@@ -0,0 +1,19 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Instant;
+
+// ID generation of the transaction and audit log repositories
+@ConfigurationProperties(prefix = "transaction.id")
+public record IdGeneratorProperties(
+        @DefaultValue("sequential") Generator generator,
+        @DefaultValue("1024") int blockSize,
+        @DefaultValue("0") long nodeId,
+        @DefaultValue("2024-01-01T00:00:00Z") Instant epoch
+) {
+    public enum Generator {
+        SEQUENTIAL, THREAD_LOCAL_BLOCK, SNOWFLAKE
+    }
+}
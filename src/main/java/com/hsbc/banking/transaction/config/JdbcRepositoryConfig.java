@@ -0,0 +1,41 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import com.hsbc.banking.transaction.repository.JdbcAuditLogRepositoryImpl;
+import com.hsbc.banking.transaction.repository.JdbcConnectionPool;
+import com.hsbc.banking.transaction.repository.JdbcTransactionRepositoryImpl;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.repository", name = "type", havingValue = "jdbc")
+@EnableConfigurationProperties(JdbcRepositoryProperties.class)
+public class JdbcRepositoryConfig {
+
+    @Bean
+    public JdbcConnectionPool transactionConnectionPool(JdbcRepositoryProperties properties) {
+        return new JdbcConnectionPool(
+                properties.url(),
+                properties.username(),
+                properties.password(),
+                properties.poolSize(),
+                properties.acquireTimeout());
+    }
+
+    @Bean
+    public JdbcTransactionRepositoryImpl jdbcTransactionRepository(
+            JdbcConnectionPool transactionConnectionPool,
+            @Qualifier("transactionIdGenerator") IdGenerator idGenerator) {
+        return new JdbcTransactionRepositoryImpl(transactionConnectionPool, idGenerator);
+    }
+
+    @Bean
+    public JdbcAuditLogRepositoryImpl jdbcAuditLogRepository(
+            JdbcConnectionPool transactionConnectionPool,
+            @Qualifier("auditLogIdGenerator") IdGenerator idGenerator) {
+        return new JdbcAuditLogRepositoryImpl(transactionConnectionPool, idGenerator);
+    }
+}
@@ -0,0 +1,17 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Embedded database repositories
+@ConfigurationProperties(prefix = "transaction.repository.jdbc")
+public record JdbcRepositoryProperties(
+        @DefaultValue("jdbc:h2:file:./data/h2/transactions") String url,
+        @DefaultValue("sa") String username,
+        @DefaultValue("") String password,
+        @DefaultValue("8") int poolSize,
+        @DefaultValue("5s") Duration acquireTimeout
+) {
+}
@@ -0,0 +1,30 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import com.hsbc.banking.transaction.repository.LsmStore;
+import com.hsbc.banking.transaction.repository.LsmTransactionRepositoryImpl;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.repository", name = "type", havingValue = "lsm")
+@EnableConfigurationProperties(LsmRepositoryProperties.class)
+public class LsmRepositoryConfig {
+
+    @Bean
+    public LsmTransactionRepositoryImpl lsmTransactionRepository(
+            @Qualifier("transactionIdGenerator") IdGenerator idGenerator,
+            LsmRepositoryProperties properties) {
+        return new LsmTransactionRepositoryImpl(idGenerator, properties.directory(), new LsmStore.Options(
+                properties.syncWrites(),
+                properties.memtableSize().toBytes(),
+                properties.tableSize().toBytes(),
+                (int) properties.blockSize().toBytes(),
+                properties.bloomBitsPerKey(),
+                properties.level0Trigger(),
+                properties.level1Size().toBytes()));
+    }
+}
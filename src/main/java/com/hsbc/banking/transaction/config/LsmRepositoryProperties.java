@@ -0,0 +1,21 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+// LSM-tree transaction repository
+@ConfigurationProperties(prefix = "transaction.repository.lsm")
+public record LsmRepositoryProperties(
+        @DefaultValue("data/transactions") Path directory,
+        @DefaultValue("false") boolean syncWrites,
+        @DefaultValue("4MB") DataSize memtableSize,
+        @DefaultValue("2MB") DataSize tableSize,
+        @DefaultValue("4KB") DataSize blockSize,
+        @DefaultValue("10") int bloomBitsPerKey,
+        @DefaultValue("4") int level0Trigger,
+        @DefaultValue("10MB") DataSize level1Size
+) {
+}
@@ -0,0 +1,61 @@
+package com.hsbc.banking.transaction.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.hsbc.banking.transaction.model.Money;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * JSON codec for Money. Amounts are read from JSON numbers or strings and written as
+ * {@code "#.00"} strings, the same representation the API used with BigDecimal amounts.
+ */
+@JsonComponent
+public class MoneyJsonComponent {
+
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            char[] buffer = new char[Money.MAX_FORMATTED_LENGTH];
+            int start = value.format(buffer);
+            generator.writeString(buffer, start, buffer.length - start);
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Money) context.handleUnexpectedToken(Money.class, parser);
+            }
+
+            // Parse straight from the parser's character buffer
+            char[] text = parser.getTextCharacters();
+            int start = parser.getTextOffset();
+            int end = start + parser.getTextLength();
+            while (start < end && Character.isWhitespace(text[start])) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(text[end - 1])) {
+                end--;
+            }
+            if (start == end) {
+                return null;
+            }
+            try {
+                return Money.parse(text, start, end - start);
+            } catch (NumberFormatException e) {
+                return (Money) context.handleWeirdStringValue(Money.class, parser.getText(),
+                        "not a valid decimal amount");
+            }
+        }
+    }
+}
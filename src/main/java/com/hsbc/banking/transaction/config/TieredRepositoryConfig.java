@@ -0,0 +1,32 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import com.hsbc.banking.transaction.repository.TieredTransactionRepositoryImpl;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.repository", name = "type", havingValue = "tiered")
+@EnableConfigurationProperties(TieredRepositoryProperties.class)
+public class TieredRepositoryConfig {
+
+    @Bean
+    public TieredTransactionRepositoryImpl tieredTransactionRepository(
+            @Qualifier("transactionIdGenerator") IdGenerator idGenerator,
+            TieredRepositoryProperties properties) {
+        Path directory = properties.directory() != null
+                ? properties.directory()
+                : Path.of(System.getProperty("java.io.tmpdir"), "transaction-segments");
+        return new TieredTransactionRepositoryImpl(
+                idGenerator,
+                directory,
+                properties.hotAge(),
+                properties.segmentRows(),
+                properties.migrateInterval());
+    }
+}
@@ -0,0 +1,17 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Hot/cold tiered transaction repository
+@ConfigurationProperties(prefix = "transaction.repository.tiered")
+public record TieredRepositoryProperties(
+        Path directory,
+        @DefaultValue("7d") Duration hotAge,
+        @DefaultValue("1m") Duration migrateInterval,
+        @DefaultValue("100000") int segmentRows
+) {
+}
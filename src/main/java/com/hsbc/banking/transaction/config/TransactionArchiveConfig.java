@@ -0,0 +1,50 @@
+package com.hsbc.banking.transaction.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hsbc.banking.transaction.repository.AuditLogRepository;
+import com.hsbc.banking.transaction.repository.TransactionArchive;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import com.hsbc.banking.transaction.service.TransactionArchiver;
+import com.hsbc.banking.transaction.service.TransactionWriteGate;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.time.Duration;
+
+@Configuration
+@EnableConfigurationProperties(TransactionArchiveProperties.class)
+public class TransactionArchiveConfig {
+
+    @Bean
+    public TransactionArchiver transactionArchiver(TransactionRepository transactionRepository,
+                                                   AuditLogRepository auditLogRepository,
+                                                   CacheManager cacheManager,
+                                                   TransactionWriteGate writeGate,
+                                                   ApplicationEventPublisher eventPublisher,
+                                                   TransactionArchiveProperties properties) throws IOException {
+        // Inflated archive blocks, kept apart from the transaction cache and listed with it in /cache/stats
+        Cache<Object, Object> blockCache = Caffeine.newBuilder()
+                .maximumSize(properties.cachedBlocks())
+                .recordStats()
+                .build();
+        if (cacheManager instanceof CaffeineCacheManager caffeineCacheManager) {
+            caffeineCacheManager.registerCustomCache("archiveBlocks", blockCache);
+        }
+        // Archive files already written are read even when no new ones are made
+        return new TransactionArchiver(
+                transactionRepository,
+                auditLogRepository,
+                TransactionArchive.open(properties.directory(), blockCache),
+                writeGate,
+                eventPublisher,
+                properties.maxAge(),
+                properties.fileSize(),
+                properties.enabled() ? properties.interval() : Duration.ZERO);
+    }
+}
@@ -0,0 +1,19 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Archival of old transactions into compressed read-only files
+@ConfigurationProperties(prefix = "transaction.archive")
+public record TransactionArchiveProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("data/archive") Path directory,
+        @DefaultValue("365d") Duration maxAge,
+        @DefaultValue("1h") Duration interval,
+        @DefaultValue("100000") int fileSize,
+        @DefaultValue("256") int cachedBlocks
+) {
+}
@@ -0,0 +1,42 @@
+package com.hsbc.banking.transaction.config;
+
+import com.hsbc.banking.transaction.repository.AuditLogRepository;
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import com.hsbc.banking.transaction.service.TransactionBackupService;
+import com.hsbc.banking.transaction.service.TransactionChangeLog;
+import com.hsbc.banking.transaction.service.TransactionWriteGate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(TransactionBackupProperties.class)
+public class TransactionBackupConfig {
+
+    @Bean
+    public TransactionBackupService transactionBackupService(
+            TransactionRepository transactionRepository,
+            AuditLogRepository auditLogRepository,
+            TransactionChangeLog changeLog,
+            @Qualifier("transactionIdGenerator") IdGenerator transactionIdGenerator,
+            @Qualifier("auditLogIdGenerator") IdGenerator auditLogIdGenerator,
+            ApplicationEventPublisher eventPublisher,
+            CacheManager cacheManager,
+            TransactionWriteGate writeGate,
+            TransactionBackupProperties properties) {
+        return new TransactionBackupService(
+                transactionRepository,
+                auditLogRepository,
+                changeLog,
+                transactionIdGenerator,
+                auditLogIdGenerator,
+                eventPublisher,
+                cacheManager,
+                writeGate,
+                properties.directory());
+    }
+}
@@ -0,0 +1,13 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+// Online backups of the transactions and audit logs
+@ConfigurationProperties(prefix = "transaction.backup")
+public record TransactionBackupProperties(
+        @DefaultValue("data/backups") Path directory
+) {
+}
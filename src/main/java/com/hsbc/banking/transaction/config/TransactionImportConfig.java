@@ -0,0 +1,44 @@
+package com.hsbc.banking.transaction.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import com.hsbc.banking.transaction.service.OrderIdRetention;
+import com.hsbc.banking.transaction.service.TransactionArchiver;
+import com.hsbc.banking.transaction.service.TransactionImportService;
+import com.hsbc.banking.transaction.service.TransactionWriteGate;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableConfigurationProperties(TransactionImportProperties.class)
+public class TransactionImportConfig {
+
+    @Bean
+    public TransactionImportService transactionImportService(TransactionRepository transactionRepository,
+                                                             ObjectMapper objectMapper,
+                                                             ApplicationEventPublisher eventPublisher,
+                                                             TransactionWriteGate writeGate,
+                                                             TransactionArchiver transactionArchiver,
+                                                             OrderIdRetention orderIdRetention,
+                                                             TransactionImportProperties properties) {
+        Path errorDir = properties.errorDir() != null
+                ? properties.errorDir()
+                : Path.of(System.getProperty("java.io.tmpdir"));
+        return new TransactionImportService(
+                transactionRepository,
+                objectMapper,
+                eventPublisher,
+                writeGate,
+                transactionArchiver,
+                orderIdRetention,
+                properties.workers(),
+                properties.queueCapacity(),
+                properties.batchSize(),
+                properties.progressInterval(),
+                errorDir);
+    }
+}
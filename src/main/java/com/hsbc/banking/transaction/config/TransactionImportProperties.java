@@ -0,0 +1,18 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Bulk JSONL import pipeline
+@ConfigurationProperties(prefix = "transaction.import")
+public record TransactionImportProperties(
+        @DefaultValue("4") int workers,
+        @DefaultValue("8192") int queueCapacity,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("5s") Duration progressInterval,
+        Path errorDir
+) {
+}
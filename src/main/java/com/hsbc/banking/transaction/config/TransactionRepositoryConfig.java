@@ -0,0 +1,25 @@
+package com.hsbc.banking.transaction.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the storage engine by {@code transaction.repository.type}. Every engine registers its
+ * {@code TransactionRepository} under {@code @ConditionalOnProperty} on its own type value; binding the type
+ * here makes an unknown value fail at startup instead of leaving the service without a repository.
+ * <p>
+ * A new engine adds a {@link TransactionRepositoryProperties.Type} value, a conditional configuration, a
+ * {@code @Nested} subclass of {@code TransactionRepositoryContract} in its test, and a value of the
+ * {@code type} parameter of {@code TransactionRepositoryBenchmark}.
+ */
+@Configuration
+@EnableConfigurationProperties(TransactionRepositoryProperties.class)
+public class TransactionRepositoryConfig {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRepositoryConfig.class);
+
+    public TransactionRepositoryConfig(TransactionRepositoryProperties properties) {
+        logger.info("Storing transactions with the {} repository", properties.type());
+    }
+}
@@ -0,0 +1,20 @@
+package com.hsbc.banking.transaction.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// Storage engine of the transaction repository; the engines read their own settings from nested prefixes
+@ConfigurationProperties(prefix = "transaction.repository")
+public record TransactionRepositoryProperties(
+        @DefaultValue("in-memory") Type type,
+        @DefaultValue("16") int shards,
+        @DefaultValue("24h") Duration orderIdRetention,
+        @DefaultValue("1s") Duration purgeInterval,
+        @DefaultValue("10000") int purgeBatchSize
+) {
+    public enum Type {
+        IN_MEMORY, SHARDED, TIERED, LSM, JDBC, EVENT_SOURCED
+    }
+}
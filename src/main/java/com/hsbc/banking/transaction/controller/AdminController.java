@@ -0,0 +1,53 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.dto.BackupResponse;
+import com.hsbc.banking.transaction.service.TransactionBackupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@Tag(name = "Administration", description = "Backup and restore of the stored data")
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+    private final TransactionBackupService transactionBackupService;
+
+    public AdminController(TransactionBackupService transactionBackupService) {
+        this.transactionBackupService = transactionBackupService;
+    }
+
+    @Operation(summary = "Back up transactions and audit logs",
+            description = "Writes a consistent compressed snapshot to the backup directory while writes go on")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Backup written, see its file name, counts and duration"),
+    })
+    @PostMapping("/backup")
+    public ResponseEntity<BackupResponse> backup() throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(BackupResponse.from(transactionBackupService.backup()));
+    }
+
+    @Operation(summary = "Restore a backup",
+            description = "Replaces all transactions and audit logs with those of a backup file. "
+                    + "Writes must be stopped while it runs")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Backup restored"),
+            @ApiResponse(responseCode = "400", description = "Unknown or incomplete backup file, "
+                    + "or a repository type that cannot restore")
+    })
+    @PostMapping("/restore")
+    public ResponseEntity<BackupResponse> restore(
+            @Parameter(description = "Name of a file in the backup directory") @RequestParam String file)
+            throws IOException {
+        return ResponseEntity.ok(BackupResponse.from(transactionBackupService.restore(file)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.dto.AggregateResponse;
+import com.hsbc.banking.transaction.dto.ErrorDetail;
+import com.hsbc.banking.transaction.service.TransactionRollups;
+import com.hsbc.banking.transaction.service.TransactionRollups.Dimension;
+import com.hsbc.banking.transaction.service.TransactionRollups.Interval;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Tag(name = "Aggregates", description = "Transaction counts and sums over time buckets")
+@RestController
+@RequestMapping("/aggregates")
+public class AggregateController {
+    private final TransactionRollups transactionRollups;
+
+    public AggregateController(TransactionRollups transactionRollups) {
+        this.transactionRollups = transactionRollups;
+    }
+
+    @Operation(summary = "Query aggregates",
+            description = "Returns transaction counts and amount sums per hourly or daily bucket of the creation "
+                    + "time, grouped by any of account, type and category")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Aggregates ordered by bucket"),
+            @ApiResponse(responseCode = "400", description = "Invalid grouping, interval or range", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetail.class)
+            ))
+    })
+    @GetMapping
+    public ResponseEntity<AggregateResponse> getAggregates(
+            @Parameter(description = "Only transactions of this account", example = "ACC-123456")
+            @RequestParam(value = "account", required = false) String account,
+            @Parameter(description = "Dimensions to group by: account, type, category", example = "type,category")
+            @RequestParam(value = "groupBy", required = false, defaultValue = "") List<String> groupBy,
+            @Parameter(description = "Bucket size: hour or day", example = "day")
+            @RequestParam(value = "interval", required = false, defaultValue = "day") String interval,
+            @Parameter(description = "First bucket, the one containing this time (ISO date-time)",
+                    example = "2024-01-01T00:00:00")
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Last bucket, the one containing this time (ISO date-time)",
+                    example = "2024-01-31T23:59:59")
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        Set<Dimension> dimensions = EnumSet.noneOf(Dimension.class);
+        for (String dimension : groupBy) {
+            if (!dimension.isBlank()) {
+                dimensions.add(Dimension.fromString(dimension));
+            }
+        }
+        Interval bucketInterval = Interval.fromString(interval);
+        return ResponseEntity.ok(AggregateResponse.from(bucketInterval,
+                transactionRollups.query(account, dimensions, bucketInterval, from, to)));
+    }
+}
@@ -6,6 +6,7 @@ import com.hsbc.banking.transaction.model.ErrorCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -32,6 +33,19 @@ public class ControllerAdvice {
                 );
     }
 
+    // Validation errors raised while reading the body, e.g. an amount with too many decimals
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorDetail> handleNotReadableException(
+            HttpMessageNotReadableException ex, WebRequest request) throws HttpMessageNotReadableException {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof AppException appException) {
+                return handleAppException(appException, request);
+            }
+        }
+        // Leave other unreadable bodies to Spring's default handling
+        throw ex;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorDetail> handleValidationExceptions(
             MethodArgumentNotValidException ex, WebRequest request) {
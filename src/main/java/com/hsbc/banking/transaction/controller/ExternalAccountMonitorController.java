@@ -0,0 +1,23 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.service.ExternalAccountMetrics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/external-account")
+public class ExternalAccountMonitorController {
+    private final ExternalAccountMetrics metrics;
+
+    public ExternalAccountMonitorController(ExternalAccountMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return metrics.snapshot();
+    }
+}
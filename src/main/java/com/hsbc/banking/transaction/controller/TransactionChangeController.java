@@ -0,0 +1,121 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.dto.TransactionChangeResponse;
+import com.hsbc.banking.transaction.dto.TransactionChangesResponse;
+import com.hsbc.banking.transaction.model.TransactionChange;
+import com.hsbc.banking.transaction.service.TransactionChangeLog;
+import com.hsbc.banking.transaction.service.TransactionChangeLog.ChangeBatch;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Tag(name = "Transaction Changes", description = "Ordered feed of transaction creates, updates and deletes")
+@RestController
+@RequestMapping("/transactions")
+public class TransactionChangeController implements DisposableBean {
+    private static final int MAX_LIMIT = 1000;
+    private static final long MAX_WAIT_MS = 30_000;
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private final TransactionChangeLog changeLog;
+    private final ExecutorService executor;
+
+    public TransactionChangeController(TransactionChangeLog changeLog,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.changeLog = changeLog;
+        // Waiting consumers block a thread, so they run on virtual threads when the virtual profile is active
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("transaction-changes-", 0).factory())
+                : Executors.newCachedThreadPool(Thread.ofPlatform().name("transaction-changes-", 0).daemon().factory());
+    }
+
+    @Operation(summary = "Read transaction changes",
+            description = "Returns changes from an offset on. With waitMs the request is held until a change "
+                    + "arrives or the wait ends (long poll); continue from the returned nextOffset")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes in offset order, possibly none"),
+    })
+    @GetMapping("/changes")
+    public WebAsyncTask<TransactionChangesResponse> readChanges(
+            @Parameter(description = "First offset to return", example = "0")
+            @RequestParam(value = "fromOffset", required = false, defaultValue = "0") long fromOffset,
+            @Parameter(description = "Maximum number of changes (max 1000)", example = "100")
+            @RequestParam(value = "limit", required = false, defaultValue = "100") int limit,
+            @Parameter(description = "Time to wait for a change when there is none yet (max 30000)", example = "10000")
+            @RequestParam(value = "waitMs", required = false, defaultValue = "0") long waitMs) {
+        int boundedLimit = Math.min(limit, MAX_LIMIT);
+        Duration wait = Duration.ofMillis(Math.max(0, Math.min(waitMs, MAX_WAIT_MS)));
+        return new WebAsyncTask<>(MAX_WAIT_MS * 2, new TaskExecutorAdapter(executor),
+                () -> TransactionChangesResponse.from(changeLog.await(fromOffset, boundedLimit, wait)));
+    }
+
+    @Operation(summary = "Stream transaction changes",
+            description = "Server-Sent Events feed of changes, one event per change with the offset as event ID. "
+                    + "Without fromOffset the stream resumes after Last-Event-ID, or starts at the current end")
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @Parameter(description = "First offset to send", example = "0")
+            @RequestParam(value = "fromOffset", required = false) Long fromOffset,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long start = fromOffset != null ? fromOffset
+                : lastEventId != null ? lastEventId + 1
+                : changeLog.nextOffset();
+
+        SseEmitter emitter = new SseEmitter();
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+
+        executor.execute(() -> {
+            long offset = start;
+            try {
+                while (open.get()) {
+                    ChangeBatch batch = changeLog.await(offset, MAX_LIMIT, HEARTBEAT_INTERVAL);
+                    if (batch.changes().isEmpty()) {
+                        // Keeps proxies from closing an idle stream and detects clients that went away
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    for (TransactionChange change : batch.changes()) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.offset()))
+                                .name(change.type().name())
+                                .data(TransactionChangeResponse.from(change), MediaType.APPLICATION_JSON));
+                    }
+                    offset = batch.nextOffset();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter was completed
+                emitter.completeWithError(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
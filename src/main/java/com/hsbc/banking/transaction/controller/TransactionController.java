@@ -1,8 +1,11 @@
 package com.hsbc.banking.transaction.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hsbc.banking.transaction.dto.*;
 import com.hsbc.banking.transaction.model.Page;
 import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.service.TransactionLookupService;
 import com.hsbc.banking.transaction.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,21 +15,33 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Tag(name = "Transaction Management", description = "APIs for managing transactions")
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
     private final TransactionService transactionService;
+    private final TransactionLookupService transactionLookupService;
+    private final ObjectMapper objectMapper;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService,
+                                 TransactionLookupService transactionLookupService,
+                                 ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.transactionLookupService = transactionLookupService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Create a new transaction",
@@ -52,6 +67,67 @@ public class TransactionController {
         );
     }
 
+    @Operation(summary = "Create transactions in batch",
+            description = "Creates up to 1000 transactions in one request and reports success or the error per item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetail.class)
+            ))
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateTransactionResponse> createTransactions(
+            @Parameter(description = "Transactions to create", required = true)
+            @Valid @RequestBody BatchCreateTransactionRequest request) {
+        return ResponseEntity.ok(BatchCreateTransactionResponse.from(
+                request.transactions(),
+                transactionService.createTransactions(request.transactions())
+        ));
+    }
+
+    @Operation(summary = "Export transactions",
+            description = "Streams every transaction in ID order as newline-delimited JSON, optionally "
+                    + "filtered by account and creation time range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed, one transaction per line"),
+            @ApiResponse(responseCode = "400", description = "Invalid time range", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetail.class)
+            ))
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "Only transactions of this account", example = "ACC-123456")
+            @RequestParam(value = "accountId", required = false) String accountId,
+            @Parameter(description = "Created at or after (ISO date-time)", example = "2024-01-01T00:00:00")
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Created at or before (ISO date-time)", example = "2024-12-31T23:59:59")
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        // Resolved before the response starts, so an invalid range still gets a 400
+        Stream<Transaction> export = transactionService.exportTransactions(accountId, from, to);
+        StreamingResponseBody body = outputStream -> {
+            TransactionJsonWriter writer = new TransactionJsonWriter();
+            // Writes block while the client is not reading, which holds back the repository walk;
+            // only the generator and response buffers are held in memory
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                 Stream<Transaction> transactions = export) {
+                // One object per line, without the default space between root values
+                generator.setRootValueSeparator(null);
+                Iterator<Transaction> iterator = transactions.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @Operation(summary = "Delete a transaction",
             description = "Deletes a transaction by its ID")
     @ApiResponses(value = {
@@ -116,6 +192,59 @@ public class TransactionController {
         return ResponseEntity.ok(new PageResponse<>(content, page.totalElements()));
     }
 
+    @Operation(summary = "List transactions after an ID",
+            description = "Returns the transactions following afterId in ID order; pass the last ID of a page "
+                    + "to get the next one")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved list"),
+    })
+    @GetMapping(params = "afterId")
+    public ResponseEntity<PageResponse<TransactionResponse>> listTransactionsAfter(
+            @Parameter(description = "ID of the last transaction of the previous page, 0 for the first page",
+                    example = "0")
+            @RequestParam("afterId") long afterId,
+            @Parameter(description = "Page size (max 100)", example = "20")
+            @RequestParam(value = "pageSize", required = false, defaultValue = "20") Integer pageSize) {
+        List<TransactionResponse> content = transactionService.listTransactionsAfter(afterId, pageSize).stream()
+                .map(TransactionResponse::from)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new PageResponse<>(content, transactionService.countTransactions()));
+    }
+
+    @Operation(summary = "Stream a page of transactions",
+            description = "Returns the same page shape as the list endpoint, written row by row while the "
+                    + "repository is read, for export clients that need pages larger than 100")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully streamed list"),
+    })
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @Parameter(description = "Page number (1-based)", example = "1")
+            @RequestParam(value = "pageNumber", required = false, defaultValue = "1") Integer pageNumber,
+            @Parameter(description = "Page size (max 10000)", example = "5000")
+            @RequestParam(value = "pageSize", required = false, defaultValue = "1000") Integer pageSize) {
+        StreamingResponseBody body = outputStream -> {
+            TransactionJsonWriter writer = new TransactionJsonWriter();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                 Stream<Transaction> transactions = transactionService.streamTransactions(pageNumber, pageSize)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("contents");
+                Iterator<Transaction> iterator = transactions.iterator();
+                while (iterator.hasNext()) {
+                    writer.write(generator, iterator.next());
+                }
+                generator.writeEndArray();
+                // Counted after the rows, so it may include transactions created while streaming
+                generator.writeNumberField("totalSize", transactionService.countTransactions());
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @Operation(summary = "Get a transaction by ID",
             description = "Returns a transaction by its ID")
     @ApiResponses(value = {
@@ -131,4 +260,20 @@ public class TransactionController {
             @PathVariable Long id) {
         return ResponseEntity.ok(TransactionResponse.from(transactionService.getTransaction(id)));
     }
-} 
\ No newline at end of file
+
+    @Operation(summary = "Get transactions by IDs",
+            description = "Returns the transactions for up to 1000 IDs in one call, together with the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully looked up transactions"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized ID list", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetail.class)
+            ))
+    })
+    @PostMapping("/lookup")
+    public ResponseEntity<TransactionLookupResponse> lookupTransactions(
+            @Parameter(description = "Transaction IDs", required = true)
+            @Valid @RequestBody TransactionLookupRequest request) {
+        return ResponseEntity.ok(TransactionLookupResponse.from(transactionLookupService.lookup(request.ids())));
+    }
+}
@@ -0,0 +1,38 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.dto.TransactionImportResponse;
+import com.hsbc.banking.transaction.service.TransactionImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Tag(name = "Transaction Management", description = "APIs for managing transactions")
+@RestController
+@RequestMapping("/transactions")
+public class TransactionImportController {
+    private final TransactionImportService transactionImportService;
+
+    public TransactionImportController(TransactionImportService transactionImportService) {
+        this.transactionImportService = transactionImportService;
+    }
+
+    @Operation(summary = "Import transactions",
+            description = "Imports transactions from a JSON lines body, one create request per line. "
+                    + "Rejected lines are written to an error file reported in the response")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the counts and error file"),
+    })
+    @PostMapping("/import")
+    public ResponseEntity<TransactionImportResponse> importTransactions(InputStream body) throws IOException {
+        // The body is read as it arrives, it is never buffered as a whole
+        return ResponseEntity.ok(TransactionImportResponse.from(transactionImportService.importJsonLines(body)));
+    }
+}
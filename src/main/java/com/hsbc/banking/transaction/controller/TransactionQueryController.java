@@ -0,0 +1,53 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.dto.ErrorDetail;
+import com.hsbc.banking.transaction.dto.TransactionQueryResponse;
+import com.hsbc.banking.transaction.service.TransactionQueryService;
+import com.hsbc.banking.transaction.service.TransactionQueryService.Sort;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Transaction Management", description = "APIs for managing transactions")
+@RestController
+@RequestMapping("/transactions")
+public class TransactionQueryController {
+    private final TransactionQueryService transactionQueryService;
+
+    public TransactionQueryController(TransactionQueryService transactionQueryService) {
+        this.transactionQueryService = transactionQueryService;
+    }
+
+    @Operation(summary = "Query transactions",
+            description = "Returns the first transactions matching a filter expression such as "
+                    + "amount <= -100 and (category = SHOPPING or description ~ 'coffee'). "
+                    + "The store is scanned in parallel and the scan stops early where the order allows it")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching transactions in the requested order"),
+            @ApiResponse(responseCode = "400", description = "Invalid query, sort or limit", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = ErrorDetail.class)
+            ))
+    })
+    @GetMapping("/query")
+    public ResponseEntity<TransactionQueryResponse> queryTransactions(
+            @Parameter(description = "Filter expression", example = "amount <= -100 and description ~ 'coffee'")
+            @RequestParam("q") String query,
+            @Parameter(description = "Order: id, amount or createdAt, prefixed with '-' for descending",
+                    example = "-amount")
+            @RequestParam(value = "sort", required = false, defaultValue = "id") String sort,
+            @Parameter(description = "Maximum number of results (max 1000)", example = "100")
+            @RequestParam(value = "limit", required = false, defaultValue = "100") int limit) {
+        return ResponseEntity.ok(TransactionQueryResponse.from(
+                transactionQueryService.query(query, Sort.fromString(sort), limit)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hsbc.banking.transaction.controller;
+
+import com.hsbc.banking.transaction.dto.ErrorDetail;
+import com.hsbc.banking.transaction.dto.PageResponse;
+import com.hsbc.banking.transaction.dto.TransactionResponse;
+import com.hsbc.banking.transaction.model.Page;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.service.TransactionSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "Transaction Management", description = "APIs for managing transactions")
+@RestController
+@RequestMapping("/transactions")
+public class TransactionSearchController {
+    private final TransactionSearchService transactionSearchService;
+
+    public TransactionSearchController(TransactionSearchService transactionSearchService) {
+        this.transactionSearchService = transactionSearchService;
+    }
+
+    @Operation(summary = "Search transactions by description",
+            description = "Returns transactions whose description contains every word of the query, newest first. "
+                    + "A word ending in * matches any word starting with it")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of matching transactions"),
+            @ApiResponse(responseCode = "400", description = "Query without words or with a too short prefix",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ErrorDetail.class)
+                    ))
+    })
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<TransactionResponse>> searchTransactions(
+            @Parameter(description = "Words to search for", example = "coffee sta*")
+            @RequestParam("q") String query,
+            @Parameter(description = "Only transactions of this account", example = "ACC-123456")
+            @RequestParam(value = "accountId", required = false) String accountId,
+            @Parameter(description = "Page number (1-based)", example = "1")
+            @RequestParam(value = "pageNumber", required = false, defaultValue = "1") Integer pageNumber,
+            @Parameter(description = "Page size (max 100)", example = "20")
+            @RequestParam(value = "pageSize", required = false, defaultValue = "20") Integer pageSize) {
+        Page<Transaction> page = transactionSearchService.search(query, accountId, pageNumber, pageSize);
+        List<TransactionResponse> content = page.contents().stream()
+                .map(TransactionResponse::from)
+                .toList();
+        return ResponseEntity.ok(new PageResponse<>(content, page.totalElements()));
+    }
+}
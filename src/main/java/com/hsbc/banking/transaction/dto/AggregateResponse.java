@@ -0,0 +1,39 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionType;
+import com.hsbc.banking.transaction.service.TransactionRollups.Aggregate;
+import com.hsbc.banking.transaction.service.TransactionRollups.Interval;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record AggregateResponse(Interval interval, List<Row> aggregates) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Row(
+            @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+            LocalDateTime bucketStart,
+            String accountId,
+            TransactionType type,
+            TransactionCategory category,
+            long count,
+            Money sum
+    ) {
+    }
+
+    public static AggregateResponse from(Interval interval, List<Aggregate> aggregates) {
+        return new AggregateResponse(interval, aggregates.stream()
+                .map(aggregate -> new Row(
+                        aggregate.bucketStart(),
+                        aggregate.accountId(),
+                        aggregate.type(),
+                        aggregate.category(),
+                        aggregate.count(),
+                        Money.ofMinor(aggregate.sumMinor())))
+                .toList());
+    }
+}
@@ -0,0 +1,37 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hsbc.banking.transaction.service.TransactionBackupService.BackupReport;
+import com.hsbc.banking.transaction.service.TransactionBackupService.RestoreReport;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BackupResponse(
+        String file,
+        long transactions,
+        long auditLogs,
+        Long changesDuringBackup,
+        Long bytes,
+        long durationMs
+) {
+    public static BackupResponse from(BackupReport report) {
+        return new BackupResponse(
+                report.file(),
+                report.transactions(),
+                report.auditLogs(),
+                report.changes(),
+                report.bytes(),
+                report.durationMs()
+        );
+    }
+
+    public static BackupResponse from(RestoreReport report) {
+        return new BackupResponse(
+                report.file(),
+                report.transactions(),
+                report.auditLogs(),
+                null,
+                null,
+                report.durationMs()
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package com.hsbc.banking.transaction.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Items are validated one by one by the service, so that an invalid item only fails itself
+public record BatchCreateTransactionRequest(
+        @NotEmpty(message = "Transactions must not be empty")
+        @Size(max = 1000, message = "A batch cannot contain more than 1000 transactions")
+        List<Item> transactions
+) {
+
+    // Amounts are plain decimals, a Money amount with a third decimal place would fail the whole body
+    public record Item(
+            String orderId,
+            String accountId,
+            BigDecimal amount,
+            String type,
+            String category,
+            String description
+    ) {
+    }
+}
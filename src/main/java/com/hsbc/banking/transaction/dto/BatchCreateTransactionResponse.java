@@ -0,0 +1,41 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hsbc.banking.transaction.model.BatchItemResult;
+import com.hsbc.banking.transaction.model.ErrorCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public record BatchCreateTransactionResponse(int succeeded, int failed, List<Item> results) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(
+            int index,
+            String orderId,
+            String status,
+            TransactionResponse transaction,
+            ErrorCode code,
+            Map<String, Object> data
+    ) {
+    }
+
+    public static BatchCreateTransactionResponse from(List<BatchCreateTransactionRequest.Item> requests,
+                                                      List<BatchItemResult> results) {
+        List<Item> items = new ArrayList<>(results.size());
+        int succeeded = 0;
+        for (int i = 0; i < results.size(); i++) {
+            BatchItemResult result = results.get(i);
+            String orderId = requests.get(i) == null ? null : requests.get(i).orderId();
+            if (result.isSuccess()) {
+                succeeded++;
+                items.add(new Item(i, orderId, "CREATED", TransactionResponse.from(result.transaction()), null, null));
+            } else {
+                items.add(new Item(i, orderId, "FAILED", null,
+                        result.error().getErrorCode(), result.error().getData()));
+            }
+        }
+        return new BatchCreateTransactionResponse(succeeded, results.size() - succeeded, items);
+    }
+}
@@ -1,10 +1,9 @@
 package com.hsbc.banking.transaction.dto;
 
+import com.hsbc.banking.transaction.model.Money;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
-
 public record CreateTransactionRequest(
         @NotBlank(message = "Order ID must not be blank")
         String orderId,
@@ -13,7 +12,7 @@ public record CreateTransactionRequest(
         String accountId,
 
         @NotNull(message = "Amount must not be null")
-        BigDecimal amount,
+        Money amount,
 
         @NotBlank(message = "Transaction type must not be blank")
         String type,
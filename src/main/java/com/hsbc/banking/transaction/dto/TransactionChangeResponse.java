@@ -0,0 +1,24 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.hsbc.banking.transaction.model.TransactionChange;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+
+import java.time.LocalDateTime;
+
+public record TransactionChangeResponse(
+        long offset,
+        TransactionEvent.Type type,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+        LocalDateTime timestamp,
+        TransactionResponse transaction
+) {
+    public static TransactionChangeResponse from(TransactionChange change) {
+        return new TransactionChangeResponse(
+                change.offset(),
+                change.type(),
+                change.timestamp(),
+                TransactionResponse.from(change.transaction())
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.hsbc.banking.transaction.service.TransactionChangeLog.ChangeBatch;
+
+import java.util.List;
+
+public record TransactionChangesResponse(List<TransactionChangeResponse> changes, long nextOffset,
+                                         long earliestOffset) {
+    public static TransactionChangesResponse from(ChangeBatch batch) {
+        return new TransactionChangesResponse(
+                batch.changes().stream().map(TransactionChangeResponse::from).toList(),
+                batch.nextOffset(),
+                batch.earliestOffset()
+        );
+    }
+}
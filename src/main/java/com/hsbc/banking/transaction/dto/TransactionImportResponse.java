@@ -0,0 +1,25 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.hsbc.banking.transaction.service.TransactionImportService.ImportReport;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionImportResponse(
+        long rows,
+        long imported,
+        long rejected,
+        long durationMs,
+        long rowsPerSecond,
+        String errorFile
+) {
+    public static TransactionImportResponse from(ImportReport report) {
+        return new TransactionImportResponse(
+                report.rows(),
+                report.imported(),
+                report.rejected(),
+                report.durationMs(),
+                report.rowsPerSecond(),
+                report.errorFile()
+        );
+    }
+}
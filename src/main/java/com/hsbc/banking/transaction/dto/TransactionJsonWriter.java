@@ -0,0 +1,68 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a transaction with a JsonGenerator in the same shape as TransactionResponse, without
+ * creating the response record. Amounts and timestamps are formatted into a reused buffer,
+ * so an instance belongs to one response and must not be shared between threads.
+ */
+public class TransactionJsonWriter {
+    // Long enough for a formatted amount and for yyyy-MM-ddTHH:mm:ss
+    private final char[] buffer = new char[Money.MAX_FORMATTED_LENGTH];
+
+    public void write(JsonGenerator generator, Transaction transaction) throws IOException {
+        generator.writeStartObject();
+        if (transaction.getId() == null) {
+            generator.writeNullField("id");
+        } else {
+            generator.writeNumberField("id", transaction.getId());
+        }
+        generator.writeStringField("orderId", transaction.getOrderId());
+        generator.writeStringField("accountId", transaction.getAccountId());
+
+        generator.writeFieldName("amount");
+        int start = Money.format(transaction.getAmountMinor(), buffer);
+        generator.writeString(buffer, start, buffer.length - start);
+
+        generator.writeStringField("type", transaction.getType().name());
+        generator.writeStringField("category", transaction.getCategory().name());
+        generator.writeStringField("description", transaction.getDescription());
+        writeDateTime(generator, "createdAt", transaction.getCreatedAt());
+        writeDateTime(generator, "updatedAt", transaction.getUpdatedAt());
+        generator.writeEndObject();
+    }
+
+    // Same output as the yyyy-MM-dd'T'HH:mm:ss pattern of TransactionResponse, for four digit years
+    private void writeDateTime(JsonGenerator generator, String name, LocalDateTime value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+        writeDigits(0, value.getYear(), 4);
+        buffer[4] = '-';
+        writeDigits(5, value.getMonthValue(), 2);
+        buffer[7] = '-';
+        writeDigits(8, value.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        writeDigits(11, value.getHour(), 2);
+        buffer[13] = ':';
+        writeDigits(14, value.getMinute(), 2);
+        buffer[16] = ':';
+        writeDigits(17, value.getSecond(), 2);
+        generator.writeString(buffer, 0, 19);
+    }
+
+    private void writeDigits(int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.hsbc.banking.transaction.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record TransactionLookupRequest(
+        @NotEmpty(message = "IDs must not be empty")
+        @Size(max = 1000, message = "Cannot look up more than 1000 transactions at once")
+        List<@NotNull(message = "ID must not be null") Long> ids
+) {
+}
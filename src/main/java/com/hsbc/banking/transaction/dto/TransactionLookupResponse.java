@@ -0,0 +1,14 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.hsbc.banking.transaction.service.TransactionLookupService.LookupResult;
+
+import java.util.List;
+
+public record TransactionLookupResponse(List<TransactionResponse> transactions, List<Long> missingIds) {
+    public static TransactionLookupResponse from(LookupResult result) {
+        return new TransactionLookupResponse(
+                result.transactions().stream().map(TransactionResponse::from).toList(),
+                result.missingIds()
+        );
+    }
+}
@@ -0,0 +1,16 @@
+package com.hsbc.banking.transaction.dto;
+
+import com.hsbc.banking.transaction.service.TransactionQueryService.QueryResult;
+
+import java.util.List;
+
+public record TransactionQueryResponse(List<TransactionResponse> contents, int size, long scanned, long durationMs) {
+    public static TransactionQueryResponse from(QueryResult result) {
+        return new TransactionQueryResponse(
+                result.transactions().stream().map(TransactionResponse::from).toList(),
+                result.transactions().size(),
+                result.scanned(),
+                result.durationMs()
+        );
+    }
+}
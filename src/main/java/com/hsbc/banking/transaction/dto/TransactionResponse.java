@@ -1,18 +1,17 @@
 package com.hsbc.banking.transaction.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.hsbc.banking.transaction.model.Money;
 import com.hsbc.banking.transaction.model.Transaction;
 import com.hsbc.banking.transaction.model.TransactionType;
 import com.hsbc.banking.transaction.model.TransactionCategory;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public record TransactionResponse(
     Long id,
     String orderId,
     String accountId,
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "#.00")
-    BigDecimal amount,
+    Money amount,
     TransactionType type,
     TransactionCategory category,
     String description,
@@ -26,7 +25,7 @@ public record TransactionResponse(
             transaction.getId(),
             transaction.getOrderId(),
             transaction.getAccountId(),
-            transaction.getAmount(),
+            Money.ofMinor(transaction.getAmountMinor()),
             transaction.getType(),
             transaction.getCategory(),
             transaction.getDescription(),
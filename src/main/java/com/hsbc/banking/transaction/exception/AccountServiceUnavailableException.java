@@ -0,0 +1,14 @@
+package com.hsbc.banking.transaction.exception;
+
+import com.hsbc.banking.transaction.model.ErrorCode;
+
+import java.util.Map;
+
+public class AccountServiceUnavailableException extends AppException {
+    public AccountServiceUnavailableException(String accountId, String message) {
+        super(ErrorCode.ACCOUNT_SERVICE_UNAVAILABLE, Map.of(
+            "accountId", accountId,
+            "message", message
+        ));
+    }
+}
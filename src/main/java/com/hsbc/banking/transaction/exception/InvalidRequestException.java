@@ -0,0 +1,11 @@
+package com.hsbc.banking.transaction.exception;
+
+import com.hsbc.banking.transaction.model.ErrorCode;
+
+import java.util.Map;
+
+public class InvalidRequestException extends AppException {
+    public InvalidRequestException(Map<String, Object> data) {
+        super(ErrorCode.INVALID_REQUEST, data);
+    }
+}
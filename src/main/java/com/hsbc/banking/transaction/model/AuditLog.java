@@ -18,6 +18,15 @@ public class AuditLog {
         this.createdAt = LocalDateTime.now();
     }
 
+    // An audit log read back from storage, as it was stored
+    public static AuditLog restore(Long id, String operation, String entityType, String entityId, String details,
+                                   LocalDateTime createdAt) {
+        AuditLog auditLog = new AuditLog(operation, entityType, entityId, details);
+        auditLog.id = id;
+        auditLog.createdAt = createdAt;
+        return auditLog;
+    }
+
     // Getters
     public Long getId() {
         return id;
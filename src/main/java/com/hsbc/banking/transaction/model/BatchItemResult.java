@@ -0,0 +1,18 @@
+package com.hsbc.banking.transaction.model;
+
+import com.hsbc.banking.transaction.exception.AppException;
+
+// Outcome of one item of a batch: the stored transaction, or the error that rejected it
+public record BatchItemResult(Transaction transaction, AppException error) {
+    public static BatchItemResult success(Transaction transaction) {
+        return new BatchItemResult(transaction, null);
+    }
+
+    public static BatchItemResult failure(AppException error) {
+        return new BatchItemResult(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.hsbc.banking.transaction.model;
+
+import java.util.Arrays;
+
+/**
+ * Case-insensitive lookup of enum constants by name without allocation or exceptions.
+ * Names are hashed with ASCII case folding into an open-addressing table sized so that
+ * most lookups hit on the first probe; a candidate is confirmed by comparing the name.
+ */
+final class EnumLookup<E extends Enum<E>> {
+    private final E[] table;
+    private final int mask;
+
+    EnumLookup(E[] values) {
+        int size = Integer.highestOneBit(Math.max(values.length, 1) * 4 - 1) << 1;
+        this.table = Arrays.copyOf(values, size);
+        Arrays.fill(table, null);
+        this.mask = size - 1;
+        for (E value : values) {
+            int slot = hash(value.name()) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+        }
+    }
+
+    // Returns null for null or unknown names
+    E find(String name) {
+        if (name == null) {
+            return null;
+        }
+        int slot = hash(name) & mask;
+        E candidate;
+        while ((candidate = table[slot]) != null) {
+            if (equalsIgnoreAsciiCase(candidate.name(), name)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int hash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + toUpperAscii(name.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    // Constant names are upper case
+    private static boolean equalsIgnoreAsciiCase(String constantName, String name) {
+        if (constantName.length() != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (constantName.charAt(i) != toUpperAscii(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toUpperAscii(char c) {
+        return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
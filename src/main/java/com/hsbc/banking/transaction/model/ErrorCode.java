@@ -6,7 +6,8 @@ public enum ErrorCode {
     INVALID_REQUEST(400),
     INSUFFICIENT_BALANCE(400),
     CONCURRENT_UPDATE_CONFLICT(409),
-    TRANSACTION_NOT_FOUND(404);
+    TRANSACTION_NOT_FOUND(404),
+    ACCOUNT_SERVICE_UNAVAILABLE(503);
 
     private final int code;
 
@@ -0,0 +1,171 @@
+package com.hsbc.banking.transaction.model;
+
+import com.hsbc.banking.transaction.exception.InvalidTransactionException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Amount of a two-decimal currency held as a long of minor units (cents).
+ * Parsing and formatting work on characters directly, without going through BigDecimal.
+ */
+public record Money(long minorUnits) {
+    public static final int SCALE = 2;
+    // Sign, 19 digits of Long.MIN_VALUE and the decimal point
+    public static final int MAX_FORMATTED_LENGTH = 21;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+            100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L,
+            1_000_000_000_000_000_000L
+    };
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits);
+    }
+
+    public static Money of(BigDecimal amount) {
+        if (amount.scale() > SCALE) {
+            throw invalid(TransactionValidator.AMOUNT_SCALE);
+        }
+        try {
+            return new Money(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException e) {
+            throw invalid(TransactionValidator.AMOUNT_OUT_OF_RANGE);
+        }
+    }
+
+    /**
+     * Parse a plain or exponent decimal such as {@code -100.5}, {@code 100.00} or {@code 1e2}.
+     * Like {@link BigDecimal#scale()}, trailing zeros count as decimal places.
+     *
+     * @throws NumberFormatException       if the text is not a decimal number
+     * @throws InvalidTransactionException if it has more than two decimal places or does not fit a long of cents
+     */
+    public static Money parse(char[] text, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        boolean overflow = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                if (unscaled > (Long.MAX_VALUE - (c - '0')) / 10) {
+                    overflow = true;
+                } else {
+                    unscaled = unscaled * 10 + (c - '0');
+                }
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                scale -= parseExponent(text, i + 1, end);
+                break;
+            } else {
+                throw new NumberFormatException("Not a decimal amount");
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a decimal amount");
+        }
+        if (scale > SCALE) {
+            throw invalid(TransactionValidator.AMOUNT_SCALE);
+        }
+        if (unscaled == 0 && !overflow) {
+            return new Money(0);
+        }
+        int shift = SCALE - scale;
+        if (overflow || shift >= POWERS_OF_TEN.length
+                || unscaled > Long.MAX_VALUE / POWERS_OF_TEN[shift]) {
+            throw invalid(TransactionValidator.AMOUNT_OUT_OF_RANGE);
+        }
+        long minorUnits = unscaled * POWERS_OF_TEN[shift];
+        return new Money(negative ? -minorUnits : minorUnits);
+    }
+
+    private static int parseExponent(char[] text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Not a decimal amount");
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a decimal amount");
+            }
+            // Anything beyond this is out of range either way
+            exponent = Math.min(exponent * 10 + (c - '0'), 1_000);
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    /**
+     * Write the amount in the {@code #.00} format used by the API, e.g. {@code -100.00} or
+     * {@code .50}, right-aligned into the end of the buffer.
+     *
+     * @param buffer at least {@link #MAX_FORMATTED_LENGTH} characters
+     * @return the index of the first written character
+     */
+    public int format(char[] buffer) {
+        return format(minorUnits, buffer);
+    }
+
+    // Same as format(char[]) for a plain long of minor units
+    public static int format(long minorUnits, char[] buffer) {
+        int position = buffer.length;
+        // Work on the negative value so that Long.MIN_VALUE needs no special case
+        long remaining = minorUnits < 0 ? minorUnits : -minorUnits;
+        for (int i = 0; i < SCALE; i++) {
+            buffer[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        buffer[--position] = '.';
+        while (remaining != 0) {
+            buffer[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_FORMATTED_LENGTH];
+        int start = format(buffer);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    private static InvalidTransactionException invalid(String error) {
+        return new InvalidTransactionException(Map.of("errors", List.of(error)));
+    }
+}
@@ -1,22 +1,18 @@
 package com.hsbc.banking.transaction.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.hsbc.banking.transaction.exception.InvalidTransactionException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.regex.Pattern;
 
 public class Transaction {
-    private static final Pattern ORDER_ID_PATTERN = Pattern.compile("^ORD-\\d{6,}$");
-    private static final Pattern ACCOUNT_ID_PATTERN = Pattern.compile("^ACC-\\d{6,}$");
-    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
-    private static final int MAX_DESCRIPTION_LENGTH = 100;
-
     private Long id;
     private String orderId;
     private String accountId;
-    private BigDecimal amount;
+    // Minor units (cents)
+    private long amount;
     private TransactionType type;
     private TransactionCategory category;
     private String description;
@@ -24,90 +20,66 @@ public class Transaction {
     private LocalDateTime updatedAt;
     private Long version;
 
-    private Transaction(String orderId, String accountId, BigDecimal amount, TransactionType type, TransactionCategory category, String description) {
+    private Transaction(String orderId, String accountId, Money amount, TransactionType type, TransactionCategory category, String description) {
+        this(orderId, accountId, amount, type, category, description, LocalDateTime.now());
+    }
+
+    private Transaction(String orderId, String accountId, Money amount, TransactionType type, TransactionCategory category,
+                        String description, LocalDateTime createdAt) {
         this.orderId = orderId;
         this.accountId = accountId;
-        this.amount = amount;
+        this.amount = amount.minorUnits();
         this.type = type;
         this.category = category;
         this.description = description;
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = this.createdAt;
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
         this.version = 0L;
     }
 
     public static Transaction create(String orderId, String accountId, BigDecimal amount, String type, String category, String description) {
-        List<String> errors = validate(orderId, accountId, amount, type, category, description);
+        return create(orderId, accountId, amount == null ? null : Money.of(amount), type, category, description);
+    }
+
+    public static Transaction create(String orderId, String accountId, Money amount, String type, String category, String description) {
+        TransactionType transactionType = TransactionType.lookup(type);
+        TransactionCategory transactionCategory = TransactionCategory.lookup(category);
+        List<String> errors = TransactionValidator.validateCreate(orderId, accountId, amount,
+                type, transactionType, category, transactionCategory, description);
         if (!errors.isEmpty()) {
             throw new InvalidTransactionException(Map.of("errors", errors));
         }
-        return new Transaction(orderId, accountId, amount, TransactionType.fromString(type), TransactionCategory.fromString(category), description);
+        return new Transaction(orderId, accountId, amount, transactionType, transactionCategory, description);
     }
 
-    private static List<String> validate(String orderId, String accountId, BigDecimal amount, String type, String category, String description) {
-        List<String> errors = new ArrayList<>();
-        TransactionType transactionType = null;
-
-        // Validate orderId
-        if (orderId == null || !ORDER_ID_PATTERN.matcher(orderId).matches()) {
-            errors.add("Order ID must start with 'ORD-' followed by at least 6 digits");
-        }
-
-        // Validate accountId
-        if (accountId == null || !ACCOUNT_ID_PATTERN.matcher(accountId).matches()) {
-            errors.add("Account ID must start with 'ACC-' followed by at least 6 digits");
-        }
-
-        // Validate type
-        if (type == null) {
-            errors.add("Transaction type cannot be null");
-        } else {
-            try {
-                transactionType = TransactionType.fromString(type);
-            } catch (IllegalArgumentException e) {
-                errors.add("Invalid transaction type. Valid types are: " + Arrays.toString(TransactionType.values()));
-            }
-        }
-
-        // Validate category
-        if (category == null) {
-            errors.add("Transaction category cannot be null");
-        } else {
-            try {
-                TransactionCategory transactionCategory = TransactionCategory.fromString(category);
-            } catch (IllegalArgumentException e) {
-                errors.add("Invalid transaction category. Valid categories are: " + Arrays.toString(TransactionCategory.values()));
-            }
-        }
-
-        // Validate amount
-        if (amount != null) {
-            if (amount.scale() > 2) {
-                errors.add("Amount cannot have more than 2 decimal places");
-            }
-
-            if (amount.abs().compareTo(MIN_AMOUNT) < 0) {
-                errors.add("Amount absolute value cannot be less than 0.01");
-            }
-
-            // Validate amount sign based on transaction type
-            if (transactionType != null) {
-                if (transactionType == TransactionType.CREDIT && amount.compareTo(BigDecimal.ZERO) <= 0) {
-                    errors.add("Amount must be positive for CREDIT transactions");
-                } else if (transactionType == TransactionType.DEBIT && amount.compareTo(BigDecimal.ZERO) >= 0) {
-                    errors.add("Amount must be negative for DEBIT transactions");
-                }
-            }
-        } else {
-            errors.add("Amount cannot be null");
-        }
+    // A transaction read back from storage, as it was stored; not validated again
+    public static Transaction restore(Long id, String orderId, String accountId, long amountMinor,
+                                      TransactionType type, TransactionCategory category, String description,
+                                      LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+        Transaction transaction = new Transaction(orderId, accountId, Money.ofMinor(amountMinor), type, category,
+                description, createdAt);
+        transaction.id = id;
+        transaction.updatedAt = updatedAt;
+        transaction.version = version;
+        return transaction;
+    }
 
-        // Validate description
-        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
-            errors.add("Description cannot exceed 100 characters");
-        }
+    private Transaction(Transaction source) {
+        this.id = source.id;
+        this.orderId = source.orderId;
+        this.accountId = source.accountId;
+        this.amount = source.amount;
+        this.type = source.type;
+        this.category = source.category;
+        this.description = source.description;
+        this.createdAt = source.createdAt;
+        this.updatedAt = source.updatedAt;
+        this.version = source.version;
+    }
 
-        return errors;
+    // Detached copy of the current state, later changes to this transaction do not affect it
+    public Transaction copy() {
+        return new Transaction(this);
     }
 
     // Getters and Setters
@@ -136,11 +108,16 @@ public class Transaction {
     }
 
     public BigDecimal getAmount() {
-        return amount;
+        return BigDecimal.valueOf(amount, Money.SCALE);
     }
 
     public void setAmount(BigDecimal amount) {
-        this.amount = amount;
+        this.amount = Money.of(amount).minorUnits();
+    }
+
+    @JsonIgnore
+    public long getAmountMinor() {
+        return amount;
     }
 
     public TransactionType getType() {
@@ -35,6 +35,8 @@ public enum TransactionCategory {
     // Other
     OTHER("Other", "Uncategorized transaction");
 
+    private static final EnumLookup<TransactionCategory> LOOKUP = new EnumLookup<>(values());
+
     private final String displayName;
     private final String description;
 
@@ -52,7 +54,16 @@ public enum TransactionCategory {
     }
 
     public static TransactionCategory fromString(String category) {
-        return valueOf(category.toUpperCase());
+        TransactionCategory result = LOOKUP.find(category);
+        if (result == null) {
+            throw new IllegalArgumentException("No enum constant " + TransactionCategory.class.getName() + "." + category);
+        }
+        return result;
+    }
+
+    // Case-insensitive lookup returning null instead of throwing for unknown names
+    public static TransactionCategory lookup(String category) {
+        return LOOKUP.find(category);
     }
 
     @Override
@@ -0,0 +1,8 @@
+package com.hsbc.banking.transaction.model;
+
+import java.time.LocalDateTime;
+
+// Entry of the change log: what happened to a transaction, and its state right after the change
+public record TransactionChange(long offset, TransactionEvent.Type type, LocalDateTime timestamp,
+                                Transaction transaction) {
+}
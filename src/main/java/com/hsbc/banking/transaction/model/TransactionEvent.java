@@ -0,0 +1,31 @@
+package com.hsbc.banking.transaction.model;
+
+// Published by the service after a transaction change has been stored, with a snapshot of the
+// transaction taken at that point; updates also carry the state before the change
+public record TransactionEvent(Type type, Transaction transaction, Transaction previous) {
+    public enum Type {
+        // Archived transactions left the repository for the archive, they are still found by ID
+        CREATED, UPDATED, DELETED, ARCHIVED;
+
+        public boolean removes() {
+            return this == DELETED || this == ARCHIVED;
+        }
+    }
+
+    public static TransactionEvent created(Transaction transaction) {
+        return new TransactionEvent(Type.CREATED, transaction.copy(), null);
+    }
+
+    // previous must already be a copy, taken before the transaction was changed
+    public static TransactionEvent updated(Transaction previous, Transaction transaction) {
+        return new TransactionEvent(Type.UPDATED, transaction.copy(), previous);
+    }
+
+    public static TransactionEvent deleted(Transaction transaction) {
+        return new TransactionEvent(Type.DELETED, transaction.copy(), null);
+    }
+
+    public static TransactionEvent archived(Transaction transaction) {
+        return new TransactionEvent(Type.ARCHIVED, transaction.copy(), null);
+    }
+}
@@ -23,6 +23,8 @@ public enum TransactionType {
     CHARGE("Charge", "General charge"),
     REFUND("Refund", "Refund payment");
 
+    private static final EnumLookup<TransactionType> LOOKUP = new EnumLookup<>(values());
+
     private final String displayName;
     private final String description;
 
@@ -40,7 +42,16 @@ public enum TransactionType {
     }
 
     public static TransactionType fromString(String value) {
-        return valueOf(value.toUpperCase());
+        TransactionType result = LOOKUP.find(value);
+        if (result == null) {
+            throw new IllegalArgumentException("No enum constant " + TransactionType.class.getName() + "." + value);
+        }
+        return result;
+    }
+
+    // Case-insensitive lookup returning null instead of throwing for unknown names
+    public static TransactionType lookup(String value) {
+        return LOOKUP.find(value);
     }
 
     // Detect if the transaction type is a credit transaction, i.e. money is added to the account from bank's perspective
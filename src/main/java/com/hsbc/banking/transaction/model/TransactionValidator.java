@@ -0,0 +1,133 @@
+package com.hsbc.banking.transaction.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Validation of transaction input. Ids are checked with character scanners instead of regular
+ * expressions and enum names are resolved without exceptions, so validating valid input does
+ * not allocate; the error list is only created once the first error is found.
+ */
+public final class TransactionValidator {
+    static final String INVALID_ORDER_ID = "Order ID must start with 'ORD-' followed by at least 6 digits";
+    static final String INVALID_ACCOUNT_ID = "Account ID must start with 'ACC-' followed by at least 6 digits";
+    static final String ORDER_ID_TOO_LONG = "Order ID cannot exceed 64 characters";
+    static final String ACCOUNT_ID_TOO_LONG = "Account ID cannot exceed 64 characters";
+    static final String NULL_TYPE = "Transaction type cannot be null";
+    static final String INVALID_TYPE =
+            "Invalid transaction type. Valid types are: " + Arrays.toString(TransactionType.values());
+    static final String NULL_CATEGORY = "Transaction category cannot be null";
+    static final String INVALID_CATEGORY =
+            "Invalid transaction category. Valid categories are: " + Arrays.toString(TransactionCategory.values());
+    static final String NULL_AMOUNT = "Amount cannot be null";
+    static final String AMOUNT_SCALE = "Amount cannot have more than 2 decimal places";
+    static final String AMOUNT_OUT_OF_RANGE = "Amount is out of range";
+    static final String AMOUNT_TOO_SMALL = "Amount absolute value cannot be less than 0.01";
+    static final String CREDIT_NOT_POSITIVE = "Amount must be positive for CREDIT transactions";
+    static final String DEBIT_NOT_NEGATIVE = "Amount must be negative for DEBIT transactions";
+    static final String DESCRIPTION_TOO_LONG = "Description cannot exceed 100 characters";
+
+    private static final int MIN_ID_DIGITS = 6;
+    // Width of the ID columns of the JDBC store
+    private static final int MAX_ID_LENGTH = 64;
+    private static final int MAX_DESCRIPTION_LENGTH = 100;
+
+    private TransactionValidator() {
+    }
+
+    /**
+     * Validate the input of a new transaction. The type and category are passed both as received
+     * and as resolved by the caller, so that each name is only looked up once.
+     *
+     * @return the validation errors, an empty immutable list when the input is valid
+     */
+    public static List<String> validateCreate(String orderId, String accountId, Money amount,
+                                              String type, TransactionType transactionType,
+                                              String category, TransactionCategory transactionCategory,
+                                              String description) {
+        List<String> errors = null;
+
+        if (orderId != null && orderId.length() > MAX_ID_LENGTH) {
+            errors = add(errors, ORDER_ID_TOO_LONG);
+        } else if (!isValidId(orderId, 'O', 'R', 'D')) {
+            errors = add(errors, INVALID_ORDER_ID);
+        }
+        if (accountId != null && accountId.length() > MAX_ID_LENGTH) {
+            errors = add(errors, ACCOUNT_ID_TOO_LONG);
+        } else if (!isValidId(accountId, 'A', 'C', 'C')) {
+            errors = add(errors, INVALID_ACCOUNT_ID);
+        }
+
+        if (type == null) {
+            errors = add(errors, NULL_TYPE);
+        } else if (transactionType == null) {
+            errors = add(errors, INVALID_TYPE);
+        }
+
+        errors = validateCategory(errors, category, transactionCategory);
+
+        // More than two decimal places are rejected when the amount is parsed into Money
+        if (amount == null) {
+            errors = add(errors, NULL_AMOUNT);
+        } else {
+            if (amount.minorUnits() == 0) {
+                errors = add(errors, AMOUNT_TOO_SMALL);
+            }
+            if (transactionType == TransactionType.CREDIT && amount.signum() <= 0) {
+                errors = add(errors, CREDIT_NOT_POSITIVE);
+            } else if (transactionType == TransactionType.DEBIT && amount.signum() >= 0) {
+                errors = add(errors, DEBIT_NOT_NEGATIVE);
+            }
+        }
+
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            errors = add(errors, DESCRIPTION_TOO_LONG);
+        }
+
+        return errors == null ? List.of() : errors;
+    }
+
+    // Validate the category of an update, which is the only field an update resolves
+    public static List<String> validateUpdate(String category, TransactionCategory transactionCategory) {
+        List<String> errors = validateCategory(null, category, transactionCategory);
+        return errors == null ? List.of() : errors;
+    }
+
+    /**
+     * Scan for a three letter prefix, a dash and at least six ASCII digits,
+     * equivalent to the pattern {@code ^XXX-\d{6,}$}.
+     */
+    static boolean isValidId(String id, char first, char second, char third) {
+        if (id == null || id.length() < 4 + MIN_ID_DIGITS) {
+            return false;
+        }
+        if (id.charAt(0) != first || id.charAt(1) != second || id.charAt(2) != third || id.charAt(3) != '-') {
+            return false;
+        }
+        for (int i = 4; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> validateCategory(List<String> errors, String category,
+                                                 TransactionCategory transactionCategory) {
+        if (category == null) {
+            return add(errors, NULL_CATEGORY);
+        }
+        if (transactionCategory == null) {
+            return add(errors, INVALID_CATEGORY);
+        }
+        return errors;
+    }
+
+    private static List<String> add(List<String> errors, String error) {
+        List<String> result = errors == null ? new ArrayList<>(4) : errors;
+        result.add(error);
+        return result;
+    }
+}
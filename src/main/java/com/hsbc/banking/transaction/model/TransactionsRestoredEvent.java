@@ -0,0 +1,8 @@
+package com.hsbc.banking.transaction.model;
+
+import java.util.List;
+
+// Published after a backup replaced every stored transaction, and at startup over the transactions a durable store
+// kept; views built from transaction events start over from these
+public record TransactionsRestoredEvent(List<Transaction> transactions) {
+}
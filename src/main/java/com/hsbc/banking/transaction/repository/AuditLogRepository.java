@@ -1,9 +1,29 @@
 package com.hsbc.banking.transaction.repository;
 
 import com.hsbc.banking.transaction.model.AuditLog;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AuditLogRepository {
     AuditLog save(AuditLog auditLog);
     List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId);
+
+    // Audit logs of several entities of one type, in no particular order
+    default List<AuditLog> findByEntityTypeAndEntityIds(String entityType, Collection<String> entityIds) {
+        List<AuditLog> found = new ArrayList<>();
+        for (String entityId : entityIds) {
+            found.addAll(findByEntityTypeAndEntityId(entityType, entityId));
+        }
+        return found;
+    }
+
+    void deleteAllById(Collection<Long> ids);
+
+    // All audit logs, read lazily in no particular order
+    Stream<AuditLog> stream();
+
+    // Replaces all audit logs with the given ones, keeping their IDs, for restoring backups
+    void restore(List<AuditLog> auditLogs);
 } 
\ No newline at end of file
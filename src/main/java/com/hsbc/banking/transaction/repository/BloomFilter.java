@@ -0,0 +1,88 @@
+package com.hsbc.banking.transaction.repository;
+
+/**
+ * Bloom filter over byte[] keys with double hashing: the k probes are {@code h1 + i * h2} of one 64-bit hash.
+ * Around 10 bits per key gives about 1% false positives.
+ */
+final class BloomFilter {
+    private final long[] bits;
+    private final int hashes;
+    private final long bitCount;
+
+    private BloomFilter(long[] bits, int hashes) {
+        this.bits = bits;
+        this.hashes = hashes;
+        this.bitCount = (long) bits.length * Long.SIZE;
+    }
+
+    static BloomFilter create(int expectedKeys, int bitsPerKey) {
+        long bitCount = Math.max(Long.SIZE, (long) expectedKeys * bitsPerKey);
+        int hashes = Math.max(1, Math.min(30, (int) Math.round(bitsPerKey * Math.log(2))));
+        return new BloomFilter(new long[(int) ((bitCount + Long.SIZE - 1) / Long.SIZE)], hashes);
+    }
+
+    static BloomFilter of(long[] bits, int hashes) {
+        return new BloomFilter(bits, hashes);
+    }
+
+    void add(byte[] key) {
+        addHash(hash(key));
+    }
+
+    void addHash(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(byte[] key) {
+        return mightContainHash(hash(key));
+    }
+
+    boolean mightContainHash(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Keys it holds at its number of bits per key
+    long capacity(int bitsPerKey) {
+        return (long) bits.length * Long.SIZE / bitsPerKey;
+    }
+
+    long[] bits() {
+        return bits;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    // FNV-1a followed by the murmur3 64-bit finalizer, so both halves are well mixed
+    static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // The murmur3 64-bit finalizer
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,336 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.TransactionEventLog.CategoryChanged;
+import com.hsbc.banking.transaction.repository.TransactionEventLog.Created;
+import com.hsbc.banking.transaction.repository.TransactionEventLog.Deleted;
+import com.hsbc.banking.transaction.repository.TransactionEventLog.DescriptionChanged;
+import com.hsbc.banking.transaction.repository.TransactionEventLog.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Transaction store whose only durable state is the {@link TransactionEventLog}: a save appends a created
+ * event, an update one event per changed field and a delete a deleted event. The transactions by ID, the
+ * order ID index and the count are projections of the log held in memory, rebuilt from it at startup by
+ * {@code rebuildThreads} threads, each replaying the events of its own share of the IDs.
+ * <p>
+ * Writes are serialized: the checks for duplicate order IDs and stale versions, the append and applying
+ * the events to the projections happen under one lock, so a write is visible to reads once it returns.
+ * Reads never take the lock and return copies. Updates only record the category and the description,
+ * the fields a transaction can be updated in; other changed fields are ignored.
+ */
+public class EventSourcedTransactionRepositoryImpl implements TransactionRepository, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(EventSourcedTransactionRepositoryImpl.class);
+    private static final String LOG_FILE = "transactions.events";
+    private static final int RESTORE_BATCH_SIZE = 1_000;
+
+    private final ConcurrentSkipListMap<Long, Transaction> transactions = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> orderIds = new ConcurrentHashMap<>();
+    private final LongAdder count = new LongAdder();
+    private final Object writeLock = new Object();
+    private final IdGenerator idGenerator;
+    private final TransactionEventLog log;
+
+    public EventSourcedTransactionRepositoryImpl(IdGenerator idGenerator, Path directory, boolean syncWrites,
+                                                 int rebuildThreads) {
+        this.idGenerator = idGenerator;
+        int threads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        // Deleted transactions leave no projection, their IDs still must not be handed out again
+        LongAccumulator maxId = new LongAccumulator(Math::max, 0);
+        try {
+            this.log = TransactionEventLog.open(directory.resolve(LOG_FILE), syncWrites, threads, event -> {
+                maxId.accumulate(event.transactionId());
+                project(event);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open transaction event log in " + directory, e);
+        }
+        // Built from the final state, a deleted transaction's order ID may belong to one in another share
+        transactions.values().parallelStream()
+                .forEach(transaction -> orderIds.put(transaction.getOrderId(), transaction.getId()));
+        idGenerator.advancePast(maxId.get());
+        if (log.eventCount() > 0) {
+            logger.info("Rebuilt {} transactions from {} events in {} ms with {} threads", count.sum(),
+                    log.eventCount(), (System.nanoTime() - start) / 1_000_000, threads);
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        synchronized (writeLock) {
+            if (orderIds.containsKey(transaction.getOrderId())) {
+                throw new DuplicateTransactionException(
+                        Map.of("orderId", transaction.getOrderId(),
+                                "message", "Transaction with order ID already exists")
+                );
+            }
+            transaction.setId(idGenerator.nextId());
+            append(List.of(new Created(transaction.copy())));
+            return transaction;
+        }
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        synchronized (writeLock) {
+            List<Transaction> stored = new ArrayList<>(batch.size());
+            List<Event> events = new ArrayList<>(batch.size());
+            Set<String> batchOrderIds = new HashSet<>();
+            for (Transaction transaction : batch) {
+                String orderId = transaction.getOrderId();
+                if (orderIds.containsKey(orderId) || !batchOrderIds.add(orderId)) {
+                    continue;
+                }
+                transaction.setId(idGenerator.nextId());
+                stored.add(transaction);
+                events.add(new Created(transaction.copy()));
+            }
+            if (!events.isEmpty()) {
+                append(events);
+            }
+            return stored;
+        }
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        Long id = transaction.getId();
+        synchronized (writeLock) {
+            Transaction existingTransaction = id == null ? null : transactions.get(id);
+            if (existingTransaction == null) {
+                throw new TransactionNotFoundException(id);
+            }
+            if (!existingTransaction.getVersion().equals(transaction.getVersion())) {
+                throw new ConcurrentUpdateException(Map.of(
+                    "transactionId", id,
+                    "message", "Transaction was updated by another user",
+                    "currentVersion", existingTransaction.getVersion(),
+                    "requestVersion", transaction.getVersion()
+                ));
+            }
+
+            long version = transaction.getVersion() + 1;
+            LocalDateTime updatedAt = transaction.getUpdatedAt() != null
+                    ? transaction.getUpdatedAt() : LocalDateTime.now();
+            List<Event> events = new ArrayList<>(2);
+            boolean descriptionChanged = !Objects.equals(existingTransaction.getDescription(),
+                    transaction.getDescription());
+            // An update changing nothing still produces a new version
+            if (existingTransaction.getCategory() != transaction.getCategory() || !descriptionChanged) {
+                events.add(new CategoryChanged(id, version, updatedAt, transaction.getCategory()));
+            }
+            if (descriptionChanged) {
+                events.add(new DescriptionChanged(id, version, updatedAt, transaction.getDescription()));
+            }
+            append(events);
+            transaction.incrementVersion();
+            return transaction;
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(transactions.get(id)).map(Transaction::copy);
+    }
+
+    @Override
+    public Optional<Transaction> findByOrderId(String orderId) {
+        Long id = orderIds.get(orderId);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public List<Transaction> findAll(int offset, int limit) {
+        return stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Transaction> findAfter(long afterId, int limit) {
+        return transactions.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(Transaction::copy)
+                .toList();
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        return transactions.values().stream().map(Transaction::copy);
+    }
+
+    @Override
+    public Spliterator<Transaction> spliterator() {
+        // Splits into contiguous ID ranges of the projection
+        return IdRangeSpliterator.over(transactions, Transaction::copy);
+    }
+
+    @Override
+    public long count() {
+        return count.sum();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (transactions.containsKey(id)) {
+                append(List.of(new Deleted(id)));
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteIfVersion(Long id, long version) {
+        synchronized (writeLock) {
+            Transaction transaction = transactions.get(id);
+            if (transaction == null || transaction.getVersion() != version) {
+                return false;
+            }
+            append(List.of(new Deleted(id)));
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            try {
+                log.truncate();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot clear transaction event log", e);
+            }
+            transactions.clear();
+            orderIds.clear();
+            count.reset();
+            idGenerator.reset();
+        }
+    }
+
+    @Override
+    public void restore(List<Transaction> restored, long idFence) {
+        synchronized (writeLock) {
+            clear();
+            try {
+                // A deleted event of the fence, so replay at startup advances the generator past it too
+                log.append(List.of(new Deleted(idFence)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot append to transaction event log", e);
+            }
+            long maxId = idFence;
+            List<Event> events = new ArrayList<>(Math.min(restored.size(), RESTORE_BATCH_SIZE));
+            for (Transaction transaction : restored) {
+                events.add(new Created(transaction.copy()));
+                maxId = Math.max(maxId, transaction.getId());
+                if (events.size() == RESTORE_BATCH_SIZE) {
+                    append(events);
+                    events = new ArrayList<>(RESTORE_BATCH_SIZE);
+                }
+            }
+            if (!events.isEmpty()) {
+                append(events);
+            }
+            idGenerator.advancePast(maxId);
+        }
+    }
+
+    // Events in the log, the transactions' whole history including deleted ones
+    public long eventCount() {
+        return log.eventCount();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        log.close();
+    }
+
+    // Appends the events, then applies them to the projections; the caller holds the write lock
+    private void append(List<Event> events) {
+        try {
+            log.append(events);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to transaction event log", e);
+        }
+        for (Event event : events) {
+            if (event instanceof Deleted deleted) {
+                Transaction removed = transactions.get(deleted.transactionId());
+                orderIds.remove(removed.getOrderId(), removed.getId());
+            }
+            project(event);
+            if (event instanceof Created created) {
+                orderIds.put(created.transaction().getOrderId(), created.transactionId());
+            }
+        }
+    }
+
+    // Applies an event to the transactions by ID and the count; replay calls it from several threads
+    private void project(Event event) {
+        switch (event) {
+            case Created created -> {
+                if (transactions.put(created.transactionId(), created.transaction()) == null) {
+                    count.increment();
+                }
+            }
+            case CategoryChanged changed -> transactions.computeIfPresent(changed.transactionId(), (id, current) -> {
+                // A new instance, a read copying the current one never sees half an update
+                Transaction next = current.copy();
+                next.setCategory(changed.category());
+                next.setUpdatedAt(changed.updatedAt());
+                next.setVersion(changed.version());
+                return next;
+            });
+            case DescriptionChanged changed -> transactions.computeIfPresent(changed.transactionId(), (id, current) -> {
+                Transaction next = current.copy();
+                next.setDescription(changed.description());
+                next.setUpdatedAt(changed.updatedAt());
+                next.setVersion(changed.version());
+                return next;
+            });
+            case Deleted deleted -> {
+                if (transactions.remove(deleted.transactionId()) != null) {
+                    count.decrement();
+                }
+            }
+        }
+    }
+}
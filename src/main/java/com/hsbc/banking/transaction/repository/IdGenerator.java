@@ -0,0 +1,26 @@
+package com.hsbc.banking.transaction.repository;
+
+/**
+ * Source of the IDs repositories assign to new entities. IDs are positive and unique per generator;
+ * whether they increase in creation order depends on the implementation.
+ */
+public interface IdGenerator {
+    long nextId();
+
+    // Start over from the first ID, for repositories that are cleared; generators without a fixed start ignore it
+    default void reset() {
+    }
+
+    // Only hand out IDs above the given one, for repositories that recover stored IDs at startup
+    default void advancePast(long id) {
+    }
+
+    /**
+     * Whether every ID is higher than all IDs the generator returned before it was asked for. Search results
+     * are newest first and keyset pages see transactions created behind their cursor only when this holds;
+     * otherwise both are in ID order only.
+     */
+    default boolean increasesInCreationOrder() {
+        return false;
+    }
+}
@@ -0,0 +1,92 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.Transaction;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Spliterator over the transactions of a skip list keyed by ID, between two IDs inclusive. Until it is
+ * first advanced it splits by halving its ID range, each half read as a {@code subMap} of the skip list,
+ * so parallel scans get contiguous ID ranges of their own. The skip list's own value spliterator does not
+ * split before it is advanced.
+ * <p>
+ * The {@code view} maps a stored transaction to the one handed out, or to null to skip it.
+ */
+final class IdRangeSpliterator implements Spliterator<Transaction> {
+    private final ConcurrentNavigableMap<Long, Transaction> transactions;
+    private final UnaryOperator<Transaction> view;
+    private long from;
+    private long to;
+    private Iterator<Transaction> iterator;
+
+    private IdRangeSpliterator(ConcurrentNavigableMap<Long, Transaction> transactions, long from, long to,
+                               UnaryOperator<Transaction> view) {
+        this.transactions = transactions;
+        this.from = from;
+        this.to = to;
+        this.view = view;
+    }
+
+    static Spliterator<Transaction> over(ConcurrentNavigableMap<Long, Transaction> transactions,
+                                         UnaryOperator<Transaction> view) {
+        if (transactions.isEmpty()) {
+            return Spliterators.emptySpliterator();
+        }
+        try {
+            return new IdRangeSpliterator(transactions, transactions.firstKey(), transactions.lastKey(), view);
+        } catch (NoSuchElementException e) {
+            // Emptied by a concurrent delete
+            return Spliterators.emptySpliterator();
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Transaction> action) {
+        if (iterator == null) {
+            iterator = transactions.subMap(from, true, to, true).values().iterator();
+        }
+        while (iterator.hasNext()) {
+            Transaction transaction = view.apply(iterator.next());
+            if (transaction != null) {
+                action.accept(transaction);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<Transaction> trySplit() {
+        if (iterator != null) {
+            return null;
+        }
+        // Narrowed to the IDs present, so sparse ID ranges do not split into empty halves
+        Long first = transactions.ceilingKey(from);
+        Long last = transactions.floorKey(to);
+        if (first == null || last == null || first >= last) {
+            return null;
+        }
+        long middle = first + (last - first) / 2;
+        Spliterator<Transaction> prefix = new IdRangeSpliterator(transactions, first, middle, view);
+        from = middle + 1;
+        to = last;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long ids = to - from + 1;
+        return ids > 0 ? ids : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.CONCURRENT;
+    }
+}
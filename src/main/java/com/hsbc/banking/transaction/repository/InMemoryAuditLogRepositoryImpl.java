@@ -1,22 +1,40 @@
 package com.hsbc.banking.transaction.repository;
 
 import com.hsbc.banking.transaction.model.AuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
+// The JDBC repositories keep audit logs in the database next to the transactions; with every other
+// repository type, the durable lsm and event-sourced ones too, audit logs are held here and lost on restart
+@ConditionalOnExpression("'${transaction.repository.type:in-memory}' != 'jdbc'")
 public class InMemoryAuditLogRepositoryImpl implements AuditLogRepository {
     private final Map<Long, AuditLog> auditLogs = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final IdGenerator idGenerator;
+
+    public InMemoryAuditLogRepositoryImpl() {
+        this(new SequentialIdGenerator());
+    }
+
+    @Autowired
+    public InMemoryAuditLogRepositoryImpl(@Qualifier("auditLogIdGenerator") IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
 
     @Override
     public AuditLog save(AuditLog auditLog) {
-        auditLog.setId(idGenerator.getAndIncrement());
+        auditLog.setId(idGenerator.nextId());
         auditLogs.put(auditLog.getId(), auditLog);
         return auditLog;
     }
@@ -27,4 +45,34 @@ public class InMemoryAuditLogRepositoryImpl implements AuditLogRepository {
                 .filter(log -> log.getEntityType().equals(entityType) && log.getEntityId().equals(entityId))
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public List<AuditLog> findByEntityTypeAndEntityIds(String entityType, Collection<String> entityIds) {
+        // One pass over all audit logs instead of one per entity
+        Set<String> wanted = new HashSet<>(entityIds);
+        return auditLogs.values().stream()
+                .filter(log -> log.getEntityType().equals(entityType) && wanted.contains(log.getEntityId()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        ids.forEach(auditLogs::remove);
+    }
+
+    @Override
+    public Stream<AuditLog> stream() {
+        return auditLogs.values().stream();
+    }
+
+    @Override
+    public void restore(List<AuditLog> restored) {
+        auditLogs.clear();
+        long maxId = 0;
+        for (AuditLog auditLog : restored) {
+            auditLogs.put(auditLog.getId(), auditLog);
+            maxId = Math.max(maxId, auditLog.getId());
+        }
+        idGenerator.advancePast(maxId);
+    }
 } 
\ No newline at end of file
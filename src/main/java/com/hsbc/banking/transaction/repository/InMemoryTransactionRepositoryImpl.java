@@ -4,100 +4,333 @@ import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
 import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
 import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
 import com.hsbc.banking.transaction.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Transactions in a skip list ordered by ID, with a hash index on the order ID.
+ * <p>
+ * A delete only records a tombstone for the ID, which hides the transaction from every read. A sweeper
+ * removes tombstoned transactions from the skip list and the order ID index in batches of
+ * {@code purgeBatchSize} every {@code purgeInterval}; the order ID of a deleted transaction stays taken until
+ * it is purged. With a zero purge interval there is no sweeper and every delete purges right away.
+ */
 @Repository
-public class InMemoryTransactionRepositoryImpl implements TransactionRepository {
+@ConditionalOnProperty(prefix = "transaction.repository", name = "type", havingValue = "in-memory",
+        matchIfMissing = true)
+public class InMemoryTransactionRepositoryImpl implements TransactionRepository, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryTransactionRepositoryImpl.class);
+    private static final int LOCK_STRIPES = 64;
+    private static final int DEFAULT_PURGE_BATCH_SIZE = 10_000;
+
     private final ConcurrentSkipListMap<Long, Transaction> transactions = new ConcurrentSkipListMap<>();
     private final Map<String, Transaction> orderIdIndex = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    // Deleted transactions that are still in the skip list, until the sweeper removes them
+    private final Map<Long, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private final Queue<Tombstone> purgeQueue = new ConcurrentLinkedQueue<>();
+    // Version check and write of an update, deletes and purges are serialized per ID
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder size = new LongAdder();
+    private final IdGenerator idGenerator;
+    private final int purgeBatchSize;
+    private final ScheduledExecutorService sweeper;
+
+    public InMemoryTransactionRepositoryImpl() {
+        this(new SequentialIdGenerator());
+    }
+
+    public InMemoryTransactionRepositoryImpl(IdGenerator idGenerator) {
+        this(idGenerator, Duration.ZERO, DEFAULT_PURGE_BATCH_SIZE);
+    }
+
+    @Autowired
+    public InMemoryTransactionRepositoryImpl(
+            @Qualifier("transactionIdGenerator") IdGenerator idGenerator,
+            @Value("${transaction.repository.purge-interval:1s}") Duration purgeInterval,
+            @Value("${transaction.repository.purge-batch-size:10000}") int purgeBatchSize) {
+        if (purgeBatchSize < 1) {
+            throw new IllegalArgumentException("Purge batch size must be positive: " + purgeBatchSize);
+        }
+        this.idGenerator = idGenerator;
+        this.purgeBatchSize = purgeBatchSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        if (purgeInterval.isZero() || purgeInterval.isNegative()) {
+            this.sweeper = null;
+        } else {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "transaction-purge");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::purgeQuietly, purgeInterval.toMillis(),
+                    purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
 
     @Override
     public Transaction save(Transaction transaction) {
         // check if transaction with order ID already exists, which means it's a duplicate transaction
-        if (orderIdIndex.containsKey(transaction.getOrderId())) {
+        // putIfAbsent claims the order ID atomically, so concurrent saves and batches cannot both store it
+        if (!tryClaimOrderId(transaction)) {
             throw new DuplicateTransactionException(
                     Map.of("orderId", transaction.getOrderId(),
                             "message", "Transaction with order ID already exists")
             );
         }
 
-        Long id = idGenerator.getAndIncrement();
+        Long id = idGenerator.nextId();
         transaction.setId(id);
         
         transactions.put(id, transaction);
-        orderIdIndex.put(transaction.getOrderId(), transaction);
+        size.increment();
         
         return transaction;
     }
 
     @Override
-    public Transaction update(Transaction transaction) {
-        Transaction existingTransaction = transactions.get(transaction.getId());
-        if (existingTransaction == null) {
-            throw new TransactionNotFoundException(transaction.getId());
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        List<Transaction> claimed = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            if (tryClaimOrderId(transaction)) {
+                claimed.add(transaction);
+            }
         }
 
-        // check if the version of the existing transaction matches the version of the request
-        if (!existingTransaction.getVersion().equals(transaction.getVersion())) {
-            throw new ConcurrentUpdateException(Map.of(
-                "transactionId", transaction.getId(),
-                "message", "Transaction was updated by another user",
-                "currentVersion", existingTransaction.getVersion(),
-                "requestVersion", transaction.getVersion()
-            ));
+        for (Transaction transaction : claimed) {
+            transaction.setId(idGenerator.nextId());
+            transactions.put(transaction.getId(), transaction);
         }
+        size.add(claimed.size());
+        return claimed;
+    }
 
-        // update the transaction and increment the version
-        transaction.incrementVersion();
-        transactions.put(transaction.getId(), transaction);
-        return transaction;
+    @Override
+    public Transaction update(Transaction transaction) {
+        synchronized (lockFor(transaction.getId())) {
+            Transaction existingTransaction = transactions.get(transaction.getId());
+            if (existingTransaction == null || isDeleted(transaction.getId())) {
+                throw new TransactionNotFoundException(transaction.getId());
+            }
+
+            // check if the version of the existing transaction matches the version of the request
+            if (!existingTransaction.getVersion().equals(transaction.getVersion())) {
+                throw new ConcurrentUpdateException(Map.of(
+                    "transactionId", transaction.getId(),
+                    "message", "Transaction was updated by another user",
+                    "currentVersion", existingTransaction.getVersion(),
+                    "requestVersion", transaction.getVersion()
+                ));
+            }
+
+            // update the transaction and increment the version
+            transaction.incrementVersion();
+            transactions.put(transaction.getId(), transaction);
+            return transaction;
+        }
     }
 
     @Override
     public Optional<Transaction> findById(Long id) {
-        return Optional.ofNullable(transactions.get(id));
+        Transaction transaction = transactions.get(id);
+        return transaction == null || isDeleted(id) ? Optional.empty() : Optional.of(transaction);
     }
 
     @Override
     public Optional<Transaction> findByOrderId(String orderId) {
-        return Optional.ofNullable(orderIdIndex.get(orderId));
+        Transaction transaction = orderIdIndex.get(orderId);
+        return transaction == null || isDeleted(transaction.getId()) ? Optional.empty() : Optional.of(transaction);
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Transaction transaction = transactions.get(id);
+            if (transaction != null && !isDeleted(id)) {
+                found.add(transaction);
+            }
+        }
+        return found;
     }
 
     @Override
     public List<Transaction> findAll(int offset, int limit) {
-        return transactions.values().stream()
+        return stream()
                 .skip(offset)
                 .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Transaction> findAfter(long afterId, int limit) {
+        return transactions.tailMap(afterId, false).values().stream()
+                .filter(this::isLive)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        return transactions.values().stream().filter(this::isLive);
+    }
+
+    @Override
+    public Spliterator<Transaction> spliterator() {
+        // Splits into contiguous ID ranges of the skip list, deleted transactions are skipped
+        return IdRangeSpliterator.over(transactions, transaction -> isLive(transaction) ? transaction : null);
+    }
+
     @Override
     public long count() {
-        return transactions.size();
+        return size.sum();
     }
 
     @Override
     public void deleteById(Long id) {
-        Transaction transaction = transactions.get(id);
-        if (transaction != null) {
-            transactions.remove(id);
-            orderIdIndex.remove(transaction.getOrderId());
-        }
+        delete(id, null);
+    }
+
+    @Override
+    public boolean deleteIfVersion(Long id, long version) {
+        return delete(id, version);
     }
 
     @Override
     public void clear() {
         transactions.clear();
         orderIdIndex.clear();
-        idGenerator.set(1);
+        tombstones.clear();
+        purgeQueue.clear();
+        size.reset();
+        idGenerator.reset();
+    }
+
+    @Override
+    public void restore(List<Transaction> restored, long idFence) {
+        clear();
+        long maxId = idFence;
+        // Straight into the maps, the backup was taken from a store that already enforced unique order IDs.
+        // Concurrent writes would interleave with the puts; the backup service holds them at the write gate
+        for (Transaction transaction : restored) {
+            transactions.put(transaction.getId(), transaction);
+            orderIdIndex.put(transaction.getOrderId(), transaction);
+            maxId = Math.max(maxId, transaction.getId());
+        }
+        size.add(restored.size());
+        idGenerator.advancePast(maxId);
+    }
+
+    /**
+     * Removes up to {@code purgeBatchSize} deleted transactions from the skip list and the order ID index.
+     *
+     * @return the number of transactions removed
+     */
+    public int purge() {
+        int purged = 0;
+        Tombstone tombstone;
+        while (purged < purgeBatchSize && (tombstone = purgeQueue.poll()) != null) {
+            synchronized (lockFor(tombstone.id())) {
+                // Gone already if the repository was cleared after the delete
+                if (tombstones.get(tombstone.id()) != tombstone) {
+                    continue;
+                }
+                Transaction removed = transactions.remove(tombstone.id());
+                orderIdIndex.remove(tombstone.orderId(), removed);
+                tombstones.remove(tombstone.id());
+            }
+            purged++;
+        }
+        return purged;
+    }
+
+    int pendingPurges() {
+        return tombstones.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    private void purgeQuietly() {
+        try {
+            // Whole batches until the backlog is gone, the lock of each ID is only held for its own removal
+            int purged;
+            do {
+                purged = purge();
+            } while (purged == purgeBatchSize);
+        } catch (RuntimeException e) {
+            logger.error("Purging deleted transactions failed", e);
+        }
+    }
+
+    private boolean tryClaimOrderId(Transaction transaction) {
+        return orderIdIndex.putIfAbsent(transaction.getOrderId(), transaction) == null;
+    }
+
+    private boolean isDeleted(Long id) {
+        // A transaction in the middle of being saved has no ID yet
+        return id != null && tombstones.containsKey(id);
+    }
+
+    private boolean isLive(Transaction transaction) {
+        return !isDeleted(transaction.getId());
+    }
+
+    // Tombstones the transaction, when expectedVersion is given only if it still has that version
+    private boolean delete(Long id, Long expectedVersion) {
+        synchronized (lockFor(id)) {
+            Transaction transaction = transactions.get(id);
+            if (transaction == null || expectedVersion != null && !expectedVersion.equals(transaction.getVersion())) {
+                return false;
+            }
+            Tombstone tombstone = new Tombstone(id, transaction.getOrderId());
+            if (tombstones.putIfAbsent(id, tombstone) != null) {
+                return false;
+            }
+            size.decrement();
+            purgeQueue.add(tombstone);
+        }
+        if (sweeper == null) {
+            purge();
+        }
+        return true;
+    }
+
+    private Object lockFor(Long id) {
+        return locks[(int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    // What is left of a deleted transaction until it is purged
+    private record Tombstone(long id, String orderId) {
     }
 }
@@ -0,0 +1,201 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.AuditLog;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Audit logs in a table next to the transactions, looked up through an index on the audited entity
+public class JdbcAuditLogRepositoryImpl implements AuditLogRepository {
+    private static final int STREAM_PAGE_SIZE = 1000;
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS audit_logs (
+                id BIGINT PRIMARY KEY,
+                operation VARCHAR(32) NOT NULL,
+                entity_type VARCHAR(64) NOT NULL,
+                entity_id VARCHAR(64) NOT NULL,
+                details VARCHAR,
+                created_at TIMESTAMP(9) NOT NULL
+            )""";
+    private static final String INSERT = "INSERT INTO audit_logs "
+            + "(id, operation, entity_type, entity_id, details, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_ENTITY = "SELECT id, operation, entity_type, entity_id, details, created_at "
+            + "FROM audit_logs WHERE entity_type = ? AND entity_id = ? ORDER BY id";
+    private static final String SELECT_AFTER = "SELECT id, operation, entity_type, entity_id, details, created_at "
+            + "FROM audit_logs WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+    private static final String DELETE = "DELETE FROM audit_logs WHERE id = ?";
+    private static final String DELETE_ALL = "DELETE FROM audit_logs";
+
+    private final JdbcConnectionPool pool;
+    private final IdGenerator idGenerator;
+
+    public JdbcAuditLogRepositoryImpl(JdbcConnectionPool pool, IdGenerator idGenerator) {
+        this.pool = pool;
+        this.idGenerator = idGenerator;
+        try {
+            pool.execute(connection -> {
+                try (Statement statement = connection.connection().createStatement()) {
+                    statement.execute(CREATE_TABLE);
+                    statement.execute("CREATE INDEX IF NOT EXISTS idx_audit_logs_entity ON audit_logs (entity_type, entity_id)");
+                    try (ResultSet rows = statement.executeQuery("SELECT MAX(id) FROM audit_logs")) {
+                        rows.next();
+                        idGenerator.advancePast(rows.getLong(1));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot create audit log table: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public AuditLog save(AuditLog auditLog) {
+        auditLog.setId(idGenerator.nextId());
+        try {
+            pool.execute(connection -> {
+                PreparedStatement insert = connection.prepare(INSERT);
+                bindInsert(insert, auditLog);
+                return insert.executeUpdate();
+            });
+            return auditLog;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Audit log database failure: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId) {
+        try {
+            return pool.execute(connection -> {
+                PreparedStatement select = connection.prepare(SELECT_BY_ENTITY);
+                select.setString(1, entityType);
+                select.setString(2, entityId);
+                return read(select);
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Audit log database failure: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            pool.inTransaction(connection -> {
+                PreparedStatement delete = connection.prepare(DELETE);
+                for (Long id : ids) {
+                    delete.setLong(1, id);
+                    delete.addBatch();
+                }
+                try {
+                    return delete.executeBatch();
+                } finally {
+                    delete.clearBatch();
+                }
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Audit log database failure: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void restore(List<AuditLog> restored) {
+        try {
+            pool.inTransaction(connection -> {
+                connection.prepare(DELETE_ALL).executeUpdate();
+                PreparedStatement insert = connection.prepare(INSERT);
+                try {
+                    for (int i = 0; i < restored.size(); i++) {
+                        bindInsert(insert, restored.get(i));
+                        insert.addBatch();
+                        if ((i + 1) % STREAM_PAGE_SIZE == 0 || i == restored.size() - 1) {
+                            insert.executeBatch();
+                        }
+                    }
+                } finally {
+                    insert.clearBatch();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Audit log database failure: " + e.getMessage(), e);
+        }
+        idGenerator.advancePast(restored.stream().mapToLong(AuditLog::getId).max().orElse(0));
+    }
+
+    @Override
+    public Stream<AuditLog> stream() {
+        // Keyset pages, so no connection is held while the caller consumes the stream
+        Iterator<AuditLog> auditLogs = new Iterator<>() {
+            private List<AuditLog> page = findAfter(0);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == STREAM_PAGE_SIZE) {
+                    page = findAfter(page.get(page.size() - 1).getId());
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public AuditLog next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(auditLogs,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    private List<AuditLog> findAfter(long afterId) {
+        try {
+            return pool.execute(connection -> {
+                PreparedStatement select = connection.prepare(SELECT_AFTER);
+                select.setLong(1, afterId);
+                select.setInt(2, STREAM_PAGE_SIZE);
+                return read(select);
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Audit log database failure: " + e.getMessage(), e);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement insert, AuditLog auditLog) throws SQLException {
+        insert.setLong(1, auditLog.getId());
+        insert.setString(2, auditLog.getOperation());
+        insert.setString(3, auditLog.getEntityType());
+        insert.setString(4, auditLog.getEntityId());
+        insert.setString(5, auditLog.getDetails());
+        insert.setObject(6, auditLog.getCreatedAt());
+    }
+
+    private static List<AuditLog> read(PreparedStatement select) throws SQLException {
+        List<AuditLog> auditLogs = new ArrayList<>();
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                auditLogs.add(AuditLog.restore(rows.getLong(1), rows.getString(2), rows.getString(3),
+                        rows.getString(4), rows.getString(5), rows.getObject(6, LocalDateTime.class)));
+            }
+        }
+        return auditLogs;
+    }
+}
@@ -0,0 +1,189 @@
+package com.hsbc.banking.transaction.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of JDBC connections shared by the JDBC repositories. Every connection keeps the statements
+ * prepared on it, so a statement is parsed and planned once per connection instead of once per call.
+ * Callers wait up to {@code acquireTimeout} for a free connection. A connection that fails with a
+ * connection-level error (SQL state class 08) is closed and reopened by the next caller that acquires it;
+ * while the database stays unreachable that caller fails fast and the connection goes back to the pool
+ * for the next attempt, so the pool never loses a connection.
+ */
+public final class JdbcConnectionPool implements AutoCloseable {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Duration acquireTimeout;
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> connections = new ArrayList<>();
+    private volatile boolean closed;
+
+    public JdbcConnectionPool(String url, String username, String password, int size, Duration acquireTimeout) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.acquireTimeout = acquireTimeout;
+        this.idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                PooledConnection connection = open();
+                connections.add(connection);
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Cannot connect to " + url, e);
+        }
+    }
+
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    // Runs the work on a pooled connection in auto-commit mode
+    <T> T execute(SqlWork<T> work) throws SQLException {
+        PooledConnection connection = acquire();
+        try {
+            return work.run(connection);
+        } catch (SQLException e) {
+            connection.failed(e);
+            throw e;
+        } finally {
+            release(connection);
+        }
+    }
+
+    // Runs the work in one database transaction, rolled back if the work throws
+    <T> T inTransaction(SqlWork<T> work) throws SQLException {
+        return execute(connection -> {
+            Connection jdbc = connection.connection;
+            jdbc.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                jdbc.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                jdbc.rollback();
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        });
+    }
+
+    int size() {
+        return connections.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (PooledConnection connection : connections) {
+            connection.close();
+        }
+        idle.clear();
+    }
+
+    private PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed", "08003");
+        }
+        try {
+            PooledConnection connection = idle.poll(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new SQLException("No database connection free after " + acquireTimeout, "08001");
+            }
+            if (connection.broken) {
+                try {
+                    return reopen(connection);
+                } catch (SQLException | RuntimeException e) {
+                    idle.add(connection);
+                    throw e;
+                }
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+        }
+    }
+
+    private synchronized void release(PooledConnection connection) {
+        if (closed) {
+            connection.close();
+            return;
+        }
+        if (connection.broken) {
+            connection.close();
+        }
+        idle.add(connection);
+    }
+
+    private synchronized PooledConnection reopen(PooledConnection broken) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed", "08003");
+        }
+        PooledConnection connection = open();
+        connections.set(connections.indexOf(broken), connection);
+        return connection;
+    }
+
+    private PooledConnection open() throws SQLException {
+        return new PooledConnection(DriverManager.getConnection(url, username, password));
+    }
+
+    static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private boolean broken;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        // The statement prepared for the SQL on this connection, prepared on first use
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        private void failed(SQLException e) {
+            String state = e.getSQLState();
+            if (state != null && state.startsWith("08")) {
+                broken = true;
+            }
+        }
+
+        private void close() {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Closing anyway
+            }
+        }
+    }
+}
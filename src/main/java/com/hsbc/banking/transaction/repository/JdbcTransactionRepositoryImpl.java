@@ -0,0 +1,473 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionType;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Transactions in a table of an embedded SQL database. Order ID uniqueness is a unique constraint, so
+ * concurrent saves of the same order ID are decided by the database; the version check of an update is
+ * part of its {@code WHERE} clause. Listings are keyset queries on the primary key, so a page costs the
+ * same wherever it starts.
+ * <p>
+ * The highest deleted ID is kept in a one-row table, raised in the database transaction of the delete and
+ * set to the ID fence of a restored backup, so IDs of deleted transactions are not handed out again after
+ * a restart.
+ */
+public class JdbcTransactionRepositoryImpl implements TransactionRepository {
+    private static final String COLUMNS =
+            "id, order_id, account_id, amount_minor, type, category, description, created_at, updated_at, version";
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS transactions (
+                id BIGINT PRIMARY KEY,
+                order_id VARCHAR(64) NOT NULL,
+                account_id VARCHAR(64) NOT NULL,
+                amount_minor BIGINT NOT NULL,
+                type VARCHAR(16) NOT NULL,
+                category VARCHAR(32) NOT NULL,
+                description VARCHAR(255),
+                created_at TIMESTAMP(9) NOT NULL,
+                updated_at TIMESTAMP(9) NOT NULL,
+                version BIGINT NOT NULL,
+                CONSTRAINT uk_transactions_order_id UNIQUE (order_id)
+            )""";
+    private static final String CREATE_HIGHEST_DELETED_ID =
+            "CREATE TABLE IF NOT EXISTS deleted_transaction_ids (highest_id BIGINT NOT NULL)";
+    private static final String INIT_HIGHEST_DELETED_ID = "INSERT INTO deleted_transaction_ids (highest_id) "
+            + "SELECT 0 WHERE NOT EXISTS (SELECT 1 FROM deleted_transaction_ids)";
+    private static final String SELECT_HIGHEST_DELETED_ID = "SELECT highest_id FROM deleted_transaction_ids";
+    private static final String RAISE_HIGHEST_DELETED_ID =
+            "UPDATE deleted_transaction_ids SET highest_id = GREATEST(highest_id, ?)";
+    private static final String SET_HIGHEST_DELETED_ID = "UPDATE deleted_transaction_ids SET highest_id = ?";
+    private static final String INSERT = "INSERT INTO transactions (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE transactions SET account_id = ?, amount_minor = ?, type = ?, "
+            + "category = ?, description = ?, updated_at = ?, version = version + 1 WHERE id = ? AND version = ?";
+    private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM transactions WHERE id = ?";
+    private static final String SELECT_BY_ORDER_ID = "SELECT " + COLUMNS + " FROM transactions WHERE order_id = ?";
+    private static final String SELECT_BY_IDS = "SELECT " + COLUMNS + " FROM transactions WHERE id = ANY(?)";
+    private static final String SELECT_PAGE = "SELECT " + COLUMNS
+            + " FROM transactions ORDER BY id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String SELECT_AFTER = "SELECT " + COLUMNS
+            + " FROM transactions WHERE id > ? ORDER BY id FETCH NEXT ? ROWS ONLY";
+    private static final String SELECT_VERSION = "SELECT version FROM transactions WHERE id = ?";
+    private static final String SELECT_MAX_ID = "SELECT MAX(id) FROM transactions";
+    private static final String COUNT = "SELECT COUNT(*) FROM transactions";
+    private static final String DELETE = "DELETE FROM transactions WHERE id = ?";
+    private static final String DELETE_ALL = "DELETE FROM transactions";
+    private static final String DELETE_VERSION = "DELETE FROM transactions WHERE id = ? AND version = ?";
+    private static final int STREAM_PAGE_SIZE = 1_000;
+
+    private final JdbcConnectionPool pool;
+    private final IdGenerator idGenerator;
+    // Lets deletes below it skip the update of the one-row table; the table holds the real value
+    private final AtomicLong highestDeletedId = new AtomicLong();
+
+    public JdbcTransactionRepositoryImpl(JdbcConnectionPool pool, IdGenerator idGenerator) {
+        this.pool = pool;
+        this.idGenerator = idGenerator;
+        run(() -> pool.execute(connection -> {
+            try (Statement statement = connection.connection().createStatement()) {
+                statement.execute(CREATE_TABLE);
+                statement.execute("CREATE INDEX IF NOT EXISTS idx_transactions_account_id ON transactions (account_id)");
+                statement.execute(CREATE_HIGHEST_DELETED_ID);
+                statement.execute(INIT_HIGHEST_DELETED_ID);
+            }
+            try (ResultSet rows = connection.prepare(SELECT_HIGHEST_DELETED_ID).executeQuery()) {
+                rows.next();
+                highestDeletedId.set(rows.getLong(1));
+            }
+            // IDs come from the generator, so it has to continue after the rows stored or deleted
+            try (ResultSet rows = connection.prepare(SELECT_MAX_ID).executeQuery()) {
+                rows.next();
+                idGenerator.advancePast(Math.max(rows.getLong(1), highestDeletedId.get()));
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        transaction.setId(idGenerator.nextId());
+        try {
+            pool.execute(connection -> {
+                PreparedStatement insert = connection.prepare(INSERT);
+                bindInsert(insert, transaction);
+                return insert.executeUpdate();
+            });
+            return transaction;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            transaction.setId(null);
+            throw duplicate(transaction);
+        } catch (SQLException e) {
+            transaction.setId(null);
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        for (Transaction transaction : batch) {
+            transaction.setId(idGenerator.nextId());
+        }
+        try {
+            // One batch in one database transaction; a duplicate anywhere fails it and the rows are retried one by one
+            return pool.inTransaction(connection -> {
+                PreparedStatement insert = connection.prepare(INSERT);
+                for (Transaction transaction : batch) {
+                    bindInsert(insert, transaction);
+                    insert.addBatch();
+                }
+                try {
+                    insert.executeBatch();
+                } finally {
+                    // Drivers differ on whether a failed batch is cleared, the statement is reused
+                    insert.clearBatch();
+                }
+                return batch;
+            });
+        } catch (BatchUpdateException e) {
+            return saveEach(batch);
+        } catch (SQLException e) {
+            batch.forEach(transaction -> transaction.setId(null));
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        Long id = transaction.getId();
+        try {
+            Long currentVersion = pool.execute(connection -> {
+                PreparedStatement update = connection.prepare(UPDATE);
+                update.setString(1, transaction.getAccountId());
+                update.setLong(2, transaction.getAmountMinor());
+                update.setString(3, transaction.getType().name());
+                update.setString(4, transaction.getCategory().name());
+                update.setString(5, transaction.getDescription());
+                update.setObject(6, transaction.getUpdatedAt());
+                update.setLong(7, id);
+                update.setLong(8, transaction.getVersion());
+                if (update.executeUpdate() == 1) {
+                    return null;
+                }
+                // Either the row is gone or another update moved its version on
+                PreparedStatement select = connection.prepare(SELECT_VERSION);
+                select.setLong(1, id);
+                try (ResultSet rows = select.executeQuery()) {
+                    return rows.next() ? rows.getLong(1) : -1L;
+                }
+            });
+            if (currentVersion == null) {
+                transaction.incrementVersion();
+                return transaction;
+            }
+            if (currentVersion < 0) {
+                throw new TransactionNotFoundException(id);
+            }
+            throw new ConcurrentUpdateException(Map.of(
+                    "transactionId", id,
+                    "message", "Transaction was updated by another user",
+                    "currentVersion", currentVersion,
+                    "requestVersion", transaction.getVersion()
+            ));
+        } catch (SQLException e) {
+            // Serialization failure, or H2's concurrent update of the same row: another update won
+            if ("40001".equals(e.getSQLState()) || "90131".equals(e.getSQLState())) {
+                throw new ConcurrentUpdateException(Map.of(
+                        "transactionId", id,
+                        "message", "Transaction was updated by another user",
+                        "requestVersion", transaction.getVersion()
+                ));
+            }
+            throw failure(e);
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        List<Transaction> found = query(SELECT_BY_ID, statement -> statement.setLong(1, id));
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public Optional<Transaction> findByOrderId(String orderId) {
+        List<Transaction> found = query(SELECT_BY_ORDER_ID, statement -> statement.setString(1, orderId));
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // One array parameter keeps a single cached statement for any number of IDs
+        return run(() -> pool.execute(connection -> {
+            PreparedStatement select = connection.prepare(SELECT_BY_IDS);
+            select.setArray(1, connection.connection().createArrayOf("BIGINT", ids.toArray(new Long[0])));
+            return read(select);
+        }));
+    }
+
+    @Override
+    public List<Transaction> findAll(int offset, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return query(SELECT_PAGE, statement -> {
+            statement.setLong(1, offset);
+            statement.setInt(2, limit);
+        });
+    }
+
+    @Override
+    public List<Transaction> findAfter(long afterId, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return query(SELECT_AFTER, statement -> {
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
+        });
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        // Keyset pages, so no connection is held while the caller consumes the stream
+        Iterator<Transaction> transactions = new Iterator<>() {
+            private List<Transaction> page = findAfter(0, STREAM_PAGE_SIZE);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == page.size() && page.size() == STREAM_PAGE_SIZE) {
+                    page = findAfter(page.get(page.size() - 1).getId(), STREAM_PAGE_SIZE);
+                    next = 0;
+                }
+                return next < page.size();
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.get(next++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(transactions,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    @Override
+    public long count() {
+        return run(() -> pool.execute(connection -> {
+            try (ResultSet rows = connection.prepare(COUNT).executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }));
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            return;
+        }
+        delete(DELETE, id, statement -> statement.setLong(1, id));
+    }
+
+    @Override
+    public boolean deleteIfVersion(Long id, long version) {
+        if (id == null) {
+            return false;
+        }
+        return delete(DELETE_VERSION, id, statement -> {
+            statement.setLong(1, id);
+            statement.setLong(2, version);
+        });
+    }
+
+    @Override
+    public void clear() {
+        run(() -> pool.inTransaction(connection -> {
+            PreparedStatement reset = connection.prepare(SET_HIGHEST_DELETED_ID);
+            reset.setLong(1, 0);
+            reset.executeUpdate();
+            return connection.prepare(DELETE_ALL).executeUpdate();
+        }));
+        highestDeletedId.set(0);
+        idGenerator.reset();
+    }
+
+    @Override
+    public void restore(List<Transaction> restored, long idFence) {
+        // One database transaction, so a failed restore leaves the rows as they were
+        run(() -> pool.inTransaction(connection -> {
+            connection.prepare(DELETE_ALL).executeUpdate();
+            PreparedStatement insert = connection.prepare(INSERT);
+            try {
+                for (int i = 0; i < restored.size(); i++) {
+                    bindInsert(insert, restored.get(i));
+                    insert.addBatch();
+                    if ((i + 1) % STREAM_PAGE_SIZE == 0 || i == restored.size() - 1) {
+                        insert.executeBatch();
+                    }
+                }
+            } finally {
+                insert.clearBatch();
+            }
+            // The fence is kept like a deleted ID, so a restart continues after it too
+            PreparedStatement fence = connection.prepare(SET_HIGHEST_DELETED_ID);
+            fence.setLong(1, idFence);
+            return fence.executeUpdate();
+        }));
+        highestDeletedId.set(idFence);
+        idGenerator.reset();
+        idGenerator.advancePast(Math.max(idFence,
+                restored.stream().mapToLong(Transaction::getId).max().orElse(0)));
+    }
+
+    private boolean delete(String sql, long id, Binder binder) {
+        if (id <= highestDeletedId.get()) {
+            return run(() -> pool.execute(connection -> {
+                PreparedStatement delete = connection.prepare(sql);
+                binder.bind(delete);
+                return delete.executeUpdate() == 1;
+            }));
+        }
+        boolean deleted = run(() -> pool.inTransaction(connection -> {
+            PreparedStatement delete = connection.prepare(sql);
+            binder.bind(delete);
+            if (delete.executeUpdate() != 1) {
+                return false;
+            }
+            PreparedStatement raise = connection.prepare(RAISE_HIGHEST_DELETED_ID);
+            raise.setLong(1, id);
+            raise.executeUpdate();
+            return true;
+        }));
+        if (deleted) {
+            highestDeletedId.accumulateAndGet(id, Math::max);
+        }
+        return deleted;
+    }
+
+    // Row by row after a failed batch: duplicates are skipped and keep a null ID, as saveAll promises
+    private List<Transaction> saveEach(List<Transaction> batch) {
+        List<Transaction> saved = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            try {
+                pool.execute(connection -> {
+                    PreparedStatement insert = connection.prepare(INSERT);
+                    bindInsert(insert, transaction);
+                    return insert.executeUpdate();
+                });
+                saved.add(transaction);
+            } catch (SQLIntegrityConstraintViolationException e) {
+                transaction.setId(null);
+            } catch (SQLException e) {
+                throw failure(e);
+            }
+        }
+        return saved;
+    }
+
+    private List<Transaction> query(String sql, Binder binder) {
+        return run(() -> pool.execute(connection -> {
+            PreparedStatement select = connection.prepare(sql);
+            binder.bind(select);
+            return read(select);
+        }));
+    }
+
+    private static List<Transaction> read(PreparedStatement select) throws SQLException {
+        List<Transaction> transactions = new ArrayList<>();
+        try (ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                transactions.add(Transaction.restore(
+                        rows.getLong(1),
+                        rows.getString(2),
+                        rows.getString(3),
+                        rows.getLong(4),
+                        TransactionType.valueOf(rows.getString(5)),
+                        TransactionCategory.valueOf(rows.getString(6)),
+                        rows.getString(7),
+                        rows.getObject(8, LocalDateTime.class),
+                        rows.getObject(9, LocalDateTime.class),
+                        rows.getLong(10)));
+            }
+        }
+        return transactions;
+    }
+
+    private static void bindInsert(PreparedStatement insert, Transaction transaction) throws SQLException {
+        insert.setLong(1, transaction.getId());
+        insert.setString(2, transaction.getOrderId());
+        insert.setString(3, transaction.getAccountId());
+        insert.setLong(4, transaction.getAmountMinor());
+        insert.setString(5, transaction.getType().name());
+        insert.setString(6, transaction.getCategory().name());
+        insert.setString(7, transaction.getDescription());
+        insert.setObject(8, transaction.getCreatedAt());
+        insert.setObject(9, transaction.getUpdatedAt());
+        insert.setLong(10, transaction.getVersion());
+    }
+
+    private static DuplicateTransactionException duplicate(Transaction transaction) {
+        return new DuplicateTransactionException(
+                Map.of("orderId", transaction.getOrderId(),
+                        "message", "Transaction with order ID already exists")
+        );
+    }
+
+    private static IllegalStateException failure(SQLException e) {
+        return new IllegalStateException("Transaction database failure: " + e.getMessage(), e);
+    }
+
+    private static <T> T run(SqlCall<T> call) {
+        try {
+            return call.run();
+        } catch (SQLException e) {
+            throw failure(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlCall<T> {
+        T run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,874 @@
+package com.hsbc.banking.transaction.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Log-structured merge tree over byte[] keys and values, ordered by unsigned byte comparison.
+ * <p>
+ * Writes go to the write-ahead log of the active memtable, then into the memtable. A full memtable becomes
+ * immutable and a background thread flushes it to a level 0 {@link SSTable}. Level 0 tables may overlap;
+ * from level 1 on, the tables of a level cover disjoint key ranges and each level may hold ten times the
+ * bytes of the one above. When level 0 has too many tables or a level is over its size, its tables are
+ * merged with the overlapping tables of the next level (leveled compaction). A deletion is a tombstone
+ * that hides older values until a compaction into the deepest level holding the key drops it.
+ * <p>
+ * Readers work on an immutable snapshot of the memtables and levels, so they never block. The MANIFEST
+ * file lists the tables of every level and the oldest log still needed; at startup the tables are opened
+ * from it, the logs are replayed and flushed, and files it does not reference are deleted.
+ */
+public final class LsmStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LsmStore.class);
+
+    // Marks a deleted key, compared by identity
+    static final byte[] TOMBSTONE = new byte[0];
+
+    private static final int MAX_LEVELS = 7;
+    private static final int LEVEL_SIZE_MULTIPLIER = 10;
+    // Writers wait while this many full memtables are waiting for their flush
+    private static final int MAX_IMMUTABLE_MEMTABLES = 2;
+    // Per-entry bookkeeping of the skip list, counted towards the memtable size
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final String MANIFEST = "MANIFEST";
+
+    record Entry(byte[] key, byte[] value) {
+        boolean deleted() {
+            return value == TOMBSTONE;
+        }
+    }
+
+    public record Options(boolean syncWrites, long memtableBytes, long tableBytes, int blockSize,
+                          int bloomBitsPerKey, int level0Trigger, long level1Bytes) {
+    }
+
+    /**
+     * @param userBytes          key and value bytes written by callers
+     * @param writeAmplification bytes written to logs and tables per byte written by callers
+     * @param tableEntries       entries stored in tables, tombstones and overwritten versions included
+     * @param tablesPerLevel     table count of every level, level 0 first
+     */
+    public record Stats(long userBytes, long logBytes, long flushBytes, long compactionBytesRead,
+                        long compactionBytesWritten, long flushes, long compactions, double writeAmplification,
+                        long tableEntries, List<Integer> tablesPerLevel) {
+    }
+
+    private static final class Memtable {
+        private final ConcurrentSkipListMap<byte[], byte[]> entries = new ConcurrentSkipListMap<>(Arrays::compareUnsigned);
+        private final WriteAheadLog log;
+        private long bytes;
+
+        Memtable(WriteAheadLog log) {
+            this.log = log;
+        }
+    }
+
+    // Immutable snapshot; immutables and level 0 newest first, other levels by key
+    private record State(Memtable active, List<Memtable> immutables, List<List<SSTable>> levels, long epoch) {
+    }
+
+    private record Compaction(int level, List<SSTable> inputs, List<SSTable> nextLevelInputs) {
+    }
+
+    private final Path directory;
+    private final Options options;
+    private final ExecutorService background;
+    private volatile State state;
+    private long nextFileNumber;
+    private boolean backgroundScheduled;
+    private volatile IOException backgroundError;
+    private boolean closed;
+    // Level by level, the largest key of the last table compacted, so compactions go round the key space
+    private final byte[][] compactionPointers = new byte[MAX_LEVELS][];
+
+    private final LongAdder userBytes = new LongAdder();
+    private final LongAdder logBytes = new LongAdder();
+    private final LongAdder flushBytes = new LongAdder();
+    private final LongAdder compactionBytesRead = new LongAdder();
+    private final LongAdder compactionBytesWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    LsmStore(Path directory, Options options) throws IOException {
+        this.directory = directory;
+        this.options = options;
+        Files.createDirectories(directory);
+        this.background = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "transaction-lsm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recover();
+    }
+
+    // The value of the key, null if it is absent or deleted
+    byte[] get(byte[] key) {
+        State current = state;
+        byte[] value = current.active.entries.get(key);
+        if (value != null) {
+            return live(value);
+        }
+        for (Memtable memtable : current.immutables) {
+            value = memtable.entries.get(key);
+            if (value != null) {
+                return live(value);
+            }
+        }
+        for (SSTable table : current.levels.get(0)) {
+            if (table.overlaps(key, key)) {
+                value = table.get(key);
+                if (value != null) {
+                    return live(value);
+                }
+            }
+        }
+        for (int level = 1; level < current.levels.size(); level++) {
+            SSTable table = tableFor(current.levels.get(level), key);
+            if (table != null) {
+                value = table.get(key);
+                if (value != null) {
+                    return live(value);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Applies the entries as one unit: all of them are replayed after a crash or none
+    void write(List<Entry> batch) {
+        synchronized (this) {
+            try {
+                while (state.immutables.size() >= MAX_IMMUTABLE_MEMTABLES && !closed) {
+                    throwBackgroundError();
+                    wait();
+                }
+                if (closed) {
+                    throw new IllegalStateException("LSM store is closed");
+                }
+                Memtable memtable = state.active;
+                logBytes.add(memtable.log.append(batch));
+                for (Entry entry : batch) {
+                    memtable.entries.put(entry.key(), entry.value());
+                    int size = entry.key().length + (entry.deleted() ? 0 : entry.value().length);
+                    memtable.bytes += size + ENTRY_OVERHEAD;
+                    userBytes.add(size);
+                }
+                if (memtable.bytes >= options.memtableBytes()) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Write to LSM store failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for a memtable flush"));
+            }
+        }
+    }
+
+    /**
+     * Live entries from {@code from} up to but excluding {@code to} in key order, read lazily from the
+     * snapshot taken now.
+     */
+    Iterator<Entry> scan(byte[] from, boolean inclusive, byte[] to) {
+        State current = state;
+        List<Iterator<Entry>> sources = new ArrayList<>();
+        sources.add(memtableIterator(current.active, from, to));
+        for (Memtable memtable : current.immutables) {
+            sources.add(memtableIterator(memtable, from, to));
+        }
+        for (SSTable table : current.levels.get(0)) {
+            sources.add(table.iterator(from));
+        }
+        for (int level = 1; level < current.levels.size(); level++) {
+            sources.add(new LevelIterator(current.levels.get(level), from));
+        }
+        MergingIterator merged = new MergingIterator(sources);
+        return new Iterator<>() {
+            private Entry next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry current = next;
+                next = advance();
+                return current;
+            }
+
+            private Entry advance() {
+                while (merged.hasNext()) {
+                    Entry entry = merged.next();
+                    if (Arrays.compareUnsigned(entry.key(), to) >= 0) {
+                        return null;
+                    }
+                    if (!entry.deleted() && (inclusive || Arrays.compareUnsigned(entry.key(), from) != 0)) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    // Flushes the active memtable and waits until no flush or compaction is due
+    void flush() throws IOException {
+        synchronized (this) {
+            if (!state.active.entries.isEmpty()) {
+                rotate();
+            }
+            scheduleBackgroundWork();
+            try {
+                while (backgroundScheduled || !state.immutables.isEmpty()) {
+                    throwBackgroundError();
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a flush");
+            }
+            throwBackgroundError();
+        }
+    }
+
+    // Drops every key; flushes and compactions still running are discarded when they finish
+    void clear() throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (this) {
+            State current = state;
+            current.active.log.close();
+            obsolete.add(current.active.log.file());
+            for (Memtable memtable : current.immutables) {
+                obsolete.add(memtable.log.file());
+            }
+            for (List<SSTable> level : current.levels) {
+                for (SSTable table : level) {
+                    obsolete.add(table.file());
+                }
+            }
+            Memtable active = new Memtable(newLog());
+            state = new State(active, List.of(), emptyLevels(), current.epoch + 1);
+            Arrays.fill(compactionPointers, null);
+            writeManifest(state);
+            notifyAll();
+        }
+        for (Path file : obsolete) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    Stats stats() {
+        State current = state;
+        List<Integer> tablesPerLevel = new ArrayList<>();
+        long tableEntries = 0;
+        for (List<SSTable> level : current.levels) {
+            tablesPerLevel.add(level.size());
+            for (SSTable table : level) {
+                tableEntries += table.entryCount();
+            }
+        }
+        long user = userBytes.sum();
+        long written = logBytes.sum() + flushBytes.sum() + compactionBytesWritten.sum();
+        return new Stats(user, logBytes.sum(), flushBytes.sum(), compactionBytesRead.sum(),
+                compactionBytesWritten.sum(), flushes.sum(), compactions.sum(),
+                user == 0 ? 0 : (double) written / user, tableEntries, tablesPerLevel);
+    }
+
+    // Stops background work; the active memtable stays in its log and is replayed by the next open
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        background.shutdown();
+        try {
+            if (!background.awaitTermination(30, TimeUnit.SECONDS)) {
+                background.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            state.active.log.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        Map<Long, Integer> tableLevels = new HashMap<>();
+        long logNumber = 0;
+        long manifestNextFile = 1;
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                switch (parts[0]) {
+                    case "next-file" -> manifestNextFile = Long.parseLong(parts[1]);
+                    case "log" -> logNumber = Long.parseLong(parts[1]);
+                    case "table" -> tableLevels.put(Long.parseLong(parts[2]), Integer.parseInt(parts[1]));
+                    default -> {
+                        // blank line
+                    }
+                }
+            }
+        }
+
+        List<List<SSTable>> levels = emptyLevels();
+        List<Long> logs = new ArrayList<>();
+        long maxFileNumber = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                    continue;
+                }
+                long number = fileNumber(name);
+                if (number < 0) {
+                    continue;
+                }
+                maxFileNumber = Math.max(maxFileNumber, number);
+                if (name.endsWith(".sst")) {
+                    Integer level = tableLevels.get(number);
+                    if (level == null) {
+                        // Output of a flush or compaction that did not reach the manifest
+                        Files.delete(file);
+                    } else {
+                        levels.get(level).add(SSTable.open(number, file));
+                    }
+                } else if (name.endsWith(".log")) {
+                    if (number < logNumber) {
+                        Files.delete(file);
+                    } else {
+                        logs.add(number);
+                    }
+                }
+            }
+        }
+        levels.get(0).sort(Comparator.comparingLong(SSTable::fileNumber).reversed());
+        for (int level = 1; level < MAX_LEVELS; level++) {
+            levels.get(level).sort((a, b) -> Arrays.compareUnsigned(a.firstKey(), b.firstKey()));
+        }
+        nextFileNumber = Math.max(manifestNextFile, maxFileNumber + 1);
+
+        // Logs in write order into one memtable, flushed before the store takes new writes
+        logs.sort(null);
+        ConcurrentSkipListMap<byte[], byte[]> replayed = new ConcurrentSkipListMap<>(Arrays::compareUnsigned);
+        int batches = 0;
+        for (long number : logs) {
+            batches += WriteAheadLog.replay(logFile(number), batch -> {
+                for (Entry entry : batch) {
+                    replayed.put(entry.key(), entry.value());
+                }
+            });
+        }
+        if (!replayed.isEmpty()) {
+            SSTable table = writeTable(nextFileNumber++, replayed.entrySet().stream()
+                    .map(entry -> new Entry(entry.getKey(), entry.getValue())).iterator());
+            levels.get(0).add(0, table);
+        }
+
+        state = new State(new Memtable(newLog()), List.of(), levels, 0);
+        writeManifest(state);
+        for (long number : logs) {
+            Files.deleteIfExists(logFile(number));
+        }
+        if (batches > 0) {
+            logger.info("Recovered {} write batches from {} logs of {}", batches, logs.size(), directory);
+        }
+        synchronized (this) {
+            scheduleBackgroundWork();
+        }
+    }
+
+    // Caller holds the lock
+    private void rotate() throws IOException {
+        State current = state;
+        WriteAheadLog log = newLog();
+        current.active.log.close();
+        List<Memtable> immutables = new ArrayList<>(current.immutables.size() + 1);
+        immutables.add(current.active);
+        immutables.addAll(current.immutables);
+        state = new State(new Memtable(log), List.copyOf(immutables), current.levels, current.epoch);
+        scheduleBackgroundWork();
+    }
+
+    // Caller holds the lock
+    private void scheduleBackgroundWork() {
+        if (!backgroundScheduled && !closed) {
+            backgroundScheduled = true;
+            background.execute(this::backgroundWork);
+        }
+    }
+
+    private void backgroundWork() {
+        boolean failed = false;
+        try {
+            while (!isClosed()) {
+                State current = state;
+                if (!current.immutables.isEmpty()) {
+                    flushMemtable(current, current.immutables.get(current.immutables.size() - 1));
+                    continue;
+                }
+                Compaction compaction = pickCompaction(current);
+                if (compaction == null) {
+                    break;
+                }
+                compact(current, compaction);
+            }
+            backgroundError = null;
+        } catch (IOException e) {
+            failed = true;
+            backgroundError = e;
+            logger.error("LSM background work in {} failed, retried on the next memtable switch", directory, e);
+        } finally {
+            synchronized (this) {
+                backgroundScheduled = false;
+                // Work that arrived after the loop checked for it
+                if (!failed && !state.immutables.isEmpty()) {
+                    scheduleBackgroundWork();
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void flushMemtable(State snapshot, Memtable memtable) throws IOException {
+        long number;
+        synchronized (this) {
+            number = nextFileNumber++;
+        }
+        SSTable table = writeTable(number, memtable.entries.entrySet().stream()
+                .map(entry -> new Entry(entry.getKey(), entry.getValue())).iterator());
+        synchronized (this) {
+            State current = state;
+            if (current.epoch != snapshot.epoch) {
+                Files.deleteIfExists(table.file());
+                return;
+            }
+            List<List<SSTable>> levels = copyLevels(current.levels);
+            levels.get(0).add(0, table);
+            List<Memtable> immutables = new ArrayList<>(current.immutables);
+            immutables.remove(memtable);
+            state = new State(current.active, List.copyOf(immutables), freeze(levels), current.epoch);
+            writeManifest(state);
+            notifyAll();
+        }
+        Files.deleteIfExists(memtable.log.file());
+        flushes.increment();
+        flushBytes.add(table.size());
+    }
+
+    private Compaction pickCompaction(State current) {
+        List<List<SSTable>> levels = current.levels;
+        int bestLevel = -1;
+        double bestScore = 1;
+        for (int level = 0; level < MAX_LEVELS - 1; level++) {
+            double score = level == 0
+                    ? (double) levels.get(0).size() / options.level0Trigger()
+                    : (double) levelBytes(levels.get(level)) / maxBytes(level);
+            if (score >= bestScore) {
+                bestScore = score;
+                bestLevel = level;
+            }
+        }
+        if (bestLevel < 0) {
+            return null;
+        }
+
+        List<SSTable> inputs;
+        if (bestLevel == 0) {
+            inputs = levels.get(0);
+        } else {
+            // The first table after where the last compaction of the level stopped, wrapping around
+            List<SSTable> level = levels.get(bestLevel);
+            SSTable picked = level.get(0);
+            byte[] pointer = compactionPointers[bestLevel];
+            if (pointer != null) {
+                for (SSTable table : level) {
+                    if (Arrays.compareUnsigned(table.firstKey(), pointer) > 0) {
+                        picked = table;
+                        break;
+                    }
+                }
+            }
+            inputs = List.of(picked);
+        }
+        byte[][] range = range(inputs);
+        List<SSTable> nextLevelInputs = new ArrayList<>();
+        for (SSTable table : levels.get(bestLevel + 1)) {
+            if (table.overlaps(range[0], range[1])) {
+                nextLevelInputs.add(table);
+            }
+        }
+        return new Compaction(bestLevel, inputs, nextLevelInputs);
+    }
+
+    private void compact(State snapshot, Compaction compaction) throws IOException {
+        int outputLevel = compaction.level() + 1;
+        List<SSTable> all = new ArrayList<>(compaction.inputs());
+        all.addAll(compaction.nextLevelInputs());
+        byte[][] range = range(all);
+        // Tombstones are only needed while a deeper level may still hold an older value of the key
+        boolean dropTombstones = true;
+        for (int level = outputLevel + 1; level < MAX_LEVELS; level++) {
+            for (SSTable table : snapshot.levels.get(level)) {
+                if (table.overlaps(range[0], range[1])) {
+                    dropTombstones = false;
+                }
+            }
+        }
+
+        // Newer inputs first: level 0 tables are newest first already, then the level below
+        List<Iterator<Entry>> sources = new ArrayList<>();
+        for (SSTable table : compaction.inputs()) {
+            sources.add(table.iterator(null));
+        }
+        sources.add(new LevelIterator(compaction.nextLevelInputs(), null));
+        MergingIterator merged = new MergingIterator(sources);
+
+        List<SSTable> outputs = new ArrayList<>();
+        SSTable.Writer writer = null;
+        try {
+            while (merged.hasNext()) {
+                Entry entry = merged.next();
+                if (entry.deleted() && dropTombstones) {
+                    continue;
+                }
+                if (writer == null) {
+                    long number;
+                    synchronized (this) {
+                        number = nextFileNumber++;
+                    }
+                    writer = new SSTable.Writer(number, tableFile(number), options.blockSize(),
+                            options.bloomBitsPerKey());
+                }
+                writer.add(entry.key(), entry.value());
+                if (writer.size() >= options.tableBytes()) {
+                    outputs.add(writer.finish());
+                    writer = null;
+                }
+            }
+            if (writer != null) {
+                outputs.add(writer.finish());
+                writer = null;
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        synchronized (this) {
+            State current = state;
+            if (current.epoch != snapshot.epoch) {
+                for (SSTable output : outputs) {
+                    Files.deleteIfExists(output.file());
+                }
+                return;
+            }
+            Set<SSTable> removed = new HashSet<>(all);
+            List<List<SSTable>> levels = copyLevels(current.levels);
+            levels.get(compaction.level()).removeIf(removed::contains);
+            levels.get(outputLevel).removeIf(removed::contains);
+            levels.get(outputLevel).addAll(outputs);
+            levels.get(outputLevel).sort((a, b) -> Arrays.compareUnsigned(a.firstKey(), b.firstKey()));
+            if (compaction.level() > 0) {
+                compactionPointers[compaction.level()] = compaction.inputs().get(0).lastKey();
+            }
+            state = new State(current.active, current.immutables, freeze(levels), current.epoch);
+            writeManifest(state);
+        }
+        long read = 0;
+        for (SSTable input : all) {
+            read += input.size();
+            // Scans that started before still read the mapping, which outlives the file
+            Files.deleteIfExists(input.file());
+        }
+        long written = 0;
+        for (SSTable output : outputs) {
+            written += output.size();
+        }
+        compactions.increment();
+        compactionBytesRead.add(read);
+        compactionBytesWritten.add(written);
+    }
+
+    private SSTable writeTable(long number, Iterator<Entry> entries) throws IOException {
+        try (SSTable.Writer writer = new SSTable.Writer(number, tableFile(number), options.blockSize(),
+                options.bloomBitsPerKey())) {
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                writer.add(entry.key(), entry.value());
+            }
+            return writer.finish();
+        }
+    }
+
+    // Caller holds the lock, or is the constructor
+    private void writeManifest(State current) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        manifest.append("next-file ").append(nextFileNumber).append('\n');
+        long oldestLog = current.immutables.isEmpty()
+                ? current.active.log.fileNumber()
+                : current.immutables.get(current.immutables.size() - 1).log.fileNumber();
+        manifest.append("log ").append(oldestLog).append('\n');
+        for (int level = 0; level < current.levels.size(); level++) {
+            for (SSTable table : current.levels.get(level)) {
+                manifest.append("table ").append(level).append(' ').append(table.fileNumber()).append('\n');
+            }
+        }
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        Files.writeString(temporary, manifest);
+        Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private WriteAheadLog newLog() throws IOException {
+        long number = nextFileNumber++;
+        return WriteAheadLog.create(number, logFile(number), options.syncWrites());
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void throwBackgroundError() throws IOException {
+        IOException error = backgroundError;
+        if (error != null) {
+            throw new IOException("LSM background work failed", error);
+        }
+    }
+
+    private long maxBytes(int level) {
+        long bytes = options.level1Bytes();
+        for (int i = 1; i < level; i++) {
+            bytes *= LEVEL_SIZE_MULTIPLIER;
+        }
+        return bytes;
+    }
+
+    private Path tableFile(long number) {
+        return directory.resolve(String.format("%06d.sst", number));
+    }
+
+    private Path logFile(long number) {
+        return directory.resolve(String.format("%06d.log", number));
+    }
+
+    private static long fileNumber(String name) {
+        int dot = name.indexOf('.');
+        if (dot <= 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] live(byte[] value) {
+        return value == TOMBSTONE ? null : value;
+    }
+
+    // The table of a sorted, non-overlapping level whose range holds the key
+    private static SSTable tableFor(List<SSTable> level, byte[] key) {
+        int low = 0;
+        int high = level.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(level.get(middle).lastKey(), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < level.size() && Arrays.compareUnsigned(level.get(low).firstKey(), key) <= 0
+                ? level.get(low)
+                : null;
+    }
+
+    private static long levelBytes(List<SSTable> level) {
+        long bytes = 0;
+        for (SSTable table : level) {
+            bytes += table.size();
+        }
+        return bytes;
+    }
+
+    private static byte[][] range(List<SSTable> tables) {
+        byte[] smallest = null;
+        byte[] largest = null;
+        for (SSTable table : tables) {
+            if (smallest == null || Arrays.compareUnsigned(table.firstKey(), smallest) < 0) {
+                smallest = table.firstKey();
+            }
+            if (largest == null || Arrays.compareUnsigned(table.lastKey(), largest) > 0) {
+                largest = table.lastKey();
+            }
+        }
+        return new byte[][]{smallest, largest};
+    }
+
+    private static List<List<SSTable>> emptyLevels() {
+        List<List<SSTable>> levels = new ArrayList<>(MAX_LEVELS);
+        for (int i = 0; i < MAX_LEVELS; i++) {
+            levels.add(new ArrayList<>());
+        }
+        return levels;
+    }
+
+    private static List<List<SSTable>> copyLevels(List<List<SSTable>> levels) {
+        List<List<SSTable>> copy = new ArrayList<>(levels.size());
+        for (List<SSTable> level : levels) {
+            copy.add(new ArrayList<>(level));
+        }
+        return copy;
+    }
+
+    private static List<List<SSTable>> freeze(List<List<SSTable>> levels) {
+        List<List<SSTable>> frozen = new ArrayList<>(levels.size());
+        for (List<SSTable> level : levels) {
+            frozen.add(List.copyOf(level));
+        }
+        return List.copyOf(frozen);
+    }
+
+    private static Iterator<Entry> memtableIterator(Memtable memtable, byte[] from, byte[] to) {
+        return memtable.entries.subMap(from, true, to, false).entrySet().stream()
+                .map(entry -> new Entry(entry.getKey(), entry.getValue()))
+                .iterator();
+    }
+
+    // The tables of one sorted level one after another, starting at the first key at or above from
+    private static final class LevelIterator implements Iterator<Entry> {
+        private final List<SSTable> tables;
+        private final byte[] from;
+        private int table;
+        private Iterator<Entry> current;
+
+        LevelIterator(List<SSTable> tables, byte[] from) {
+            this.tables = tables;
+            this.from = from;
+            while (table < tables.size() && from != null
+                    && Arrays.compareUnsigned(tables.get(table).lastKey(), from) < 0) {
+                table++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+                if (table >= tables.size()) {
+                    return false;
+                }
+                current = tables.get(table).iterator(current == null ? from : null);
+                table++;
+            }
+            return true;
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+
+    /**
+     * Merge of sorted sources in key order where the sources are given newest first: of entries with
+     * the same key only the one from the newest source is returned, tombstones included.
+     */
+    private static final class MergingIterator implements Iterator<Entry> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>();
+
+        MergingIterator(List<Iterator<Entry>> sources) {
+            for (int i = 0; i < sources.size(); i++) {
+                Iterator<Entry> source = sources.get(i);
+                if (source.hasNext()) {
+                    heads.add(new Head(source.next(), source, i));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Entry next = head.entry;
+            advance(head);
+            // Older versions of the same key
+            while (!heads.isEmpty() && Arrays.compareUnsigned(heads.peek().entry.key(), next.key()) == 0) {
+                advance(heads.poll());
+            }
+            return next;
+        }
+
+        private void advance(Head head) {
+            if (head.source.hasNext()) {
+                head.entry = head.source.next();
+                heads.add(head);
+            }
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+        private Entry entry;
+        private final Iterator<Entry> source;
+        private final int age;
+
+        Head(Entry entry, Iterator<Entry> source, int age) {
+            this.entry = entry;
+            this.source = source;
+            this.age = age;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int byKey = Arrays.compareUnsigned(entry.key(), other.entry.key());
+            return byKey != 0 ? byKey : Integer.compare(age, other.age);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Durable transaction store on an {@link LsmStore}. Transactions are stored under their ID and order IDs
+ * under a second key range pointing to the ID, so both lookups are point reads and the transactions
+ * of a listing come out of one range scan in ID order. A transaction and its order ID key are written
+ * in one batch, so a crash never leaves one without the other.
+ * <p>
+ * Order IDs being saved are claimed in memory first, so concurrent saves of the same order ID cannot
+ * both find it free. Updates and deletes of one ID are serialized by striped locks around the version
+ * check and the write.
+ * <p>
+ * The highest deleted ID is kept under a meta key, written with the delete that raises it or set to the
+ * ID fence of a restored backup, so IDs of deleted transactions are not handed out again after a restart.
+ */
+public class LsmTransactionRepositoryImpl implements TransactionRepository, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(LsmTransactionRepositoryImpl.class);
+    private static final byte META_KEYS = 0;
+    private static final byte TRANSACTION_KEYS = 1;
+    private static final byte ORDER_ID_KEYS = 2;
+    private static final byte[] TRANSACTION_KEYS_END = {TRANSACTION_KEYS + 1};
+    private static final byte[] HIGHEST_DELETED_ID_KEY = {META_KEYS, 1};
+    private static final int LOCK_STRIPES = 64;
+    private static final int RESTORE_BATCH_SIZE = 1_000;
+
+    private final LsmStore store;
+    private final IdGenerator idGenerator;
+    private final Map<String, Boolean> pendingOrderIds = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong count = new AtomicLong();
+    // Raised only under its own lock, so the meta key is never written back to a lower ID
+    private final Object highestDeletedIdLock = new Object();
+    private volatile long highestDeletedId;
+
+    public LsmTransactionRepositoryImpl(IdGenerator idGenerator, Path directory, LsmStore.Options options) {
+        this.idGenerator = idGenerator;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            this.store = new LsmStore(directory, options);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open transaction store in " + directory, e);
+        }
+
+        // The count and the highest live ID are not stored, one pass over the keys recovers both
+        long recovered = 0;
+        long maxId = 0;
+        Iterator<LsmStore.Entry> entries = store.scan(transactionKey(0), false, TRANSACTION_KEYS_END);
+        while (entries.hasNext()) {
+            maxId = Math.max(maxId, idOf(entries.next().key()));
+            recovered++;
+        }
+        count.set(recovered);
+        byte[] highestDeleted = store.get(HIGHEST_DELETED_ID_KEY);
+        highestDeletedId = highestDeleted == null ? 0 : ByteBuffer.wrap(highestDeleted).getLong();
+        idGenerator.advancePast(Math.max(maxId, highestDeletedId));
+        if (recovered > 0) {
+            logger.info("Opened transaction store in {} with {} transactions", directory, recovered);
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        String orderId = transaction.getOrderId();
+        if (!claim(orderId)) {
+            throw new DuplicateTransactionException(
+                    Map.of("orderId", orderId,
+                            "message", "Transaction with order ID already exists")
+            );
+        }
+        try {
+            transaction.setId(idGenerator.nextId());
+            store.write(List.of(transactionEntry(transaction), orderIdEntry(transaction)));
+            count.incrementAndGet();
+            return transaction;
+        } finally {
+            pendingOrderIds.remove(orderId);
+        }
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        List<Transaction> claimed = new ArrayList<>(batch.size());
+        try {
+            for (Transaction transaction : batch) {
+                if (claim(transaction.getOrderId())) {
+                    claimed.add(transaction);
+                }
+            }
+            if (claimed.isEmpty()) {
+                return claimed;
+            }
+            List<LsmStore.Entry> entries = new ArrayList<>(claimed.size() * 2);
+            for (Transaction transaction : claimed) {
+                transaction.setId(idGenerator.nextId());
+                entries.add(transactionEntry(transaction));
+                entries.add(orderIdEntry(transaction));
+            }
+            store.write(entries);
+            count.addAndGet(claimed.size());
+            return claimed;
+        } finally {
+            for (Transaction transaction : claimed) {
+                pendingOrderIds.remove(transaction.getOrderId());
+            }
+        }
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        Long id = transaction.getId();
+        synchronized (lockFor(id)) {
+            Transaction existingTransaction = findById(id)
+                    .orElseThrow(() -> new TransactionNotFoundException(id));
+
+            if (!existingTransaction.getVersion().equals(transaction.getVersion())) {
+                throw new ConcurrentUpdateException(Map.of(
+                    "transactionId", id,
+                    "message", "Transaction was updated by another user",
+                    "currentVersion", existingTransaction.getVersion(),
+                    "requestVersion", transaction.getVersion()
+                ));
+            }
+
+            transaction.incrementVersion();
+            store.write(List.of(transactionEntry(transaction)));
+            return transaction;
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        byte[] value = store.get(transactionKey(id));
+        return value == null ? Optional.empty() : Optional.of(decode(value));
+    }
+
+    @Override
+    public Optional<Transaction> findByOrderId(String orderId) {
+        byte[] id = store.get(orderIdKey(orderId));
+        return id == null ? Optional.empty() : findById(ByteBuffer.wrap(id).getLong());
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public List<Transaction> findAll(int offset, int limit) {
+        return stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Transaction> findAfter(long afterId, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        Iterator<LsmStore.Entry> entries = store.scan(transactionKey(Math.max(afterId, 0)), false,
+                TRANSACTION_KEYS_END);
+        while (page.size() < limit && entries.hasNext()) {
+            page.add(decode(entries.next().value()));
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        Iterator<LsmStore.Entry> entries = store.scan(transactionKey(0), false, TRANSACTION_KEYS_END);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(entries,
+                        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false)
+                .map(entry -> decode(entry.value()));
+    }
+
+    @Override
+    public long count() {
+        return count.get();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (lockFor(id)) {
+            findById(id).ifPresent(transaction -> {
+                List<LsmStore.Entry> tombstones = List.of(
+                        new LsmStore.Entry(transactionKey(id), LsmStore.TOMBSTONE),
+                        new LsmStore.Entry(orderIdKey(transaction.getOrderId()), LsmStore.TOMBSTONE));
+                if (id > highestDeletedId) {
+                    writeRaisingHighestDeletedId(id, tombstones);
+                } else {
+                    store.write(tombstones);
+                }
+                count.decrementAndGet();
+            });
+        }
+    }
+
+    @Override
+    public boolean deleteIfVersion(Long id, long version) {
+        if (id == null) {
+            return false;
+        }
+        synchronized (lockFor(id)) {
+            Optional<Transaction> current = findById(id);
+            if (current.isEmpty() || current.get().getVersion() != version) {
+                return false;
+            }
+            deleteById(id);
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            store.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot clear transaction store", e);
+        }
+        count.set(0);
+        highestDeletedId = 0;
+        idGenerator.reset();
+    }
+
+    @Override
+    public void restore(List<Transaction> restored, long idFence) {
+        clear();
+        // The fence goes first, kept like a deleted ID; a crash part way leaves part of the backup to restore again
+        List<LsmStore.Entry> batch = new ArrayList<>(2 * RESTORE_BATCH_SIZE + 1);
+        batch.add(new LsmStore.Entry(HIGHEST_DELETED_ID_KEY, ByteBuffer.allocate(8).putLong(idFence).array()));
+        long maxId = idFence;
+        for (Transaction transaction : restored) {
+            batch.add(transactionEntry(transaction));
+            batch.add(orderIdEntry(transaction));
+            maxId = Math.max(maxId, transaction.getId());
+            if (batch.size() >= 2 * RESTORE_BATCH_SIZE) {
+                store.write(batch);
+                batch = new ArrayList<>(2 * RESTORE_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            store.write(batch);
+        }
+        count.set(restored.size());
+        highestDeletedId = idFence;
+        idGenerator.advancePast(maxId);
+    }
+
+    // Flushes the memtable and waits for due compactions, so benchmarks and tests see settled files
+    public void flush() {
+        try {
+            store.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot flush transaction store", e);
+        }
+    }
+
+    public LsmStore.Stats stats() {
+        return store.stats();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        store.close();
+    }
+
+    private void writeRaisingHighestDeletedId(long id, List<LsmStore.Entry> tombstones) {
+        synchronized (highestDeletedIdLock) {
+            if (id <= highestDeletedId) {
+                store.write(tombstones);
+                return;
+            }
+            List<LsmStore.Entry> entries = new ArrayList<>(tombstones);
+            entries.add(new LsmStore.Entry(HIGHEST_DELETED_ID_KEY, ByteBuffer.allocate(8).putLong(id).array()));
+            store.write(entries);
+            highestDeletedId = id;
+        }
+    }
+
+    private boolean claim(String orderId) {
+        if (pendingOrderIds.putIfAbsent(orderId, Boolean.TRUE) != null) {
+            return false;
+        }
+        if (store.get(orderIdKey(orderId)) != null) {
+            pendingOrderIds.remove(orderId);
+            return false;
+        }
+        return true;
+    }
+
+    private Object lockFor(Long id) {
+        return locks[(int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    private static LsmStore.Entry transactionEntry(Transaction transaction) {
+        return new LsmStore.Entry(transactionKey(transaction.getId()), TransactionCodec.encode(transaction));
+    }
+
+    private static LsmStore.Entry orderIdEntry(Transaction transaction) {
+        return new LsmStore.Entry(orderIdKey(transaction.getOrderId()),
+                ByteBuffer.allocate(8).putLong(transaction.getId()).array());
+    }
+
+    // Big-endian IDs sort in numeric order under unsigned byte comparison, IDs being positive
+    private static byte[] transactionKey(long id) {
+        return ByteBuffer.allocate(9).put(TRANSACTION_KEYS).putLong(id).array();
+    }
+
+    private static long idOf(byte[] transactionKey) {
+        return ByteBuffer.wrap(transactionKey).getLong(1);
+    }
+
+    private static byte[] orderIdKey(String orderId) {
+        byte[] bytes = orderId.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + bytes.length).put(ORDER_ID_KEYS).put(bytes).array();
+    }
+
+    private static Transaction decode(byte[] value) {
+        return TransactionCodec.decode(ByteBuffer.wrap(value), 0);
+    }
+}
@@ -0,0 +1,385 @@
+package com.hsbc.banking.transaction.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted string table of the LSM store: key/value entries in unsigned byte order, cut into
+ * blocks of about {@code blockSize} bytes. A block index with the last key of every block and a Bloom
+ * filter over all keys are loaded on heap when the table is opened; the blocks are read through a memory
+ * mapping, which also keeps a table readable by in-flight scans after compaction deleted its file.
+ * <p>
+ * Layout: blocks of {@code [key length][key][value length, -1 for a tombstone][value]} entries, the index
+ * of {@code [key length][last key][block offset][block length]}, the filter words, the first key, and a
+ * fixed-size footer locating them.
+ */
+final class SSTable {
+    private static final int MAGIC = 0x53535442;
+    private static final int FOOTER_SIZE = 6 * 4 + 8 + 4;
+
+    private final long fileNumber;
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final byte[][] lastKeys;
+    private final int[] blockOffsets;
+    private final int[] blockLengths;
+    private final BloomFilter filter;
+    private final byte[] firstKey;
+    private final long entryCount;
+
+    private SSTable(long fileNumber, Path file, MappedByteBuffer buffer) throws IOException {
+        this.fileNumber = fileNumber;
+        this.file = file;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (footer < 0 || buffer.getInt(footer + FOOTER_SIZE - 4) != MAGIC) {
+            throw new IOException("Not an SSTable: " + file);
+        }
+        int indexOffset = buffer.getInt(footer);
+        int indexCount = buffer.getInt(footer + 4);
+        int filterOffset = buffer.getInt(footer + 8);
+        int filterWords = buffer.getInt(footer + 12);
+        int filterHashes = buffer.getInt(footer + 16);
+        int firstKeyOffset = buffer.getInt(footer + 20);
+        this.entryCount = buffer.getLong(footer + 24);
+
+        this.lastKeys = new byte[indexCount][];
+        this.blockOffsets = new int[indexCount];
+        this.blockLengths = new int[indexCount];
+        int position = indexOffset;
+        for (int i = 0; i < indexCount; i++) {
+            lastKeys[i] = bytes(position);
+            position += 4 + lastKeys[i].length;
+            blockOffsets[i] = buffer.getInt(position);
+            blockLengths[i] = buffer.getInt(position + 4);
+            position += 8;
+        }
+        long[] words = new long[filterWords];
+        for (int i = 0; i < filterWords; i++) {
+            words[i] = buffer.getLong(filterOffset + i * 8);
+        }
+        this.filter = BloomFilter.of(words, filterHashes);
+        this.firstKey = bytes(firstKeyOffset);
+    }
+
+    static SSTable open(long fileNumber, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SSTable(fileNumber, file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The value stored for the key, {@link LsmStore#TOMBSTONE} if the table records its deletion,
+     * or null if the table does not have the key.
+     */
+    byte[] get(byte[] key) {
+        if (Arrays.compareUnsigned(key, firstKey) < 0 || !filter.mightContain(key)) {
+            return null;
+        }
+        int block = blockFor(key);
+        if (block == lastKeys.length) {
+            return null;
+        }
+        int position = blockOffsets[block];
+        int end = position + blockLengths[block];
+        while (position < end) {
+            int keyLength = buffer.getInt(position);
+            int compared = compareAt(position + 4, keyLength, key);
+            position += 4 + keyLength;
+            int valueLength = buffer.getInt(position);
+            if (compared == 0) {
+                return valueLength < 0 ? LsmStore.TOMBSTONE : slice(position + 4, valueLength);
+            }
+            if (compared > 0) {
+                return null;
+            }
+            position += 4 + Math.max(0, valueLength);
+        }
+        return null;
+    }
+
+    // Entries, tombstones included, from the first key at or above from
+    Iterator<LsmStore.Entry> iterator(byte[] from) {
+        int startBlock = from == null ? 0 : blockFor(from);
+        return new Iterator<>() {
+            private int block = startBlock;
+            private int position = block < blockOffsets.length ? blockOffsets[block] : 0;
+            private LsmStore.Entry next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LsmStore.Entry next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LsmStore.Entry current = next;
+                next = advance();
+                return current;
+            }
+
+            private LsmStore.Entry advance() {
+                while (block < blockOffsets.length) {
+                    if (position >= blockOffsets[block] + blockLengths[block]) {
+                        block++;
+                        position = block < blockOffsets.length ? blockOffsets[block] : 0;
+                        continue;
+                    }
+                    byte[] key = bytes(position);
+                    position += 4 + key.length;
+                    int valueLength = buffer.getInt(position);
+                    byte[] value = valueLength < 0 ? LsmStore.TOMBSTONE : slice(position + 4, valueLength);
+                    position += 4 + Math.max(0, valueLength);
+                    if (from == null || Arrays.compareUnsigned(key, from) >= 0) {
+                        return new LsmStore.Entry(key, value);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    long fileNumber() {
+        return fileNumber;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    byte[] firstKey() {
+        return firstKey;
+    }
+
+    byte[] lastKey() {
+        return lastKeys[lastKeys.length - 1];
+    }
+
+    long size() {
+        return buffer.capacity();
+    }
+
+    long entryCount() {
+        return entryCount;
+    }
+
+    boolean overlaps(byte[] smallest, byte[] largest) {
+        return Arrays.compareUnsigned(lastKey(), smallest) >= 0 && Arrays.compareUnsigned(firstKey, largest) <= 0;
+    }
+
+    // First block whose last key is at or above the key, the block count if there is none
+    private int blockFor(byte[] key) {
+        int low = 0;
+        int high = lastKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Arrays.compareUnsigned(lastKeys[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareAt(int position, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int compared = Integer.compare(buffer.get(position + i) & 0xff, key[i] & 0xff);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private byte[] bytes(int position) {
+        return slice(position + 4, buffer.getInt(position));
+    }
+
+    private byte[] slice(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes entries given in increasing key order into a new table. The file gets its final name only
+     * when complete, so a crash leaves at most a temporary file behind.
+     */
+    static final class Writer implements AutoCloseable {
+        private final long fileNumber;
+        private final Path file;
+        private final Path temporary;
+        private final DataOutputStream out;
+        private final int blockSize;
+        private final int bloomBitsPerKey;
+        private final GrowableBuffer block = new GrowableBuffer();
+        private final List<byte[]> lastKeys = new ArrayList<>();
+        private final List<int[]> blocks = new ArrayList<>();
+        private long[] keyHashes = new long[1024];
+        private long entryCount;
+        private long offset;
+        private byte[] firstKey;
+        private byte[] lastKey;
+
+        Writer(long fileNumber, Path file, int blockSize, int bloomBitsPerKey) throws IOException {
+            this.fileNumber = fileNumber;
+            this.file = file;
+            this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16));
+            this.blockSize = blockSize;
+            this.bloomBitsPerKey = bloomBitsPerKey;
+        }
+
+        void add(byte[] key, byte[] value) throws IOException {
+            if (firstKey == null) {
+                firstKey = key;
+            }
+            lastKey = key;
+            if (entryCount == keyHashes.length) {
+                keyHashes = Arrays.copyOf(keyHashes, keyHashes.length * 2);
+            }
+            keyHashes[(int) entryCount++] = BloomFilter.hash(key);
+            block.putInt(key.length);
+            block.put(key);
+            if (value == LsmStore.TOMBSTONE) {
+                block.putInt(-1);
+            } else {
+                block.putInt(value.length);
+                block.put(value);
+            }
+            if (block.size() >= blockSize) {
+                finishBlock();
+            }
+        }
+
+        // Bytes written so far, including the open block
+        long size() {
+            return offset + block.size();
+        }
+
+        long entryCount() {
+            return entryCount;
+        }
+
+        SSTable finish() throws IOException {
+            if (entryCount == 0) {
+                throw new IllegalStateException("An SSTable needs at least one entry");
+            }
+            finishBlock();
+            int indexOffset = checkedOffset(offset);
+            for (int i = 0; i < lastKeys.size(); i++) {
+                byte[] key = lastKeys.get(i);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(blocks.get(i)[0]);
+                out.writeInt(blocks.get(i)[1]);
+                offset += 12 + key.length;
+            }
+            BloomFilter filter = BloomFilter.create((int) entryCount, bloomBitsPerKey);
+            for (int i = 0; i < entryCount; i++) {
+                filter.addHash(keyHashes[i]);
+            }
+            int filterOffset = checkedOffset(offset);
+            for (long word : filter.bits()) {
+                out.writeLong(word);
+            }
+            offset += (long) filter.bits().length * 8;
+            int firstKeyOffset = checkedOffset(offset);
+            out.writeInt(firstKey.length);
+            out.write(firstKey);
+            offset += 4 + firstKey.length;
+            checkedOffset(offset + FOOTER_SIZE);
+
+            out.writeInt(indexOffset);
+            out.writeInt(lastKeys.size());
+            out.writeInt(filterOffset);
+            out.writeInt(filter.bits().length);
+            out.writeInt(filter.hashes());
+            out.writeInt(firstKeyOffset);
+            out.writeLong(entryCount);
+            out.writeInt(MAGIC);
+            out.close();
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return open(fileNumber, file);
+        }
+
+        // Drops the partly written table
+        @Override
+        public void close() throws IOException {
+            out.close();
+            Files.deleteIfExists(temporary);
+        }
+
+        private void finishBlock() throws IOException {
+            if (block.size() == 0) {
+                return;
+            }
+            blocks.add(new int[]{checkedOffset(offset), block.size()});
+            lastKeys.add(lastKey);
+            out.write(block.array(), 0, block.size());
+            offset += block.size();
+            block.reset();
+        }
+
+        private static int checkedOffset(long offset) throws IOException {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("SSTable exceeds 2 GB, lower the target table size");
+            }
+            return (int) offset;
+        }
+    }
+
+    private static final class GrowableBuffer {
+        private byte[] bytes = new byte[8192];
+        private int size;
+
+        void putInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void put(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.hsbc.banking.transaction.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 1, 2, 3, ... from one shared counter; the IDs follow creation order but every writer increments the same value
+public class SequentialIdGenerator implements IdGenerator {
+    private final AtomicLong next = new AtomicLong(1);
+
+    @Override
+    public long nextId() {
+        return next.getAndIncrement();
+    }
+
+    @Override
+    public void reset() {
+        next.set(1);
+    }
+
+    @Override
+    public void advancePast(long id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+
+    @Override
+    public boolean increasesInCreationOrder() {
+        return true;
+    }
+}
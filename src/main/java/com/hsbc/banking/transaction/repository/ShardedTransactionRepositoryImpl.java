@@ -0,0 +1,388 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Transaction store split into shards by account ID, so writers of different accounts touch different
+ * maps and counters. Each shard numbers its transactions with its own sequence and puts the shard number
+ * in the low bits of the ID, which makes the shard of an ID known without a lookup. Order IDs must be
+ * unique across accounts, so their index is striped by order ID instead.
+ * <p>
+ * IDs increase within a shard but interleave across shards; listing merges the shards in ID order. The IDs
+ * do not increase in creation order, so search results and keyset pages are in ID order only, as with an
+ * {@link IdGenerator} that does not {@linkplain IdGenerator#increasesInCreationOrder() increase in creation order}.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "transaction.repository", name = "type", havingValue = "sharded")
+public class ShardedTransactionRepositoryImpl implements TransactionRepository {
+    private final Shard[] shards;
+    private final Map<String, Transaction>[] orderIdIndexes;
+    private final int shardBits;
+    private final int mask;
+    private final LongAdder size = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public ShardedTransactionRepositoryImpl(@Value("${transaction.repository.shards:16}") int shardCount) {
+        // Rounded up to a power of two so the shard is a mask of the hash and of the ID
+        int count = Integer.highestOneBit(Math.max(1, shardCount) * 2 - 1);
+        this.shardBits = Integer.numberOfTrailingZeros(count);
+        this.mask = count - 1;
+        this.shards = new Shard[count];
+        this.orderIdIndexes = new Map[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+            orderIdIndexes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        if (orderIdIndex(transaction.getOrderId()).putIfAbsent(transaction.getOrderId(), transaction) != null) {
+            throw new DuplicateTransactionException(
+                    Map.of("orderId", transaction.getOrderId(),
+                            "message", "Transaction with order ID already exists")
+            );
+        }
+
+        int shardIndex = shardIndexOf(transaction.getAccountId());
+        Shard shard = shards[shardIndex];
+        transaction.setId(id(shard.sequence.getAndIncrement(), shardIndex));
+        shard.transactions.put(transaction.getId(), transaction);
+        size.increment();
+        return transaction;
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        // Claimed transactions grouped by shard, so every shard reserves its IDs with one increment
+        List<List<Transaction>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        List<Transaction> claimed = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            if (orderIdIndex(transaction.getOrderId()).putIfAbsent(transaction.getOrderId(), transaction) == null) {
+                claimed.add(transaction);
+                byShard.get(shardIndexOf(transaction.getAccountId())).add(transaction);
+            }
+        }
+
+        for (int shardIndex = 0; shardIndex < shards.length; shardIndex++) {
+            List<Transaction> transactions = byShard.get(shardIndex);
+            if (transactions.isEmpty()) {
+                continue;
+            }
+            Shard shard = shards[shardIndex];
+            long sequence = shard.sequence.getAndAdd(transactions.size());
+            for (Transaction transaction : transactions) {
+                transaction.setId(id(sequence++, shardIndex));
+                shard.transactions.put(transaction.getId(), transaction);
+            }
+        }
+        size.add(claimed.size());
+        return claimed;
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        Shard shard = shardOf(transaction.getId());
+        // Version check and write of an update, and deletes, are serialized per shard
+        synchronized (shard) {
+            Transaction existingTransaction = shard.transactions.get(transaction.getId());
+            if (existingTransaction == null) {
+                throw new TransactionNotFoundException(transaction.getId());
+            }
+
+            if (!existingTransaction.getVersion().equals(transaction.getVersion())) {
+                throw new ConcurrentUpdateException(Map.of(
+                    "transactionId", transaction.getId(),
+                    "message", "Transaction was updated by another user",
+                    "currentVersion", existingTransaction.getVersion(),
+                    "requestVersion", transaction.getVersion()
+                ));
+            }
+
+            transaction.incrementVersion();
+            shard.transactions.put(transaction.getId(), transaction);
+            return transaction;
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shardOf(id).transactions.get(id));
+    }
+
+    @Override
+    public Optional<Transaction> findByOrderId(String orderId) {
+        return Optional.ofNullable(orderIdIndex(orderId).get(orderId));
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Transaction transaction = id == null ? null : shardOf(id).transactions.get(id);
+            if (transaction != null) {
+                found.add(transaction);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Transaction> findAll(int offset, int limit) {
+        return stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Transaction> findAfter(long afterId, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        MergingIterator iterator = new MergingIterator(afterId);
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MergingIterator(Long.MIN_VALUE),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    @Override
+    public Spliterator<Transaction> spliterator() {
+        // Not in global ID order, but each range it splits into is in ID order, which parallel scans rely on
+        List<Spliterator<Transaction>> ranges = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            ranges.add(IdRangeSpliterator.over(shard.transactions, transaction -> transaction));
+        }
+        return new ShardSpliterator(ranges, 0, ranges.size());
+    }
+
+    @Override
+    public long count() {
+        return size.sum();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            return;
+        }
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            Transaction transaction = shard.transactions.remove(id);
+            if (transaction != null) {
+                orderIdIndex(transaction.getOrderId()).remove(transaction.getOrderId());
+                size.decrement();
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteIfVersion(Long id, long version) {
+        if (id == null) {
+            return false;
+        }
+        Shard shard = shardOf(id);
+        synchronized (shard) {
+            Transaction transaction = shard.transactions.get(id);
+            if (transaction == null || transaction.getVersion() != version) {
+                return false;
+            }
+            shard.transactions.remove(id);
+            orderIdIndex(transaction.getOrderId()).remove(transaction.getOrderId());
+            size.decrement();
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].transactions.clear();
+            shards[i].sequence.set(1);
+            orderIdIndexes[i].clear();
+        }
+        size.reset();
+    }
+
+    @Override
+    public void restore(List<Transaction> restored, long idFence) {
+        clear();
+        long maxId = idFence;
+        // Into the shard their ID names, which is where every lookup by ID goes, whichever shard count wrote it
+        for (Transaction transaction : restored) {
+            shardOf(transaction.getId()).transactions.put(transaction.getId(), transaction);
+            orderIdIndex(transaction.getOrderId()).put(transaction.getOrderId(), transaction);
+            maxId = Math.max(maxId, transaction.getId());
+        }
+        size.add(restored.size());
+        // Every shard continues after the highest restored ID and the fence
+        for (Shard shard : shards) {
+            shard.sequence.set((maxId >>> shardBits) + 1);
+        }
+    }
+
+    private long id(long sequence, int shardIndex) {
+        return (sequence << shardBits) | shardIndex;
+    }
+
+    private Shard shardOf(Long id) {
+        return shards[(int) (id & mask)];
+    }
+
+    int shardIndexOf(String accountId) {
+        return spread(accountId.hashCode()) & mask;
+    }
+
+    private Map<String, Transaction> orderIdIndex(String orderId) {
+        return orderIdIndexes[spread(orderId.hashCode()) & mask];
+    }
+
+    // Murmur3 finalizer; account IDs differ only in their last digits, which String.hashCode barely spreads
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Shard {
+        private final ConcurrentSkipListMap<Long, Transaction> transactions = new ConcurrentSkipListMap<>();
+        private final AtomicLong sequence = new AtomicLong(1);
+    }
+
+    // K-way merge of the shards in ID order, holding one transaction per shard
+    private final class MergingIterator implements Iterator<Transaction> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(shards.length);
+
+        MergingIterator(long afterId) {
+            for (Shard shard : shards) {
+                Iterator<Transaction> iterator = shard.transactions.tailMap(afterId, false).values().iterator();
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Transaction next = head.transaction;
+            if (head.iterator.hasNext()) {
+                head.transaction = head.iterator.next();
+                heads.add(head);
+            }
+            return next;
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+        private Transaction transaction;
+        private final Iterator<Transaction> iterator;
+
+        Head(Transaction transaction, Iterator<Transaction> iterator) {
+            this.transaction = transaction;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            return Long.compare(transaction.getId(), other.transaction.getId());
+        }
+    }
+
+    // Splits across shards first, then a single shard into ID ranges
+    private static final class ShardSpliterator implements Spliterator<Transaction> {
+        private final List<Spliterator<Transaction>> ranges;
+        private int from;
+        private final int to;
+
+        ShardSpliterator(List<Spliterator<Transaction>> ranges, int from, int to) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Transaction> action) {
+            while (from < to) {
+                if (ranges.get(from).tryAdvance(action)) {
+                    return true;
+                }
+                from++;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Transaction> trySplit() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                Spliterator<Transaction> prefix = new ShardSpliterator(ranges, from, middle);
+                from = middle;
+                return prefix;
+            }
+            return from < to ? ranges.get(from).trySplit() : null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long estimate = 0;
+            for (int i = from; i < to; i++) {
+                estimate += ranges.get(i).estimateSize();
+                if (estimate < 0) {
+                    return Long.MAX_VALUE;
+                }
+            }
+            return estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.NONNULL | Spliterator.DISTINCT;
+        }
+    }
+}
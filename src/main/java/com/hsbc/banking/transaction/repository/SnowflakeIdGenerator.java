@@ -0,0 +1,80 @@
+package com.hsbc.banking.transaction.repository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style IDs: 41 bits of milliseconds since a custom epoch, a 10 bit node ID and a 12 bit
+ * sequence within the millisecond. Nodes with different node IDs generate unique IDs without talking
+ * to each other, and IDs sort by creation time across nodes up to their clock skew.
+ * <p>
+ * The last timestamp and sequence are one atomic value. When the sequence of a millisecond runs out,
+ * or the clock steps back, IDs continue from the last timestamp so they never repeat or decrease;
+ * they catch up with the clock once it passes that timestamp again.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << 41) - 1;
+
+    private final long nodeId;
+    private final long epochMillis;
+    private final Clock clock;
+    // Timestamp relative to the epoch shifted left by SEQUENCE_BITS, plus the sequence
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long nodeId, Instant epoch) {
+        this(nodeId, epoch, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(long nodeId, Instant epoch, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.epochMillis = epoch.toEpochMilli();
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long current = last.get();
+            long timestamp = clock.millis() - epochMillis;
+            if (timestamp < 0 || timestamp > MAX_TIMESTAMP) {
+                throw new IllegalStateException("Clock is outside the ID range of epoch " + epochMillis);
+            }
+            long candidate = timestamp << SEQUENCE_BITS;
+            // A sequence overflow carries into the timestamp, which borrows the next millisecond
+            long next = candidate > current ? candidate : current + 1;
+            if (last.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (nodeId << SEQUENCE_BITS)
+                        | (next & ((1L << SEQUENCE_BITS) - 1));
+            }
+        }
+    }
+
+    @Override
+    public void advancePast(long id) {
+        // Continues after the last sequence of the ID's millisecond, so later IDs are higher whatever its node
+        long sequenceMask = (1L << SEQUENCE_BITS) - 1;
+        last.accumulateAndGet(((id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS) | sequenceMask, Math::max);
+    }
+
+    // On this node; IDs of different nodes are in creation order only up to their clock skew
+    @Override
+    public boolean increasesInCreationOrder() {
+        return true;
+    }
+
+    public static long timestampOf(long id, Instant epoch) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + epoch.toEpochMilli();
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
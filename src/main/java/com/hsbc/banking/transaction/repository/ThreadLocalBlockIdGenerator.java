@@ -0,0 +1,71 @@
+package com.hsbc.banking.transaction.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out blocks of consecutive IDs from a shared counter and serves each block to a stripe of threads,
+ * picked by thread ID, so the shared counter is touched once per {@code blockSize} IDs instead of for every
+ * ID. Blocks belong to the stripes rather than to the threads, so short-lived threads like virtual threads
+ * do not each take a block and burn most of it.
+ * <p>
+ * IDs of one thread increase, but stripes interleave: a later transaction can get a lower ID than an
+ * earlier one from another thread, so the IDs do not increase in creation order.
+ */
+public class ThreadLocalBlockIdGenerator implements IdGenerator {
+    private final int blockSize;
+    private final AtomicLong nextBlock = new AtomicLong(1);
+    // Blocks taken before the last reset are dropped
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Block[] stripes;
+
+    public ThreadLocalBlockIdGenerator(int blockSize) {
+        this(blockSize, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    ThreadLocalBlockIdGenerator(int blockSize, int stripeCount) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.stripes = new Block[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Block();
+        }
+    }
+
+    @Override
+    public long nextId() {
+        Block block = stripes[(int) (Thread.currentThread().threadId() % stripes.length)];
+        // Held only to bump a counter, so it pins a virtual thread's carrier for no longer than that
+        synchronized (block) {
+            int currentGeneration = generation.get();
+            if (block.next == block.end || block.generation != currentGeneration) {
+                block.next = nextBlock.getAndAdd(blockSize);
+                block.end = block.next + blockSize;
+                block.generation = currentGeneration;
+            }
+            return block.next++;
+        }
+    }
+
+    @Override
+    public void reset() {
+        // Counter first: a block tagged with the new generation must come from the moved counter
+        nextBlock.set(1);
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void advancePast(long id) {
+        // Blocks already handed out may be below the ID, so they are dropped like on a reset
+        nextBlock.accumulateAndGet(id + 1, Math::max);
+        generation.incrementAndGet();
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+        private int generation;
+    }
+}
@@ -0,0 +1,672 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Two-tier transaction store. Recently written transactions live in a heap skip list like the in-memory
+ * repository; a background task moves the ones not written for {@code hotAge} into immutable
+ * {@link TransactionSegment} files that are read through memory mappings, so the heap holds the hot rows
+ * plus a small sparse index per segment however much data there is.
+ * <p>
+ * Reads check the hot tier, then the segments newest first. Updating a cold transaction moves it back to
+ * the hot tier and tombstones the segment copy, deleting one only tombstones it. Order IDs of cold
+ * transactions stay reserved through the order ID table of their segment; a Bloom filter of the cold order
+ * IDs on heap answers most checks of an order ID that is not cold without reading any segment.
+ * <p>
+ * After each migration, neighbouring segments whose live rows fit in one are merged and a segment with a
+ * quarter of its rows tombstoned is rewritten, so neither the segment count nor the tombstones keep growing.
+ * <p>
+ * The segments are spill space for this process, not durable storage: segment files left in the
+ * directory by an earlier run are deleted at startup.
+ */
+public class TieredTransactionRepositoryImpl implements TransactionRepository, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(TieredTransactionRepositoryImpl.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int LOCK_STRIPES = 64;
+    private static final int ORDER_ID_FILTER_BITS = 10;
+
+    private final ConcurrentSkipListMap<Long, Transaction> hot = new ConcurrentSkipListMap<>();
+    private final Map<String, Transaction> hotOrderIdIndex = new ConcurrentHashMap<>();
+    // Newest first, replaced as a whole when a segment is added
+    private volatile List<TransactionSegment> segments = List.of();
+    // Order IDs of the cold transactions, and maybe of some deleted since; always set before the segments
+    private volatile BloomFilter coldOrderIds = BloomFilter.create(0, ORDER_ID_FILTER_BITS);
+    private long coldOrderIdsAdded;
+    // An update or delete of a cold transaction and its migration are serialized per ID
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong segmentSequence = new AtomicLong();
+    // Kept apart from the tiers, a migration has its rows in both for a moment
+    private final LongAdder size = new LongAdder();
+    private final IdGenerator idGenerator;
+    private final Path directory;
+    private final Duration hotAge;
+    private final int segmentRows;
+    private final Clock clock;
+    private final ScheduledExecutorService migrator;
+
+    public TieredTransactionRepositoryImpl(IdGenerator idGenerator, Path directory, Duration hotAge,
+                                           int segmentRows, Duration migrateInterval) {
+        this(idGenerator, directory, hotAge, segmentRows, migrateInterval, Clock.systemDefaultZone());
+    }
+
+    TieredTransactionRepositoryImpl(IdGenerator idGenerator, Path directory, Duration hotAge,
+                                    int segmentRows, Duration migrateInterval, Clock clock) {
+        if (segmentRows < 1) {
+            throw new IllegalArgumentException("Segment rows must be positive: " + segmentRows);
+        }
+        this.idGenerator = idGenerator;
+        this.directory = directory;
+        this.hotAge = hotAge;
+        this.segmentRows = segmentRows;
+        this.clock = clock;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(directory);
+            deleteSegmentFiles();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare segment directory " + directory, e);
+        }
+
+        if (migrateInterval.isZero() || migrateInterval.isNegative()) {
+            this.migrator = null;
+        } else {
+            this.migrator = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "transaction-tiering");
+                thread.setDaemon(true);
+                return thread;
+            });
+            migrator.scheduleWithFixedDelay(this::migrateQuietly, migrateInterval.toMillis(),
+                    migrateInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Transaction save(Transaction transaction) {
+        claimOrderId(transaction);
+        transaction.setId(idGenerator.nextId());
+        hot.put(transaction.getId(), transaction);
+        size.increment();
+        return transaction;
+    }
+
+    @Override
+    public List<Transaction> saveAll(List<Transaction> batch) {
+        List<Transaction> claimed = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            if (tryClaimOrderId(transaction)) {
+                claimed.add(transaction);
+            }
+        }
+
+        for (Transaction transaction : claimed) {
+            transaction.setId(idGenerator.nextId());
+            hot.put(transaction.getId(), transaction);
+        }
+        size.add(claimed.size());
+        return claimed;
+    }
+
+    @Override
+    public Transaction update(Transaction transaction) {
+        Long id = transaction.getId();
+        synchronized (lockFor(id)) {
+            Transaction existingTransaction = hot.get(id);
+            TransactionSegment coldSegment = null;
+            if (existingTransaction == null) {
+                for (TransactionSegment segment : segments) {
+                    existingTransaction = segment.find(id);
+                    if (existingTransaction != null) {
+                        coldSegment = segment;
+                        break;
+                    }
+                }
+            }
+            if (existingTransaction == null) {
+                throw new TransactionNotFoundException(id);
+            }
+
+            if (!existingTransaction.getVersion().equals(transaction.getVersion())) {
+                throw new ConcurrentUpdateException(Map.of(
+                    "transactionId", id,
+                    "message", "Transaction was updated by another user",
+                    "currentVersion", existingTransaction.getVersion(),
+                    "requestVersion", transaction.getVersion()
+                ));
+            }
+
+            transaction.incrementVersion();
+            hot.put(id, transaction);
+            if (coldSegment != null) {
+                // Back to the hot tier; the segment copy is hidden only once the hot one is readable
+                hotOrderIdIndex.put(transaction.getOrderId(), transaction);
+                coldSegment.tombstone(id);
+            }
+            return transaction;
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Transaction transaction = hot.get(id);
+        if (transaction != null) {
+            return Optional.of(transaction);
+        }
+        for (TransactionSegment segment : segments) {
+            transaction = segment.find(id);
+            if (transaction != null) {
+                return Optional.of(transaction);
+            }
+        }
+        // Moved back to the hot tier between the two reads
+        return Optional.ofNullable(hot.get(id));
+    }
+
+    @Override
+    public Optional<Transaction> findByOrderId(String orderId) {
+        Transaction transaction = hotOrderIdIndex.get(orderId);
+        if (transaction != null) {
+            return Optional.of(transaction);
+        }
+        transaction = findColdByOrderId(orderId);
+        return transaction != null ? Optional.of(transaction) : Optional.ofNullable(hotOrderIdIndex.get(orderId));
+    }
+
+    @Override
+    public List<Transaction> findAllById(Collection<Long> ids) {
+        List<Transaction> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public List<Transaction> findAll(int offset, int limit) {
+        return stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<Transaction> findAfter(long afterId, int limit) {
+        List<Transaction> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        MergingIterator iterator = new MergingIterator(afterId);
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Transaction> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MergingIterator(Long.MIN_VALUE),
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    @Override
+    public long count() {
+        return size.sum();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (id == null) {
+            return;
+        }
+        synchronized (lockFor(id)) {
+            Transaction transaction = hot.remove(id);
+            if (transaction != null) {
+                hotOrderIdIndex.remove(transaction.getOrderId(), transaction);
+                size.decrement();
+                return;
+            }
+            for (TransactionSegment segment : segments) {
+                if (segment.tombstone(id)) {
+                    size.decrement();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteIfVersion(Long id, long version) {
+        if (id == null) {
+            return false;
+        }
+        synchronized (lockFor(id)) {
+            Optional<Transaction> current = findById(id);
+            if (current.isEmpty() || current.get().getVersion() != version) {
+                return false;
+            }
+            deleteById(id);
+            return true;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        hot.clear();
+        hotOrderIdIndex.clear();
+        size.reset();
+        List<TransactionSegment> dropped = segments;
+        segments = List.of();
+        coldOrderIds = BloomFilter.create(0, ORDER_ID_FILTER_BITS);
+        coldOrderIdsAdded = 0;
+        deleteSegments(dropped);
+        idGenerator.reset();
+    }
+
+    @Override
+    public synchronized void restore(List<Transaction> restored, long idFence) {
+        clear();
+        long maxId = idFence;
+        // Into the hot tier, the next migrations move them out; the backup service holds writes meanwhile
+        for (Transaction transaction : restored) {
+            hot.put(transaction.getId(), transaction);
+            hotOrderIdIndex.put(transaction.getOrderId(), transaction);
+            maxId = Math.max(maxId, transaction.getId());
+        }
+        size.add(restored.size());
+        idGenerator.advancePast(maxId);
+    }
+
+    /**
+     * Moves the hot transactions last written more than {@code hotAge} ago into new segments,
+     * at most {@code segmentRows} per segment.
+     *
+     * @return the number of transactions moved
+     */
+    public synchronized int migrate() throws IOException {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(hotAge);
+        List<Transaction> batch = new ArrayList<>();
+        int migrated = 0;
+        for (Transaction transaction : hot.values()) {
+            if (!transaction.getUpdatedAt().isAfter(cutoff)) {
+                // Copied so the segment gets one consistent state even if the transaction is being updated
+                batch.add(transaction.copy());
+                if (batch.size() == segmentRows) {
+                    migrated += flush(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            migrated += flush(batch);
+        }
+        if (migrated > 0) {
+            logger.info("Moved {} transactions to the cold tier, {} segments, {} hot transactions",
+                    migrated, segments.size(), hot.size());
+        }
+        return migrated;
+    }
+
+    /**
+     * Rewrites segments without their tombstoned rows: runs of neighbouring segments whose live rows fit in
+     * {@code segmentRows} are merged into one, and a segment with a quarter of its rows tombstoned is
+     * rewritten on its own.
+     *
+     * @return the number of segments replaced
+     */
+    public synchronized int compact() throws IOException {
+        List<List<TransactionSegment>> runs = new ArrayList<>();
+        List<TransactionSegment> run = new ArrayList<>();
+        long runRows = 0;
+        List<TransactionSegment> current = segments;
+        // Oldest first
+        for (int i = current.size() - 1; i >= 0; i--) {
+            TransactionSegment segment = current.get(i);
+            if (!run.isEmpty() && runRows + segment.liveCount() > segmentRows) {
+                runs.add(run);
+                run = new ArrayList<>();
+                runRows = 0;
+            }
+            run.add(segment);
+            runRows += segment.liveCount();
+        }
+        if (!run.isEmpty()) {
+            runs.add(run);
+        }
+
+        int replaced = 0;
+        for (List<TransactionSegment> candidates : runs) {
+            TransactionSegment only = candidates.get(0);
+            int dead = only.recordCount() - only.liveCount();
+            if (candidates.size() > 1 || (dead > 0 && dead * 4 >= only.recordCount())) {
+                replace(candidates);
+                replaced += candidates.size();
+            }
+        }
+        if (replaced > 0) {
+            logger.info("Compacted {} segments of the cold tier, {} segments left", replaced, segments.size());
+        }
+        return replaced;
+    }
+
+    int hotCount() {
+        return hot.size();
+    }
+
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (migrator != null) {
+            // Not interrupted, a migration in progress finishes its segment file instead of leaving a partial one
+            migrator.shutdown();
+            migrator.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private int flush(List<Transaction> batch) throws IOException {
+        TransactionSegment segment = TransactionSegment.write(nextSegmentFile(), batch);
+        List<TransactionSegment> published = new ArrayList<>(segments.size() + 1);
+        published.add(segment);
+        published.addAll(segments);
+        if (coldOrderIdsAdded + segment.recordCount() <= coldOrderIds.capacity(ORDER_ID_FILTER_BITS)) {
+            // Readers see the bits through the publication of the segments below
+            segment.addOrderIds(coldOrderIds);
+            coldOrderIdsAdded += segment.recordCount();
+        } else {
+            coldOrderIds = orderIdFilterOf(published);
+        }
+        // Published before the hot copies are removed, so every transaction stays readable in one of the tiers
+        segments = List.copyOf(published);
+
+        int moved = 0;
+        for (Transaction copy : batch) {
+            synchronized (lockFor(copy.getId())) {
+                Transaction current = hot.get(copy.getId());
+                if (current != null && current.getVersion().equals(copy.getVersion())) {
+                    hot.remove(copy.getId());
+                    hotOrderIdIndex.remove(current.getOrderId(), current);
+                    moved++;
+                } else {
+                    // Updated or deleted while the segment was written, the hot tier has the current state
+                    segment.tombstone(copy.getId());
+                }
+            }
+        }
+        return moved;
+    }
+
+    // The segments, oldest first, are replaced by one holding their live rows, or by none if they have none
+    private void replace(List<TransactionSegment> run) throws IOException {
+        List<Transaction> live = new ArrayList<>();
+        // Where each row was read, an older segment of the run may hold a tombstoned copy of it
+        Map<TransactionSegment, List<Long>> readFrom = new HashMap<>();
+        for (TransactionSegment segment : run) {
+            List<Long> ids = new ArrayList<>();
+            segment.iterator(Long.MIN_VALUE).forEachRemaining(transaction -> {
+                live.add(transaction);
+                ids.add(transaction.getId());
+            });
+            readFrom.put(segment, ids);
+        }
+        live.sort(Comparator.comparing(Transaction::getId));
+        TransactionSegment compacted = live.isEmpty() ? null : TransactionSegment.write(nextSegmentFile(), live);
+
+        // In the place of the newest segment of the run; an iterator that knew it merges the list anew
+        TransactionSegment newest = run.get(run.size() - 1);
+        List<TransactionSegment> published = new ArrayList<>(segments.size());
+        for (TransactionSegment segment : segments) {
+            if (segment == newest && compacted != null) {
+                published.add(compacted);
+            } else if (!run.contains(segment)) {
+                published.add(segment);
+            }
+        }
+        // Built before the rows tombstoned meanwhile are known, so it may hold some order IDs too many
+        BloomFilter filter = orderIdFilterOf(published);
+        List<TransactionSegment> replacement = List.copyOf(published);
+        withAllLocks(0, () -> {
+            // Rows updated or deleted since they were read
+            readFrom.forEach((segment, ids) -> {
+                for (Long id : ids) {
+                    if (segment.isTombstoned(id)) {
+                        compacted.tombstone(id);
+                    }
+                }
+            });
+            coldOrderIds = filter;
+            segments = replacement;
+        });
+        deleteSegments(run);
+    }
+
+    // Sized for twice the live rows, so the next migrations add to it
+    private BloomFilter orderIdFilterOf(List<TransactionSegment> published) {
+        long live = 0;
+        for (TransactionSegment segment : published) {
+            live += segment.liveCount();
+        }
+        BloomFilter filter = BloomFilter.create((int) Math.min(Integer.MAX_VALUE / ORDER_ID_FILTER_BITS,
+                Math.max(2 * live, segmentRows)), ORDER_ID_FILTER_BITS);
+        for (TransactionSegment segment : published) {
+            segment.addOrderIds(filter);
+        }
+        coldOrderIdsAdded = live;
+        return filter;
+    }
+
+    // Takes every lock stripe in order, so no update, delete or migration of a cold row runs meanwhile
+    private void withAllLocks(int stripe, Runnable action) {
+        if (stripe == LOCK_STRIPES) {
+            action.run();
+            return;
+        }
+        synchronized (locks[stripe]) {
+            withAllLocks(stripe + 1, action);
+        }
+    }
+
+    private Path nextSegmentFile() {
+        return directory.resolve(String.format("transactions-%06d%s",
+                segmentSequence.incrementAndGet(), SEGMENT_SUFFIX));
+    }
+
+    // Iterators still reading them keep their mappings, which stay valid after the files are gone
+    private void deleteSegments(List<TransactionSegment> dropped) {
+        for (TransactionSegment segment : dropped) {
+            try {
+                Files.deleteIfExists(segment.file());
+            } catch (IOException e) {
+                logger.warn("Could not delete segment {}", segment.file(), e);
+            }
+        }
+    }
+
+    private void migrateQuietly() {
+        try {
+            migrate();
+        } catch (Exception e) {
+            logger.error("Moving transactions to the cold tier failed, they stay hot", e);
+        }
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.error("Compacting the cold tier failed, its segments stay as they are", e);
+        }
+    }
+
+    private void claimOrderId(Transaction transaction) {
+        if (!tryClaimOrderId(transaction)) {
+            throw new DuplicateTransactionException(
+                    Map.of("orderId", transaction.getOrderId(),
+                            "message", "Transaction with order ID already exists")
+            );
+        }
+    }
+
+    private boolean tryClaimOrderId(Transaction transaction) {
+        String orderId = transaction.getOrderId();
+        if (hotOrderIdIndex.putIfAbsent(orderId, transaction) != null) {
+            return false;
+        }
+        // A migrated transaction leaves the hot index only after its segment is published
+        if (findColdByOrderId(orderId) != null) {
+            hotOrderIdIndex.remove(orderId, transaction);
+            return false;
+        }
+        return true;
+    }
+
+    private Transaction findColdByOrderId(String orderId) {
+        List<TransactionSegment> current = segments;
+        // Read after the segments, so it holds the order IDs of all of them
+        if (!coldOrderIds.mightContainHash(TransactionSegment.orderIdHash(orderId))) {
+            return null;
+        }
+        for (TransactionSegment segment : current) {
+            Transaction transaction = segment.findByOrderId(orderId);
+            if (transaction != null) {
+                return transaction;
+            }
+        }
+        return null;
+    }
+
+    private Object lockFor(Long id) {
+        return locks[(int) (id ^ (id >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void deleteSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Merges the tiers in ID order; a transaction in several tiers is taken from the hot tier or the newest segment
+    private final class MergingIterator implements Iterator<Transaction> {
+        private static final int HOT_TIER = Integer.MIN_VALUE;
+
+        private final PriorityQueue<Head> heads = new PriorityQueue<>();
+        private List<TransactionSegment> merged;
+        private int newestTier;
+        private long lastId;
+        private boolean started;
+
+        MergingIterator(long afterId) {
+            lastId = afterId;
+            add(hot.tailMap(afterId, false).values().iterator(), HOT_TIER);
+            merged = segments;
+            for (int i = 0; i < merged.size(); i++) {
+                add(merged.get(i).iterator(afterId), i);
+            }
+        }
+
+        private void add(Iterator<Transaction> iterator, int tier) {
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator, tier));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!heads.isEmpty() && started && heads.peek().transaction.getId() == lastId) {
+                advance(heads.poll());
+            }
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Head head = heads.poll();
+            Transaction next = head.transaction;
+            lastId = next.getId();
+            started = true;
+            advance(head);
+            return next;
+        }
+
+        private void advance(Head head) {
+            if (head.iterator.hasNext()) {
+                head.transaction = head.iterator.next();
+                heads.add(head);
+            }
+            mergeNewSegments();
+        }
+
+        // A migration publishes its segment before it removes the rows from the hot tier, so rows the hot
+        // iterator just skipped are in a segment published since; they all sort after lastId. A compaction
+        // that replaced the newest known segment has all segments merged again, rows read twice are skipped
+        private void mergeNewSegments() {
+            List<TransactionSegment> current = segments;
+            if (current == merged) {
+                return;
+            }
+            int known = merged.isEmpty() ? -1 : current.indexOf(merged.get(0));
+            int added = known < 0 ? current.size() : known;
+            for (int i = added - 1; i >= 0; i--) {
+                add(current.get(i).iterator(lastId), --newestTier);
+            }
+            merged = current;
+        }
+    }
+
+    private static final class Head implements Comparable<Head> {
+        private Transaction transaction;
+        private final Iterator<Transaction> iterator;
+        private final int tier;
+
+        Head(Transaction transaction, Iterator<Transaction> iterator, int tier) {
+            this.transaction = transaction;
+            this.iterator = iterator;
+            this.tier = tier;
+        }
+
+        @Override
+        public int compareTo(Head other) {
+            int byId = Long.compare(transaction.getId(), other.transaction.getId());
+            return byId != 0 ? byId : Integer.compare(tier, other.tier);
+        }
+    }
+}
@@ -0,0 +1,561 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only files of transactions moved out of the live repository, with their audit logs.
+ * <p>
+ * A file holds transactions sorted by ID in blocks of up to {@value #BLOCK_RECORDS}, each block deflated
+ * on its own: every record is a length-prefixed {@link TransactionCodec} encoding followed by the audit logs
+ * of the transaction. An index of (first ID, last ID, offset, length) per block sits at the end of the file
+ * and is loaded on heap when the file is opened, so a lookup by ID reads and inflates one block. Inflated
+ * blocks are kept in a small cache, neighbouring IDs are usually read together.
+ * <p>
+ * Archived transactions keep their order IDs. Each file also holds a table of (order ID hash, ID) sorted by
+ * hash, searched on disk, and a Bloom filter of the order IDs that is loaded on heap, so checking an order ID
+ * that was never archived mostly costs a few bit tests per file.
+ * <p>
+ * Files are written under a temporary name and renamed when complete. When ID ranges of files overlap, the
+ * newest file wins.
+ */
+public final class TransactionArchive implements Closeable {
+    static final int BLOCK_RECORDS = 128;
+
+    private static final int MAGIC = 0x54584152; // "TXAR"
+    private static final String SUFFIX = ".archive";
+    private static final int INDEX_ENTRY_SIZE = 8 + 8 + 8 + 4 + 4;
+    private static final int ORDER_ID_ENTRY_SIZE = 8 + 8;
+    private static final int FOOTER_SIZE = 8 + 8 + 4 + 4 + 8 + 8 + 4 + 4 + 4;
+    // About 1% false positives
+    private static final int BLOOM_BITS_PER_ORDER_ID = 10;
+
+    private final Path directory;
+    private final Cache<Object, Object> blockCache;
+    private volatile List<ArchiveFile> files;
+    // Replaced files stay open until the archive closes, lookups may still be reading them
+    private final List<ArchiveFile> retired = new ArrayList<>();
+
+    private TransactionArchive(Path directory, Cache<Object, Object> blockCache, List<ArchiveFile> files) {
+        this.directory = directory;
+        this.blockCache = blockCache;
+        this.files = files;
+    }
+
+    /**
+     * Opens the archive files in the directory, which is created with the first file. Incomplete files
+     * left by an interrupted archival are deleted.
+     */
+    public static TransactionArchive open(Path directory, Cache<Object, Object> blockCache) throws IOException {
+        List<ArchiveFile> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> paths = Files.list(directory)) {
+                for (Path path : paths.sorted().toList()) {
+                    String name = path.getFileName().toString();
+                    if (name.endsWith(SUFFIX + ".partial")) {
+                        Files.delete(path);
+                    } else if (name.endsWith(SUFFIX)) {
+                        files.add(ArchiveFile.open(path));
+                    }
+                }
+            }
+        }
+        // Names carry a sequence number, sorting them puts the newest file last
+        return new TransactionArchive(directory, blockCache, List.copyOf(files));
+    }
+
+    /**
+     * Writes the transactions, which must be sorted by ID, and their audit logs to a new archive file.
+     *
+     * @return the name of the file
+     */
+    public synchronized String append(List<Transaction> transactions, Map<Long, List<AuditLog>> auditLogs)
+            throws IOException {
+        if (transactions.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to archive");
+        }
+        Files.createDirectories(directory);
+        List<ArchiveFile> current = files;
+        long sequence = current.isEmpty() ? 1 : current.get(current.size() - 1).sequence + 1;
+        Path file = directory.resolve(String.format("transactions-%010d-%d-%d%s", sequence,
+                transactions.get(0).getId(), transactions.get(transactions.size() - 1).getId(), SUFFIX));
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try {
+            write(partial, transactions, auditLogs);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        List<ArchiveFile> published = new ArrayList<>(current);
+        published.add(ArchiveFile.open(file));
+        files = List.copyOf(published);
+        return file.getFileName().toString();
+    }
+
+    /**
+     * Replaces an archive file with one that leaves out the given IDs, for transactions that were written
+     * to it but could not be removed from the live repository.
+     */
+    public synchronized void exclude(String fileName, Collection<Long> ids) throws IOException {
+        Set<Long> excluded = new HashSet<>(ids);
+        List<ArchiveFile> current = files;
+        int position = -1;
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).path.getFileName().toString().equals(fileName)) {
+                position = i;
+            }
+        }
+        if (position < 0) {
+            throw new IllegalArgumentException("No archive file " + fileName);
+        }
+        ArchiveFile old = current.get(position);
+        List<Transaction> kept = new ArrayList<>();
+        Map<Long, List<AuditLog>> keptAuditLogs = new HashMap<>();
+        for (int block = 0; block < old.blockCount(); block++) {
+            Block decoded = old.readBlock(block);
+            for (int i = 0; i < decoded.ids.length; i++) {
+                if (!excluded.contains(decoded.ids[i])) {
+                    kept.add(decoded.transactions[i]);
+                    keptAuditLogs.put(decoded.ids[i], decoded.auditLogs.get(i));
+                }
+            }
+        }
+
+        List<ArchiveFile> published = new ArrayList<>(current);
+        if (kept.isEmpty()) {
+            published.remove(position);
+        } else {
+            Path partial = old.path.resolveSibling(fileName + ".partial");
+            try {
+                write(partial, kept, keptAuditLogs);
+                Files.move(partial, old.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            published.set(position, ArchiveFile.open(old.path));
+        }
+        files = List.copyOf(published);
+        retired.add(old);
+        if (kept.isEmpty()) {
+            Files.delete(old.path);
+        }
+    }
+
+    public Optional<Transaction> findById(long id) {
+        return find(id).map(found -> found.block.transactions[found.index].copy());
+    }
+
+    // Whether an archived transaction has the order ID
+    public boolean containsOrderId(String orderId) {
+        long hash = orderIdHash(orderId);
+        for (ArchiveFile file : files) {
+            if (!file.mightContain(hash)) {
+                continue;
+            }
+            try {
+                for (long id : file.idsWithOrderIdHash(hash)) {
+                    Optional<Found> found = findIn(file, id);
+                    if (found.isPresent() && orderId.equals(found.get().block.transactions[found.get().index]
+                            .getOrderId())) {
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archive " + file.path, e);
+            }
+        }
+        return false;
+    }
+
+    public List<AuditLog> findAuditLogs(long transactionId) {
+        return find(transactionId).map(found -> found.block.auditLogs.get(found.index)).orElse(List.of());
+    }
+
+    public long count() {
+        long count = 0;
+        for (ArchiveFile file : files) {
+            count += file.recordCount;
+        }
+        return count;
+    }
+
+    public int fileCount() {
+        return files.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (ArchiveFile file : files) {
+            file.close();
+        }
+        for (ArchiveFile file : retired) {
+            file.close();
+        }
+        files = List.of();
+        retired.clear();
+    }
+
+    private Optional<Found> find(long id) {
+        List<ArchiveFile> current = files;
+        for (int i = current.size() - 1; i >= 0; i--) {
+            Optional<Found> found = findIn(current.get(i), id);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Found> findIn(ArchiveFile file, long id) {
+        int block = file.blockOf(id);
+        if (block < 0) {
+            return Optional.empty();
+        }
+        Block decoded = (Block) blockCache.get(new BlockKey(file, block), key -> {
+            try {
+                return file.readBlock(block);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read archive " + file.path, e);
+            }
+        });
+        int index = Arrays.binarySearch(decoded.ids, id);
+        return index >= 0 ? Optional.of(new Found(decoded, index)) : Optional.empty();
+    }
+
+    private static void write(Path file, List<Transaction> transactions, Map<Long, List<AuditLog>> auditLogs)
+            throws IOException {
+        int blockCount = (transactions.size() + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writeFully(channel, ByteBuffer.allocate(4).putInt(0, MAGIC));
+            long offset = 4;
+            for (int from = 0; from < transactions.size(); from += BLOCK_RECORDS) {
+                List<Transaction> block = transactions.subList(from, Math.min(from + BLOCK_RECORDS, transactions.size()));
+                byte[] compressed = compress(block, auditLogs, deflater);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                index.putLong(block.get(0).getId())
+                        .putLong(block.get(block.size() - 1).getId())
+                        .putLong(offset)
+                        .putInt(compressed.length)
+                        .putInt(block.size());
+                offset += compressed.length;
+            }
+            index.flip();
+            writeFully(channel, index);
+            long orderIdOffset = offset + index.capacity();
+            BloomFilter filter = writeOrderIds(channel, transactions);
+            long[] bloom = filter.bits();
+            ByteBuffer bloomBytes = ByteBuffer.allocate(bloom.length * 8);
+            bloomBytes.asLongBuffer().put(bloom);
+            writeFully(channel, bloomBytes);
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE)
+                    .putLong(transactions.get(0).getId())
+                    .putLong(transactions.get(transactions.size() - 1).getId())
+                    .putInt(transactions.size())
+                    .putInt(blockCount)
+                    .putLong(offset)
+                    .putLong(orderIdOffset)
+                    .putInt(bloom.length)
+                    .putInt(filter.hashes())
+                    .putInt(MAGIC)
+                    .flip();
+            writeFully(channel, footer);
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Writes the order ID table and returns the Bloom filter of the order IDs
+    private static BloomFilter writeOrderIds(FileChannel channel, List<Transaction> transactions)
+            throws IOException {
+        long[][] entries = new long[transactions.size()][];
+        BloomFilter bloom = BloomFilter.create(transactions.size(), BLOOM_BITS_PER_ORDER_ID);
+        for (int i = 0; i < entries.length; i++) {
+            Transaction transaction = transactions.get(i);
+            long hash = orderIdHash(transaction.getOrderId());
+            entries[i] = new long[]{hash, transaction.getId()};
+            bloom.addHash(hash);
+        }
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        ByteBuffer table = ByteBuffer.allocate(entries.length * ORDER_ID_ENTRY_SIZE);
+        for (long[] entry : entries) {
+            table.putLong(entry[0]).putLong(entry[1]);
+        }
+        table.flip();
+        writeFully(channel, table);
+        return bloom;
+    }
+
+    static long orderIdHash(String orderId) {
+        return BloomFilter.hash(orderId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] compress(List<Transaction> block, Map<Long, List<AuditLog>> auditLogs, Deflater deflater)
+            throws IOException {
+        deflater.reset();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        DeflaterOutputStream deflated = new DeflaterOutputStream(bytes, deflater, 8192);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflated, 8192));
+        for (Transaction transaction : block) {
+            byte[] record = TransactionCodec.encode(transaction);
+            out.writeInt(record.length);
+            out.write(record);
+            List<AuditLog> logs = auditLogs.getOrDefault(transaction.getId(), List.of());
+            out.writeInt(logs.size());
+            for (AuditLog log : logs) {
+                out.writeLong(log.getId());
+                writeString(out, log.getOperation());
+                writeString(out, log.getEntityType());
+                writeString(out, log.getEntityId());
+                writeString(out, log.getDetails());
+                writeString(out, log.getCreatedAt().toString());
+            }
+        }
+        // Finishes the deflater without ending it, it is reused for the next block
+        out.flush();
+        deflated.finish();
+        return bytes.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Length-prefixed, -1 for null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // A replaced file is a new ArchiveFile, so blocks cached from the old one are never returned for it
+    private record BlockKey(ArchiveFile file, int block) {
+    }
+
+    private record Found(Block block, int index) {
+    }
+
+    private record Block(long[] ids, Transaction[] transactions, List<List<AuditLog>> auditLogs) {
+    }
+
+    private static final class ArchiveFile implements Closeable {
+        private final Path path;
+        private final long sequence;
+        private final FileChannel channel;
+        private final long minId;
+        private final long maxId;
+        private final int recordCount;
+        private final long[] firstIds;
+        private final long[] lastIds;
+        private final long[] offsets;
+        private final int[] lengths;
+        private final int[] counts;
+        private final long orderIdOffset;
+        private final BloomFilter bloom;
+
+        private ArchiveFile(Path path, FileChannel channel) throws IOException {
+            this.path = path;
+            this.sequence = Long.parseLong(path.getFileName().toString().split("-")[1]);
+            this.channel = channel;
+            long size = channel.size();
+            if (size < 4 + FOOTER_SIZE) {
+                throw new IOException("Not a transaction archive: " + path);
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            readFully(footer, size - FOOTER_SIZE);
+            if (footer.getInt(FOOTER_SIZE - 4) != MAGIC) {
+                throw new IOException("Not a transaction archive: " + path);
+            }
+            this.minId = footer.getLong(0);
+            this.maxId = footer.getLong(8);
+            this.recordCount = footer.getInt(16);
+            int blockCount = footer.getInt(20);
+            long indexOffset = footer.getLong(24);
+            this.orderIdOffset = footer.getLong(32);
+            int bloomWords = footer.getInt(40);
+            int bloomHashes = footer.getInt(44);
+
+            ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+            readFully(index, indexOffset);
+            this.firstIds = new long[blockCount];
+            this.lastIds = new long[blockCount];
+            this.offsets = new long[blockCount];
+            this.lengths = new int[blockCount];
+            this.counts = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                firstIds[i] = index.getLong();
+                lastIds[i] = index.getLong();
+                offsets[i] = index.getLong();
+                lengths[i] = index.getInt();
+                counts[i] = index.getInt();
+            }
+            ByteBuffer bloomBytes = ByteBuffer.allocate(bloomWords * 8);
+            readFully(bloomBytes, orderIdOffset + (long) recordCount * ORDER_ID_ENTRY_SIZE);
+            long[] bloomBits = new long[bloomWords];
+            bloomBytes.asLongBuffer().get(bloomBits);
+            this.bloom = BloomFilter.of(bloomBits, bloomHashes);
+        }
+
+        static ArchiveFile open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return new ArchiveFile(path, channel);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        int blockCount() {
+            return firstIds.length;
+        }
+
+        // The block that would hold the ID, or -1 when no block covers it
+        int blockOf(long id) {
+            if (id < minId || id > maxId) {
+                return -1;
+            }
+            int position = Arrays.binarySearch(firstIds, id);
+            int block = position >= 0 ? position : -position - 2;
+            return block >= 0 && lastIds[block] >= id ? block : -1;
+        }
+
+        boolean mightContain(long orderIdHash) {
+            return bloom.mightContainHash(orderIdHash);
+        }
+
+        // Binary search of the order ID table on disk; different order IDs may share a hash
+        List<Long> idsWithOrderIdHash(long orderIdHash) throws IOException {
+            ByteBuffer entry = ByteBuffer.allocate(ORDER_ID_ENTRY_SIZE);
+            int low = 0;
+            int high = recordCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                entry.clear();
+                readFully(entry, orderIdOffset + (long) middle * ORDER_ID_ENTRY_SIZE);
+                if (entry.getLong(0) < orderIdHash) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            List<Long> ids = new ArrayList<>(1);
+            for (int i = low; i < recordCount; i++) {
+                entry.clear();
+                readFully(entry, orderIdOffset + (long) i * ORDER_ID_ENTRY_SIZE);
+                if (entry.getLong(0) != orderIdHash) {
+                    break;
+                }
+                ids.add(entry.getLong(8));
+            }
+            return ids;
+        }
+
+        Block readBlock(int block) throws IOException {
+            ByteBuffer compressed = ByteBuffer.allocate(lengths[block]);
+            readFully(compressed, offsets[block]);
+            Inflater inflater = new Inflater();
+            byte[] inflated;
+            try {
+                inflater.setInput(compressed.array());
+                ByteArrayOutputStream out = new ByteArrayOutputStream(lengths[block] * 4);
+                byte[] chunk = new byte[16 * 1024];
+                while (!inflater.finished()) {
+                    int read = inflater.inflate(chunk);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("Truncated block " + block + " in " + path);
+                    }
+                    out.write(chunk, 0, read);
+                }
+                inflated = out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt block " + block + " in " + path, e);
+            } finally {
+                inflater.end();
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(inflated);
+            long[] ids = new long[counts[block]];
+            Transaction[] transactions = new Transaction[counts[block]];
+            List<List<AuditLog>> auditLogs = new ArrayList<>(counts[block]);
+            for (int i = 0; i < counts[block]; i++) {
+                int length = buffer.getInt();
+                transactions[i] = TransactionCodec.decode(buffer, buffer.position());
+                ids[i] = transactions[i].getId();
+                buffer.position(buffer.position() + length);
+                int logCount = buffer.getInt();
+                List<AuditLog> logs = new ArrayList<>(logCount);
+                for (int j = 0; j < logCount; j++) {
+                    logs.add(AuditLog.restore(buffer.getLong(), readString(buffer), readString(buffer),
+                            readString(buffer), readString(buffer), LocalDateTime.parse(readString(buffer))));
+                }
+                auditLogs.add(List.copyOf(logs));
+            }
+            return new Block(ids, transactions, auditLogs);
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of archive " + path);
+                }
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed backup of the transactions and audit logs. After a header, every record starts with a
+ * tag byte: transactions in the {@link TransactionCodec} form, IDs of deleted transactions, and audit logs.
+ * A later record of the same transaction ID replaces an earlier one, which lets a backup append the changes
+ * made while it was being written. The trailer holds the ID generator positions, a file without it is
+ * an interrupted backup and is rejected.
+ */
+public final class TransactionBackupFile {
+    private static final int MAGIC = 0x54584231; // "TXB1"
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte TRANSACTION = 'T';
+    private static final byte DELETED = 'D';
+    private static final byte AUDIT_LOG = 'A';
+    private static final byte END = 'E';
+
+    private TransactionBackupFile() {
+    }
+
+    public static Writer create(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    public static Contents read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a transaction backup: " + file);
+            }
+            Map<Long, Transaction> transactions = new HashMap<>();
+            List<AuditLog> auditLogs = new ArrayList<>();
+            while (true) {
+                byte tag;
+                try {
+                    tag = in.readByte();
+                } catch (EOFException e) {
+                    throw new IOException("Backup has no trailer, it was not completed: " + file, e);
+                }
+                switch (tag) {
+                    case TRANSACTION -> {
+                        byte[] record = new byte[in.readInt()];
+                        in.readFully(record);
+                        Transaction transaction = TransactionCodec.decode(ByteBuffer.wrap(record), 0);
+                        transactions.put(transaction.getId(), transaction);
+                    }
+                    case DELETED -> transactions.remove(in.readLong());
+                    case AUDIT_LOG -> auditLogs.add(AuditLog.restore(in.readLong(), readString(in),
+                            readString(in), readString(in), readString(in), LocalDateTime.parse(readString(in))));
+                    case END -> {
+                        long transactionIdFence = in.readLong();
+                        long auditLogIdFence = in.readLong();
+                        List<Transaction> sorted = new ArrayList<>(transactions.values());
+                        sorted.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+                        return new Contents(sorted, auditLogs, transactionIdFence, auditLogIdFence);
+                    }
+                    default -> throw new IOException("Corrupt backup, unknown record " + tag + ": " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * What a backup restores to: transactions in ID order, audit logs, and IDs the generators have to
+     * move past so no ID handed out before the backup is used again.
+     */
+    public record Contents(List<Transaction> transactions, List<AuditLog> auditLogs,
+                           long transactionIdFence, long auditLogIdFence) {
+    }
+
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+
+        private Writer(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+        }
+
+        public void writeTransaction(Transaction transaction) throws IOException {
+            byte[] record = TransactionCodec.encode(transaction);
+            out.writeByte(TRANSACTION);
+            out.writeInt(record.length);
+            out.write(record);
+        }
+
+        public void writeDeleted(long id) throws IOException {
+            out.writeByte(DELETED);
+            out.writeLong(id);
+        }
+
+        public void writeAuditLog(AuditLog auditLog) throws IOException {
+            out.writeByte(AUDIT_LOG);
+            out.writeLong(auditLog.getId());
+            writeString(auditLog.getOperation());
+            writeString(auditLog.getEntityType());
+            writeString(auditLog.getEntityId());
+            writeString(auditLog.getDetails());
+            writeString(auditLog.getCreatedAt().toString());
+        }
+
+        public void finish(long transactionIdFence, long auditLogIdFence) throws IOException {
+            out.writeByte(END);
+            out.writeLong(transactionIdFence);
+            out.writeLong(auditLogIdFence);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        // Length-prefixed, -1 for null; audit details can be longer than writeUTF allows
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary form of a transaction in the files of the file-backed repositories: ID, version, amount, creation
+ * and update time as fixed fields, then type, category, order ID, account ID and description as
+ * length-prefixed UTF-8. The ID comes first so it can be read without decoding the rest. Type and category
+ * are stored by name so reordering the enums does not change the meaning of stored data.
+ */
+final class TransactionCodec {
+    private static final int FIXED_SIZE = 8 + 8 + 8 + 12 + 12;
+
+    private TransactionCodec() {
+    }
+
+    static byte[] encode(Transaction transaction) {
+        byte[] type = utf8(transaction.getType().name());
+        byte[] category = utf8(transaction.getCategory().name());
+        byte[] orderId = utf8(transaction.getOrderId());
+        byte[] accountId = utf8(transaction.getAccountId());
+        byte[] description = utf8(transaction.getDescription());
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE + 5 * 4 + type.length + category.length
+                + orderId.length + accountId.length + (description == null ? 0 : description.length));
+        buffer.putLong(transaction.getId());
+        buffer.putLong(transaction.getVersion());
+        buffer.putLong(transaction.getAmountMinor());
+        putDateTime(buffer, transaction.getCreatedAt());
+        putDateTime(buffer, transaction.getUpdatedAt());
+        putBytes(buffer, type);
+        putBytes(buffer, category);
+        putBytes(buffer, orderId);
+        putBytes(buffer, accountId);
+        putBytes(buffer, description);
+        return buffer.array();
+    }
+
+    // Reads with absolute positions, so threads can decode from a shared buffer
+    static Transaction decode(ByteBuffer buffer, int offset) {
+        long id = buffer.getLong(offset);
+        long version = buffer.getLong(offset + 8);
+        long amount = buffer.getLong(offset + 16);
+        LocalDateTime createdAt = getDateTime(buffer, offset + 24);
+        LocalDateTime updatedAt = getDateTime(buffer, offset + 36);
+        int position = offset + FIXED_SIZE;
+        String type = getString(buffer, position);
+        position += 4 + type.length();
+        String category = getString(buffer, position);
+        position += 4 + category.length();
+        String orderId = getString(buffer, position);
+        position += 4 + Math.max(0, buffer.getInt(position));
+        String accountId = getString(buffer, position);
+        position += 4 + Math.max(0, buffer.getInt(position));
+        String description = getString(buffer, position);
+        return Transaction.restore(id, orderId, accountId, amount, TransactionType.valueOf(type),
+                TransactionCategory.valueOf(category), description, createdAt, updatedAt, version);
+    }
+
+    static long decodeId(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putDateTime(ByteBuffer buffer, LocalDateTime dateTime) {
+        buffer.putLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime getDateTime(ByteBuffer buffer, int offset) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(offset), buffer.getInt(offset + 8), ZoneOffset.UTC);
+    }
+
+    // Null is stored as length -1
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,359 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file of the changes made to transactions, the source the event-sourced repository rebuilds
+ * its state from. Every event is one record {@code [payload length][CRC32C][payload]}; the payload starts
+ * with the event type and the transaction ID, followed by what changed. Events are never rewritten, a
+ * transaction's current state is the result of applying its events in order.
+ * <p>
+ * Opening the log replays it: a reader thread checks the records and deals them by transaction ID to
+ * {@code threads} workers that decode and apply them, so events of one transaction are applied in log
+ * order while different transactions are rebuilt in parallel.
+ * <p>
+ * A crash during an append leaves a torn tail: a last record cut off by the end of the file, or a bad
+ * record followed by nothing but zeros or the end of the file. Replay stops there and the log is truncated.
+ * A bad record with more of the log after it is corruption, opening the log then fails instead of dropping
+ * the events that follow.
+ */
+final class TransactionEventLog implements AutoCloseable {
+    private static final byte CREATED = 1;
+    private static final byte CATEGORY_CHANGED = 2;
+    private static final byte DESCRIPTION_CHANGED = 3;
+    private static final byte DELETED = 4;
+    private static final int REPLAY_BATCH = 1024;
+    // Type and transaction ID
+    private static final int MIN_PAYLOAD = 9;
+    // Far above any event, a longer length read from the log is corruption
+    static final int MAX_PAYLOAD = 1 << 20;
+    private static final List<byte[]> END_OF_LOG = List.of();
+
+    sealed interface Event {
+        long transactionId();
+    }
+
+    record Created(Transaction transaction) implements Event {
+        @Override
+        public long transactionId() {
+            return transaction.getId();
+        }
+    }
+
+    record CategoryChanged(long transactionId, long version, LocalDateTime updatedAt,
+                           TransactionCategory category) implements Event {
+    }
+
+    record DescriptionChanged(long transactionId, long version, LocalDateTime updatedAt,
+                              String description) implements Event {
+    }
+
+    record Deleted(long transactionId) implements Event {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean sync;
+    private long eventCount;
+
+    private TransactionEventLog(Path file, FileChannel channel, boolean sync, long eventCount) {
+        this.file = file;
+        this.channel = channel;
+        this.sync = sync;
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * Opens the log, creating it when missing, and passes its events to {@code apply} from {@code threads}
+     * threads. Calls for different transactions run concurrently, {@code apply} has to allow that.
+     */
+    static TransactionEventLog open(Path file, boolean sync, int threads, Consumer<Event> apply)
+            throws IOException {
+        Files.createDirectories(file.getParent());
+        if (!Files.exists(file)) {
+            Files.createFile(file);
+        }
+        long[] replayed = replay(file, threads, apply);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(replayed[1]);
+            channel.position(replayed[1]);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new TransactionEventLog(file, channel, sync, replayed[0]);
+    }
+
+    // Writes the events with one write call, forced to the device first when the log syncs
+    synchronized void append(List<? extends Event> events) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(events.size());
+        int size = 0;
+        for (Event event : events) {
+            byte[] payload = encode(event);
+            if (payload.length > MAX_PAYLOAD) {
+                throw new IllegalArgumentException("Event of transaction " + event.transactionId() + " is "
+                        + payload.length + " bytes, more than " + MAX_PAYLOAD);
+            }
+            payloads.add(payload);
+            size += 8 + payload.length;
+        }
+        ByteBuffer records = ByteBuffer.allocate(size);
+        CRC32C crc = new CRC32C();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            records.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        records.flip();
+        long start = channel.position();
+        try {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // A partly written batch would be replayed in part, cut it off
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+        eventCount += events.size();
+    }
+
+    synchronized long eventCount() {
+        return eventCount;
+    }
+
+    synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        eventCount = 0;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    // Returns the number of events replayed and the length of the log up to the last complete record
+    private static long[] replay(Path file, int threads, Consumer<Event> apply) throws IOException {
+        List<BlockingQueue<List<byte[]>>> queues = new ArrayList<>(threads);
+        List<Thread> workers = new ArrayList<>(threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < threads; i++) {
+            BlockingQueue<List<byte[]>> queue = new ArrayBlockingQueue<>(16);
+            queues.add(queue);
+            Thread worker = new Thread(() -> applyAll(queue, apply, failure), "transaction-event-replay-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long events = 0;
+        long length = 0;
+        long size = Files.size(file);
+        IOException corruption = null;
+        List<List<byte[]>> batches = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            batches.add(new ArrayList<>(REPLAY_BATCH));
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 20))) {
+            CRC32C crc = new CRC32C();
+            while (failure.get() == null && size - length >= 8) {
+                int payloadLength = in.readInt();
+                int checksum = in.readInt();
+                long rest = size - length - 8;
+                if (payloadLength < MIN_PAYLOAD || payloadLength > MAX_PAYLOAD) {
+                    if (payloadLength != 0 || checksum != 0 || !skipZeros(in, rest)) {
+                        corruption = new IOException("Corrupt event length " + payloadLength + " at byte "
+                                + length + " of " + file);
+                    }
+                    break;
+                }
+                if (payloadLength > rest) {
+                    // Cut off by the end of the file
+                    break;
+                }
+                byte[] payload = new byte[payloadLength];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    if (!skipZeros(in, rest - payloadLength)) {
+                        corruption = new IOException("Corrupt event at byte " + length + " of " + file
+                                + ", followed by more events");
+                    }
+                    break;
+                }
+                long id = ByteBuffer.wrap(payload).getLong(1);
+                int partition = (int) Long.remainderUnsigned(id, threads);
+                List<byte[]> batch = batches.get(partition);
+                batch.add(payload);
+                if (batch.size() == REPLAY_BATCH) {
+                    queues.get(partition).put(batch);
+                    batches.set(partition, new ArrayList<>(REPLAY_BATCH));
+                }
+                events++;
+                length += 8 + payload.length;
+            }
+            for (int i = 0; i < threads; i++) {
+                if (!batches.get(i).isEmpty()) {
+                    queues.get(i).put(batches.get(i));
+                }
+                queues.get(i).put(END_OF_LOG);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(Thread::interrupt);
+            throw new IOException("Interrupted while replaying " + file, e);
+        } catch (IOException e) {
+            // The workers would wait for the end of the log forever
+            workers.forEach(Thread::interrupt);
+            throw e;
+        }
+        if (failure.get() != null) {
+            throw new IOException("Cannot replay " + file, failure.get());
+        }
+        if (corruption != null) {
+            throw corruption;
+        }
+        return new long[]{events, length};
+    }
+
+    // Reads the rest of the log, true when it holds nothing but zeros
+    private static boolean skipZeros(DataInputStream in, long count) throws IOException {
+        byte[] chunk = new byte[8192];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+            if (read < 0) {
+                return true;
+            }
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] != 0) {
+                    return false;
+                }
+            }
+            remaining -= read;
+        }
+        return true;
+    }
+
+    // Keeps taking batches after a failure, so the reader never blocks on a full queue
+    private static void applyAll(BlockingQueue<List<byte[]>> queue, Consumer<Event> apply,
+                                 AtomicReference<Throwable> failure) {
+        try {
+            List<byte[]> batch;
+            while ((batch = queue.take()) != END_OF_LOG) {
+                if (failure.get() != null) {
+                    continue;
+                }
+                try {
+                    for (byte[] payload : batch) {
+                        apply.accept(decode(ByteBuffer.wrap(payload)));
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private static byte[] encode(Event event) {
+        return switch (event) {
+            case Created created -> {
+                byte[] transaction = TransactionCodec.encode(created.transaction());
+                yield ByteBuffer.allocate(1 + 8 + transaction.length)
+                        .put(CREATED).putLong(created.transactionId()).put(transaction).array();
+            }
+            case CategoryChanged changed -> {
+                byte[] category = changed.category().name().getBytes(StandardCharsets.UTF_8);
+                yield header(CATEGORY_CHANGED, changed.transactionId(), changed.version(), changed.updatedAt(),
+                        4 + category.length).putInt(category.length).put(category).array();
+            }
+            case DescriptionChanged changed -> {
+                byte[] description = changed.description() == null
+                        ? null : changed.description().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer buffer = header(DESCRIPTION_CHANGED, changed.transactionId(), changed.version(),
+                        changed.updatedAt(), 4 + (description == null ? 0 : description.length));
+                if (description == null) {
+                    buffer.putInt(-1);
+                } else {
+                    buffer.putInt(description.length).put(description);
+                }
+                yield buffer.array();
+            }
+            case Deleted deleted -> ByteBuffer.allocate(1 + 8).put(DELETED).putLong(deleted.transactionId()).array();
+        };
+    }
+
+    // Type, ID, the version the change produces and its time, with room for the changed value
+    private static ByteBuffer header(byte type, long transactionId, long version, LocalDateTime updatedAt,
+                                     int valueSize) {
+        return ByteBuffer.allocate(1 + 8 + 8 + 12 + valueSize)
+                .put(type)
+                .putLong(transactionId)
+                .putLong(version)
+                .putLong(updatedAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(updatedAt.getNano());
+    }
+
+    private static Event decode(ByteBuffer payload) {
+        byte type = payload.get();
+        long transactionId = payload.getLong();
+        if (type == CREATED) {
+            return new Created(TransactionCodec.decode(payload, payload.position()));
+        }
+        if (type == DELETED) {
+            return new Deleted(transactionId);
+        }
+        long version = payload.getLong();
+        LocalDateTime updatedAt = LocalDateTime.ofEpochSecond(payload.getLong(), payload.getInt(), ZoneOffset.UTC);
+        int length = payload.getInt();
+        String value = null;
+        if (length >= 0) {
+            byte[] bytes = new byte[length];
+            payload.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return switch (type) {
+            case CATEGORY_CHANGED -> new CategoryChanged(transactionId, version, updatedAt,
+                    TransactionCategory.valueOf(value));
+            case DESCRIPTION_CHANGED -> new DescriptionChanged(transactionId, version, updatedAt, value);
+            default -> throw new IllegalStateException("Unknown event type " + type);
+        };
+    }
+}
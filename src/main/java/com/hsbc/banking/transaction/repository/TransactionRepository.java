@@ -2,16 +2,59 @@ package com.hsbc.banking.transaction.repository;
 
 import com.hsbc.banking.transaction.model.Transaction;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.stream.Stream;
 
 public interface TransactionRepository {
     Transaction save(Transaction transaction);
+
+    /**
+     * Store several transactions in one operation. Transactions whose order ID already exists
+     * are skipped and keep a null ID.
+     *
+     * @return the transactions that were stored
+     */
+    List<Transaction> saveAll(List<Transaction> transactions);
+
     Transaction update(Transaction transaction);
     Optional<Transaction> findById(Long id);
     Optional<Transaction> findByOrderId(String orderId);
+
+    // Transactions for the ids that exist, in no particular order
+    List<Transaction> findAllById(Collection<Long> ids);
+
     List<Transaction> findAll(int offset, int limit);
+
+    // Up to limit transactions with an ID above afterId, in ID order; the page after one ending at afterId
+    List<Transaction> findAfter(long afterId, int limit);
+
+    // All transactions in ID order, read lazily; concurrent changes may or may not be seen
+    Stream<Transaction> stream();
+
+    // All transactions, splitting into ranges that are each in ID order and that parallel scans work on independently
+    default Spliterator<Transaction> spliterator() {
+        return stream().spliterator();
+    }
+
     long count();
     void deleteById(Long id);
+
+    // Deletes the transaction only while it still has the given version; false when it changed or is gone
+    default boolean deleteIfVersion(Long id, long version) {
+        Optional<Transaction> current = findById(id);
+        if (current.isEmpty() || current.get().getVersion() != version) {
+            return false;
+        }
+        deleteById(id);
+        return true;
+    }
+
     void clear();
+
+    // Replaces everything stored with the given transactions, keeping their IDs and versions, for restoring
+    // backups; no ID up to idFence is handed out afterwards, also after a restart of a durable store
+    void restore(List<Transaction> transactions, long idFence);
 }
\ No newline at end of file
@@ -0,0 +1,296 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.Transaction;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable file of transactions sorted by ID, read through a memory mapping so the rows stay off heap.
+ * <p>
+ * The file holds the records as length-prefixed {@link TransactionCodec} encodings, an order ID table of
+ * (order ID hash, record offset) sorted by hash, and a sparse ID index with the offset of every
+ * {@value #INDEX_INTERVAL}th record. Only the sparse index is loaded on heap; a lookup by ID binary searches
+ * it and scans at most {@value #INDEX_INTERVAL} records, a lookup by order ID binary searches the table
+ * inside the mapping.
+ * <p>
+ * Rows that were deleted or moved back to the hot tier after the segment was written are tombstoned
+ * on heap and skipped by every read.
+ */
+final class TransactionSegment {
+    static final int INDEX_INTERVAL = 64;
+
+    private static final int MAGIC = 0x54584E53;
+    private static final int HEADER_SIZE = 4;
+    private static final int FOOTER_SIZE = 8 + 8 + 4 + 4 + 4 + 4;
+    private static final int ORDER_ENTRY_SIZE = 8 + 4;
+    private static final int INDEX_ENTRY_SIZE = 8 + 4;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final long minId;
+    private final long maxId;
+    private final int recordCount;
+    private final int orderTableOffset;
+    private final long[] indexIds;
+    private final int[] indexOffsets;
+    private final Set<Long> tombstones = ConcurrentHashMap.newKeySet();
+
+    private TransactionSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (buffer.capacity() < HEADER_SIZE + FOOTER_SIZE
+                || buffer.getInt(0) != MAGIC || buffer.getInt(footer + 28) != MAGIC) {
+            throw new IOException("Not a transaction segment: " + file);
+        }
+        this.minId = buffer.getLong(footer);
+        this.maxId = buffer.getLong(footer + 8);
+        this.recordCount = buffer.getInt(footer + 16);
+        this.orderTableOffset = buffer.getInt(footer + 20);
+        int indexOffset = buffer.getInt(footer + 24);
+        int indexCount = (recordCount + INDEX_INTERVAL - 1) / INDEX_INTERVAL;
+        this.indexIds = new long[indexCount];
+        this.indexOffsets = new int[indexCount];
+        for (int i = 0; i < indexCount; i++) {
+            indexIds[i] = buffer.getLong(indexOffset + i * INDEX_ENTRY_SIZE);
+            indexOffsets[i] = buffer.getInt(indexOffset + i * INDEX_ENTRY_SIZE + 8);
+        }
+    }
+
+    /**
+     * Writes the transactions, which must be sorted by ID, to a new segment file and maps it.
+     * The file is written under a temporary name and renamed when complete.
+     */
+    static TransactionSegment write(Path file, List<Transaction> transactions) throws IOException {
+        int count = transactions.size();
+        long[] orderHashes = new long[count];
+        int[] recordOffsets = new int[count];
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            long offset = HEADER_SIZE;
+            for (int i = 0; i < count; i++) {
+                Transaction transaction = transactions.get(i);
+                byte[] record = TransactionCodec.encode(transaction);
+                int length = 4 + record.length;
+                orderHashes[i] = orderIdHash(transaction.getOrderId());
+                recordOffsets[i] = checkedOffset(offset);
+                out.writeInt(length);
+                out.write(record);
+                offset += length;
+            }
+
+            // Order ID table sorted by hash, the record offsets travel with their hashes
+            int orderTableOffset = checkedOffset(offset);
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(orderHashes[a], orderHashes[b]));
+            for (int i = 0; i < count; i++) {
+                out.writeLong(orderHashes[order[i]]);
+                out.writeInt(recordOffsets[order[i]]);
+            }
+            offset += (long) count * ORDER_ENTRY_SIZE;
+
+            int indexOffset = checkedOffset(offset);
+            for (int i = 0; i < count; i += INDEX_INTERVAL) {
+                out.writeLong(transactions.get(i).getId());
+                out.writeInt(recordOffsets[i]);
+            }
+            offset += (long) ((count + INDEX_INTERVAL - 1) / INDEX_INTERVAL) * INDEX_ENTRY_SIZE;
+            checkedOffset(offset + FOOTER_SIZE);
+
+            out.writeLong(count == 0 ? Long.MAX_VALUE : transactions.get(0).getId());
+            out.writeLong(count == 0 ? Long.MIN_VALUE : transactions.get(count - 1).getId());
+            out.writeInt(count);
+            out.writeInt(orderTableOffset);
+            out.writeInt(indexOffset);
+            out.writeInt(MAGIC);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(file);
+    }
+
+    static TransactionSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new TransactionSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // The live transaction with the ID, or null
+    Transaction find(long id) {
+        int offset = offsetOf(id);
+        return offset < 0 || tombstones.contains(id) ? null : read(offset);
+    }
+
+    Transaction findByOrderId(String orderId) {
+        long hash = orderIdHash(orderId);
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (buffer.getLong(orderTableOffset + middle * ORDER_ENTRY_SIZE) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // Order IDs with the same hash sit next to each other
+        for (int i = low; i < recordCount; i++) {
+            int entry = orderTableOffset + i * ORDER_ENTRY_SIZE;
+            if (buffer.getLong(entry) != hash) {
+                break;
+            }
+            int offset = buffer.getInt(entry + 8);
+            long id = buffer.getLong(offset + 4);
+            if (!tombstones.contains(id)) {
+                Transaction transaction = read(offset);
+                if (transaction.getOrderId().equals(orderId)) {
+                    return transaction;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hides the transaction with the ID from later reads.
+     *
+     * @return whether a live transaction with the ID was in the segment
+     */
+    boolean tombstone(long id) {
+        return offsetOf(id) >= 0 && tombstones.add(id);
+    }
+
+    // Adds the order ID hashes of the live transactions, see orderIdHash
+    void addOrderIds(BloomFilter filter) {
+        for (int i = 0; i < recordCount; i++) {
+            int entry = orderTableOffset + i * ORDER_ENTRY_SIZE;
+            if (!tombstones.contains(buffer.getLong(buffer.getInt(entry + 8) + 4))) {
+                filter.addHash(buffer.getLong(entry));
+            }
+        }
+    }
+
+    boolean isTombstoned(long id) {
+        return tombstones.contains(id);
+    }
+
+    int liveCount() {
+        return recordCount - tombstones.size();
+    }
+
+    int recordCount() {
+        return recordCount;
+    }
+
+    // Live transactions with an ID above afterId, in ID order
+    Iterator<Transaction> iterator(long afterId) {
+        // Starts at the sparse index entry at or below afterId, or at the first record
+        int block = Math.max(floorBlock(afterId), 0);
+        return new Iterator<>() {
+            private int offset = recordCount == 0 ? HEADER_SIZE : indexOffsets[block];
+            private int remaining = recordCount - block * INDEX_INTERVAL;
+            private Transaction next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Transaction next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Transaction current = next;
+                next = advance();
+                return current;
+            }
+
+            private Transaction advance() {
+                while (remaining > 0) {
+                    int record = offset;
+                    offset += buffer.getInt(record);
+                    remaining--;
+                    long id = buffer.getLong(record + 4);
+                    if (id > afterId && !tombstones.contains(id)) {
+                        return read(record);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    Path file() {
+        return file;
+    }
+
+    private int offsetOf(long id) {
+        if (recordCount == 0 || id < minId || id > maxId) {
+            return -1;
+        }
+        int block = floorBlock(id);
+        if (block < 0) {
+            return -1;
+        }
+        int offset = indexOffsets[block];
+        int end = Math.min(INDEX_INTERVAL, recordCount - block * INDEX_INTERVAL);
+        for (int i = 0; i < end; i++) {
+            long recordId = buffer.getLong(offset + 4);
+            if (recordId == id) {
+                return offset;
+            }
+            if (recordId > id) {
+                break;
+            }
+            offset += buffer.getInt(offset);
+        }
+        return -1;
+    }
+
+    // Index of the last sparse index entry at or below the ID, -1 if the ID is below all of them
+    private int floorBlock(long id) {
+        int found = Arrays.binarySearch(indexIds, id);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private Transaction read(int offset) {
+        return TransactionCodec.decode(buffer, offset + 4);
+    }
+
+    // Mappings and offsets are ints, so a segment must stay below 2 GB
+    private static int checkedOffset(long offset) throws IOException {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Segment exceeds 2 GB, lower the segment row count");
+        }
+        return (int) offset;
+    }
+
+    // 64-bit FNV-1a, mixed so it also serves as the hash of a Bloom filter of the order IDs
+    static long orderIdHash(String orderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < orderId.length(); i++) {
+            hash ^= orderId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return BloomFilter.mix(hash);
+    }
+}
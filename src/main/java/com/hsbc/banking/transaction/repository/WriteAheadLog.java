@@ -0,0 +1,124 @@
+package com.hsbc.banking.transaction.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of the write batches of one memtable, replayed into a new memtable after a restart.
+ * Every batch is one record {@code [payload length][CRC32C][payload]}, so a batch is either replayed
+ * whole or not at all; replay stops at the first short or corrupt record, which is where a crash
+ * interrupted the last write.
+ * <p>
+ * Records go to the OS with every append. With {@code sync} they are also forced to the device before
+ * the write returns, which survives power loss at the cost of one device flush per batch.
+ */
+final class WriteAheadLog implements AutoCloseable {
+    private final long fileNumber;
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean sync;
+
+    private WriteAheadLog(long fileNumber, Path file, FileChannel channel, boolean sync) {
+        this.fileNumber = fileNumber;
+        this.file = file;
+        this.channel = channel;
+        this.sync = sync;
+    }
+
+    static WriteAheadLog create(long fileNumber, Path file, boolean sync) throws IOException {
+        return new WriteAheadLog(fileNumber, file, FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE), sync);
+    }
+
+    // Bytes written for the batch
+    int append(List<LsmStore.Entry> batch) throws IOException {
+        int payloadLength = 4;
+        for (LsmStore.Entry entry : batch) {
+            payloadLength += 8 + entry.key().length + (entry.deleted() ? 0 : entry.value().length);
+        }
+        ByteBuffer record = ByteBuffer.allocate(8 + payloadLength);
+        record.putInt(payloadLength);
+        record.putInt(0);
+        record.putInt(batch.size());
+        for (LsmStore.Entry entry : batch) {
+            record.putInt(entry.key().length);
+            record.put(entry.key());
+            if (entry.deleted()) {
+                record.putInt(-1);
+            } else {
+                record.putInt(entry.value().length);
+                record.put(entry.value());
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 8, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+        return record.capacity();
+    }
+
+    long fileNumber() {
+        return fileNumber;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Passes the batches of a log to the consumer in write order.
+     *
+     * @return the number of batches replayed
+     */
+    static int replay(Path file, Consumer<List<LsmStore.Entry>> consumer) throws IOException {
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(file));
+        int batches = 0;
+        while (log.remaining() >= 8) {
+            int payloadLength = log.getInt();
+            int checksum = log.getInt();
+            if (payloadLength < 4 || payloadLength > log.remaining()) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(log.array(), log.position(), payloadLength);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            int count = log.getInt();
+            List<LsmStore.Entry> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[log.getInt()];
+                log.get(key);
+                int valueLength = log.getInt();
+                byte[] value = LsmStore.TOMBSTONE;
+                if (valueLength >= 0) {
+                    value = new byte[valueLength];
+                    log.get(value);
+                }
+                batch.add(new LsmStore.Entry(key, value));
+            }
+            consumer.accept(batch);
+            batches++;
+        }
+        return batches;
+    }
+}
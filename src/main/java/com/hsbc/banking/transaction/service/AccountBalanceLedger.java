@@ -0,0 +1,168 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import org.springframework.context.event.EventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * In-process running balance per account, used to approve debits without a remote call.
+ * <p>
+ * Each account holds a headroom in cents: the amount the account service has confirmed the
+ * account can still cover. Debits take a lock-free reservation on the headroom, credits
+ * recorded by the service add to it. The account service is only asked again when a debit
+ * does not fit into the headroom or the entry is older than the maximum age; a successful
+ * sync confirms the debit plus a fresh threshold of headroom in one call.
+ */
+public class AccountBalanceLedger {
+    private final long syncThresholdCents;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public AccountBalanceLedger(BigDecimal syncThreshold, Duration maxAge) {
+        this(syncThreshold, maxAge, System::nanoTime);
+    }
+
+    AccountBalanceLedger(BigDecimal syncThreshold, Duration maxAge, LongSupplier nanoClock) {
+        this.syncThresholdCents = toCents(syncThreshold);
+        this.maxAgeNanos = maxAge.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Reserve a debit against the local headroom, or sync with the account service if it does not fit.
+     *
+     * @param accountId   the account to debit
+     * @param amount      the transaction amount, its magnitude is the debit
+     * @param remoteCheck balance check against the account service, called with amounts in the same sign convention
+     * @return true if the debit is approved
+     */
+    public boolean reserve(String accountId, BigDecimal amount, Predicate<BigDecimal> remoteCheck) {
+        long cents = toCents(amount.abs());
+        Entry entry = entries.computeIfAbsent(accountId, id -> new Entry());
+        if (entry.tryReserve(cents)) {
+            return true;
+        }
+
+        // One sync per account at a time; ReentrantLock does not pin virtual threads
+        entry.syncLock.lock();
+        try {
+            // Another thread may have synced while this one was waiting
+            if (entry.tryReserve(cents)) {
+                return true;
+            }
+            BigDecimal threshold = BigDecimal.valueOf(syncThresholdCents, 2);
+            BigDecimal withHeadroom = amount.signum() < 0 ? amount.subtract(threshold) : amount.add(threshold);
+            if (remoteCheck.test(withHeadroom)) {
+                entry.rebase(syncThresholdCents);
+                return true;
+            }
+            // Not enough for more headroom, approve this debit alone if it fits
+            if (remoteCheck.test(amount)) {
+                entry.rebase(0);
+                return true;
+            }
+            return false;
+        } finally {
+            entry.syncLock.unlock();
+        }
+    }
+
+    // Lock-free path only; false means the caller has to ask the account service
+    public boolean tryReserve(String accountId, BigDecimal amount) {
+        Entry entry = entries.get(accountId);
+        return entry != null && entry.tryReserve(toCents(amount.abs()));
+    }
+
+    // A debit approved by the account service without the ledger may have used up the headroom
+    public void invalidate(String accountId) {
+        Entry entry = entries.get(accountId);
+        if (entry != null) {
+            entry.synced = false;
+        }
+    }
+
+    @EventListener
+    public void onTransactionEvent(TransactionEvent event) {
+        Transaction transaction = event.transaction();
+        long cents = Math.abs(transaction.getAmountMinor());
+        switch (event.type()) {
+            case CREATED -> {
+                // Debits were reserved when they were checked
+                if (transaction.getType().isCredit()) {
+                    adjust(transaction.getAccountId(), cents);
+                }
+            }
+            case DELETED -> {
+                if (transaction.getType().isCredit()) {
+                    adjust(transaction.getAccountId(), -cents);
+                } else if (transaction.getType().isDebit()) {
+                    adjust(transaction.getAccountId(), cents);
+                }
+            }
+            default -> {
+                // Updates cannot change amounts
+            }
+        }
+    }
+
+    // Headrooms counted the credits and debits of the replaced transactions, every account syncs again
+    @EventListener
+    public void onTransactionsRestored(TransactionsRestoredEvent event) {
+        entries.clear();
+    }
+
+    public long availableCents(String accountId) {
+        Entry entry = entries.get(accountId);
+        return entry == null ? 0 : entry.available.get();
+    }
+
+    private void adjust(String accountId, long cents) {
+        Entry entry = entries.get(accountId);
+        if (entry != null) {
+            entry.available.addAndGet(cents);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private final class Entry {
+        private final AtomicLong available = new AtomicLong();
+        private final ReentrantLock syncLock = new ReentrantLock();
+        // A new entry is stale until its first sync
+        private volatile boolean synced;
+        private volatile long syncedAt;
+
+        boolean tryReserve(long cents) {
+            if (!synced || nanoClock.getAsLong() - syncedAt > maxAgeNanos) {
+                return false;
+            }
+            long current = available.get();
+            while (current >= cents) {
+                if (available.compareAndSet(current, current - cents)) {
+                    return true;
+                }
+                current = available.get();
+            }
+            return false;
+        }
+
+        void rebase(long headroomCents) {
+            available.set(headroomCents);
+            syncedAt = nanoClock.getAsLong();
+            synced = true;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.hsbc.banking.transaction.service;
+
+import java.math.BigDecimal;
+
+public record BalanceCheck(String accountId, BigDecimal amount) {
+}
@@ -0,0 +1,138 @@
+package com.hsbc.banking.transaction.service;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. The circuit opens when the failure rate over the last
+ * {@code windowSize} calls reaches the threshold, rejects calls while open, and after
+ * {@code openDuration} lets a single probe call through (half-open) to decide whether
+ * to close again.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+    private final Consumer<State> stateListener;
+
+    // Ring buffer of the last windowSize outcomes, true meaning failure
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration,
+                          Consumer<State> stateListener) {
+        this(failureRateThreshold, windowSize, minimumCalls, openDuration, stateListener, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration,
+                   Consumer<State> stateListener, LongSupplier nanoClock) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.openDurationNanos = openDuration.toNanos();
+        this.outcomes = new boolean[windowSize];
+        this.stateListener = stateListener;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns true if a call may proceed. In half-open state only one probe is admitted at a time.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    // Gives back a permission that was acquired but not used for a call
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            transitionTo(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && failures * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void open() {
+        reset();
+        openedAt = nanoClock.getAsLong();
+        transitionTo(State.OPEN);
+    }
+
+    private void reset() {
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        probeInFlight = false;
+    }
+
+    private void transitionTo(State newState) {
+        if (state != newState) {
+            state = newState;
+            stateListener.accept(newState);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.AccountServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects concurrent balance checks and sends them to the delegate as one batch call.
+ * A batch is closed when the collection window expires or the maximum batch size is reached,
+ * whichever comes first. Checks submitted together are never split across batches, so the
+ * delegate nets them against each other; a batch they would overfill is closed before them.
+ * Checks submitted together that exceed the maximum batch size on their own go out as several
+ * calls, each starting with the amounts approved by the earlier ones, so they stay netted.
+ */
+public class CoalescingExternalAccountService implements ExternalAccountService, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingExternalAccountService.class);
+
+    private final ExternalAccountService delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutNanos;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final BlockingQueue<PendingRequest> pending = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    // Did not fit in the last batch, starts the next one; dispatcher thread only
+    private PendingRequest heldOver;
+    private volatile boolean running = true;
+
+    public CoalescingExternalAccountService(ExternalAccountService delegate, Duration window, int maxBatchSize,
+                                            int maxInFlight, Duration timeout, ExecutorService executor) {
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutNanos = timeout.toNanos();
+        this.inFlight = new Semaphore(maxInFlight);
+        this.executor = executor;
+        this.dispatcher = Thread.ofPlatform()
+                .name("balance-check-dispatcher")
+                .daemon()
+                .start(this::dispatchLoop);
+    }
+
+    @Override
+    public boolean hasSufficientBalance(String accountId, BigDecimal amount) {
+        return await(submit(accountId, amount), accountId);
+    }
+
+    @Override
+    public List<Boolean> hasSufficientBalances(List<BalanceCheck> checks) {
+        return checks.isEmpty() ? List.of() : await(submit(checks), checks.get(0).accountId());
+    }
+
+    public CompletableFuture<Boolean> submit(String accountId, BigDecimal amount) {
+        return submit(List.of(new BalanceCheck(accountId, amount))).thenApply(results -> results.get(0));
+    }
+
+    // Checks submitted in one call always go out in the same batch
+    public CompletableFuture<List<Boolean>> submit(List<BalanceCheck> checks) {
+        CompletableFuture<List<Boolean>> future = new CompletableFuture<>();
+        if (checks.isEmpty()) {
+            future.complete(List.of());
+            return future;
+        }
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Balance check dispatcher is closed"));
+            return future;
+        }
+        pending.add(new PendingRequest(checks, future));
+        return future;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<PendingRequest> batch = new ArrayList<>();
+            try {
+                batch.add(heldOver != null ? heldOver : pending.take());
+                heldOver = null;
+                collect(batch);
+                // Wait for a free slot; requests keep queueing meanwhile and form the next, larger batch
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                fail(batch, new IllegalStateException("Balance check dispatcher is closed"));
+                break;
+            }
+            dispatch(batch);
+        }
+        List<PendingRequest> remaining = new ArrayList<>();
+        if (heldOver != null) {
+            remaining.add(heldOver);
+        }
+        pending.drainTo(remaining);
+        fail(remaining, new IllegalStateException("Balance check dispatcher is closed"));
+    }
+
+    private void collect(List<PendingRequest> batch) throws InterruptedException {
+        int size = batch.get(0).checks().size();
+        long deadline = System.nanoTime() + windowNanos;
+        while (size < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingRequest next = remaining > 0
+                    ? pending.poll(remaining, TimeUnit.NANOSECONDS)
+                    : pending.poll();
+            if (next == null) {
+                return;
+            }
+            if (size + next.checks().size() > maxBatchSize) {
+                heldOver = next;
+                return;
+            }
+            batch.add(next);
+            size += next.checks().size();
+        }
+    }
+
+    private void dispatch(List<PendingRequest> batch) {
+        try {
+            executor.execute(() -> {
+                try {
+                    execute(batch);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            fail(batch, e);
+        }
+    }
+
+    private void execute(List<PendingRequest> batch) {
+        List<BalanceCheck> checks = new ArrayList<>();
+        batch.forEach(request -> checks.addAll(request.checks()));
+        try {
+            if (checks.size() > maxBatchSize) {
+                // Only a single request is ever larger than a batch
+                batch.get(0).future().complete(List.copyOf(checkInChunks(checks)));
+                return;
+            }
+            List<Boolean> results = call(checks);
+            // Hand each caller its own slice of the batch result
+            int offset = 0;
+            for (PendingRequest request : batch) {
+                int size = request.checks().size();
+                request.future().complete(List.copyOf(results.subList(offset, offset + size)));
+                offset += size;
+            }
+        } catch (Throwable e) {
+            // Every caller still waiting hears of it, whatever went wrong
+            logger.warn("Batch balance check of {} items failed: {}", checks.size(), e.toString());
+            fail(batch, e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    // Each chunk repeats, ahead of its checks of an account, the amount approved so far for that account
+    private List<Boolean> checkInChunks(List<BalanceCheck> checks) {
+        Map<String, BigDecimal> approved = new HashMap<>();
+        List<Boolean> results = new ArrayList<>(checks.size());
+        int next = 0;
+        while (next < checks.size()) {
+            List<BalanceCheck> chunk = new ArrayList<>();
+            Map<String, Integer> carriedAt = new HashMap<>();
+            int first = next;
+            while (next < checks.size()) {
+                BalanceCheck check = checks.get(next);
+                boolean carry = approved.containsKey(check.accountId()) && !carriedAt.containsKey(check.accountId());
+                // A chunk takes at least one check, even if its carried amount overfills it
+                if (next > first && chunk.size() + (carry ? 2 : 1) > maxBatchSize) {
+                    break;
+                }
+                if (carry) {
+                    carriedAt.put(check.accountId(), chunk.size());
+                    chunk.add(new BalanceCheck(check.accountId(), approved.get(check.accountId())));
+                }
+                chunk.add(check);
+                next++;
+            }
+
+            List<Boolean> chunkResults = call(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                BalanceCheck check = chunk.get(i);
+                Integer carried = carriedAt.get(check.accountId());
+                if (carried != null && carried == i) {
+                    continue;
+                }
+                // The balance no longer covers the earlier approvals, nothing more is approved for the account
+                boolean sufficient = chunkResults.get(i) && (carried == null || chunkResults.get(carried));
+                if (sufficient) {
+                    approved.merge(check.accountId(), check.amount(), BigDecimal::add);
+                }
+                results.add(sufficient);
+            }
+        }
+        return results;
+    }
+
+    private List<Boolean> call(List<BalanceCheck> checks) {
+        List<Boolean> results = delegate.hasSufficientBalances(checks);
+        if (results == null || results.size() != checks.size()) {
+            throw new IllegalStateException("Batch balance check returned "
+                    + (results == null ? "no" : String.valueOf(results.size())) + " results for "
+                    + checks.size() + " checks");
+        }
+        return results;
+    }
+
+    private void fail(List<PendingRequest> batch, Throwable cause) {
+        batch.forEach(request -> request.future().completeExceptionally(cause));
+    }
+
+    private <T> T await(CompletableFuture<T> future, String accountId) {
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new AccountServiceUnavailableException(accountId, "Timed out waiting for batched balance check");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for balance check", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        executor.shutdown();
+    }
+
+    private record PendingRequest(List<BalanceCheck> checks, CompletableFuture<List<Boolean>> future) {
+    }
+}
@@ -0,0 +1,106 @@
+package com.hsbc.banking.transaction.service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counters and a latency histogram for calls to the external account service.
+ * Latencies are recorded into fixed buckets, percentiles are reported as bucket upper bounds.
+ */
+public class ExternalAccountMetrics {
+    public enum Outcome {
+        SUCCESS, FAILURE, TIMEOUT, BULKHEAD_FULL, CIRCUIT_OPEN, FALLBACK_ALLOWED, FALLBACK_REJECTED,
+        // Debits approved by the local ledger, and ledger misses that went to the account service
+        LEDGER_HIT, LEDGER_SYNC
+    }
+
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    private final LongAdder[] latencyBuckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAdder circuitTransitions = new LongAdder();
+    private volatile CircuitBreaker.State circuitState = CircuitBreaker.State.CLOSED;
+
+    public ExternalAccountMetrics() {
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            latencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(Outcome outcome) {
+        outcomes.get(outcome).increment();
+    }
+
+    // Latency is recorded for calls that reached the remote service
+    public void recordLatency(long nanos) {
+        totalLatencyNanos.add(nanos);
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        latencyBuckets[bucket].increment();
+    }
+
+    public void circuitStateChanged(CircuitBreaker.State state) {
+        circuitState = state;
+        circuitTransitions.increment();
+    }
+
+    public long count(Outcome outcome) {
+        return outcomes.get(outcome).sum();
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitState;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> outcomeCounts = new LinkedHashMap<>();
+        outcomes.forEach((outcome, counter) -> outcomeCounts.put(outcome.name(), counter.sum()));
+
+        long[] counts = new long[latencyBuckets.length];
+        long calls = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyBuckets[i].sum();
+            calls += counts[i];
+        }
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("count", calls);
+        latency.put("meanMs", calls == 0 ? 0.0 : totalLatencyNanos.sum() / 1_000_000.0 / calls);
+        latency.put("p50Ms", percentile(counts, calls, 0.50));
+        latency.put("p95Ms", percentile(counts, calls, 0.95));
+        latency.put("p99Ms", percentile(counts, calls, 0.99));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("circuitState", circuitState.name());
+        snapshot.put("circuitTransitions", circuitTransitions.sum());
+        snapshot.put("outcomes", outcomeCounts);
+        snapshot.put("latency", latency);
+        return snapshot;
+    }
+
+    // Upper bound of the bucket holding the requested percentile, -1 when above the last bound
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : -1;
+            }
+        }
+        return -1;
+    }
+}
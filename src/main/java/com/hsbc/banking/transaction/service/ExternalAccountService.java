@@ -1,6 +1,10 @@
 package com.hsbc.banking.transaction.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface ExternalAccountService {
     /**
@@ -11,4 +15,27 @@ public interface ExternalAccountService {
      * @return true if the account has sufficient balance, false otherwise
      */
     boolean hasSufficientBalance(String accountId, BigDecimal amount);
-} 
\ No newline at end of file
+
+    /**
+     * Check a batch of transactions in one call. Checks against the same account are netted:
+     * each check is evaluated against the sum of the approved checks before it in the list,
+     * so several debits cannot each be approved against the same balance.
+     * Implementations backed by a remote system should override this with a single round trip.
+     *
+     * @param checks the balance checks, in approval order
+     * @return one result per check, in the same order
+     */
+    default List<Boolean> hasSufficientBalances(List<BalanceCheck> checks) {
+        Map<String, BigDecimal> approvedByAccount = new HashMap<>();
+        List<Boolean> results = new ArrayList<>(checks.size());
+        for (BalanceCheck check : checks) {
+            BigDecimal netted = approvedByAccount.getOrDefault(check.accountId(), BigDecimal.ZERO).add(check.amount());
+            boolean sufficient = hasSufficientBalance(check.accountId(), netted);
+            if (sufficient) {
+                approvedByAccount.put(check.accountId(), netted);
+            }
+            results.add(sufficient);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,67 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.service.ExternalAccountMetrics.Outcome;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Approves debits from the local AccountBalanceLedger and only calls the account service
+ * when the ledger has to sync.
+ */
+public class LedgerExternalAccountService implements ExternalAccountService {
+    private final ExternalAccountService delegate;
+    private final AccountBalanceLedger ledger;
+    private final ExternalAccountMetrics metrics;
+
+    public LedgerExternalAccountService(ExternalAccountService delegate, AccountBalanceLedger ledger,
+                                        ExternalAccountMetrics metrics) {
+        this.delegate = delegate;
+        this.ledger = ledger;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean hasSufficientBalance(String accountId, BigDecimal amount) {
+        if (ledger.tryReserve(accountId, amount)) {
+            metrics.record(Outcome.LEDGER_HIT);
+            return true;
+        }
+        metrics.record(Outcome.LEDGER_SYNC);
+        return ledger.reserve(accountId, amount, probe -> delegate.hasSufficientBalance(accountId, probe));
+    }
+
+    @Override
+    public List<Boolean> hasSufficientBalances(List<BalanceCheck> checks) {
+        Boolean[] results = new Boolean[checks.size()];
+        List<BalanceCheck> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < checks.size(); i++) {
+            BalanceCheck check = checks.get(i);
+            if (ledger.tryReserve(check.accountId(), check.amount())) {
+                metrics.record(Outcome.LEDGER_HIT);
+                results[i] = true;
+            } else {
+                misses.add(check);
+                missIndexes.add(i);
+            }
+        }
+
+        // Checks the ledger cannot cover go to the account service in one batch, without refreshing headroom.
+        // An approved one spent balance the headroom still counts, so its account syncs on the next debit.
+        if (!misses.isEmpty()) {
+            metrics.record(Outcome.LEDGER_SYNC);
+            List<Boolean> remoteResults = delegate.hasSufficientBalances(misses);
+            for (int i = 0; i < missIndexes.size(); i++) {
+                boolean approved = remoteResults.get(i);
+                results[missIndexes.get(i)] = approved;
+                if (approved) {
+                    ledger.invalidate(misses.get(i).accountId());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+}
@@ -0,0 +1,88 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the order IDs of deleted transactions taken for {@code orderIdRetention} after the delete, whatever
+ * repository stores the transactions, so a retried create of a deleted transaction is still rejected as a
+ * duplicate.
+ * <p>
+ * An order ID is retained before its transaction is deleted, so a save that finds it free in the repository
+ * finds it retained when it checks again after the save and is undone, as for archived order IDs. Retained
+ * order IDs are held in memory; a restart or a restore releases them.
+ */
+@Component
+public class OrderIdRetention {
+    private final Map<String, Retained> retained = new ConcurrentHashMap<>();
+    // Oldest first, so releasing stops at the first one still retained
+    private final Queue<Retained> expiries = new ArrayDeque<>();
+    private final Duration retention;
+    private final Clock clock;
+
+    @Autowired
+    public OrderIdRetention(@Value("${transaction.repository.order-id-retention:24h}") Duration retention) {
+        this(retention, Clock.systemUTC());
+    }
+
+    OrderIdRetention(Duration retention, Clock clock) {
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    public void retain(String orderId) {
+        if (retention.isZero()) {
+            return;
+        }
+        long now = clock.millis();
+        Retained entry = new Retained(orderId, now + retention.toMillis());
+        synchronized (expiries) {
+            release(now);
+            expiries.add(entry);
+            retained.put(orderId, entry);
+        }
+    }
+
+    public boolean isRetained(String orderId) {
+        Retained entry = retained.get(orderId);
+        return entry != null && entry.until() > clock.millis();
+    }
+
+    int retainedCount() {
+        return retained.size();
+    }
+
+    public void clear() {
+        synchronized (expiries) {
+            expiries.clear();
+            retained.clear();
+        }
+    }
+
+    @EventListener
+    public void onTransactionsRestored(TransactionsRestoredEvent event) {
+        clear();
+    }
+
+    // Retaining an order ID again replaced its entry, the older one only leaves the queue
+    private void release(long now) {
+        Retained oldest;
+        while ((oldest = expiries.peek()) != null && oldest.until() <= now) {
+            expiries.poll();
+            retained.remove(oldest.orderId(), oldest);
+        }
+    }
+
+    private record Retained(String orderId, long until) {
+    }
+}
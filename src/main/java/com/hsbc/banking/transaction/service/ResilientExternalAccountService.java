@@ -0,0 +1,242 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.AccountServiceUnavailableException;
+import com.hsbc.banking.transaction.service.ExternalAccountMetrics.Outcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Guards calls to the external account service with a per-call deadline, a bulkhead limiting
+ * concurrent calls and a circuit breaker. When a call cannot be made or does not succeed,
+ * the configured fallback policy decides the outcome.
+ */
+public class ResilientExternalAccountService implements ExternalAccountService, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ResilientExternalAccountService.class);
+
+    public enum FallbackPolicy {
+        // Reject every debit while the account service is unavailable
+        REJECT,
+        // Allow debits until the amount approved by the fallback reaches a per-account limit
+        ALLOW_UNDER_LIMIT
+    }
+
+    private final ExternalAccountService delegate;
+    private final long timeoutNanos;
+    private final long maxWaitNanos;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final FallbackPolicy fallbackPolicy;
+    private final BigDecimal fallbackLimit;
+    private final ExternalAccountMetrics metrics;
+    private final ExecutorService executor;
+    // Debit amounts approved by the fallback per account, cleared once the circuit closes again or
+    // the account service answers for the account; a full bulkhead falls back with the circuit closed
+    private final Map<String, BigDecimal> fallbackExposure = new ConcurrentHashMap<>();
+
+    public ResilientExternalAccountService(ExternalAccountService delegate,
+                                           Duration timeout,
+                                           int maxConcurrentCalls,
+                                           Duration maxWait,
+                                           CircuitBreakerSettings circuitBreakerSettings,
+                                           FallbackPolicy fallbackPolicy,
+                                           BigDecimal fallbackLimit,
+                                           ExternalAccountMetrics metrics,
+                                           ExecutorService executor) {
+        this.delegate = delegate;
+        this.timeoutNanos = timeout.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.fallbackPolicy = fallbackPolicy;
+        this.fallbackLimit = fallbackLimit;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.circuitBreaker = new CircuitBreaker(
+                circuitBreakerSettings.failureRateThreshold(),
+                circuitBreakerSettings.windowSize(),
+                circuitBreakerSettings.minimumCalls(),
+                circuitBreakerSettings.openDuration(),
+                this::onCircuitStateChange);
+    }
+
+    @Override
+    public boolean hasSufficientBalance(String accountId, BigDecimal amount) {
+        CallResult<Boolean> result = call(() -> delegate.hasSufficientBalance(accountId, amount));
+        if (result.failure() == null) {
+            settleExposure(accountId);
+            return result.value();
+        }
+        if (!fallback(accountId, amount)) {
+            throw new AccountServiceUnavailableException(accountId,
+                    "Account service unavailable, transaction rejected: " + result.failure().name());
+        }
+        return true;
+    }
+
+    @Override
+    public List<Boolean> hasSufficientBalances(List<BalanceCheck> checks) {
+        CallResult<List<Boolean>> result = call(() -> delegate.hasSufficientBalances(checks));
+        if (result.failure() == null) {
+            for (BalanceCheck check : checks) {
+                settleExposure(check.accountId());
+            }
+            return result.value();
+        }
+        if (fallbackPolicy == FallbackPolicy.REJECT && !checks.isEmpty()) {
+            metrics.record(Outcome.FALLBACK_REJECTED);
+            throw new AccountServiceUnavailableException(checks.get(0).accountId(),
+                    "Account service unavailable, batch rejected: " + result.failure().name());
+        }
+        // Checks the fallback cannot approve are reported as not sufficient
+        List<Boolean> results = new ArrayList<>(checks.size());
+        for (BalanceCheck check : checks) {
+            results.add(fallback(check.accountId(), check.amount()));
+        }
+        return results;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> CallResult<T> call(Callable<T> remoteCall) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            metrics.record(Outcome.CIRCUIT_OPEN);
+            return CallResult.failed(Outcome.CIRCUIT_OPEN);
+        }
+
+        try {
+            if (!bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                circuitBreaker.releasePermission();
+                metrics.record(Outcome.BULKHEAD_FULL);
+                return CallResult.failed(Outcome.BULKHEAD_FULL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.releasePermission();
+            throw new IllegalStateException("Interrupted while waiting for account service", e);
+        }
+
+        long start = System.nanoTime();
+        // Whoever claims first releases the permit: the task when it starts, or the caller if it never did
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            // The permit is held until the remote call really ends, even if the caller gave up on it
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                try {
+                    return remoteCall.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuitBreaker.releasePermission();
+            metrics.record(Outcome.BULKHEAD_FULL);
+            return CallResult.failed(Outcome.BULKHEAD_FULL);
+        }
+
+        try {
+            T value = future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            circuitBreaker.onSuccess();
+            metrics.record(Outcome.SUCCESS);
+            return new CallResult<>(value, null);
+        } catch (TimeoutException e) {
+            abandon(future, claimed);
+            circuitBreaker.onFailure();
+            metrics.record(Outcome.TIMEOUT);
+            return CallResult.failed(Outcome.TIMEOUT);
+        } catch (ExecutionException e) {
+            logger.warn("Account service call failed: {}", e.getCause().getMessage());
+            circuitBreaker.onFailure();
+            metrics.record(Outcome.FAILURE);
+            return CallResult.failed(Outcome.FAILURE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(future, claimed);
+            circuitBreaker.releasePermission();
+            throw new IllegalStateException("Interrupted while waiting for account service", e);
+        } finally {
+            metrics.recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    private void abandon(Future<?> future, AtomicBoolean claimed) {
+        if (claimed.compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+        future.cancel(true);
+    }
+
+    private boolean fallback(String accountId, BigDecimal amount) {
+        // Credits never need a balance
+        if (amount.signum() >= 0) {
+            metrics.record(Outcome.FALLBACK_ALLOWED);
+            return true;
+        }
+        if (fallbackPolicy == FallbackPolicy.REJECT) {
+            metrics.record(Outcome.FALLBACK_REJECTED);
+            return false;
+        }
+
+        boolean[] allowed = new boolean[1];
+        fallbackExposure.compute(accountId, (id, exposure) -> {
+            BigDecimal current = exposure == null ? BigDecimal.ZERO : exposure;
+            BigDecimal next = current.add(amount.abs());
+            allowed[0] = next.compareTo(fallbackLimit) <= 0;
+            return allowed[0] ? next : current;
+        });
+        metrics.record(allowed[0] ? Outcome.FALLBACK_ALLOWED : Outcome.FALLBACK_REJECTED);
+        return allowed[0];
+    }
+
+    // The account service has checked the account again, including what the fallback approved
+    private void settleExposure(String accountId) {
+        if (!fallbackExposure.isEmpty()) {
+            fallbackExposure.remove(accountId);
+        }
+    }
+
+    private void onCircuitStateChange(CircuitBreaker.State state) {
+        logger.warn("Account service circuit breaker is now {}", state);
+        metrics.circuitStateChanged(state);
+        if (state == CircuitBreaker.State.CLOSED) {
+            fallbackExposure.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // Either the value of a successful call or the outcome that prevented it
+    private record CallResult<T>(T value, Outcome failure) {
+        static <T> CallResult<T> failed(Outcome failure) {
+            return new CallResult<>(null, failure);
+        }
+    }
+
+    public record CircuitBreakerSettings(int failureRateThreshold, int windowSize, int minimumCalls,
+                                         Duration openDuration) {
+    }
+}
@@ -1,13 +1,42 @@
 package com.hsbc.banking.transaction.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 
-@Service
+@Service("remoteAccountService")
 public class StubExternalAccountServiceImpl implements ExternalAccountService {
+    // Simulated round trip to the account system, 0 disables the delay
+    private final long latencyMs;
+
+    public StubExternalAccountServiceImpl(@Value("${external-account.stub.latency-ms:0}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
     @Override
     public boolean hasSufficientBalance(String accountId, BigDecimal amount) {
+        simulateRoundTrip();
         return true;
     }
+
+    @Override
+    public List<Boolean> hasSufficientBalances(List<BalanceCheck> checks) {
+        // One round trip for the whole batch
+        simulateRoundTrip();
+        return Collections.nCopies(checks.size(), true);
+    }
+
+    private void simulateRoundTrip() {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking balance", e);
+            }
+        }
+    }
 }
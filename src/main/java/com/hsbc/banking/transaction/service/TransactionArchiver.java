@@ -0,0 +1,202 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.AuditLogRepository;
+import com.hsbc.banking.transaction.repository.TransactionArchive;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Moves transactions created more than {@code maxAge} ago, with their audit logs, out of the live
+ * repository into the {@link TransactionArchive}, so scans and counts only walk the recent ones.
+ * <p>
+ * A run writes the old transactions to archive files of up to {@code fileSize} rows first and removes them
+ * from the repository afterwards, each only if its version did not change in the meantime. A transaction
+ * updated while it was being archived stays live and is taken out of the file again. Archived transactions
+ * are read-only: they are found by ID, but no longer listed, searched, updated or deleted. Their order IDs
+ * stay taken. Each one moved is published as an archived event, so the search index, the rollups and the
+ * change feed drop it like a deleted one.
+ * <p>
+ * Since a file is written before its rows leave the repository, an order ID is always live, archived or
+ * both. A save that finds an order ID free and then finds it archived raced with archival and is undone.
+ */
+public class TransactionArchiver implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiver.class);
+    private static final String ENTITY_TYPE = "Transaction";
+
+    private final TransactionRepository transactionRepository;
+    private final AuditLogRepository auditLogRepository;
+    private final TransactionArchive archive;
+    private final TransactionWriteGate writeGate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration maxAge;
+    private final int fileSize;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    public TransactionArchiver(TransactionRepository transactionRepository, AuditLogRepository auditLogRepository,
+                               TransactionArchive archive, TransactionWriteGate writeGate,
+                               ApplicationEventPublisher eventPublisher, Duration maxAge, int fileSize,
+                               Duration interval) {
+        this(transactionRepository, auditLogRepository, archive, writeGate, eventPublisher, maxAge, fileSize,
+                interval, Clock.systemDefaultZone());
+    }
+
+    TransactionArchiver(TransactionRepository transactionRepository, AuditLogRepository auditLogRepository,
+                        TransactionArchive archive, TransactionWriteGate writeGate,
+                        ApplicationEventPublisher eventPublisher, Duration maxAge, int fileSize,
+                        Duration interval, Clock clock) {
+        if (fileSize <= 0) {
+            throw new IllegalArgumentException("fileSize must be positive");
+        }
+        this.transactionRepository = transactionRepository;
+        this.auditLogRepository = auditLogRepository;
+        this.archive = archive;
+        this.writeGate = writeGate;
+        this.eventPublisher = eventPublisher;
+        this.maxAge = maxAge;
+        this.fileSize = fileSize;
+        this.clock = clock;
+        // A zero interval leaves archival to explicit calls
+        if (interval.isZero()) {
+            this.scheduler = null;
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "transaction-archival");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::archiveQuietly, interval.toMillis(), interval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized ArchiveReport archive() throws IOException {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(maxAge);
+        long archived = 0;
+        long kept = 0;
+        List<Transaction> batch = new ArrayList<>(Math.min(fileSize, 10_000));
+        try (Stream<Transaction> transactions = transactionRepository.stream()) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                if (!transaction.getCreatedAt().isBefore(cutoff)) {
+                    continue;
+                }
+                // A snapshot, the version written to the file is the one the delete checks
+                batch.add(transaction.copy());
+                if (batch.size() == fileSize) {
+                    long moved = move(batch);
+                    archived += moved;
+                    kept += batch.size() - moved;
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            long moved = move(batch);
+            archived += moved;
+            kept += batch.size() - moved;
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        if (archived > 0 || kept > 0) {
+            logger.info("Archived {} transactions created before {} in {} ms, {} changed meanwhile and stay live",
+                    archived, cutoff, durationMs, kept);
+        }
+        return new ArchiveReport(archived, kept, durationMs);
+    }
+
+    public Optional<Transaction> findById(Long id) {
+        return archive.findById(id);
+    }
+
+    // Archived transactions keep their order IDs, new transactions must not reuse them
+    public boolean isArchivedOrderId(String orderId) {
+        return archive.containsOrderId(orderId);
+    }
+
+    public List<AuditLog> findAuditLogs(Long transactionId) {
+        return archive.findAuditLogs(transactionId);
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        archive.close();
+    }
+
+    // Writes one file, then removes what it holds from the live stores; returns how many were moved
+    private long move(List<Transaction> batch) throws IOException {
+        List<String> entityIds = new ArrayList<>(batch.size());
+        for (Transaction transaction : batch) {
+            entityIds.add(String.valueOf(transaction.getId()));
+        }
+        Map<Long, List<AuditLog>> auditLogs = new HashMap<>();
+        for (AuditLog auditLog : auditLogRepository.findByEntityTypeAndEntityIds(ENTITY_TYPE, entityIds)) {
+            auditLogs.computeIfAbsent(Long.valueOf(auditLog.getEntityId()), id -> new ArrayList<>()).add(auditLog);
+        }
+        String file = archive.append(batch, auditLogs);
+
+        List<Long> changed = new ArrayList<>();
+        // Not while a restore replaces the stores, it would remove restored rows that match the file
+        writeGate.write(() -> {
+            List<Long> archivedAuditLogs = new ArrayList<>();
+            List<Transaction> moved = new ArrayList<>(batch.size());
+            for (Transaction transaction : batch) {
+                if (transactionRepository.deleteIfVersion(transaction.getId(), transaction.getVersion())) {
+                    moved.add(transaction);
+                    for (AuditLog auditLog : auditLogs.getOrDefault(transaction.getId(), List.of())) {
+                        archivedAuditLogs.add(auditLog.getId());
+                    }
+                } else {
+                    changed.add(transaction.getId());
+                }
+            }
+            auditLogRepository.deleteAllById(archivedAuditLogs);
+            for (Transaction transaction : moved) {
+                eventPublisher.publishEvent(TransactionEvent.archived(transaction));
+            }
+        });
+        if (!changed.isEmpty()) {
+            archive.exclude(file, changed);
+        }
+        return batch.size() - changed.size();
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (IOException | RuntimeException e) {
+            // The next run starts over, transactions stay live until their file was written
+            logger.error("Transaction archival failed", e);
+        }
+    }
+
+    public record ArchiveReport(long archived, long keptLive, long durationMs) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionChange;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import com.hsbc.banking.transaction.repository.AuditLogRepository;
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import com.hsbc.banking.transaction.repository.TransactionBackupFile;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Online backups of the transactions and audit logs to compressed files, and restores from them.
+ * <p>
+ * A backup never blocks writers: it scans the repositories while they change, between two offsets of the
+ * change log. Changes published before the first offset are already in the scan. The changes between
+ * the two offsets are appended after the scan, and replace whatever the scan saw of those transactions.
+ * The file therefore restores to the state as of the second offset, the fence. If the change log
+ * overwrote changes of that range before the scan finished, the backup fails and has to be taken again
+ * with a larger {@code transaction.changes.capacity}.
+ * <p>
+ * A restore replaces the repository contents in bulk, without validation, balance checks or audit logs
+ * per transaction, and then publishes a {@link TransactionsRestoredEvent} on which the views built from
+ * transaction events start over from the restored transactions. Writes through the
+ * {@link TransactionWriteGate} wait until the restore is done.
+ */
+public class TransactionBackupService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBackupService.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String SUFFIX = ".backup.gz";
+    private static final int CHANGE_BATCH_SIZE = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final AuditLogRepository auditLogRepository;
+    private final TransactionChangeLog changeLog;
+    private final IdGenerator transactionIdGenerator;
+    private final IdGenerator auditLogIdGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final TransactionWriteGate writeGate;
+    private final Path directory;
+
+    public TransactionBackupService(TransactionRepository transactionRepository,
+                                    AuditLogRepository auditLogRepository,
+                                    TransactionChangeLog changeLog,
+                                    IdGenerator transactionIdGenerator,
+                                    IdGenerator auditLogIdGenerator,
+                                    ApplicationEventPublisher eventPublisher,
+                                    CacheManager cacheManager,
+                                    TransactionWriteGate writeGate,
+                                    Path directory) {
+        this.transactionRepository = transactionRepository;
+        this.auditLogRepository = auditLogRepository;
+        this.changeLog = changeLog;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.auditLogIdGenerator = auditLogIdGenerator;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.writeGate = writeGate;
+        this.directory = directory;
+    }
+
+    // One backup at a time, each one is a full scan
+    public synchronized BackupReport backup() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Path file = directory.resolve("transactions-" + FILE_TIMESTAMP.format(LocalDateTime.now()) + SUFFIX);
+        // Written under another name and renamed when complete, so a listed backup is always a whole one
+        Path partial = directory.resolve(file.getFileName() + ".partial");
+
+        long fromOffset = changeLog.nextOffset();
+        long transactions = 0;
+        long auditLogs = 0;
+        long changes;
+        try (TransactionBackupFile.Writer writer = TransactionBackupFile.create(partial)) {
+            try (Stream<Transaction> stream = transactionRepository.stream()) {
+                for (Iterator<Transaction> it = stream.iterator(); it.hasNext(); transactions++) {
+                    writer.writeTransaction(it.next());
+                }
+            }
+            try (Stream<AuditLog> stream = auditLogRepository.stream()) {
+                for (Iterator<AuditLog> it = stream.iterator(); it.hasNext(); auditLogs++) {
+                    writer.writeAuditLog(it.next());
+                }
+            }
+
+            long toOffset = changeLog.nextOffset();
+            // Every ID handed out so far is below these, restored generators continue after them
+            long transactionIdFence = transactionIdGenerator.nextId();
+            long auditLogIdFence = auditLogIdGenerator.nextId();
+            changes = writeChanges(writer, fromOffset, toOffset);
+            writer.finish(transactionIdFence, auditLogIdFence);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        long bytes = Files.size(file);
+        logger.info("Backup {} written in {} ms: {} transactions, {} audit logs, {} changes during the scan, {} bytes",
+                file, durationMs, transactions, auditLogs, changes, bytes);
+        return new BackupReport(file.getFileName().toString(), transactions, auditLogs, changes, bytes, durationMs);
+    }
+
+    public synchronized RestoreReport restore(String fileName) throws IOException {
+        long start = System.nanoTime();
+        Path file = resolve(fileName);
+        TransactionBackupFile.Contents contents;
+        try {
+            contents = TransactionBackupFile.read(file);
+        } catch (IOException e) {
+            throw new InvalidRequestException(Map.of("file", fileName, "message", String.valueOf(e.getMessage())));
+        }
+
+        writeGate.close();
+        try {
+            transactionRepository.restore(contents.transactions(), contents.transactionIdFence());
+            auditLogRepository.restore(contents.auditLogs());
+            auditLogIdGenerator.advancePast(contents.auditLogIdFence());
+
+            for (String name : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+            eventPublisher.publishEvent(new TransactionsRestoredEvent(contents.transactions()));
+        } finally {
+            writeGate.open();
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Restored {} transactions and {} audit logs from {} in {} ms",
+                contents.transactions().size(), contents.auditLogs().size(), file, durationMs);
+        return new RestoreReport(fileName, contents.transactions().size(), contents.auditLogs().size(), durationMs);
+    }
+
+    private long writeChanges(TransactionBackupFile.Writer writer, long fromOffset, long toOffset)
+            throws IOException {
+        long offset = fromOffset;
+        while (offset < toOffset) {
+            TransactionChangeLog.ChangeBatch batch = changeLog.read(offset,
+                    (int) Math.min(toOffset - offset, CHANGE_BATCH_SIZE));
+            if (batch.earliestOffset() > offset || batch.changes().isEmpty()) {
+                throw new IllegalStateException("Changes made during the backup were already dropped from "
+                        + "the change log, increase transaction.changes.capacity");
+            }
+            for (TransactionChange change : batch.changes()) {
+                if (change.type().removes()) {
+                    writer.writeDeleted(change.transaction().getId());
+                } else {
+                    writer.writeTransaction(change.transaction());
+                }
+            }
+            offset = batch.nextOffset();
+        }
+        return toOffset - fromOffset;
+    }
+
+    // Only files directly in the backup directory can be restored
+    private Path resolve(String fileName) {
+        Path file = fileName == null || fileName.isBlank() ? null : directory.resolve(fileName).normalize();
+        if (file == null || !directory.normalize().equals(file.getParent()) || !Files.isRegularFile(file)) {
+            throw new InvalidRequestException(Map.of("file", String.valueOf(fileName),
+                    "message", "No backup with this name in " + directory));
+        }
+        return file;
+    }
+
+    public record BackupReport(String file, long transactions, long auditLogs, long changes, long bytes,
+                               long durationMs) {
+    }
+
+    public record RestoreReport(String file, long transactions, long auditLogs, long durationMs) {
+    }
+}
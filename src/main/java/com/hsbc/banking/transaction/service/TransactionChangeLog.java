@@ -0,0 +1,157 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionChange;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered in-process log of transaction changes. Every event published by the service is appended
+ * with the next offset, so offsets are gap-free and increase in the order the changes were published.
+ * <p>
+ * Events are published after the change is stored, so two changes of one transaction can be published
+ * in the other order than they were stored. The changes of one transaction are kept in version order:
+ * one arriving after a newer change of the same transaction is dropped, the newer one already carries
+ * the whole state. A consumer may therefore see a transaction updated without having seen it created.
+ * <p>
+ * The log keeps the most recent {@code capacity} changes in a ring buffer; consumers resume by reading
+ * from the offset after the last change they processed. A restore drops every change held, consumers
+ * then find the offsets they resume from evicted and have to read the transactions again.
+ */
+@Component
+public class TransactionChangeLog {
+    private final TransactionChange[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    // Offset the next change will get
+    private long nextOffset;
+    // Offsets below were dropped by a restore, even when the ring still has room for them
+    private long droppedBefore;
+    // Latest change of each transaction still in the ring
+    private final Map<Long, Latest> latest = new HashMap<>();
+
+    public TransactionChangeLog(@Value("${transaction.changes.capacity:100000}") int capacity) {
+        this.ring = new TransactionChange[capacity];
+    }
+
+    @EventListener
+    public void onTransactionEvent(TransactionEvent event) {
+        // The event already carries a snapshot of the transaction
+        append(event.type(), event.transaction());
+    }
+
+    @EventListener
+    public void onTransactionsRestored(TransactionsRestoredEvent event) {
+        lock.lock();
+        try {
+            Arrays.fill(ring, null);
+            latest.clear();
+            droppedBefore = nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(TransactionEvent.Type type, Transaction snapshot) {
+        LocalDateTime timestamp = LocalDateTime.now();
+        // A delete or archival removes the version it carries, so it ranks above the change that produced it
+        long rank = snapshot.getVersion() * 2 + (type.removes() ? 1 : 0);
+        lock.lock();
+        try {
+            Latest previous = latest.get(snapshot.getId());
+            // IDs are handed out again once the repository is cleared, a change of another transaction is new
+            if (previous != null && previous.rank() >= rank
+                    && sameTransaction(ring[(int) (previous.offset() % ring.length)].transaction(), snapshot)) {
+                return;
+            }
+            long offset = nextOffset++;
+            int slot = (int) (offset % ring.length);
+            TransactionChange evicted = ring[slot];
+            if (evicted != null && latest.get(evicted.transaction().getId()).offset() == evicted.offset()) {
+                latest.remove(evicted.transaction().getId());
+            }
+            ring[slot] = new TransactionChange(offset, type, timestamp, snapshot);
+            latest.put(snapshot.getId(), new Latest(rank, offset));
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean sameTransaction(Transaction held, Transaction snapshot) {
+        return Objects.equals(held.getOrderId(), snapshot.getOrderId())
+                && Objects.equals(held.getCreatedAt(), snapshot.getCreatedAt());
+    }
+
+    /**
+     * Changes from {@code fromOffset} on, at most {@code limit} of them. Offsets that were already
+     * evicted from the log are skipped, the batch then starts at the earliest offset still held.
+     */
+    public ChangeBatch read(long fromOffset, int limit) {
+        lock.lock();
+        try {
+            return readLocked(fromOffset, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Like read, but waits up to timeout for a change when there is none at fromOffset yet
+    public ChangeBatch await(long fromOffset, int limit, Duration timeout) throws InterruptedException {
+        long remainingNanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (fromOffset >= nextOffset && remainingNanos > 0) {
+                remainingNanos = appended.awaitNanos(remainingNanos);
+            }
+            return readLocked(fromOffset, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long nextOffset() {
+        lock.lock();
+        try {
+            return nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ChangeBatch readLocked(long fromOffset, int limit) {
+        long earliestOffset = Math.max(droppedBefore, nextOffset - ring.length);
+        long start = Math.max(Math.max(fromOffset, 0), earliestOffset);
+        long end = Math.min(nextOffset, start + Math.max(limit, 0));
+        List<TransactionChange> changes = new ArrayList<>((int) Math.max(end - start, 0));
+        for (long offset = start; offset < end; offset++) {
+            changes.add(ring[(int) (offset % ring.length)]);
+        }
+        return new ChangeBatch(changes, Math.max(start, end), earliestOffset);
+    }
+
+    private record Latest(long rank, long offset) {
+    }
+
+    /**
+     * @param changes        the changes read, in offset order
+     * @param nextOffset     offset to read from next
+     * @param earliestOffset oldest offset still in the log; above the requested offset means changes were missed
+     */
+    public record ChangeBatch(List<TransactionChange> changes, long nextOffset, long earliestOffset) {
+    }
+}
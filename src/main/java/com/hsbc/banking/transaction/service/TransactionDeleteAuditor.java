@@ -0,0 +1,86 @@
+package com.hsbc.banking.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.AuditLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the audit log of a deleted transaction, with the transaction as it was, on a background thread.
+ * A delete request returns once the transaction is gone from the repository; serializing the snapshot
+ * and storing the audit log happen afterwards, in the order of the deletes.
+ */
+@Component
+public class TransactionDeleteAuditor implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDeleteAuditor.class);
+
+    private final AuditLogRepository auditLogRepository;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+
+    @Autowired
+    public TransactionDeleteAuditor(AuditLogRepository auditLogRepository, ObjectMapper objectMapper) {
+        this(auditLogRepository, objectMapper, Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "transaction-delete-audit");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    TransactionDeleteAuditor(AuditLogRepository auditLogRepository, ObjectMapper objectMapper, Executor executor) {
+        this.auditLogRepository = auditLogRepository;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
+    @EventListener
+    public void onTransactionEvent(TransactionEvent event) {
+        if (event.type() == TransactionEvent.Type.DELETED) {
+            // The event already carries a snapshot of the transaction
+            executor.execute(() -> record(event.transaction()));
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // Audit logs of deletes that were already accepted are still written
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+            if (!service.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Delete audit logs still pending at shutdown were dropped");
+            }
+        }
+    }
+
+    private void record(Transaction transaction) {
+        String details;
+        try {
+            details = objectMapper.writeValueAsString(transaction);
+        } catch (Exception e) {
+            details = "Failed to serialize transaction: " + e.getMessage();
+        }
+
+        try {
+            auditLogRepository.save(new AuditLog(
+                    "DELETE",
+                    "Transaction",
+                    String.valueOf(transaction.getId()),
+                    "Deleted transaction: " + details
+            ));
+        } catch (RuntimeException e) {
+            logger.error("Failed to store audit log of deleted transaction {}", transaction.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.hsbc.banking.transaction.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hsbc.banking.transaction.dto.CreateTransactionRequest;
+import com.hsbc.banking.transaction.exception.AppException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.InvalidTransactionException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bulk import of transactions from JSON lines, run as a pipeline of stages connected by bounded
+ * queues: the calling thread splits the input into lines of raw bytes, workers parse them with the
+ * UTF-8 parser of Jackson and validate them in parallel, and a single writer stores accepted rows
+ * in repository batches, where order IDs that already exist, live or archived, are rejected.
+ * Rejected rows go to an error file with their line number and error. Lines are only decoded to
+ * strings for the error file.
+ * <p>
+ * The import is meant for historical backfills, so debits are not checked against the account
+ * service. Rows are stored in the order the workers finish them, IDs do not follow line order.
+ */
+public class TransactionImportService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionImportService.class);
+    private static final long POLL_MS = 100;
+    // Marks the end of the input on both queues, compared by identity
+    private static final Row END = new Row(-1, null, null, null);
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionWriteGate writeGate;
+    private final TransactionArchiver transactionArchiver;
+    private final OrderIdRetention orderIdRetention;
+    private final int workers;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long progressIntervalNanos;
+    private final Path errorDir;
+
+    public TransactionImportService(TransactionRepository transactionRepository,
+                                    ObjectMapper objectMapper,
+                                    ApplicationEventPublisher eventPublisher,
+                                    TransactionWriteGate writeGate,
+                                    TransactionArchiver transactionArchiver,
+                                    OrderIdRetention orderIdRetention,
+                                    int workers,
+                                    int queueCapacity,
+                                    int batchSize,
+                                    Duration progressInterval,
+                                    Path errorDir) {
+        this.transactionRepository = transactionRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.writeGate = writeGate;
+        this.transactionArchiver = transactionArchiver;
+        this.orderIdRetention = orderIdRetention;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.progressIntervalNanos = progressInterval.toNanos();
+        this.errorDir = errorDir;
+    }
+
+    public ImportReport importJsonLines(InputStream input) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(errorDir);
+        Path errorFile = Files.createTempFile(errorDir, "transaction-import-", "-rejects.jsonl");
+        BlockingQueue<Row> lines = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Row> validated = new ArrayBlockingQueue<>(queueCapacity);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        List<Future<?>> stages = new ArrayList<>();
+        try {
+            Future<BatchWriter> writer = executor.submit(new BatchWriter(validated, errorFile, start));
+            stages.add(writer);
+            for (int i = 0; i < workers; i++) {
+                stages.add(executor.submit(() -> validate(lines, validated)));
+            }
+
+            long rows = 0;
+            try (input) {
+                LineReader reader = new LineReader(input);
+                byte[] line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (!isBlank(line)) {
+                        put(lines, new Row(lineNumber, line, null, null), stages);
+                        rows++;
+                    }
+                }
+            }
+            for (int i = 0; i < workers; i++) {
+                put(lines, END, stages);
+            }
+
+            BatchWriter result = await(writer, stages);
+            long durationNanos = System.nanoTime() - start;
+            if (result.rejected == 0) {
+                Files.deleteIfExists(errorFile);
+            }
+            ImportReport report = new ImportReport(rows, result.imported, result.rejected,
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos), rowsPerSecond(rows, durationNanos),
+                    result.rejected == 0 ? null : errorFile.toString());
+            logger.info("Import finished: {}", report);
+            return report;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Import failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing transactions", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Void validate(BlockingQueue<Row> lines, BlockingQueue<Row> validated) throws InterruptedException {
+        ObjectReader reader = objectMapper.readerFor(CreateTransactionRequest.class);
+        while (true) {
+            Row row = lines.take();
+            if (row == END) {
+                validated.put(END);
+                return null;
+            }
+            validated.put(parse(reader, row));
+        }
+    }
+
+    private static Row parse(ObjectReader reader, Row row) {
+        try {
+            CreateTransactionRequest request = reader.readValue(row.line());
+            if (request == null) {
+                return row.rejected(new InvalidTransactionException(
+                        Map.of("errors", List.of("Transaction must not be null"))));
+            }
+            return row.accepted(Transaction.create(
+                    request.orderId(),
+                    request.accountId(),
+                    request.amount(),
+                    request.type(),
+                    request.category(),
+                    request.description()
+            ));
+        } catch (AppException e) {
+            return row.rejected(e);
+        } catch (JsonProcessingException e) {
+            // Amounts are validated while they are parsed
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof AppException appException) {
+                    return row.rejected(appException);
+                }
+            }
+            return row.rejected(new InvalidTransactionException(
+                    Map.of("errors", List.of("Malformed JSON: " + e.getOriginalMessage()))));
+        } catch (IOException e) {
+            // Bytes that are not in a JSON encoding
+            return row.rejected(new InvalidTransactionException(
+                    Map.of("errors", List.of("Malformed JSON: " + e.getMessage()))));
+        }
+    }
+
+    // ASCII whitespace only, the line is not decoded
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && (b < '\t' || b > '\r')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Blocks while the queue is full, unless a stage has failed and will never take from it
+    private static void put(BlockingQueue<Row> queue, Row row, List<Future<?>> stages)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(row, POLL_MS, TimeUnit.MILLISECONDS)) {
+            failIfAnyFailed(stages);
+        }
+    }
+
+    private static <T> T await(Future<T> result, List<Future<?>> stages)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            try {
+                return result.get(POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                failIfAnyFailed(stages);
+            }
+        }
+    }
+
+    // Stages only end early when they fail, get() rethrows the failure
+    private static void failIfAnyFailed(List<Future<?>> stages) throws InterruptedException, ExecutionException {
+        for (Future<?> stage : stages) {
+            if (stage.isDone()) {
+                stage.get();
+            }
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long nanos) {
+        return nanos == 0 ? rows : rows * 1_000_000_000L / nanos;
+    }
+
+    private boolean isOrderIdReserved(String orderId) {
+        return transactionArchiver.isArchivedOrderId(orderId) || orderIdRetention.isRetained(orderId);
+    }
+
+    // Last stage: batches accepted rows into the repository and writes rejects, on one thread
+    private final class BatchWriter implements Callable<BatchWriter> {
+        private final BlockingQueue<Row> validated;
+        private final Path errorFile;
+        private final long start;
+        private final List<Row> batch = new ArrayList<>(batchSize);
+        private long imported;
+        private long rejected;
+        private long lastReport;
+
+        BatchWriter(BlockingQueue<Row> validated, Path errorFile, long start) {
+            this.validated = validated;
+            this.errorFile = errorFile;
+            this.start = start;
+            this.lastReport = start;
+        }
+
+        @Override
+        public BatchWriter call() throws Exception {
+            try (JsonGenerator errors = objectMapper.getFactory()
+                    .createGenerator(Files.newBufferedWriter(errorFile, StandardCharsets.UTF_8))) {
+                // One object per line, without the default space between root values
+                errors.setRootValueSeparator(null);
+                int ended = 0;
+                while (ended < workers) {
+                    Row row = validated.take();
+                    if (row == END) {
+                        ended++;
+                        continue;
+                    }
+                    if (row.error() != null) {
+                        reject(errors, row, row.error());
+                    } else {
+                        batch.add(row);
+                        if (batch.size() >= batchSize) {
+                            flush(errors);
+                        }
+                    }
+                    reportProgress();
+                }
+                flush(errors);
+            }
+            return this;
+        }
+
+        private void flush(JsonGenerator errors) throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Order IDs of archived and recently deleted transactions are taken too
+            List<Transaction> transactions = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                if (!isOrderIdReserved(row.transaction().getOrderId())) {
+                    transactions.add(row.transaction());
+                }
+            }
+            writeGate.write(() -> {
+                transactionRepository.saveAll(transactions);
+                for (Transaction transaction : transactions) {
+                    if (transaction.getId() == null) {
+                        continue;
+                    }
+                    // Archived or deleted between the check and the save, which then found the order ID no longer live
+                    if (isOrderIdReserved(transaction.getOrderId())) {
+                        transactionRepository.deleteIfVersion(transaction.getId(), transaction.getVersion());
+                        transaction.setId(null);
+                    } else {
+                        eventPublisher.publishEvent(TransactionEvent.created(transaction));
+                    }
+                }
+            });
+
+            for (Row row : batch) {
+                Transaction transaction = row.transaction();
+                // Rows without an ID were not stored because their order ID already exists
+                if (transaction.getId() == null) {
+                    reject(errors, row, new DuplicateTransactionException(Map.of(
+                            "orderId", transaction.getOrderId(),
+                            "message", "Transaction with order ID already exists")));
+                } else {
+                    imported++;
+                }
+            }
+            batch.clear();
+        }
+
+        private void reject(JsonGenerator errors, Row row, AppException error) throws IOException {
+            rejected++;
+            errors.writeStartObject();
+            errors.writeNumberField("line", row.lineNumber());
+            errors.writeStringField("code", error.getErrorCode().name());
+            errors.writeObjectField("data", error.getData());
+            errors.writeStringField("input", new String(row.line(), StandardCharsets.UTF_8));
+            errors.writeEndObject();
+            errors.writeRaw('\n');
+        }
+
+        private void reportProgress() {
+            long now = System.nanoTime();
+            if (now - lastReport < progressIntervalNanos) {
+                return;
+            }
+            lastReport = now;
+            long processed = imported + rejected + batch.size();
+            logger.info("Import progress: {} rows processed, {} imported, {} rejected, {} rows/s",
+                    processed, imported, rejected, rowsPerSecond(processed, now - start));
+        }
+    }
+
+    // Splits the input at \n, \r or \r\n like BufferedReader.readLine, without decoding it
+    private static final class LineReader {
+        private final InputStream input;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+        private boolean skipLineFeed;
+
+        LineReader(InputStream input) {
+            this.input = input;
+        }
+
+        byte[] readLine() throws IOException {
+            // Only for a line that continues past the buffer
+            ByteArrayOutputStream spanned = null;
+            while (true) {
+                if (position == limit && !fill()) {
+                    return spanned == null ? null : spanned.toByteArray();
+                }
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n') {
+                        position++;
+                        continue;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    position++;
+                }
+                if (position == limit) {
+                    if (spanned == null) {
+                        spanned = new ByteArrayOutputStream(2 * (limit - start));
+                    }
+                    spanned.write(buffer, start, limit - start);
+                    continue;
+                }
+                skipLineFeed = buffer[position] == '\r';
+                int end = position++;
+                if (spanned == null) {
+                    return Arrays.copyOfRange(buffer, start, end);
+                }
+                spanned.write(buffer, start, end - start);
+                return spanned.toByteArray();
+            }
+        }
+
+        private boolean fill() throws IOException {
+            int read;
+            do {
+                read = input.read(buffer, 0, buffer.length);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+    }
+
+    // One input line, then the transaction it was validated into or the error that rejected it
+    private record Row(long lineNumber, byte[] line, Transaction transaction, AppException error) {
+        Row accepted(Transaction transaction) {
+            return new Row(lineNumber, line, transaction, null);
+        }
+
+        Row rejected(AppException error) {
+            return new Row(lineNumber, line, null, error);
+        }
+    }
+
+    public record ImportReport(long rows, long imported, long rejected, long durationMs, long rowsPerSecond,
+                               String errorFile) {
+    }
+}
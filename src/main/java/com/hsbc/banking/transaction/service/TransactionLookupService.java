@@ -0,0 +1,91 @@
+package com.hsbc.banking.transaction.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves many transactions by id in one pass: a bulk lookup in the "transactions" cache,
+ * then a single repository multi-get for the ids that were not cached. Ids the repository does not
+ * have are looked up in the archive, as a single transaction is.
+ */
+@Service
+public class TransactionLookupService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionLookupService.class);
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiver transactionArchiver;
+    private final CacheManager cacheManager;
+
+    public TransactionLookupService(TransactionRepository transactionRepository,
+                                    TransactionArchiver transactionArchiver, CacheManager cacheManager) {
+        this.transactionRepository = transactionRepository;
+        this.transactionArchiver = transactionArchiver;
+        this.cacheManager = cacheManager;
+    }
+
+    public LookupResult lookup(Collection<Long> ids) {
+        // Duplicates are resolved once, the request order is kept
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, Transaction> found = findAll(uniqueIds);
+
+        List<Transaction> transactions = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            Transaction transaction = found.get(id);
+            if (transaction != null) {
+                transactions.add(transaction);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        logger.info("Looked up {} transactions: found={}, missing={}", uniqueIds.size(), transactions.size(),
+                missingIds.size());
+        return new LookupResult(transactions, missingIds);
+    }
+
+    private Map<Long, Transaction> findAll(Set<Long> ids) {
+        if (cacheManager.getCache("transactions") instanceof CaffeineCache caffeineCache) {
+            // Misses are loaded with one repository call and put into the cache; ids that do not exist stay absent
+            Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+            Map<Object, Object> cached = nativeCache.getAll(ids,
+                    missing -> loadAll(missing.stream().map(Long.class::cast).toList()));
+            Map<Long, Transaction> found = new HashMap<>(cached.size() * 2);
+            cached.forEach((id, transaction) -> found.put((Long) id, (Transaction) transaction));
+            return found;
+        }
+        return loadAll(ids);
+    }
+
+    private Map<Long, Transaction> loadAll(Collection<Long> ids) {
+        List<Transaction> transactions = transactionRepository.findAllById(ids);
+        Map<Long, Transaction> loaded = new HashMap<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            loaded.put(transaction.getId(), transaction);
+        }
+        if (loaded.size() < ids.size()) {
+            for (Long id : ids) {
+                if (!loaded.containsKey(id)) {
+                    transactionArchiver.findById(id).ifPresent(archived -> loaded.put(id, archived));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public record LookupResult(List<Transaction> transactions, List<Long> missingIds) {
+    }
+}
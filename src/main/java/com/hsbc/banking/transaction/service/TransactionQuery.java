@@ -0,0 +1,436 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.AppException;
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Filter over transactions written in a small predicate language, for example
+ * {@code amount <= -100 and (category = SHOPPING or description ~ 'coffee') and not accountId = ACC-123456}.
+ * <p>
+ * A comparison is a field, an operator and a value. {@code id}, {@code amount} and {@code createdAt} take
+ * {@code = != < <= > >=}; {@code orderId}, {@code accountId} and {@code description} take {@code = != ~}
+ * where {@code ~} is a case-insensitive substring match; {@code type} and {@code category} take {@code = !=}.
+ * Comparisons combine with {@code not}, {@code and} and {@code or} (in order of precedence) and parentheses.
+ * Values containing spaces are quoted with single or double quotes.
+ * <p>
+ * The text is compiled once into a predicate with the values already converted, amounts to minor units
+ * and enum names to constants, so testing a transaction does no parsing or allocation.
+ */
+public final class TransactionQuery {
+    public static final int MAX_LENGTH = 1000;
+
+    private final String text;
+    private final Predicate<Transaction> predicate;
+
+    private TransactionQuery(String text, Predicate<Transaction> predicate) {
+        this.text = text;
+        this.predicate = predicate;
+    }
+
+    /**
+     * @throws InvalidRequestException if the text is not a valid query, with the position of the error
+     */
+    public static TransactionQuery parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw invalid(text, 0, "Query cannot be empty");
+        }
+        if (text.length() > MAX_LENGTH) {
+            throw invalid(text, MAX_LENGTH, "Query cannot exceed " + MAX_LENGTH + " characters");
+        }
+        Parser parser = new Parser(text);
+        Node node = parser.parseOr();
+        if (parser.peek().kind != TokenKind.END) {
+            throw invalid(text, parser.peek().position, "Unexpected '" + parser.peek().text + "'");
+        }
+        return new TransactionQuery(text, node.predicate);
+    }
+
+    public boolean test(Transaction transaction) {
+        return predicate.test(transaction);
+    }
+
+    public Predicate<Transaction> predicate() {
+        return predicate;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    private enum Field {
+        ID("id"), ORDER_ID("orderId"), ACCOUNT_ID("accountId"), AMOUNT("amount"), TYPE("type"),
+        CATEGORY("category"), DESCRIPTION("description"), CREATED_AT("createdAt");
+
+        private final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        static Field lookup(String name) {
+            for (Field field : values()) {
+                if (field.name.equalsIgnoreCase(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    private enum Operator {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">="), CONTAINS("~");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean matches(int comparison) {
+            return switch (this) {
+                case EQ -> comparison == 0;
+                case NE -> comparison != 0;
+                case LT -> comparison < 0;
+                case LE -> comparison <= 0;
+                case GT -> comparison > 0;
+                case GE -> comparison >= 0;
+                case CONTAINS -> throw new IllegalStateException("Not an ordering operator");
+            };
+        }
+    }
+
+    private enum TokenKind {
+        WORD, QUOTED, OPERATOR, OPEN, CLOSE, END
+    }
+
+    private record Token(TokenKind kind, String text, int position) {
+        boolean isKeyword(String keyword) {
+            return kind == TokenKind.WORD && text.equalsIgnoreCase(keyword);
+        }
+    }
+
+    // Cost orders the operands of an and: cheap numeric tests run before substring scans
+    private record Node(Predicate<Transaction> predicate, int cost) {
+    }
+
+    private static final class Parser {
+        private final String text;
+        private final List<Token> tokens;
+        private int next;
+
+        Parser(String text) {
+            this.text = text;
+            this.tokens = tokenize(text);
+        }
+
+        Token peek() {
+            return tokens.get(next);
+        }
+
+        Node parseOr() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (peek().isKeyword("or")) {
+                next++;
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.get(0) : or(operands);
+        }
+
+        Node parseAnd() {
+            List<Node> operands = new ArrayList<>();
+            operands.add(parseNot());
+            while (peek().isKeyword("and")) {
+                next++;
+                operands.add(parseNot());
+            }
+            return operands.size() == 1 ? operands.get(0) : and(operands);
+        }
+
+        Node parseNot() {
+            if (peek().isKeyword("not")) {
+                next++;
+                Node operand = parseNot();
+                return new Node(operand.predicate.negate(), operand.cost);
+            }
+            if (peek().kind == TokenKind.OPEN) {
+                next++;
+                Node node = parseOr();
+                expect(TokenKind.CLOSE, "Expected ')'");
+                return node;
+            }
+            return parseComparison();
+        }
+
+        Node parseComparison() {
+            Token fieldToken = expect(TokenKind.WORD, "Expected a field");
+            Field field = Field.lookup(fieldToken.text);
+            if (field == null) {
+                throw invalid(text, fieldToken.position, "Unknown field '" + fieldToken.text + "'. Valid fields are: "
+                        + Arrays.stream(Field.values()).map(f -> f.name).toList());
+            }
+            Token operatorToken = expect(TokenKind.OPERATOR, "Expected an operator after " + field.name);
+            Operator operator = Arrays.stream(Operator.values())
+                    .filter(o -> o.symbol.equals(operatorToken.text))
+                    .findFirst()
+                    .orElseThrow();
+            Token value = peek();
+            if (value.kind != TokenKind.WORD && value.kind != TokenKind.QUOTED) {
+                throw invalid(text, value.position, "Expected a value after " + field.name + " " + operator.symbol);
+            }
+            next++;
+            return compile(field, operator, value);
+        }
+
+        private Token expect(TokenKind kind, String message) {
+            Token token = peek();
+            if (token.kind != kind) {
+                throw invalid(text, token.position, message);
+            }
+            next++;
+            return token;
+        }
+
+        private Node compile(Field field, Operator operator, Token value) {
+            return switch (field) {
+                case ID -> {
+                    requireOrdering(field, operator, value);
+                    yield new Node(compareLong(Transaction::getId, operator, parseLong(value)), 1);
+                }
+                case AMOUNT -> {
+                    requireOrdering(field, operator, value);
+                    yield new Node(compareLong(Transaction::getAmountMinor, operator, parseAmount(value)), 1);
+                }
+                case CREATED_AT -> {
+                    requireOrdering(field, operator, value);
+                    yield new Node(compare(Transaction::getCreatedAt, operator, parseDateTime(value)), 2);
+                }
+                case TYPE -> {
+                    requireEquality(field, operator, value);
+                    TransactionType type = TransactionType.lookup(value.text);
+                    if (type == null) {
+                        throw invalid(text, value.position, "Invalid transaction type. Valid types are: "
+                                + Arrays.toString(TransactionType.values()));
+                    }
+                    yield new Node(equal(Transaction::getType, operator, type), 1);
+                }
+                case CATEGORY -> {
+                    requireEquality(field, operator, value);
+                    TransactionCategory category = TransactionCategory.lookup(value.text);
+                    if (category == null) {
+                        throw invalid(text, value.position, "Invalid transaction category. Valid categories are: "
+                                + Arrays.toString(TransactionCategory.values()));
+                    }
+                    yield new Node(equal(Transaction::getCategory, operator, category), 1);
+                }
+                case ORDER_ID -> text(Transaction::getOrderId, operator, value, field);
+                case ACCOUNT_ID -> text(Transaction::getAccountId, operator, value, field);
+                case DESCRIPTION -> text(Transaction::getDescription, operator, value, field);
+            };
+        }
+
+        private Node text(Function<Transaction, String> getter, Operator operator, Token value, Field field) {
+            String expected = value.text;
+            return switch (operator) {
+                case EQ -> new Node(t -> expected.equals(getter.apply(t)), 2);
+                case NE -> new Node(t -> !expected.equals(getter.apply(t)), 2);
+                case CONTAINS -> new Node(t -> containsIgnoreCase(getter.apply(t), expected), 4);
+                default -> throw invalid(text, value.position,
+                        "Operator " + operator.symbol + " is not supported for " + field.name);
+            };
+        }
+
+        private void requireOrdering(Field field, Operator operator, Token value) {
+            if (operator == Operator.CONTAINS) {
+                throw invalid(text, value.position, "Operator ~ is not supported for " + field.name);
+            }
+        }
+
+        private void requireEquality(Field field, Operator operator, Token value) {
+            if (operator != Operator.EQ && operator != Operator.NE) {
+                throw invalid(text, value.position,
+                        "Operator " + operator.symbol + " is not supported for " + field.name);
+            }
+        }
+
+        private long parseLong(Token value) {
+            try {
+                return Long.parseLong(value.text);
+            } catch (NumberFormatException e) {
+                throw invalid(text, value.position, "Invalid number '" + value.text + "'");
+            }
+        }
+
+        private long parseAmount(Token value) {
+            try {
+                return Money.parse(value.text.toCharArray(), 0, value.text.length()).minorUnits();
+            } catch (NumberFormatException | AppException e) {
+                throw invalid(text, value.position, "Invalid amount '" + value.text + "'");
+            }
+        }
+
+        private LocalDateTime parseDateTime(Token value) {
+            try {
+                return value.text.length() == 10
+                        ? LocalDate.parse(value.text).atStartOfDay()
+                        : LocalDateTime.parse(value.text);
+            } catch (DateTimeParseException e) {
+                throw invalid(text, value.position, "Invalid date-time '" + value.text + "'");
+            }
+        }
+    }
+
+    private static Node and(List<Node> operands) {
+        operands.sort(Comparator.comparingInt(Node::cost));
+        int cost = operands.stream().mapToInt(Node::cost).sum();
+        if (operands.size() == 2) {
+            Predicate<Transaction> first = operands.get(0).predicate;
+            Predicate<Transaction> second = operands.get(1).predicate;
+            return new Node(t -> first.test(t) && second.test(t), cost);
+        }
+        Predicate<Transaction>[] predicates = predicates(operands);
+        return new Node(t -> {
+            for (Predicate<Transaction> predicate : predicates) {
+                if (!predicate.test(t)) {
+                    return false;
+                }
+            }
+            return true;
+        }, cost);
+    }
+
+    private static Node or(List<Node> operands) {
+        operands.sort(Comparator.comparingInt(Node::cost));
+        int cost = operands.stream().mapToInt(Node::cost).sum();
+        if (operands.size() == 2) {
+            Predicate<Transaction> first = operands.get(0).predicate;
+            Predicate<Transaction> second = operands.get(1).predicate;
+            return new Node(t -> first.test(t) || second.test(t), cost);
+        }
+        Predicate<Transaction>[] predicates = predicates(operands);
+        return new Node(t -> {
+            for (Predicate<Transaction> predicate : predicates) {
+                if (predicate.test(t)) {
+                    return true;
+                }
+            }
+            return false;
+        }, cost);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate<Transaction>[] predicates(List<Node> operands) {
+        return operands.stream().map(Node::predicate).toArray(Predicate[]::new);
+    }
+
+    private static Predicate<Transaction> compareLong(ToLongFunction<Transaction> getter, Operator operator,
+                                                      long value) {
+        return switch (operator) {
+            case EQ -> t -> getter.applyAsLong(t) == value;
+            case NE -> t -> getter.applyAsLong(t) != value;
+            case LT -> t -> getter.applyAsLong(t) < value;
+            case LE -> t -> getter.applyAsLong(t) <= value;
+            case GT -> t -> getter.applyAsLong(t) > value;
+            case GE -> t -> getter.applyAsLong(t) >= value;
+            case CONTAINS -> throw new IllegalStateException("Not an ordering operator");
+        };
+    }
+
+    private static <C extends Comparable<C>> Predicate<Transaction> compare(Function<Transaction, C> getter,
+                                                                           Operator operator, C value) {
+        return t -> {
+            C actual = getter.apply(t);
+            return actual != null && operator.matches(actual.compareTo(value));
+        };
+    }
+
+    private static <E> Predicate<Transaction> equal(Function<Transaction, E> getter, Operator operator, E value) {
+        return operator == Operator.EQ ? t -> getter.apply(t) == value : t -> getter.apply(t) != value;
+    }
+
+    // Substring match ignoring case without lower-casing, and so copying, every description
+    static boolean containsIgnoreCase(String text, String part) {
+        if (text == null) {
+            return false;
+        }
+        int last = text.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (text.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenKind.OPEN, "(", i++));
+            } else if (c == ')') {
+                tokens.add(new Token(TokenKind.CLOSE, ")", i++));
+            } else if (c == '\'' || c == '"') {
+                int end = text.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw invalid(text, i, "Unterminated quoted value");
+                }
+                tokens.add(new Token(TokenKind.QUOTED, text.substring(i + 1, end), i));
+                i = end + 1;
+            } else if (c == '=' || c == '~') {
+                tokens.add(new Token(TokenKind.OPERATOR, String.valueOf(c), i++));
+            } else if (c == '!' || c == '<' || c == '>') {
+                boolean withEquals = i + 1 < text.length() && text.charAt(i + 1) == '=';
+                if (c == '!' && !withEquals) {
+                    throw invalid(text, i, "Expected '!='");
+                }
+                tokens.add(new Token(TokenKind.OPERATOR, text.substring(i, withEquals ? i + 2 : i + 1), i));
+                i += withEquals ? 2 : 1;
+            } else {
+                int start = i;
+                while (i < text.length() && isWordChar(text.charAt(i))) {
+                    i++;
+                }
+                if (start == i) {
+                    throw invalid(text, i, "Unexpected character '" + c + "'");
+                }
+                tokens.add(new Token(TokenKind.WORD, text.substring(start, i), start));
+            }
+        }
+        tokens.add(new Token(TokenKind.END, "end of query", text.length()));
+        return tokens;
+    }
+
+    // Bare words cover field names and unquoted values like ACC-123456, -12.50 or 2024-01-31T23:59:59
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' || c == ':' || c == '+';
+    }
+
+    private static InvalidRequestException invalid(String query, int position, String message) {
+        return new InvalidRequestException(Map.of(
+                "query", query == null ? "" : query,
+                "position", position,
+                "message", message
+        ));
+    }
+}
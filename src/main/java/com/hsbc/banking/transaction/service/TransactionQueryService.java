@@ -0,0 +1,232 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs {@link TransactionQuery} filters as parallel scans of the repository. The repository
+ * spliterator is split into ID ranges that the tasks of a dedicated fork-join pool scan on their own,
+ * each keeping only its best {@code limit} matches, which are merged pairwise on the way back up.
+ * <p>
+ * In ID order a range can stop at its {@code limit}-th match, since everything after it has a higher ID,
+ * and the lowest such ID found by any range is shared so ranges further right stop as soon as they pass it.
+ */
+@Service
+public class TransactionQueryService implements DisposableBean {
+    public static final int MAX_LIMIT = 1000;
+
+    public enum Sort {
+        ID(Comparator.comparing(Transaction::getId)),
+        ID_DESC(Comparator.comparing(Transaction::getId).reversed()),
+        AMOUNT(Comparator.comparingLong(Transaction::getAmountMinor).thenComparing(Transaction::getId)),
+        AMOUNT_DESC(Comparator.comparingLong(Transaction::getAmountMinor).reversed()
+                .thenComparing(Transaction::getId)),
+        CREATED_AT(Comparator.comparing(Transaction::getCreatedAt).thenComparing(Transaction::getId)),
+        CREATED_AT_DESC(Comparator.comparing(Transaction::getCreatedAt).reversed()
+                .thenComparing(Transaction::getId));
+
+        private final Comparator<Transaction> order;
+
+        Sort(Comparator<Transaction> order) {
+            this.order = order;
+        }
+
+        // id, amount or createdAt, prefixed with '-' for descending order
+        public static Sort fromString(String value) {
+            String field = value.startsWith("-") ? value.substring(1) : value;
+            String suffix = value.startsWith("-") ? "_DESC" : "";
+            return switch (field) {
+                case "id" -> valueOf("ID" + suffix);
+                case "amount" -> valueOf("AMOUNT" + suffix);
+                case "createdAt" -> valueOf("CREATED_AT" + suffix);
+                default -> throw new InvalidRequestException(Map.of(
+                        "sort", value,
+                        "message", "Invalid sort. Valid values are: "
+                                + Arrays.asList("id", "-id", "amount", "-amount", "createdAt", "-createdAt")
+                ));
+            };
+        }
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final ForkJoinPool pool;
+    // Depth of the split tree; about eight ranges per worker so stealing evens out ranges of uneven size
+    private final int splitDepth;
+
+    public TransactionQueryService(TransactionRepository transactionRepository,
+                                   @Value("${transaction.query.parallelism:0}") int parallelism) {
+        this.transactionRepository = transactionRepository;
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(workers, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("transaction-query-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.splitDepth = 32 - Integer.numberOfLeadingZeros(workers * 8 - 1);
+    }
+
+    /**
+     * The first {@code limit} transactions matching the query in the given order.
+     *
+     * @throws InvalidRequestException if the query does not parse or the limit is out of range
+     */
+    public QueryResult query(String query, Sort sort, int limit) {
+        TransactionQuery filter = TransactionQuery.parse(query);
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException(Map.of(
+                    "limit", limit,
+                    "message", "Limit must be between 1 and " + MAX_LIMIT
+            ));
+        }
+
+        long start = System.nanoTime();
+        Scan scan = new Scan(filter.predicate(), sort, limit);
+        TopK top = pool.invoke(new ScanTask(scan, transactionRepository.spliterator(), splitDepth));
+        return new QueryResult(top.sorted(), scan.scanned.sum(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    // State shared by all ranges of one query
+    private static final class Scan {
+        private final Predicate<Transaction> predicate;
+        private final Sort sort;
+        private final int limit;
+        private final LongAdder scanned = new LongAdder();
+        // In ID order, the lowest ID at which some range already had limit matches
+        private final AtomicLong idCutoff = new AtomicLong(Long.MAX_VALUE);
+
+        Scan(Predicate<Transaction> predicate, Sort sort, int limit) {
+            this.predicate = predicate;
+            this.sort = sort;
+            this.limit = limit;
+        }
+
+        TopK scan(Spliterator<Transaction> range) {
+            TopK top = new TopK(limit, sort.order);
+            boolean idOrder = sort == Sort.ID;
+            Cursor cursor = new Cursor();
+            long count = 0;
+            while (range.tryAdvance(cursor)) {
+                Transaction transaction = cursor.current;
+                count++;
+                if (idOrder && transaction.getId() > idCutoff.get()) {
+                    break;
+                }
+                if (predicate.test(transaction)) {
+                    top.offer(transaction);
+                    if (idOrder && top.isFull()) {
+                        idCutoff.accumulateAndGet(transaction.getId(), Math::min);
+                        break;
+                    }
+                }
+            }
+            scanned.add(count);
+            return top;
+        }
+    }
+
+    private static final class Cursor implements Consumer<Transaction> {
+        private Transaction current;
+
+        @Override
+        public void accept(Transaction transaction) {
+            current = transaction;
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<TopK> {
+        private final Scan scan;
+        private final Spliterator<Transaction> range;
+        private final int depth;
+
+        ScanTask(Scan scan, Spliterator<Transaction> range, int depth) {
+            this.scan = scan;
+            this.range = range;
+            this.depth = depth;
+        }
+
+        @Override
+        protected TopK compute() {
+            Spliterator<Transaction> prefix = depth > 0 ? range.trySplit() : null;
+            if (prefix == null) {
+                return scan.scan(range);
+            }
+            // The lower IDs are scanned first by this thread, so in ID order the cutoff is found early
+            ScanTask suffix = new ScanTask(scan, range, depth - 1);
+            suffix.fork();
+            TopK first = new ScanTask(scan, prefix, depth - 1).compute();
+            return first.merge(suffix.join());
+        }
+    }
+
+    // The best matches of a range, with the worst of them at the head of the heap
+    private static final class TopK {
+        private final int limit;
+        private final Comparator<Transaction> order;
+        private final PriorityQueue<Transaction> worstFirst;
+
+        TopK(int limit, Comparator<Transaction> order) {
+            this.limit = limit;
+            this.order = order;
+            this.worstFirst = new PriorityQueue<>(order.reversed());
+        }
+
+        void offer(Transaction transaction) {
+            if (worstFirst.size() < limit) {
+                worstFirst.add(transaction);
+            } else if (order.compare(transaction, worstFirst.peek()) < 0) {
+                worstFirst.poll();
+                worstFirst.add(transaction);
+            }
+        }
+
+        boolean isFull() {
+            return worstFirst.size() >= limit;
+        }
+
+        TopK merge(TopK other) {
+            TopK into = worstFirst.size() >= other.worstFirst.size() ? this : other;
+            TopK from = into == this ? other : this;
+            for (Transaction transaction : from.worstFirst) {
+                into.offer(transaction);
+            }
+            return into;
+        }
+
+        List<Transaction> sorted() {
+            List<Transaction> sorted = new ArrayList<>(worstFirst);
+            sorted.sort(order);
+            return sorted;
+        }
+    }
+
+    /**
+     * @param transactions the matches in query order
+     * @param scanned      transactions tested before the scan could stop
+     */
+    public record QueryResult(List<Transaction> transactions, long scanned, long durationMs) {
+    }
+}
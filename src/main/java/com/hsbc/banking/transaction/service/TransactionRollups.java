@@ -0,0 +1,203 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionType;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count and amount sums per account, type and category in hourly and daily buckets of the creation
+ * time, kept up to date from transaction events. Every change touches one cell per interval, and
+ * the counters are LongAdders so concurrent writers to the same cell do not contend on one value.
+ * Queries read the cells of the requested buckets only, never the transactions themselves.
+ */
+@Component
+public class TransactionRollups {
+    private static final Comparator<Aggregate> ORDER = Comparator
+            .comparing(Aggregate::bucketStart)
+            .thenComparing(Aggregate::accountId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Aggregate::type, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Aggregate::category, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public enum Interval {
+        HOUR(3_600), DAY(86_400);
+
+        private final long seconds;
+
+        Interval(long seconds) {
+            this.seconds = seconds;
+        }
+
+        long bucket(LocalDateTime time) {
+            return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), seconds);
+        }
+
+        LocalDateTime bucketStart(long bucket) {
+            return LocalDateTime.ofEpochSecond(bucket * seconds, 0, ZoneOffset.UTC);
+        }
+
+        public static Interval fromString(String value) {
+            return parse(Interval.class, "interval", value);
+        }
+    }
+
+    public enum Dimension {
+        ACCOUNT, TYPE, CATEGORY;
+
+        public static Dimension fromString(String value) {
+            return parse(Dimension.class, "groupBy", value);
+        }
+    }
+
+    // Bucket number to the cells of that bucket, per interval
+    private final Map<Interval, NavigableMap<Long, Map<CellKey, Cell>>> rollups = new EnumMap<>(Interval.class);
+
+    public TransactionRollups() {
+        for (Interval interval : Interval.values()) {
+            rollups.put(interval, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    @EventListener
+    public void onTransactionEvent(TransactionEvent event) {
+        switch (event.type()) {
+            case CREATED -> add(event.transaction(), 1);
+            case DELETED, ARCHIVED -> add(event.transaction(), -1);
+            case UPDATED -> {
+                // Only the category of a stored transaction can change
+                Transaction previous = event.previous();
+                if (previous != null && previous.getCategory() != event.transaction().getCategory()) {
+                    add(previous, -1);
+                    add(event.transaction(), 1);
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onTransactionsRestored(TransactionsRestoredEvent event) {
+        rollups.values().forEach(Map::clear);
+        for (Transaction transaction : event.transactions()) {
+            add(transaction, 1);
+        }
+    }
+
+    /**
+     * Aggregates of the buckets overlapping [from, to], both optional, merged over the dimensions
+     * not in groupBy. Rows are ordered by bucket, then by the grouped dimensions.
+     */
+    public List<Aggregate> query(String accountId, Set<Dimension> groupBy, Interval interval,
+                                 LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidRequestException(Map.of(
+                    "from", from.toString(),
+                    "to", to.toString(),
+                    "message", "Aggregate range start must not be after its end"
+            ));
+        }
+        NavigableMap<Long, Map<CellKey, Cell>> buckets = rollups.get(interval);
+        if (from != null) {
+            buckets = buckets.tailMap(interval.bucket(from), true);
+        }
+        if (to != null) {
+            buckets = buckets.headMap(interval.bucket(to), true);
+        }
+
+        boolean byAccount = groupBy.contains(Dimension.ACCOUNT);
+        boolean byType = groupBy.contains(Dimension.TYPE);
+        boolean byCategory = groupBy.contains(Dimension.CATEGORY);
+        Map<GroupKey, long[]> totals = new LinkedHashMap<>();
+        buckets.forEach((bucket, cells) -> {
+            LocalDateTime bucketStart = interval.bucketStart(bucket);
+            cells.forEach((key, cell) -> {
+                if (accountId != null && !accountId.equals(key.accountId())) {
+                    return;
+                }
+                GroupKey group = new GroupKey(bucketStart,
+                        byAccount ? key.accountId() : null,
+                        byType ? key.type() : null,
+                        byCategory ? key.category() : null);
+                long[] total = totals.computeIfAbsent(group, g -> new long[2]);
+                total[0] += cell.count.sum();
+                total[1] += cell.sumMinor.sum();
+            });
+        });
+
+        List<Aggregate> aggregates = new ArrayList<>(totals.size());
+        totals.forEach((group, total) -> {
+            // Groups whose transactions were all deleted again
+            if (total[0] != 0) {
+                aggregates.add(new Aggregate(group.bucketStart(), group.accountId(), group.type(),
+                        group.category(), total[0], total[1]));
+            }
+        });
+        aggregates.sort(ORDER);
+        return aggregates;
+    }
+
+    private void add(Transaction transaction, int sign) {
+        CellKey key = new CellKey(transaction.getAccountId(), transaction.getType(), transaction.getCategory());
+        long amount = sign * transaction.getAmountMinor();
+        for (Map.Entry<Interval, NavigableMap<Long, Map<CellKey, Cell>>> rollup : rollups.entrySet()) {
+            Cell cell = rollup.getValue()
+                    .computeIfAbsent(rollup.getKey().bucket(transaction.getCreatedAt()),
+                            bucket -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(key, k -> new Cell());
+            cell.count.add(sign);
+            cell.sumMinor.add(amount);
+        }
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String parameter, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(Map.of(
+                    parameter, value,
+                    "message", "Invalid " + parameter + ". Valid values are: "
+                            + Arrays.toString(type.getEnumConstants())
+            ));
+        }
+    }
+
+    private record CellKey(String accountId, TransactionType type, TransactionCategory category) {
+    }
+
+    private record GroupKey(LocalDateTime bucketStart, String accountId, TransactionType type,
+                            TransactionCategory category) {
+    }
+
+    private static final class Cell {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumMinor = new LongAdder();
+    }
+
+    /**
+     * One row of a query; dimensions that were not grouped by are null.
+     *
+     * @param sumMinor signed sum of the amounts in minor units
+     */
+    public record Aggregate(LocalDateTime bucketStart, String accountId, TransactionType type,
+                            TransactionCategory category, long count, long sumMinor) {
+    }
+}
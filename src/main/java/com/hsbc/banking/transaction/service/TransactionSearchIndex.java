@@ -0,0 +1,279 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Inverted index from the words of transaction descriptions to the IDs of the transactions containing them,
+ * kept up to date from transaction events. Words are runs of letters and digits, lower-cased. Each posting
+ * list is a sorted long[] of IDs; since IDs mostly arrive in increasing order, adding one is usually an append.
+ * <p>
+ * A search matches transactions containing every term; a term ending in {@code *} matches any word starting
+ * with it. The words are held in a sorted map so a prefix term is one range of it.
+ */
+@Component
+public class TransactionSearchIndex {
+    public static final int MIN_PREFIX_LENGTH = 2;
+    public static final int MAX_TERMS = 10;
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final NavigableMap<String, PostingList> words = new ConcurrentSkipListMap<>();
+    private final Map<String, PostingList> accounts = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onTransactionEvent(TransactionEvent event) {
+        Transaction transaction = event.transaction();
+        long id = transaction.getId();
+        switch (event.type()) {
+            case CREATED -> add(transaction);
+            case UPDATED -> {
+                // Only the words that were removed from or added to the description are touched
+                Set<String> before = event.previous() != null
+                        ? tokenize(event.previous().getDescription())
+                        : Set.of();
+                Set<String> after = tokenize(transaction.getDescription());
+                for (String word : before) {
+                    if (!after.contains(word)) {
+                        remove(words.get(word), id);
+                    }
+                }
+                for (String word : after) {
+                    if (!before.contains(word)) {
+                        words.computeIfAbsent(word, w -> new PostingList()).add(id);
+                    }
+                }
+            }
+            case DELETED, ARCHIVED -> {
+                for (String word : tokenize(transaction.getDescription())) {
+                    remove(words.get(word), id);
+                }
+                remove(accounts.get(transaction.getAccountId()), id);
+            }
+        }
+    }
+
+    @EventListener
+    public void onTransactionsRestored(TransactionsRestoredEvent event) {
+        words.clear();
+        accounts.clear();
+        for (Transaction transaction : event.transactions()) {
+            add(transaction);
+        }
+    }
+
+    /**
+     * IDs of the transactions matching every term of the query, optionally only of one account,
+     * in increasing order.
+     *
+     * @throws InvalidRequestException if the query has no terms, too many, or a too short prefix
+     */
+    public long[] search(String query, String accountId) {
+        List<long[]> matches = new ArrayList<>();
+        for (Term term : parse(query)) {
+            matches.add(term.prefix() ? prefixIds(term.word()) : ids(words.get(term.word())));
+        }
+        if (accountId != null) {
+            matches.add(ids(accounts.get(accountId)));
+        }
+        // Intersecting from the shortest list keeps every intermediate result at most that long
+        matches.sort(Comparator.comparingInt(ids -> ids.length));
+        long[] result = matches.get(0);
+        for (int i = 1; i < matches.size() && result.length > 0; i++) {
+            result = intersect(result, matches.get(i));
+        }
+        return result;
+    }
+
+    private long[] prefixIds(String prefix) {
+        // Words starting with the prefix sort between the prefix and the prefix followed by the highest char
+        Map<String, PostingList> range = words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        List<long[]> lists = new ArrayList<>(range.size());
+        int total = 0;
+        for (PostingList list : range.values()) {
+            long[] ids = list.snapshot();
+            lists.add(ids);
+            total += ids.length;
+        }
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        long[] union = new long[total];
+        int size = 0;
+        for (long[] ids : lists) {
+            System.arraycopy(ids, 0, union, size, ids.length);
+            size += ids.length;
+        }
+        Arrays.sort(union);
+        // Drop the IDs of transactions that contain several words with the prefix
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || union[distinct - 1] != union[i]) {
+                union[distinct++] = union[i];
+            }
+        }
+        return Arrays.copyOf(union, distinct);
+    }
+
+    private void add(Transaction transaction) {
+        long id = transaction.getId();
+        for (String word : tokenize(transaction.getDescription())) {
+            words.computeIfAbsent(word, w -> new PostingList()).add(id);
+        }
+        accounts.computeIfAbsent(transaction.getAccountId(), a -> new PostingList()).add(id);
+    }
+
+    private static long[] ids(PostingList list) {
+        return list == null ? NO_IDS : list.snapshot();
+    }
+
+    private static void remove(PostingList list, long id) {
+        if (list != null) {
+            list.remove(id);
+        }
+    }
+
+    // Each ID of the shorter array is searched in the longer one from where the previous search ended
+    static long[] intersect(long[] shorter, long[] longer) {
+        long[] result = new long[shorter.length];
+        int size = 0;
+        int from = 0;
+        for (long id : shorter) {
+            int found = Arrays.binarySearch(longer, from, longer.length, id);
+            if (found >= 0) {
+                result[size++] = id;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+            if (from == longer.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Lower-cased runs of letters and digits, each once
+    static Set<String> tokenize(String text) {
+        return new HashSet<>(words(text));
+    }
+
+    private static List<String> words(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private static List<Term> parse(String query) {
+        List<Term> terms = new ArrayList<>();
+        if (query != null) {
+            for (String part : query.trim().split("\\s+")) {
+                boolean prefix = part.endsWith("*");
+                // Punctuation inside a term splits it into words like the descriptions were split,
+                // a trailing * applies to the last of them
+                List<String> words = words(prefix ? part.substring(0, part.length() - 1) : part);
+                for (int i = 0; i < words.size(); i++) {
+                    boolean isPrefix = prefix && i == words.size() - 1;
+                    if (isPrefix && words.get(i).length() < MIN_PREFIX_LENGTH) {
+                        throw invalid(query, "Prefix terms need at least " + MIN_PREFIX_LENGTH + " characters");
+                    }
+                    terms.add(new Term(words.get(i), isPrefix));
+                }
+            }
+        }
+        if (terms.isEmpty()) {
+            throw invalid(query, "Search query must contain at least one word");
+        }
+        if (terms.size() > MAX_TERMS) {
+            throw invalid(query, "Search query cannot have more than " + MAX_TERMS + " words");
+        }
+        return terms;
+    }
+
+    private static InvalidRequestException invalid(String query, String message) {
+        return new InvalidRequestException(Map.of(
+                "q", query == null ? "" : query,
+                "message", message
+        ));
+    }
+
+    private record Term(String word, boolean prefix) {
+    }
+
+    /**
+     * Sorted IDs in a growable array. Lists that become empty stay in the index, so an add can never
+     * go to a list that was concurrently dropped; an empty list keeps no array.
+     */
+    static final class PostingList {
+        private long[] ids = NO_IDS;
+        private int size;
+
+        synchronized void add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                ensureCapacity();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            ensureCapacity();
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+
+        synchronized void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            if (size == 0) {
+                ids = NO_IDS;
+            } else if (size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, ids.length / 2);
+            }
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, ids.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.Page;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.IdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages of transactions whose description contains the searched words, newest first. Matching
+ * IDs come from the {@link TransactionSearchIndex}; only the transactions of the requested page are loaded.
+ * <p>
+ * Newest first is highest ID first, so it holds only while IDs
+ * {@linkplain IdGenerator#increasesInCreationOrder() increase in creation order}; with block IDs or the
+ * sharded repository the pages are in ID order only.
+ */
+@Service
+public class TransactionSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionSearchService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final TransactionSearchIndex searchIndex;
+    private final TransactionLookupService transactionLookupService;
+
+    public TransactionSearchService(TransactionSearchIndex searchIndex,
+                                    TransactionLookupService transactionLookupService) {
+        this.searchIndex = searchIndex;
+        this.transactionLookupService = transactionLookupService;
+    }
+
+    public Page<Transaction> search(String query, String accountId, int pageNumber, int pageSize) {
+        long[] ids = searchIndex.search(query, accountId);
+        logger.info("Searched transactions: q={}, accountId={}, matches={}", query, accountId, ids.length);
+        if (pageNumber < 1 || pageSize <= 0) {
+            return Page.of(List.of(), pageNumber, pageSize, ids.length);
+        }
+        int limitedPageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+        long offset = (long) (pageNumber - 1) * limitedPageSize;
+        if (offset >= ids.length) {
+            return Page.of(List.of(), pageNumber, limitedPageSize, ids.length);
+        }
+
+        // IDs are in increasing order, the page is taken from the end
+        int from = (int) (ids.length - 1 - offset);
+        int to = Math.max(from - limitedPageSize, -1);
+        List<Long> pageIds = new ArrayList<>(from - to);
+        for (int i = from; i > to; i--) {
+            pageIds.add(ids[i]);
+        }
+        return Page.of(transactionLookupService.lookup(pageIds).transactions(), pageNumber, limitedPageSize,
+                ids.length);
+    }
+}
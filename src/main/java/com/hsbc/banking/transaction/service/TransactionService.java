@@ -1,16 +1,22 @@
 package com.hsbc.banking.transaction.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.banking.transaction.dto.BatchCreateTransactionRequest;
 import com.hsbc.banking.transaction.dto.CreateTransactionRequest;
 import com.hsbc.banking.transaction.dto.UpdateTransactionRequest;
+import com.hsbc.banking.transaction.exception.AppException;
 import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
 import com.hsbc.banking.transaction.exception.InsufficientBalanceException;
 import com.hsbc.banking.transaction.exception.InvalidTransactionException;
 import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
 import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.BatchItemResult;
 import com.hsbc.banking.transaction.model.Page;
 import com.hsbc.banking.transaction.model.Transaction;
 import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionValidator;
 import com.hsbc.banking.transaction.repository.AuditLogRepository;
 import com.hsbc.banking.transaction.repository.TransactionRepository;
 import org.slf4j.Logger;
@@ -18,16 +24,24 @@ import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CachePut;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
     private static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_STREAM_PAGE_SIZE = 10_000;
     private static final int MAX_RETRIES = 3;
     private static final long RETRY_DELAY_MS = 100;
     
@@ -35,21 +49,35 @@ public class TransactionService {
     private final ExternalAccountService externalAccountService;
     private final AuditLogRepository auditLogRepository;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionArchiver transactionArchiver;
+    private final OrderIdRetention orderIdRetention;
+    private final TransactionWriteGate writeGate;
 
     public TransactionService(TransactionRepository transactionRepository,
                               ExternalAccountService externalAccountService,
                               AuditLogRepository auditLogRepository,
-                              ObjectMapper objectMapper) {
+                              ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionArchiver transactionArchiver,
+                              OrderIdRetention orderIdRetention,
+                              TransactionWriteGate writeGate) {
         this.transactionRepository = transactionRepository;
         this.externalAccountService = externalAccountService;
         this.auditLogRepository = auditLogRepository;
         this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionArchiver = transactionArchiver;
+        this.orderIdRetention = orderIdRetention;
+        this.writeGate = writeGate;
     }
 
     @Cacheable(value = "transactions", key = "#id")
     public Transaction getTransaction(Long id) {
         logger.info("Fetching transaction from repository with id: {}", id);
+        // Transactions past the retention window are only found in the archive
         return transactionRepository.findById(id)
+                .or(() -> transactionArchiver.findById(id))
                 .orElseThrow(() -> new TransactionNotFoundException(id));
     }
 
@@ -74,31 +102,190 @@ public class TransactionService {
             );
         }
 
-        return transactionRepository.save(transaction);
+        return writeGate.write(() -> {
+            if (isOrderIdReserved(transaction.getOrderId())) {
+                throw duplicateOrderId(transaction.getOrderId());
+            }
+            Transaction saved = transactionRepository.save(transaction);
+            // Archived or deleted between the check and the save, which then found the order ID no longer live
+            if (isOrderIdReserved(saved.getOrderId())) {
+                transactionRepository.deleteIfVersion(saved.getId(), saved.getVersion());
+                throw duplicateOrderId(saved.getOrderId());
+            }
+            eventPublisher.publishEvent(TransactionEvent.created(saved));
+            return saved;
+        });
     }
 
-    @CacheEvict(value = "transactions", key = "#id")
-    public void deleteTransaction(Long id) {
-        logger.info("Deleting transaction from cache and repository with id: {}", id);
-        Transaction transaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new TransactionNotFoundException(id));
+    /**
+     * Create a batch of transactions. Every item is validated and balance checked on its own and
+     * the result reports success or the error per item, in request order. Debit checks go to the
+     * account service in one call, grouped per account, and the accepted items are stored with
+     * one repository batch operation. Amounts are checked per item too, so an amount with more
+     * than two decimal places only fails its own item.
+     */
+    public List<BatchItemResult> createTransactions(List<BatchCreateTransactionRequest.Item> requests) {
+        logger.info("Creating batch of {} transactions", requests.size());
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        Transaction[] accepted = new Transaction[requests.size()];
+        Set<String> orderIds = new HashSet<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            BatchCreateTransactionRequest.Item request = requests.get(i);
+            if (request == null) {
+                results[i] = BatchItemResult.failure(new InvalidTransactionException(
+                        Map.of("errors", List.of("Transaction must not be null"))));
+                continue;
+            }
+            try {
+                accepted[i] = Transaction.create(
+                        request.orderId(),
+                        request.accountId(),
+                        request.amount(),
+                        request.type(),
+                        request.category(),
+                        request.description()
+                );
+            } catch (InvalidTransactionException e) {
+                results[i] = BatchItemResult.failure(e);
+                continue;
+            }
+            // The first occurrence of an order ID wins, later ones are rejected without touching the repository
+            if (!orderIds.add(request.orderId())) {
+                accepted[i] = null;
+                results[i] = BatchItemResult.failure(new DuplicateTransactionException(Map.of(
+                        "orderId", request.orderId(),
+                        "message", "Duplicate order ID within batch")));
+            }
+        }
+
+        checkDebitBalances(accepted, results);
+
+        List<Transaction> toSave = new ArrayList<>();
+        for (Transaction transaction : accepted) {
+            if (transaction != null) {
+                toSave.add(transaction);
+            }
+        }
+        writeGate.write(() -> storeAccepted(toSave, accepted, results));
+        return Arrays.asList(results);
+    }
+
+    private void storeAccepted(List<Transaction> toSave, Transaction[] accepted, BatchItemResult[] results) {
+        saveAllUnreserved(toSave);
+
+        for (int i = 0; i < accepted.length; i++) {
+            Transaction transaction = accepted[i];
+            if (transaction == null) {
+                continue;
+            }
+            // Items without an ID were not stored because their order ID already exists
+            if (transaction.getId() == null) {
+                results[i] = BatchItemResult.failure(duplicateOrderId(transaction.getOrderId()));
+            } else {
+                results[i] = BatchItemResult.success(transaction);
+                eventPublisher.publishEvent(TransactionEvent.created(transaction));
+            }
+        }
+    }
+
+    // Stores the transactions except those whose order ID is live or reserved, which are left without an ID
+    private void saveAllUnreserved(List<Transaction> transactions) {
+        List<Transaction> unreserved = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (!isOrderIdReserved(transaction.getOrderId())) {
+                unreserved.add(transaction);
+            }
+        }
+        transactionRepository.saveAll(unreserved);
+        for (Transaction transaction : unreserved) {
+            // Archived or deleted between the check and the save, as in createTransaction
+            if (transaction.getId() != null && isOrderIdReserved(transaction.getOrderId())) {
+                transactionRepository.deleteIfVersion(transaction.getId(), transaction.getVersion());
+                transaction.setId(null);
+            }
+        }
+    }
+
+    // Order IDs of archived and of recently deleted transactions stay taken, the repository no longer has them
+    private boolean isOrderIdReserved(String orderId) {
+        return transactionArchiver.isArchivedOrderId(orderId) || orderIdRetention.isRetained(orderId);
+    }
+
+    private static DuplicateTransactionException duplicateOrderId(String orderId) {
+        return new DuplicateTransactionException(Map.of(
+                "orderId", orderId,
+                "message", "Transaction with order ID already exists"));
+    }
+
+    private void checkDebitBalances(Transaction[] accepted, BatchItemResult[] results) {
+        // Group debits per account so that the checks of one account are netted together
+        Map<String, List<Integer>> debitsByAccount = new LinkedHashMap<>();
+        for (int i = 0; i < accepted.length; i++) {
+            if (accepted[i] != null && accepted[i].getType().isDebit()) {
+                debitsByAccount.computeIfAbsent(accepted[i].getAccountId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        if (debitsByAccount.isEmpty()) {
+            return;
+        }
 
-        // Create audit log before deletion
-        String details;
+        List<Integer> indexes = new ArrayList<>();
+        List<BalanceCheck> checks = new ArrayList<>();
+        debitsByAccount.values().forEach(accountIndexes -> {
+            for (int index : accountIndexes) {
+                indexes.add(index);
+                checks.add(new BalanceCheck(accepted[index].getAccountId(), accepted[index].getAmount()));
+            }
+        });
+
+        List<Boolean> sufficient;
         try {
-            details = objectMapper.writeValueAsString(transaction);
-        } catch (Exception e) {
-            details = "Failed to serialize transaction: " + e.getMessage();
+            sufficient = externalAccountService.hasSufficientBalances(checks);
+        } catch (AppException e) {
+            // The account service rejected the whole batch, e.g. while it is unavailable
+            for (int index : indexes) {
+                accepted[index] = null;
+                results[index] = BatchItemResult.failure(e);
+            }
+            return;
         }
 
-        auditLogRepository.save(new AuditLog(
-                "DELETE",
-                "Transaction",
-                String.valueOf(id),
-                "Deleted transaction: " + details
-        ));
+        for (int i = 0; i < indexes.size(); i++) {
+            int index = indexes.get(i);
+            if (!sufficient.get(i)) {
+                Transaction transaction = accepted[index];
+                accepted[index] = null;
+                results[index] = BatchItemResult.failure(new InsufficientBalanceException(
+                        transaction.getAccountId(),
+                        "Insufficient balance for transaction amount: " + transaction.getAmount()));
+            }
+        }
+    }
 
-        transactionRepository.deleteById(id);
+    @CacheEvict(value = "transactions", key = "#id")
+    public void deleteTransaction(Long id) {
+        logger.info("Deleting transaction from cache and repository with id: {}", id);
+        // The audit log is written from the deleted event by TransactionDeleteAuditor, off the request thread
+        writeGate.write(() -> {
+            for (int attempt = 1; ; attempt++) {
+                Transaction transaction = transactionRepository.findById(id)
+                        .orElseThrow(() -> new TransactionNotFoundException(id));
+                // Retained before the delete, so a save finding the order ID free afterwards sees it retained
+                orderIdRetention.retain(transaction.getOrderId());
+                // Only the call that removed this version publishes, with the snapshot it removed
+                if (transactionRepository.deleteIfVersion(id, transaction.getVersion())) {
+                    eventPublisher.publishEvent(TransactionEvent.deleted(transaction));
+                    return;
+                }
+                if (attempt == MAX_RETRIES) {
+                    throw new ConcurrentUpdateException(Map.of(
+                            "transactionId", id,
+                            "message", "Transaction was updated by another user while being deleted"
+                    ));
+                }
+            }
+        });
     }
 
     @CachePut(value = "transactions", key = "#id")
@@ -108,7 +295,7 @@ public class TransactionService {
         
         while (retryCount < MAX_RETRIES) {
             try {
-                return doUpdateTransaction(id, request);
+                return writeGate.write(() -> doUpdateTransaction(id, request));
             } catch (ConcurrentUpdateException e) {
                 retryCount++;
                 if (retryCount >= MAX_RETRIES) {
@@ -132,20 +319,18 @@ public class TransactionService {
                 .orElseThrow(() -> new TransactionNotFoundException(id));
 
         // Validate category
-        try {
-            TransactionCategory.fromString(request.category());
-        } catch (IllegalArgumentException e) {
-            throw new InvalidTransactionException(Map.of(
-                    "errors", List.of("Invalid transaction category. Valid categories are: " + 
-                            java.util.Arrays.toString(TransactionCategory.values()))
-            ));
+        TransactionCategory category = TransactionCategory.lookup(request.category());
+        List<String> errors = TransactionValidator.validateUpdate(request.category(), category);
+        if (!errors.isEmpty()) {
+            throw new InvalidTransactionException(Map.of("errors", errors));
         }
 
         // Record the old state
+        Transaction previous = transaction.copy();
         String oldState = serializeTransaction(transaction);
 
         // Only update category and description
-        transaction.setCategory(TransactionCategory.fromString(request.category()));
+        transaction.setCategory(category);
         transaction.setDescription(request.description());
         transaction.setUpdatedAt(LocalDateTime.now());
 
@@ -155,6 +340,7 @@ public class TransactionService {
         // Record the audit log
         String newState = serializeTransaction(updatedTransaction);
         recordAuditLog(id, oldState, newState);
+        eventPublisher.publishEvent(TransactionEvent.updated(previous, updatedTransaction));
 
         return updatedTransaction;
     }
@@ -204,4 +390,62 @@ public class TransactionService {
         
         return Page.of(transactions, pageNumber, limitedPageSize, totalElements);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Keyset page: the transactions following afterId in ID order. Unlike offset pages, a page costs the
+     * same however deep it is, and rows created or deleted meanwhile do not shift later pages.
+     */
+    public List<Transaction> listTransactionsAfter(long afterId, int pageSize) {
+        logger.info("Fetching transactions after id from repository: afterId={}, size={}", afterId, pageSize);
+        if (pageSize <= 0) {
+            return List.of();
+        }
+        return transactionRepository.findAfter(afterId, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
+    public long countTransactions() {
+        return transactionRepository.count();
+    }
+
+    /**
+     * Page of transactions read lazily from the repository, for responses written row by row.
+     * Pages can be up to MAX_STREAM_PAGE_SIZE large and are not cached.
+     */
+    public Stream<Transaction> streamTransactions(int pageNumber, int pageSize) {
+        logger.info("Streaming transaction page from repository: page={}, size={}", pageNumber, pageSize);
+        if (pageNumber < 1 || pageSize <= 0) {
+            return Stream.empty();
+        }
+        int limitedPageSize = Math.min(pageSize, MAX_STREAM_PAGE_SIZE);
+        long offset = (long) (pageNumber - 1) * limitedPageSize;
+        return transactionRepository.stream()
+                .skip(offset)
+                .limit(limitedPageSize);
+    }
+
+    /**
+     * Every transaction in ID order, optionally restricted to one account and a creation time range
+     * (both bounds inclusive). The repository is walked lazily, so memory does not grow with the export.
+     */
+    public Stream<Transaction> exportTransactions(String accountId, LocalDateTime from, LocalDateTime to) {
+        logger.info("Exporting transactions: accountId={}, from={}, to={}", accountId, from, to);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidTransactionException(Map.of(
+                    "from", from.toString(),
+                    "to", to.toString(),
+                    "message", "Export range start must not be after its end"
+            ));
+        }
+        Stream<Transaction> transactions = transactionRepository.stream();
+        if (accountId != null) {
+            transactions = transactions.filter(transaction -> accountId.equals(transaction.getAccountId()));
+        }
+        if (from != null) {
+            transactions = transactions.filter(transaction -> !transaction.getCreatedAt().isBefore(from));
+        }
+        if (to != null) {
+            transactions = transactions.filter(transaction -> !transaction.getCreatedAt().isAfter(to));
+        }
+        return transactions;
+    }
+}
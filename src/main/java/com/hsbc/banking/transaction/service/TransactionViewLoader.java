@@ -0,0 +1,60 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+/**
+ * Builds the views fed by transaction events from the transactions a durable repository kept from an
+ * earlier run. The rollups, the search index and the change feed only live in memory; without this they
+ * would start empty over a store that is not.
+ * <p>
+ * Once the application is ready, the stored transactions are read and published as a
+ * {@link TransactionsRestoredEvent}, with writes held at the {@link TransactionWriteGate} meanwhile, so
+ * no change is both in the read and published again as an event.
+ */
+@Component
+public class TransactionViewLoader {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionViewLoader.class);
+
+    private final TransactionRepository transactionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionWriteGate writeGate;
+
+    public TransactionViewLoader(TransactionRepository transactionRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 TransactionWriteGate writeGate) {
+        this.transactionRepository = transactionRepository;
+        this.eventPublisher = eventPublisher;
+        this.writeGate = writeGate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // Repositories held in memory start empty, there is nothing to load
+        if (transactionRepository.count() == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        writeGate.close();
+        try {
+            // Read in parallel through the repository's spliterator, in ID order
+            List<Transaction> transactions = StreamSupport.stream(transactionRepository.spliterator(), true)
+                    .toList();
+            eventPublisher.publishEvent(new TransactionsRestoredEvent(transactions));
+            logger.info("Loaded the views of {} stored transactions in {} ms", transactions.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            writeGate.open();
+        }
+    }
+}
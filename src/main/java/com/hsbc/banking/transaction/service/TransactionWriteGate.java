@@ -0,0 +1,86 @@
+package com.hsbc.banking.transaction.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Lets operations that replace the stored transactions as a whole, like restoring a backup, run with no
+ * write in progress. A write covers storing the change and publishing its event, so the views built from
+ * events never take in a change the replaced contents do not have.
+ * <p>
+ * Writes only count themselves in and out on a LongAdder while the gate is open; once it is closed, new
+ * writes wait until it opens again and closing waits for the writes already in progress.
+ */
+@Component
+public class TransactionWriteGate {
+    private final LongAdder inProgress = new LongAdder();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition opened = lock.newCondition();
+    private volatile boolean closed;
+
+    public <T> T write(Supplier<T> write) {
+        enter();
+        try {
+            return write.get();
+        } finally {
+            inProgress.decrement();
+        }
+    }
+
+    public void write(Runnable write) {
+        write(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    // Blocks new writes and returns once the writes in progress are done; callers must open it again
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Transaction writes are already blocked");
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        while (inProgress.sum() > 0) {
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+    }
+
+    public void open() {
+        lock.lock();
+        try {
+            closed = false;
+            opened.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enter() {
+        while (true) {
+            // Counted before the check, so a closing gate either sees this write or this write sees it closed
+            inProgress.increment();
+            if (!closed) {
+                return;
+            }
+            inProgress.decrement();
+            lock.lock();
+            try {
+                while (closed) {
+                    opened.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
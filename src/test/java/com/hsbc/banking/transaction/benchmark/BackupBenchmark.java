@@ -0,0 +1,140 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.InMemoryAuditLogRepositoryImpl;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.SequentialIdGenerator;
+import com.hsbc.banking.transaction.service.TransactionBackupService;
+import com.hsbc.banking.transaction.service.TransactionChangeLog;
+import com.hsbc.banking.transaction.service.TransactionWriteGate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Latency percentiles of saves and reads on 200k preloaded transactions, with and without backups running
+ * back to back on another thread. Compare p0.99 of the two {@code backupRunning} values; the durations of
+ * the backups taken are printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 4)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class BackupBenchmark {
+    private static final int PRELOADED = 200_000;
+
+    @Param({"false", "true"})
+    private boolean backupRunning;
+
+    private Path directory;
+    private InMemoryTransactionRepositoryImpl repository;
+    private TransactionChangeLog changeLog;
+    private TransactionBackupService backupService;
+    private Thread backupThread;
+    private volatile boolean running;
+    private final List<Long> backupDurations = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("backup-benchmark");
+        SequentialIdGenerator transactionIds = new SequentialIdGenerator();
+        repository = new InMemoryTransactionRepositoryImpl(transactionIds);
+        // Large enough to keep every change made while one backup scans
+        changeLog = new TransactionChangeLog(2_000_000);
+        backupService = new TransactionBackupService(repository,
+                new InMemoryAuditLogRepositoryImpl(new SequentialIdGenerator()), changeLog, transactionIds,
+                new SequentialIdGenerator(), event -> { }, new ConcurrentMapCacheManager(), new TransactionWriteGate(),
+                directory);
+        for (int i = 0; i < PRELOADED; i++) {
+            repository.save(next());
+        }
+
+        if (backupRunning) {
+            running = true;
+            backupThread = new Thread(this::backUpContinuously, "backup-benchmark");
+            backupThread.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        running = false;
+        if (backupThread != null) {
+            backupThread.join();
+            System.out.printf("%n%d backups, durations in ms: %s%n", backupDurations.size(), backupDurations);
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Transaction save() {
+        // Published to the change log like TransactionService does, so backups copy these writes too
+        Transaction saved = repository.save(next());
+        changeLog.onTransactionEvent(TransactionEvent.created(saved));
+        return saved;
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(1 + ThreadLocalRandom.current().nextLong(PRELOADED));
+    }
+
+    private void backUpContinuously() {
+        while (running) {
+            try {
+                TransactionBackupService.BackupReport report = backupService.backup();
+                backupDurations.add(report.durationMs());
+                Files.delete(directory.resolve(report.file()));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private Transaction next() {
+        long order = sequence.incrementAndGet();
+        return Transaction.create(String.format("ORD-%09d", order), String.format("ACC-%06d", order % 10_000),
+                Money.ofMinor(1_000), "CREDIT", "SALARY", "Backup benchmark");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BackupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.JdbcConnectionPool;
+import com.hsbc.banking.transaction.repository.JdbcTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.SequentialIdGenerator;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The embedded-database repository against the in-memory one on 100k preloaded transactions: single saves,
+ * batches of 100 in one JDBC batch, point reads and keyset pages, from four threads sharing the pool.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class JdbcRepositoryBenchmark {
+    private static final int PRELOADED = 100_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"in-memory", "jdbc"})
+    private String type;
+
+    private Path directory;
+    private JdbcConnectionPool pool;
+    private TransactionRepository repository;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (type.equals("jdbc")) {
+            directory = Files.createTempDirectory("jdbc-benchmark");
+            pool = new JdbcConnectionPool("jdbc:h2:file:" + directory.resolve("transactions").toAbsolutePath(),
+                    "sa", "", 8, Duration.ofSeconds(5));
+            repository = new JdbcTransactionRepositoryImpl(pool, new SequentialIdGenerator());
+        } else {
+            repository = new InMemoryTransactionRepositoryImpl();
+        }
+        for (int i = 0; i < PRELOADED / BATCH_SIZE; i++) {
+            repository.saveAll(batch());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (pool != null) {
+            pool.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    public Transaction save() {
+        return repository.save(next());
+    }
+
+    @Benchmark
+    public List<Transaction> saveBatch() {
+        return repository.saveAll(batch());
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(1 + ThreadLocalRandom.current().nextLong(PRELOADED));
+    }
+
+    @Benchmark
+    public List<Transaction> findAfter() {
+        return repository.findAfter(ThreadLocalRandom.current().nextLong(PRELOADED - 100), 100);
+    }
+
+    private List<Transaction> batch() {
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(next());
+        }
+        return batch;
+    }
+
+    private Transaction next() {
+        long order = sequence.incrementAndGet();
+        return Transaction.create(String.format("ORD-%09d", order), String.format("ACC-%06d", order % 10_000),
+                Money.ofMinor(1_000), "CREDIT", "SALARY", "JDBC benchmark");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JdbcRepositoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,117 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.LsmStore;
+import com.hsbc.banking.transaction.repository.LsmTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.SequentialIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saves and point reads of the LSM repository on top of 1M preloaded transactions, with and without
+ * forcing the log to disk on every write. The store statistics printed after each trial give the write
+ * amplification: bytes written to logs, flushed tables and compaction output per byte saved.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LsmRepositoryBenchmark {
+    private static final int PRELOADED = 1_000_000;
+
+    @Param({"false", "true"})
+    private boolean syncWrites;
+
+    private Path directory;
+    private LsmTransactionRepositoryImpl repository;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lsm-benchmark");
+        repository = new LsmTransactionRepositoryImpl(new SequentialIdGenerator(), directory,
+                new LsmStore.Options(syncWrites, 4 << 20, 2 << 20, 4096, 10, 4, 10 << 20));
+        for (sequence = 0; sequence < PRELOADED; sequence++) {
+            repository.save(next());
+        }
+        repository.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.flush();
+        System.out.println();
+        System.out.println("syncWrites=" + syncWrites + " " + repository.stats());
+        repository.destroy();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Transaction save() {
+        sequence++;
+        return repository.save(next());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<Transaction> findById() {
+        return repository.findById(1 + ThreadLocalRandom.current().nextLong(PRELOADED));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<Transaction> findByOrderId() {
+        return repository.findByOrderId(
+                String.format("ORD-%09d", ThreadLocalRandom.current().nextLong(PRELOADED)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Optional<Transaction> findMissing() {
+        // Ten-digit order IDs sort between the stored nine-digit ones, so the Bloom filters have to answer
+        return repository.findByOrderId(
+                String.format("ORD-%010d", ThreadLocalRandom.current().nextLong(PRELOADED)));
+    }
+
+    private Transaction next() {
+        return Transaction.create(String.format("ORD-%09d", sequence), String.format("ACC-%06d", sequence % 10_000),
+                Money.ofMinor(1_000), "CREDIT", "SALARY", "LSM benchmark");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LsmRepositoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.service.TransactionQuery;
+import com.hsbc.banking.transaction.service.TransactionQueryService;
+import com.hsbc.banking.transaction.service.TransactionQueryService.QueryResult;
+import com.hsbc.banking.transaction.service.TransactionQueryService.Sort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ad-hoc queries over 1M and 10M stored transactions with 1 to 8 fork-join workers, against the
+ * single-threaded stream scan a client would otherwise do. {@code topAmounts} has to scan every row,
+ * {@code firstById} shows the early termination of ID order. Run with a heap of at least 8 GB for 10M rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Benchmark)
+public class TransactionQueryBenchmark {
+    private static final String QUERY = "amount <= -900 and category = SHOPPING and description ~ 'coffee'";
+    private static final String[] DESCRIPTIONS = {
+            "Coffee shop", "Grocery store", "Monthly rent", "Online order", "Fuel station", "Book store"
+    };
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private InMemoryTransactionRepositoryImpl repository;
+    private TransactionQueryService queryService;
+    private TransactionQuery query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new InMemoryTransactionRepositoryImpl();
+        Random random = new Random(42);
+        List<Transaction> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < rows; i++) {
+            boolean credit = random.nextInt(4) == 0;
+            long minor = 1 + random.nextInt(100_000);
+            batch.add(Transaction.create(String.format("ORD-%08d", i), String.format("ACC-%06d", i % 10_000),
+                    Money.ofMinor(credit ? minor : -minor), credit ? "CREDIT" : "DEBIT",
+                    credit ? "SALARY" : "SHOPPING", DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]));
+            if (batch.size() == 10_000) {
+                repository.saveAll(batch);
+                batch = new ArrayList<>(10_000);
+            }
+        }
+        repository.saveAll(batch);
+        queryService = new TransactionQueryService(repository, parallelism);
+        query = TransactionQuery.parse(QUERY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        queryService.destroy();
+    }
+
+    @Benchmark
+    public List<Transaction> sequentialStream() {
+        return repository.stream()
+                .filter(query::test)
+                .sorted(Comparator.comparingLong(Transaction::getAmountMinor))
+                .limit(100)
+                .toList();
+    }
+
+    @Benchmark
+    public QueryResult topAmounts() {
+        return queryService.query(QUERY, Sort.AMOUNT, 100);
+    }
+
+    @Benchmark
+    public QueryResult firstById() {
+        return queryService.query(QUERY, Sort.ID, 100);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionQueryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,179 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.EventSourcedTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.JdbcConnectionPool;
+import com.hsbc.banking.transaction.repository.JdbcTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.LsmStore;
+import com.hsbc.banking.transaction.repository.LsmTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.SequentialIdGenerator;
+import com.hsbc.banking.transaction.repository.ShardedTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.TieredTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The standard workload every repository implementation is measured with: 100k preloaded transactions,
+ * then single saves, batches of 100, point reads by ID and order ID, versioned updates and keyset pages
+ * from four threads, reported both as throughput and as latency percentiles. The tiered repository moves
+ * the preloaded transactions to its cold tier first, so reads of them hit the segment files.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransactionRepositoryBenchmark {
+    private static final int PRELOADED = 100_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"in-memory", "sharded", "tiered", "lsm", "jdbc", "event-sourced"})
+    private String type;
+
+    private Path directory;
+    private JdbcConnectionPool pool;
+    private TransactionRepository repository;
+    private long[] preloadedIds;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("repository-benchmark");
+        repository = switch (type) {
+            case "in-memory" -> new InMemoryTransactionRepositoryImpl();
+            case "sharded" -> new ShardedTransactionRepositoryImpl(16);
+            case "tiered" -> new TieredTransactionRepositoryImpl(new SequentialIdGenerator(), directory,
+                    Duration.ZERO, 100_000, Duration.ZERO);
+            case "lsm" -> new LsmTransactionRepositoryImpl(new SequentialIdGenerator(), directory,
+                    new LsmStore.Options(false, 4 << 20, 2 << 20, 4 << 10, 10, 4, 10 << 20));
+            case "jdbc" -> {
+                pool = new JdbcConnectionPool("jdbc:h2:file:" + directory.resolve("transactions").toAbsolutePath(),
+                        "sa", "", 8, Duration.ofSeconds(5));
+                yield new JdbcTransactionRepositoryImpl(pool, new SequentialIdGenerator());
+            }
+            case "event-sourced" -> new EventSourcedTransactionRepositoryImpl(new SequentialIdGenerator(), directory,
+                    false, 0);
+            default -> throw new IllegalArgumentException("Unknown repository type " + type);
+        };
+
+        preloadedIds = new long[PRELOADED];
+        int loaded = 0;
+        while (loaded < PRELOADED) {
+            for (Transaction saved : repository.saveAll(batch())) {
+                preloadedIds[loaded++] = saved.getId();
+            }
+        }
+        if (repository instanceof TieredTransactionRepositoryImpl tiered) {
+            tiered.migrate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (repository instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Transaction save() {
+        return repository.save(next());
+    }
+
+    @Benchmark
+    public List<Transaction> saveBatch() {
+        return repository.saveAll(batch());
+    }
+
+    @Benchmark
+    public Optional<Transaction> findById() {
+        return repository.findById(randomPreloadedId());
+    }
+
+    @Benchmark
+    public Optional<Transaction> findByOrderId() {
+        return repository.findByOrderId(String.format("ORD-%09d", 1 + ThreadLocalRandom.current().nextInt(PRELOADED)));
+    }
+
+    @Benchmark
+    public Transaction update() {
+        Transaction copy = repository.findById(randomPreloadedId()).orElseThrow().copy();
+        copy.setDescription("Updated by benchmark");
+        try {
+            return repository.update(copy);
+        } catch (ConcurrentUpdateException e) {
+            // Another thread updated the same transaction in between, which is part of the workload
+            return copy;
+        }
+    }
+
+    @Benchmark
+    public List<Transaction> findAfter() {
+        return repository.findAfter(randomPreloadedId(), 100);
+    }
+
+    private long randomPreloadedId() {
+        return preloadedIds[ThreadLocalRandom.current().nextInt(PRELOADED)];
+    }
+
+    private List<Transaction> batch() {
+        List<Transaction> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(next());
+        }
+        return batch;
+    }
+
+    private Transaction next() {
+        long order = sequence.incrementAndGet();
+        return Transaction.create(String.format("ORD-%09d", order), String.format("ACC-%06d", order % 10_000),
+                Money.ofMinor(1_000), "CREDIT", "SALARY", "Repository benchmark");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionRepositoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
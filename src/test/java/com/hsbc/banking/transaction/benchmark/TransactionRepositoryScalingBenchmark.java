@@ -0,0 +1,99 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.ShardedTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write throughput of the single-map and the sharded repository from 1 to 32 writer threads, every
+ * thread saving transactions of its own accounts, plus a page read that has to merge the shards.
+ * The repository is replaced for every iteration so its size does not grow across the whole run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class TransactionRepositoryScalingBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+    @State(Scope.Benchmark)
+    public static class Store {
+        @Param({"in-memory", "sharded"})
+        private String type;
+
+        private TransactionRepository repository;
+        private final AtomicInteger writers = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            repository = type.equals("sharded")
+                    ? new ShardedTransactionRepositoryImpl(64)
+                    : new InMemoryTransactionRepositoryImpl();
+            for (int i = 0; i < 10_000; i++) {
+                repository.save(Transaction.create(String.format("ORD-%09d", i), String.format("ACC-%06d", i),
+                        Money.ofMinor(1_000), "CREDIT", "SALARY", "Preloaded"));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private int writer;
+        private long sequence;
+
+        @Setup(Level.Iteration)
+        public void setUp(Store store) {
+            writer = store.writers.incrementAndGet();
+            sequence = 0;
+        }
+
+        Transaction next() {
+            long order = ++sequence;
+            // Order IDs unique per thread and iteration, accounts spread over 1000 per thread
+            return Transaction.create(String.format("ORD-%03d%09d", writer % 1000, order),
+                    String.format("ACC-%03d%04d", writer % 1000, order % 1000),
+                    Money.ofMinor(1_000), "CREDIT", "SALARY", "Scaling benchmark");
+        }
+    }
+
+    @Benchmark
+    public Transaction save(Store store, Writer writer) {
+        return store.repository.save(writer.next());
+    }
+
+    @Benchmark
+    public List<Transaction> firstPage(Store store) {
+        return store.repository.findAll(0, 100);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(TransactionRepositoryScalingBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
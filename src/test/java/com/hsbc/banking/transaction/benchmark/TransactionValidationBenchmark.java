@@ -0,0 +1,139 @@
+package com.hsbc.banking.transaction.benchmark;
+
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionType;
+import com.hsbc.banking.transaction.model.TransactionValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the regex and exception based validation that Transaction.create used before with
+ * TransactionValidator, for valid input and for input with an invalid id and enum name.
+ * Run with {@code -prof gc} to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionValidationBenchmark {
+    private static final Pattern ORDER_ID_PATTERN = Pattern.compile("^ORD-\\d{6,}$");
+    private static final Pattern ACCOUNT_ID_PATTERN = Pattern.compile("^ACC-\\d{6,}$");
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
+
+    private final String orderId = "ORD-123456";
+    private final String accountId = "ACC-123456";
+    private final BigDecimal amount = new BigDecimal("-100.00");
+    private final Money money = Money.ofMinor(-10_000);
+    private final String type = "debit";
+    private final String category = "food_dining";
+    private final String description = "Groceries";
+
+    private final String invalidOrderId = "ORD-12345X";
+    private final String invalidType = "DEBT";
+
+    @Benchmark
+    public List<String> legacyValid() {
+        return legacyValidate(orderId, accountId, amount, type, category, description);
+    }
+
+    @Benchmark
+    public List<String> validatorValid() {
+        return TransactionValidator.validateCreate(orderId, accountId, money,
+                type, TransactionType.lookup(type), category, TransactionCategory.lookup(category), description);
+    }
+
+    @Benchmark
+    public List<String> legacyInvalid() {
+        return legacyValidate(invalidOrderId, accountId, amount, invalidType, category, description);
+    }
+
+    @Benchmark
+    public List<String> validatorInvalid() {
+        return TransactionValidator.validateCreate(invalidOrderId, accountId, money,
+                invalidType, TransactionType.lookup(invalidType), category, TransactionCategory.lookup(category),
+                description);
+    }
+
+    // Transaction.validate before the validator, including the second enum lookups done by create
+    private static List<String> legacyValidate(String orderId, String accountId, BigDecimal amount, String type,
+                                               String category, String description) {
+        List<String> errors = new ArrayList<>();
+        TransactionType transactionType = null;
+
+        if (orderId == null || !ORDER_ID_PATTERN.matcher(orderId).matches()) {
+            errors.add("Order ID must start with 'ORD-' followed by at least 6 digits");
+        }
+        if (accountId == null || !ACCOUNT_ID_PATTERN.matcher(accountId).matches()) {
+            errors.add("Account ID must start with 'ACC-' followed by at least 6 digits");
+        }
+        if (type == null) {
+            errors.add("Transaction type cannot be null");
+        } else {
+            try {
+                transactionType = TransactionType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                errors.add("Invalid transaction type. Valid types are: " + Arrays.toString(TransactionType.values()));
+            }
+        }
+        if (category == null) {
+            errors.add("Transaction category cannot be null");
+        } else {
+            try {
+                TransactionCategory.valueOf(category.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                errors.add("Invalid transaction category. Valid categories are: "
+                        + Arrays.toString(TransactionCategory.values()));
+            }
+        }
+        if (amount != null) {
+            if (amount.scale() > 2) {
+                errors.add("Amount cannot have more than 2 decimal places");
+            }
+            if (amount.abs().compareTo(MIN_AMOUNT) < 0) {
+                errors.add("Amount absolute value cannot be less than 0.01");
+            }
+            if (transactionType == TransactionType.CREDIT && amount.compareTo(BigDecimal.ZERO) <= 0) {
+                errors.add("Amount must be positive for CREDIT transactions");
+            } else if (transactionType == TransactionType.DEBIT && amount.compareTo(BigDecimal.ZERO) >= 0) {
+                errors.add("Amount must be negative for DEBIT transactions");
+            }
+        } else {
+            errors.add("Amount cannot be null");
+        }
+        if (description != null && description.length() > 100) {
+            errors.add("Description cannot exceed 100 characters");
+        }
+        if (errors.isEmpty()) {
+            TransactionType.valueOf(type.toUpperCase());
+            TransactionCategory.valueOf(category.toUpperCase());
+        }
+        return errors;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionValidationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -8,6 +8,7 @@ import com.hsbc.banking.transaction.model.Page;
 import com.hsbc.banking.transaction.model.Transaction;
 import com.hsbc.banking.transaction.model.TransactionCategory;
 import com.hsbc.banking.transaction.model.TransactionType;
+import com.hsbc.banking.transaction.service.TransactionLookupService;
 import com.hsbc.banking.transaction.service.TransactionService;
 import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,19 +20,24 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -55,6 +61,9 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionLookupService transactionLookupService;
+
     private Transaction mockTransaction;
 
     @BeforeEach
@@ -306,6 +315,108 @@ class TransactionControllerTest {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.totalSize").value(200));
         }
+
+        @Test
+        void should_return_page_after_id() throws Exception {
+            // Given
+            when(transactionService.listTransactionsAfter(42L, 20)).thenReturn(List.of(mockTransaction));
+            when(transactionService.countTransactions()).thenReturn(100L);
+
+            // When & Then
+            mockMvc.perform(get("/transactions")
+                            .param("afterId", "42"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.contents", hasSize(1)))
+                    .andExpect(jsonPath("$.contents[0].id").value(1))
+                    .andExpect(jsonPath("$.totalSize").value(100));
+            verify(transactionService, never()).listTransactions(anyInt(), anyInt());
+        }
+
+        @Test
+        void should_stream_page_in_list_shape() throws Exception {
+            // Given
+            when(transactionService.streamTransactions(1, 5000)).thenReturn(Stream.of(mockTransaction));
+            when(transactionService.countTransactions()).thenReturn(1L);
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions")
+                            .param("stream", "true")
+                            .param("pageSize", "5000"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.contents", hasSize(1)))
+                    .andExpect(jsonPath("$.contents[0].id").value(1))
+                    .andExpect(jsonPath("$.contents[0].orderId").value("ORD-012345"))
+                    .andExpect(jsonPath("$.contents[0].amount").value(100.00))
+                    .andExpect(jsonPath("$.totalSize").value(1));
+            verify(transactionService, never()).listTransactions(anyInt(), anyInt());
+        }
+    }
+
+    @Nested
+    class ExportTransactions {
+        @Test
+        void should_export_transactions_as_ndjson() throws Exception {
+            // Given
+            Transaction second = createMockTransaction();
+            second.setId(2L);
+            second.setOrderId("ORD-012346");
+            when(transactionService.exportTransactions("ACC-012345", null, null))
+                    .thenReturn(Stream.of(mockTransaction, second));
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions/export")
+                            .param("accountId", "ACC-012345"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andReturn().getResponse().getContentAsString();
+
+            // Then
+            String[] lines = body.split("\n");
+            assertThat(lines).hasSize(2);
+            assertThat(lines).allSatisfy(line -> assertThat(line).startsWith("{"));
+            assertThat((Integer) JsonPath.read(lines[0], "$.id")).isEqualTo(1);
+            assertThat((String) JsonPath.read(lines[1], "$.orderId")).isEqualTo("ORD-012346");
+        }
+
+        @Test
+        void should_pass_time_range_to_service() throws Exception {
+            // Given
+            LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+            LocalDateTime to = LocalDateTime.of(2024, 1, 31, 23, 59, 59);
+            when(transactionService.exportTransactions(null, from, to)).thenReturn(Stream.empty());
+
+            // When & Then
+            MvcResult result = mockMvc.perform(get("/transactions/export")
+                            .param("from", "2024-01-01T00:00:00")
+                            .param("to", "2024-01-31T23:59:59"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk());
+            verify(transactionService).exportTransactions(null, from, to);
+        }
+
+        @Test
+        void should_return_400_when_range_is_invalid() throws Exception {
+            // Given
+            when(transactionService.exportTransactions(any(), any(), any()))
+                    .thenThrow(new InvalidTransactionException(Map.of("message", "Export range start must not be after its end")));
+
+            // When & Then
+            mockMvc.perform(get("/transactions/export")
+                            .param("from", "2024-02-01T00:00:00")
+                            .param("to", "2024-01-01T00:00:00"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_TRANSACTION"));
+        }
     }
 
     @Nested
@@ -352,6 +463,37 @@ class TransactionControllerTest {
         }
     }
 
+    @Nested
+    class LookupTransactions {
+        @Test
+        void should_return_found_transactions_and_missing_ids() throws Exception {
+            // Given
+            when(transactionLookupService.lookup(List.of(1L, 999L)))
+                    .thenReturn(new TransactionLookupService.LookupResult(List.of(mockTransaction), List.of(999L)));
+
+            // When & Then
+            mockMvc.perform(post("/transactions/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\": [1, 999]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.transactions", hasSize(1)))
+                    .andExpect(jsonPath("$.transactions[0].id").value(1))
+                    .andExpect(jsonPath("$.transactions[0].amount").value("100.00"))
+                    .andExpect(jsonPath("$.missingIds[0]").value(999));
+        }
+
+        @Test
+        void should_return_400_when_ids_are_empty() throws Exception {
+            mockMvc.perform(post("/transactions/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\": []}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+
+            verify(transactionLookupService, never()).lookup(any());
+        }
+    }
+
     private Transaction createMockTransaction() {
         Transaction transaction = Transaction.create(
                 "ORD-012345",
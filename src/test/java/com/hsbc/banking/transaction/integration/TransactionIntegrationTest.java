@@ -1,5 +1,6 @@
 package com.hsbc.banking.transaction.integration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hsbc.banking.transaction.model.AuditLog;
 import com.hsbc.banking.transaction.model.Transaction;
 import com.hsbc.banking.transaction.model.TransactionCategory;
@@ -7,6 +8,8 @@ import com.hsbc.banking.transaction.model.TransactionType;
 import com.hsbc.banking.transaction.repository.AuditLogRepository;
 import com.hsbc.banking.transaction.repository.TransactionRepository;
 import com.hsbc.banking.transaction.service.ExternalAccountService;
+import com.hsbc.banking.transaction.service.OrderIdRetention;
+import com.hsbc.banking.transaction.service.TransactionChangeLog;
 import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -17,10 +20,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -29,7 +35,9 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -45,6 +53,15 @@ class TransactionIntegrationTest {
     @Autowired
     private AuditLogRepository auditLogRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionChangeLog transactionChangeLog;
+
+    @Autowired
+    private OrderIdRetention orderIdRetention;
+
     @MockBean
     private ExternalAccountService externalAccountService;
 
@@ -73,6 +90,7 @@ class TransactionIntegrationTest {
     @BeforeEach
     void setUp() {
         transactionRepository.clear();
+        orderIdRetention.clear();
     }
 
     @Nested
@@ -151,6 +169,17 @@ class TransactionIntegrationTest {
                     .isEqualTo(savedTransaction.getCreatedAt());
         }
 
+        @Test
+        void should_reject_amount_with_more_than_two_decimal_places() throws Exception {
+            // When/Then
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST.replace("100.00", "100.001")))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_TRANSACTION"))
+                    .andExpect(jsonPath("$.data.errors[0]").value("Amount cannot have more than 2 decimal places"));
+        }
+
         @Test
         void should_reject_transaction_when_insufficient_balance() throws Exception {
             // Given
@@ -171,6 +200,78 @@ class TransactionIntegrationTest {
         }
     }
 
+    @Nested
+    class CreateTransactionsInBatch {
+        @Test
+        void should_report_result_per_item() throws Exception {
+            // Given - the second debit does not fit the balance
+            when(externalAccountService.hasSufficientBalances(any()))
+                    .thenReturn(List.of(true, false));
+            String request = """
+                    {
+                        "transactions": [
+                            {"orderId": "ORD-000001", "accountId": "ACC-123456", "amount": 100.00, "type": "CREDIT", "category": "SALARY"},
+                            {"orderId": "ORD-000002", "accountId": "ACC-123456", "amount": -50.00, "type": "DEBIT", "category": "SHOPPING"},
+                            {"orderId": "ORD-000003", "accountId": "ACC-123456", "amount": -80.00, "type": "DEBIT", "category": "SHOPPING"},
+                            {"orderId": "ORD-000001", "accountId": "ACC-123456", "amount": 10.00, "type": "CREDIT", "category": "SALARY"},
+                            {"orderId": "ORD-1", "accountId": "ACC-123456", "amount": 10.00, "type": "CREDIT", "category": "SALARY"}
+                        ]
+                    }
+                    """;
+
+            // When/Then
+            mockMvc.perform(post("/transactions/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(2))
+                    .andExpect(jsonPath("$.failed").value(3))
+                    .andExpect(jsonPath("$.results", hasSize(5)))
+                    .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                    .andExpect(jsonPath("$.results[0].transaction.amount").value("100.00"))
+                    .andExpect(jsonPath("$.results[1].status").value("CREATED"))
+                    .andExpect(jsonPath("$.results[2].code").value("INSUFFICIENT_BALANCE"))
+                    .andExpect(jsonPath("$.results[3].code").value("TRANSACTION_CONFLICT"))
+                    .andExpect(jsonPath("$.results[4].code").value("INVALID_TRANSACTION"));
+
+            assertThat(transactionRepository.count()).isEqualTo(2);
+        }
+
+        @Test
+        void should_fail_only_the_item_with_three_decimal_places() throws Exception {
+            // Given
+            String request = """
+                    {
+                        "transactions": [
+                            {"orderId": "ORD-000001", "accountId": "ACC-123456", "amount": 1.005, "type": "CREDIT", "category": "SALARY"},
+                            {"orderId": "ORD-000002", "accountId": "ACC-123456", "amount": 100.00, "type": "CREDIT", "category": "SALARY"}
+                        ]
+                    }
+                    """;
+
+            // When/Then
+            mockMvc.perform(post("/transactions/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.succeeded").value(1))
+                    .andExpect(jsonPath("$.results[0].code").value("INVALID_TRANSACTION"))
+                    .andExpect(jsonPath("$.results[0].data.errors[0]").value("Amount cannot have more than 2 decimal places"))
+                    .andExpect(jsonPath("$.results[1].status").value("CREATED"));
+
+            assertThat(transactionRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        void should_return_400_when_batch_is_empty() throws Exception {
+            mockMvc.perform(post("/transactions/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"transactions\": []}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+        }
+    }
+
     @Nested
     class DeleteTransaction {
         @Test
@@ -191,18 +292,46 @@ class TransactionIntegrationTest {
             // Then
             assertThat(transactionRepository.findById(savedTransaction.getId())).isEmpty();
 
-            // Verify audit log - find the most recent DELETE operation
-            List<AuditLog> auditLogs = auditLogRepository.findByEntityTypeAndEntityId(
-                    "Transaction", String.valueOf(savedTransaction.getId()));
-            AuditLog deleteLog = auditLogs.stream()
-                    .filter(log -> "DELETE".equals(log.getOperation()))
-                    .findFirst()
-                    .orElseThrow(() -> new AssertionError("Delete audit log not found"));
+            // Verify audit log - written in the background, so wait for the DELETE operation
+            AuditLog deleteLog = null;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (deleteLog == null && System.nanoTime() < deadline) {
+                deleteLog = auditLogRepository.findByEntityTypeAndEntityId(
+                                "Transaction", String.valueOf(savedTransaction.getId())).stream()
+                        .filter(log -> "DELETE".equals(log.getOperation()))
+                        .findFirst()
+                        .orElse(null);
+                if (deleteLog == null) {
+                    Thread.sleep(20);
+                }
+            }
 
+            assertThat(deleteLog).as("Delete audit log").isNotNull();
             assertThat(deleteLog.getOperation()).isEqualTo("DELETE");
             assertThat(deleteLog.getDetails()).contains("ORD-123456");
         }
 
+        @Test
+        void should_reject_order_id_of_deleted_transaction() throws Exception {
+            // Given
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST))
+                    .andExpect(status().isCreated());
+            Long id = transactionRepository.findByOrderId("ORD-123456").orElseThrow().getId();
+            mockMvc.perform(delete("/transactions/{id}", id))
+                    .andExpect(status().isNoContent());
+
+            // When/Then
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.code").value("TRANSACTION_CONFLICT"));
+            mockMvc.perform(get("/transactions/{id}", id))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         void should_return_404_when_deleting_non_existent_transaction() throws Exception {
             // When/Then
@@ -334,6 +463,36 @@ class TransactionIntegrationTest {
                     .andExpect(jsonPath("$.totalSize").value(15));
         }
 
+        @Test
+        void should_walk_all_transactions_with_after_id_pages() throws Exception {
+            // Given
+            for (int i = 1; i <= 12; i++) {
+                transactionRepository.save(Transaction.create(String.format("ORD-%06d", i), "ACC-123456",
+                        new BigDecimal("10.00"), "CREDIT", "SALARY", "Monthly salary"));
+            }
+
+            // When
+            List<Long> ids = new ArrayList<>();
+            long afterId = 0;
+            while (true) {
+                String body = mockMvc.perform(get("/transactions")
+                                .param("afterId", String.valueOf(afterId))
+                                .param("pageSize", "5"))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                List<Long> page = new ArrayList<>();
+                objectMapper.readTree(body).get("contents").forEach(row -> page.add(row.get("id").asLong()));
+                if (page.isEmpty()) {
+                    break;
+                }
+                ids.addAll(page);
+                afterId = page.get(page.size() - 1);
+            }
+
+            // Then
+            assertThat(ids).hasSize(12).isSorted().doesNotHaveDuplicates();
+        }
+
         @Test
         void should_return_empty_page_when_no_transactions() throws Exception {
             mockMvc.perform(get("/transactions"))
@@ -390,6 +549,348 @@ class TransactionIntegrationTest {
                     .andExpect(jsonPath("$.contents", hasSize(0)))
                     .andExpect(jsonPath("$.totalSize").value(5));
         }
+
+        @Test
+        void should_stream_same_page_as_list() throws Exception {
+            // Given
+            for (int i = 1; i <= 7; i++) {
+                String request = CREATE_CREDIT_TRANSACTION_REQUEST
+                        .replace("ORD-123456", String.format("ORD-%06d", i))
+                        .replace("ACC-123456", String.format("ACC-%06d", i));
+
+                mockMvc.perform(post("/transactions")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(request))
+                        .andExpect(status().isCreated());
+            }
+            String listed = mockMvc.perform(get("/transactions")
+                            .param("pageNumber", "2")
+                            .param("pageSize", "3"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions")
+                            .param("stream", "true")
+                            .param("pageNumber", "2")
+                            .param("pageSize", "3"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String streamed = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            // Then
+            assertThat(objectMapper.readTree(streamed)).isEqualTo(objectMapper.readTree(listed));
+        }
+
+        @Test
+        void should_stream_pages_larger_than_list_limit() throws Exception {
+            // Given
+            for (int i = 1; i <= 120; i++) {
+                transactionRepository.save(Transaction.create(
+                        String.format("ORD-%06d", i), "ACC-123456", new BigDecimal("10.00"),
+                        "CREDIT", "SALARY", "Monthly salary"));
+            }
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions")
+                            .param("stream", "true")
+                            .param("pageSize", "500"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.contents", hasSize(120)))
+                    .andExpect(jsonPath("$.totalSize").value(120));
+        }
+    }
+
+    @Nested
+    class SearchTransactions {
+        @Test
+        void should_find_created_transactions_by_description_words_newest_first() throws Exception {
+            // Given - a word no other test uses, the index is not cleared between tests
+            String word = "searchtest" + System.nanoTime();
+            for (int i = 1; i <= 3; i++) {
+                mockMvc.perform(post("/transactions")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(CREATE_CREDIT_TRANSACTION_REQUEST
+                                        .replace("ORD-123456", String.format("ORD-%06d", i))
+                                        .replace("ACC-123456", i == 3 ? "ACC-000003" : "ACC-123456")
+                                        .replace("Monthly salary", "Payment " + word + " number" + i)))
+                        .andExpect(status().isCreated());
+            }
+
+            // When & Then
+            mockMvc.perform(get("/transactions/search")
+                            .param("q", word.toUpperCase())
+                            .param("pageSize", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalSize").value(3))
+                    .andExpect(jsonPath("$.contents", hasSize(2)))
+                    .andExpect(jsonPath("$.contents[0].orderId").value("ORD-000003"))
+                    .andExpect(jsonPath("$.contents[1].orderId").value("ORD-000002"));
+            mockMvc.perform(get("/transactions/search")
+                            .param("q", word + " numb*")
+                            .param("accountId", "ACC-123456"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalSize").value(2));
+        }
+
+        @Test
+        void should_stop_finding_transaction_after_description_update() throws Exception {
+            // Given
+            String oldWord = "oldword" + System.nanoTime();
+            String newWord = "newword" + System.nanoTime();
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST.replace("Monthly salary payment", oldWord)))
+                    .andExpect(status().isCreated());
+            Transaction savedTransaction = transactionRepository.findByOrderId("ORD-123456")
+                    .orElseThrow(() -> new AssertionError("Transaction not found"));
+
+            // When
+            mockMvc.perform(put("/transactions/{id}", savedTransaction.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(String.format("{\"category\": \"SALARY\", \"description\": \"%s\"}", newWord)))
+                    .andExpect(status().isOk());
+
+            // Then
+            mockMvc.perform(get("/transactions/search").param("q", oldWord))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalSize").value(0));
+            mockMvc.perform(get("/transactions/search").param("q", newWord))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalSize").value(1))
+                    .andExpect(jsonPath("$.contents[0].description").value(newWord));
+        }
+    }
+
+    @Nested
+    class QueryTransactions {
+        @Test
+        void should_return_largest_matching_debits_first() throws Exception {
+            // Given
+            for (int i = 1; i <= 100; i++) {
+                transactionRepository.save(Transaction.create(
+                        String.format("ORD-%06d", i), "ACC-000001", new BigDecimal("-" + i + ".00"),
+                        "DEBIT", "SHOPPING", i % 3 == 0 ? "Coffee shop" : "Book store"));
+            }
+
+            // When & Then
+            mockMvc.perform(get("/transactions/query")
+                            .param("q", "amount <= -50 and description ~ 'COFFEE'")
+                            .param("sort", "amount")
+                            .param("limit", "3"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.size").value(3))
+                    .andExpect(jsonPath("$.contents[0].amount").value("-99.00"))
+                    .andExpect(jsonPath("$.contents[1].amount").value("-96.00"))
+                    .andExpect(jsonPath("$.contents[2].amount").value("-93.00"))
+                    .andExpect(jsonPath("$.scanned").value(100));
+        }
+
+        @Test
+        void should_return_400_with_position_for_invalid_query() throws Exception {
+            mockMvc.perform(get("/transactions/query")
+                            .param("q", "amount >> 5"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_REQUEST"))
+                    .andExpect(jsonPath("$.data.position").value(8));
+        }
+    }
+
+    @Nested
+    class ExportTransactions {
+        @Test
+        void should_export_every_transaction_of_account_in_id_order() throws Exception {
+            // Given
+            for (int i = 1; i <= 250; i++) {
+                transactionRepository.save(Transaction.create(
+                        String.format("ORD-%06d", i), i % 2 == 0 ? "ACC-000002" : "ACC-000001",
+                        new BigDecimal("10.00"), "CREDIT", "SALARY", "Monthly salary"));
+            }
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions/export")
+                            .param("accountId", "ACC-000002"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            // Then
+            List<String> lines = body.lines().toList();
+            assertThat(lines).hasSize(125);
+            long previousId = 0;
+            for (String line : lines) {
+                long id = objectMapper.readTree(line).get("id").asLong();
+                assertThat(id).isGreaterThan(previousId);
+                assertThat(objectMapper.readTree(line).get("accountId").asText()).isEqualTo("ACC-000002");
+                previousId = id;
+            }
+        }
+
+        @Test
+        void should_export_nothing_for_range_in_the_past() throws Exception {
+            // Given
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST))
+                    .andExpect(status().isCreated());
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions/export")
+                            .param("to", "2000-01-01T00:00:00"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Nested
+    class ImportTransactions {
+        @Test
+        void should_import_json_lines_and_report_rejects() throws Exception {
+            // Given
+            String body = CREATE_CREDIT_TRANSACTION_REQUEST.replace("\n", "") + "\n"
+                    + CREATE_CREDIT_TRANSACTION_REQUEST.replace("\n", "").replace("ORD-123456", "ORD-654321") + "\n"
+                    + CREATE_CREDIT_TRANSACTION_REQUEST.replace("\n", "") + "\n";
+
+            // When & Then
+            mockMvc.perform(post("/transactions/import")
+                            .contentType("application/x-ndjson")
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.rows").value(3))
+                    .andExpect(jsonPath("$.imported").value(2))
+                    .andExpect(jsonPath("$.rejected").value(1))
+                    .andExpect(jsonPath("$.errorFile").isNotEmpty());
+            assertThat(transactionRepository.count()).isEqualTo(2);
+            assertThat(transactionRepository.findByOrderId("ORD-654321")).isPresent();
+        }
+    }
+
+    @Nested
+    class TransactionChanges {
+        @Test
+        void should_return_create_update_and_delete_in_order_from_offset() throws Exception {
+            // Given
+            long fromOffset = transactionChangeLog.nextOffset();
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST))
+                    .andExpect(status().isCreated());
+            Long id = transactionRepository.findByOrderId("ORD-123456").orElseThrow().getId();
+            mockMvc.perform(put("/transactions/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                                    {"category": "SHOPPING", "description": "Updated description"}
+                                    """))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete("/transactions/{id}", id))
+                    .andExpect(status().isNoContent());
+
+            // When
+            MvcResult result = mockMvc.perform(get("/transactions/changes")
+                            .param("fromOffset", String.valueOf(fromOffset)))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Then - every change carries the state right after it
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.changes", hasSize(3)))
+                    .andExpect(jsonPath("$.changes[0].offset").value(fromOffset))
+                    .andExpect(jsonPath("$.changes[0].type").value("CREATED"))
+                    .andExpect(jsonPath("$.changes[0].transaction.category").value("SALARY"))
+                    .andExpect(jsonPath("$.changes[1].type").value("UPDATED"))
+                    .andExpect(jsonPath("$.changes[1].transaction.category").value("SHOPPING"))
+                    .andExpect(jsonPath("$.changes[2].type").value("DELETED"))
+                    .andExpect(jsonPath("$.changes[2].transaction.id").value(id))
+                    .andExpect(jsonPath("$.nextOffset").value(fromOffset + 3));
+        }
+
+        @Test
+        void should_stream_changes_as_server_sent_events() throws Exception {
+            // Given
+            long fromOffset = transactionChangeLog.nextOffset();
+            MvcResult result = mockMvc.perform(get("/transactions/changes")
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .param("fromOffset", String.valueOf(fromOffset)))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // When
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST))
+                    .andExpect(status().isCreated());
+
+            // Then - the event is written in parts, wait for its data to arrive as well
+            String expected = "id:" + fromOffset;
+            String orderId = "\"orderId\":\"ORD-123456\"";
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!result.getResponse().getContentAsString().contains(orderId) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(result.getResponse().getContentAsString())
+                    .contains(expected)
+                    .contains("event:CREATED")
+                    .contains("\"orderId\":\"ORD-123456\"");
+        }
+    }
+
+    @Nested
+    class Aggregates {
+        @Test
+        void should_aggregate_account_by_type_and_category_without_reading_transactions() throws Exception {
+            // Given
+            when(externalAccountService.hasSufficientBalance(any(), any())).thenReturn(true);
+            String accountId = "ACC-" + String.format("%06d", System.nanoTime() % 1_000_000);
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST.replace("ACC-123456", accountId)))
+                    .andExpect(status().isCreated());
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_DEBIT_TRANSACTION_REQUEST
+                                    .replace("ORD-123456", "ORD-654321")
+                                    .replace("ACC-123456", accountId)))
+                    .andExpect(status().isCreated());
+
+            // When & Then
+            mockMvc.perform(get("/aggregates")
+                            .param("account", accountId)
+                            .param("groupBy", "type,category")
+                            .param("interval", "hour"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.interval").value("HOUR"))
+                    .andExpect(jsonPath("$.aggregates", hasSize(2)))
+                    .andExpect(jsonPath("$.aggregates[0].type").value("CREDIT"))
+                    .andExpect(jsonPath("$.aggregates[0].category").value("SALARY"))
+                    .andExpect(jsonPath("$.aggregates[0].count").value(1))
+                    .andExpect(jsonPath("$.aggregates[0].sum").value("100.00"))
+                    .andExpect(jsonPath("$.aggregates[0].accountId").doesNotExist())
+                    .andExpect(jsonPath("$.aggregates[1].type").value("DEBIT"))
+                    .andExpect(jsonPath("$.aggregates[1].sum").value("-100.00"));
+        }
+
+        @Test
+        void should_return_400_for_unknown_group_by_dimension() throws Exception {
+            mockMvc.perform(get("/aggregates")
+                            .param("groupBy", "merchant"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+        }
     }
 
     @Nested
@@ -429,4 +930,33 @@ class TransactionIntegrationTest {
                     .andExpect(jsonPath("$.data.message").value("Transaction not found with ID: 999"));
         }
     }
-}  
\ No newline at end of file
+
+    @Nested
+    class LookupTransactions {
+        @Test
+        void should_return_found_transactions_in_request_order_and_missing_ids() throws Exception {
+            // Given
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST))
+                    .andExpect(status().isCreated());
+            mockMvc.perform(post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(CREATE_CREDIT_TRANSACTION_REQUEST.replace("ORD-123456", "ORD-123457")))
+                    .andExpect(status().isCreated());
+            Long firstId = transactionRepository.findByOrderId("ORD-123456").orElseThrow().getId();
+            Long secondId = transactionRepository.findByOrderId("ORD-123457").orElseThrow().getId();
+
+            // When/Then
+            mockMvc.perform(post("/transactions/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"ids\": [" + secondId + ", 999, " + firstId + ", " + secondId + "]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.transactions", hasSize(2)))
+                    .andExpect(jsonPath("$.transactions[0].orderId").value("ORD-123457"))
+                    .andExpect(jsonPath("$.transactions[1].orderId").value("ORD-123456"))
+                    .andExpect(jsonPath("$.missingIds", hasSize(1)))
+                    .andExpect(jsonPath("$.missingIds[0]").value(999));
+        }
+    }
+}
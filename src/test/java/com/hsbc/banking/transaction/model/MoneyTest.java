@@ -0,0 +1,75 @@
+package com.hsbc.banking.transaction.model;
+
+import com.hsbc.banking.transaction.exception.InvalidTransactionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "100, 10000",
+            "100.00, 10000",
+            "-100.5, -10050",
+            "0.01, 1",
+            ".5, 50",
+            "1e2, 10000",
+            "1.5E1, 1500",
+            "1E-2, 1",
+            "92233720368547758.07, 9223372036854775807"
+    })
+    void should_parse_decimal_text_into_minor_units(String text, long minorUnits) {
+        assertThat(parse(text).minorUnits()).isEqualTo(minorUnits);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0.001", "1.000", "1e-3"})
+    void should_reject_more_than_two_decimal_places(String text) {
+        assertThatThrownBy(() -> parse(text))
+                .isInstanceOf(InvalidTransactionException.class)
+                .satisfies(thrown -> assertThat(((InvalidTransactionException) thrown).getData())
+                        .containsEntry("errors", List.of("Amount cannot have more than 2 decimal places")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"92233720368547758.08", "1e20"})
+    void should_reject_amounts_that_do_not_fit_in_long(String text) {
+        assertThatThrownBy(() -> parse(text))
+                .isInstanceOf(InvalidTransactionException.class)
+                .satisfies(thrown -> assertThat(((InvalidTransactionException) thrown).getData())
+                        .containsEntry("errors", List.of("Amount is out of range")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "-", "abc", "1.2.3", "1e"})
+    void should_throw_number_format_exception_for_malformed_text(String text) {
+        assertThatThrownBy(() -> parse(text)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, -1, 50, -50, 10000, -10000, 123456789, Long.MAX_VALUE, Long.MIN_VALUE})
+    void should_format_like_decimal_format_pattern(long minorUnits) {
+        String expected = new DecimalFormat("#.00").format(BigDecimal.valueOf(minorUnits, 2));
+
+        assertThat(Money.ofMinor(minorUnits).toString()).isEqualTo(expected);
+    }
+
+    @Test
+    void should_convert_from_and_to_big_decimal() {
+        assertThat(Money.of(new BigDecimal("-100.00")).minorUnits()).isEqualTo(-10000);
+        assertThat(Money.ofMinor(-10000).toBigDecimal()).isEqualTo(new BigDecimal("-100.00"));
+    }
+
+    private static Money parse(String text) {
+        return Money.parse(text.toCharArray(), 0, text.length());
+    }
+}
@@ -109,6 +109,10 @@ class TransactionTest {
                 null, VALID_ACCOUNT_ID, VALID_CREDIT_AMOUNT, TransactionType.CREDIT.name(), VALID_CATEGORY, VALID_DESCRIPTION,
                 "Order ID must start with 'ORD-' followed by at least 6 digits"
             ),
+            Arguments.of(
+                "ORD-" + "1".repeat(61), VALID_ACCOUNT_ID, VALID_CREDIT_AMOUNT, TransactionType.CREDIT.name(), VALID_CATEGORY, VALID_DESCRIPTION,
+                "Order ID cannot exceed 64 characters"
+            ),
             
             // Invalid Account ID format
             Arguments.of(
@@ -123,6 +127,10 @@ class TransactionTest {
                 VALID_ORDER_ID, null, VALID_CREDIT_AMOUNT, TransactionType.CREDIT.name(), VALID_CATEGORY, VALID_DESCRIPTION,
                 "Account ID must start with 'ACC-' followed by at least 6 digits"
             ),
+            Arguments.of(
+                VALID_ORDER_ID, "ACC-" + "1".repeat(61), VALID_CREDIT_AMOUNT, TransactionType.CREDIT.name(), VALID_CATEGORY, VALID_DESCRIPTION,
+                "Account ID cannot exceed 64 characters"
+            ),
             
             // Invalid Amount scenarios
             Arguments.of(
@@ -184,4 +192,30 @@ class TransactionTest {
                 assertThat(((List<String>)ex.getData().get("errors"))).contains(expectedError);
             });
     }
-} 
\ No newline at end of file
+
+    @Test
+    void should_resolve_enum_names_ignoring_case() {
+        assertThat(TransactionType.fromString("transfer_in")).isEqualTo(TransactionType.TRANSFER_IN);
+        assertThat(TransactionCategory.fromString("Food_Dining")).isEqualTo(TransactionCategory.FOOD_DINING);
+        for (TransactionCategory category : TransactionCategory.values()) {
+            assertThat(TransactionCategory.lookup(category.name().toLowerCase())).isEqualTo(category);
+        }
+    }
+
+    @Test
+    void should_return_null_from_lookup_and_throw_from_fromString_for_unknown_names() {
+        assertThat(TransactionType.lookup("CREDITS")).isNull();
+        assertThat(TransactionType.lookup(null)).isNull();
+        assertThatThrownBy(() -> TransactionCategory.fromString("UNKNOWN"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_return_shared_empty_error_list_for_valid_input() {
+        List<String> errors = TransactionValidator.validateCreate(VALID_ORDER_ID, VALID_ACCOUNT_ID, Money.of(VALID_CREDIT_AMOUNT),
+            "CREDIT", TransactionType.CREDIT, VALID_CATEGORY, TransactionCategory.SALARY, VALID_DESCRIPTION);
+
+        assertThat(errors).isEmpty();
+        assertThat(errors).isSameAs(List.of());
+    }
+}
@@ -0,0 +1,228 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EventSourcedTransactionRepositoryImplTest {
+    private static final String LOG_FILE = "transactions.events";
+
+    @TempDir
+    Path directory;
+
+    private EventSourcedTransactionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = open(4);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.destroy();
+    }
+
+    @Test
+    void should_rebuild_updates_and_deletes_after_reopen() throws IOException {
+        // Given
+        saveTransactions(300);
+        Transaction updated = repository.findById(7L).orElseThrow();
+        updated.setCategory(TransactionCategory.BONUS);
+        updated.setDescription("Year-end bonus");
+        repository.update(updated);
+        repository.deleteById(1L);
+        repository.destroy();
+
+        // When
+        repository = open(4);
+
+        // Then
+        assertThat(repository.count()).isEqualTo(299);
+        assertThat(repository.eventCount()).isEqualTo(303);
+        assertThat(repository.findById(1L)).isEmpty();
+        assertThat(repository.findByOrderId("ORD-000001")).isEmpty();
+        assertThat(repository.findByOrderId("ORD-000007")).hasValueSatisfying(found -> {
+            assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS);
+            assertThat(found.getDescription()).isEqualTo("Year-end bonus");
+            assertThat(found.getVersion()).isEqualTo(1);
+            assertThat(found.getUpdatedAt()).isEqualTo(updated.getUpdatedAt());
+        });
+        // IDs of deleted transactions are not handed out again
+        assertThat(repository.save(transaction(1000)).getId()).isEqualTo(301);
+    }
+
+    @Test
+    void should_continue_after_the_fence_of_a_restored_backup_after_reopen() throws IOException {
+        // Given
+        List<Transaction> backup = saveTransactions(3).stream().map(Transaction::copy).toList();
+        repository.restore(backup, 50);
+        repository.destroy();
+
+        // When
+        repository = open(2);
+
+        // Then
+        assertThat(repository.count()).isEqualTo(3);
+        assertThat(repository.eventCount()).isEqualTo(4);
+        assertThat(repository.save(transaction(100)).getId()).isEqualTo(51);
+    }
+
+    @Test
+    void should_rebuild_the_same_state_with_one_or_many_threads() throws IOException {
+        // Given
+        saveTransactions(2_000);
+        for (long id = 1; id <= 2_000; id += 3) {
+            Transaction transaction = repository.findById(id).orElseThrow();
+            transaction.setDescription("Changed " + id);
+            repository.update(transaction);
+        }
+        for (long id = 2; id <= 2_000; id += 5) {
+            repository.deleteById(id);
+        }
+        repository.destroy();
+
+        // When
+        EventSourcedTransactionRepositoryImpl single = open(1);
+        List<Transaction> rebuiltByOne = single.stream().toList();
+        single.destroy();
+        repository = open(8);
+
+        // Then
+        assertThat(repository.stream().toList())
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(rebuiltByOne);
+        assertThat(repository.count()).isEqualTo(1_600);
+    }
+
+    @Test
+    void should_cut_off_a_torn_last_event() throws IOException {
+        // Given
+        saveTransactions(10);
+        repository.destroy();
+        Path log = directory.resolve(LOG_FILE);
+        long complete = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // When
+        repository = open(4);
+
+        // Then
+        assertThat(repository.count()).isEqualTo(10);
+        assertThat(Files.size(log)).isEqualTo(complete);
+        assertThat(repository.save(transaction(11)).getId()).isEqualTo(11);
+        repository.destroy();
+        repository = open(4);
+        assertThat(repository.findByOrderId("ORD-000011")).isPresent();
+    }
+
+    @Test
+    void should_cut_off_a_torn_last_event_followed_by_zeros() throws IOException {
+        // Given - the length of the last append was written, its data was not
+        saveTransactions(10);
+        repository.destroy();
+        Path log = directory.resolve(LOG_FILE);
+        long complete = Files.size(log);
+        Files.write(log, new byte[64], StandardOpenOption.APPEND);
+
+        // When
+        repository = open(4);
+
+        // Then
+        assertThat(repository.count()).isEqualTo(10);
+        assertThat(Files.size(log)).isEqualTo(complete);
+    }
+
+    @Test
+    void should_refuse_to_open_a_log_corrupted_before_its_end() throws IOException {
+        // Given - a byte of the first event flipped, nine events follow it
+        saveTransactions(10);
+        repository.destroy();
+        Path log = directory.resolve(LOG_FILE);
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[20] ^= 0x5a;
+        Files.write(log, bytes);
+
+        // When/Then
+        assertThatThrownBy(() -> open(4))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasRootCauseMessage("Corrupt event at byte 0 of " + log + ", followed by more events");
+        assertThat(Files.readAllBytes(log)).isEqualTo(bytes);
+        repository = open(4, directory.resolve("other"));
+    }
+
+    @Test
+    void should_refuse_an_event_length_out_of_range_without_allocating_it() throws IOException {
+        // Given
+        saveTransactions(10);
+        repository.destroy();
+        Path log = directory.resolve(LOG_FILE);
+        long complete = Files.size(log);
+        Files.write(log, new byte[]{0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 1, 2, 3, 4, 5, 6, 7, 8},
+                StandardOpenOption.APPEND);
+
+        // When/Then
+        assertThatThrownBy(() -> open(4))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasRootCauseMessage("Corrupt event length " + Integer.MAX_VALUE + " at byte " + complete
+                        + " of " + log);
+        repository = open(4, directory.resolve("other"));
+    }
+
+    @Test
+    void should_delete_the_log_on_clear() throws IOException {
+        // Given
+        saveTransactions(50);
+
+        // When
+        repository.clear();
+
+        // Then
+        assertThat(repository.count()).isZero();
+        assertThat(repository.eventCount()).isZero();
+        assertThat(Files.size(directory.resolve(LOG_FILE))).isZero();
+        assertThat(repository.save(transaction(1)).getId()).isEqualTo(1);
+    }
+
+    @Nested
+    class Contract extends TransactionRepositoryContract {
+
+        @Override
+        protected TransactionRepository createRepository() {
+            return new EventSourcedTransactionRepositoryImpl(new SequentialIdGenerator(),
+                    directory.resolve("contract"), false, 4);
+        }
+    }
+
+    private EventSourcedTransactionRepositoryImpl open(int rebuildThreads) {
+        return open(rebuildThreads, directory);
+    }
+
+    private EventSourcedTransactionRepositoryImpl open(int rebuildThreads, Path logDirectory) {
+        return new EventSourcedTransactionRepositoryImpl(new SequentialIdGenerator(), logDirectory, false,
+                rebuildThreads);
+    }
+
+    private List<Transaction> saveTransactions(int count) {
+        List<Transaction> batch = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            batch.add(transaction(i));
+        }
+        return repository.saveAll(batch);
+    }
+}
@@ -0,0 +1,286 @@
+package com.hsbc.banking.transaction.repository;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdGeneratorTest {
+
+    private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Nested
+    class Sequential {
+
+        @Test
+        void should_start_again_from_one_after_reset() {
+            // Given
+            SequentialIdGenerator generator = new SequentialIdGenerator();
+            generator.nextId();
+            generator.nextId();
+
+            // When
+            generator.reset();
+
+            // Then
+            assertThat(generator.nextId()).isEqualTo(1);
+        }
+
+        @Test
+        void should_increase_in_creation_order_across_threads() throws Exception {
+            // Given
+            SequentialIdGenerator generator = new SequentialIdGenerator();
+
+            // When
+            List<Long> ids = generateInTurns(generator, 8, 100);
+
+            // Then
+            assertThat(generator.increasesInCreationOrder()).isTrue();
+            assertThat(ids).isSorted().doesNotHaveDuplicates();
+        }
+    }
+
+    @Nested
+    class ThreadLocalBlock {
+
+        @Test
+        void should_generate_unique_ids_across_threads() throws Exception {
+            // Given
+            ThreadLocalBlockIdGenerator generator = new ThreadLocalBlockIdGenerator(16);
+
+            // When
+            List<List<Long>> generated = generateConcurrently(generator, 8, 10_000);
+
+            // Then
+            Set<Long> ids = new HashSet<>();
+            generated.forEach(ids::addAll);
+            assertThat(ids).hasSize(80_000);
+            assertThat(generated).allSatisfy(threadIds -> assertThat(threadIds).isSorted());
+        }
+
+        @Test
+        void should_not_increase_in_creation_order_across_threads() throws Exception {
+            // Given
+            ThreadLocalBlockIdGenerator generator = new ThreadLocalBlockIdGenerator(16, 64);
+
+            // When
+            List<Long> ids = generateInTurns(generator, 8, 100);
+
+            // Then - threads of other stripes serve from blocks taken earlier or later
+            assertThat(generator.increasesInCreationOrder()).isFalse();
+            assertThat(ids).doesNotHaveDuplicates().isNotEqualTo(ids.stream().sorted().toList());
+        }
+
+        @Test
+        void should_share_blocks_between_virtual_threads() throws Exception {
+            // Given
+            ThreadLocalBlockIdGenerator generator = new ThreadLocalBlockIdGenerator(1024, 8);
+            List<Future<Long>> futures = new ArrayList<>();
+
+            // When - every virtual thread takes a single ID
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 10_000; i++) {
+                    futures.add(executor.submit(generator::nextId));
+                }
+            }
+
+            // Then - the stripes take a few blocks, not one block per thread
+            Set<Long> ids = new HashSet<>();
+            for (Future<Long> future : futures) {
+                ids.add(future.get());
+            }
+            assertThat(ids).hasSize(10_000);
+            assertThat(ids.stream().mapToLong(Long::longValue).max().orElseThrow())
+                    .isLessThanOrEqualTo(10_000 + 8 * 1024);
+        }
+
+        @Test
+        void should_drop_blocks_taken_before_reset() {
+            // Given
+            ThreadLocalBlockIdGenerator generator = new ThreadLocalBlockIdGenerator(100);
+            generator.nextId();
+            generator.nextId();
+
+            // When
+            generator.reset();
+
+            // Then
+            assertThat(generator.nextId()).isEqualTo(1);
+        }
+
+        @Test
+        void should_not_hand_out_ids_below_a_fence_once_it_is_set() throws Exception {
+            // Given
+            ThreadLocalBlockIdGenerator generator = new ThreadLocalBlockIdGenerator(1_000, 4);
+            AtomicLong fence = new AtomicLong();
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Future<Long>> violations = new ArrayList<>();
+
+            // When - threads take IDs while fences are set, each ID checked against the fence seen before it
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                for (int i = 0; i < 8; i++) {
+                    violations.add(executor.submit(() -> {
+                        long below = 0;
+                        while (running.get()) {
+                            long seen = fence.get();
+                            if (generator.nextId() <= seen) {
+                                below++;
+                            }
+                        }
+                        return below;
+                    }));
+                }
+                for (long round = 1; round <= 2_000; round++) {
+                    generator.advancePast(round * 1_000_000);
+                    fence.set(round * 1_000_000);
+                }
+            } finally {
+                running.set(false);
+                executor.shutdown();
+            }
+
+            // Then
+            for (Future<Long> future : violations) {
+                assertThat(future.get()).isZero();
+            }
+        }
+
+        @Test
+        void should_reject_non_positive_block_size() {
+            assertThatThrownBy(() -> new ThreadLocalBlockIdGenerator(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    class Snowflake {
+
+        @Test
+        void should_generate_increasing_unique_ids_across_threads() throws Exception {
+            // Given
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, EPOCH);
+
+            // When
+            List<List<Long>> generated = generateConcurrently(generator, 8, 10_000);
+
+            // Then
+            Set<Long> ids = new HashSet<>();
+            generated.forEach(ids::addAll);
+            assertThat(ids).hasSize(80_000);
+            assertThat(generated).allSatisfy(threadIds -> assertThat(threadIds).isSorted());
+            assertThat(ids).allSatisfy(id -> assertThat(SnowflakeIdGenerator.nodeIdOf(id)).isEqualTo(5));
+        }
+
+        @Test
+        void should_increase_in_creation_order_across_threads() throws Exception {
+            // Given
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, EPOCH);
+
+            // When
+            List<Long> ids = generateInTurns(generator, 8, 100);
+
+            // Then
+            assertThat(generator.increasesInCreationOrder()).isTrue();
+            assertThat(ids).isSorted().doesNotHaveDuplicates();
+        }
+
+        @Test
+        void should_encode_timestamp_and_node_id() {
+            // Given
+            Instant now = EPOCH.plusSeconds(3_600);
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(42, EPOCH, Clock.fixed(now, ZoneOffset.UTC));
+
+            // When
+            long id = generator.nextId();
+
+            // Then
+            assertThat(SnowflakeIdGenerator.timestampOf(id, EPOCH)).isEqualTo(now.toEpochMilli());
+            assertThat(SnowflakeIdGenerator.nodeIdOf(id)).isEqualTo(42);
+        }
+
+        @Test
+        void should_borrow_next_millisecond_when_sequence_runs_out() {
+            // Given
+            Instant now = EPOCH.plusSeconds(60);
+            SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, EPOCH, Clock.fixed(now, ZoneOffset.UTC));
+            int perMillisecond = 1 << SnowflakeIdGenerator.SEQUENCE_BITS;
+
+            // When
+            long previous = 0;
+            long id = 0;
+            for (int i = 0; i <= perMillisecond; i++) {
+                id = generator.nextId();
+                assertThat(id).isGreaterThan(previous);
+                previous = id;
+            }
+
+            // Then
+            assertThat(SnowflakeIdGenerator.timestampOf(id, EPOCH)).isEqualTo(now.toEpochMilli() + 1);
+            assertThat(SnowflakeIdGenerator.nodeIdOf(id)).isEqualTo(1);
+        }
+
+        @Test
+        void should_reject_node_id_out_of_range() {
+            assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1, EPOCH))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    // IDs taken one at a time by the threads in turn, in the order they were taken
+    private static List<Long> generateInTurns(IdGenerator generator, int threads, int rounds) throws Exception {
+        List<ExecutorService> executors = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            executors.add(Executors.newSingleThreadExecutor());
+        }
+        try {
+            List<Long> ids = new ArrayList<>(threads * rounds);
+            for (int round = 0; round < rounds; round++) {
+                for (ExecutorService executor : executors) {
+                    ids.add(executor.submit(generator::nextId).get());
+                }
+            }
+            return ids;
+        } finally {
+            executors.forEach(ExecutorService::shutdown);
+        }
+    }
+
+    private static List<List<Long>> generateConcurrently(IdGenerator generator, int threads, int perThread)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> ids = new ArrayList<>(perThread);
+                    for (int j = 0; j < perThread; j++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+            List<List<Long>> generated = new ArrayList<>();
+            for (Future<List<Long>> future : futures) {
+                generated.add(future.get());
+            }
+            return generated;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
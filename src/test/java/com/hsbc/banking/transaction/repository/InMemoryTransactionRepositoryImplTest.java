@@ -0,0 +1,154 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryTransactionRepositoryImplTest {
+    private InMemoryTransactionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        // Purges only run when the test asks, the sweeper interval is never reached
+        repository = new InMemoryTransactionRepositoryImpl(new SequentialIdGenerator(), Duration.ofDays(1), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.destroy();
+    }
+
+    @Test
+    void should_hide_deleted_transaction_before_it_is_purged() {
+        // Given
+        List<Transaction> saved = saveTransactions(3);
+        Long id = saved.get(1).getId();
+        Transaction copy = repository.findById(id).orElseThrow().copy();
+
+        // When
+        repository.deleteById(id);
+
+        // Then
+        assertThat(repository.pendingPurges()).isEqualTo(1);
+        assertThat(repository.findById(id)).isEmpty();
+        assertThat(repository.findByOrderId("ORD-000002")).isEmpty();
+        assertThat(repository.findAllById(List.of(id))).isEmpty();
+        assertThat(repository.findAll(0, 10)).extracting(Transaction::getOrderId)
+                .containsExactly("ORD-000001", "ORD-000003");
+        assertThat(repository.stream()).hasSize(2);
+        assertThat(repository.count()).isEqualTo(2);
+        assertThatThrownBy(() -> repository.update(copy))
+                .isInstanceOf(TransactionNotFoundException.class);
+    }
+
+    @Test
+    void should_purge_deleted_transactions_in_batches() {
+        // Given
+        List<Transaction> saved = saveTransactions(250);
+        saved.forEach(transaction -> repository.deleteById(transaction.getId()));
+
+        // When/Then
+        assertThat(repository.purge()).isEqualTo(100);
+        assertThat(repository.pendingPurges()).isEqualTo(150);
+        assertThat(repository.purge()).isEqualTo(100);
+        assertThat(repository.purge()).isEqualTo(50);
+        assertThat(repository.purge()).isZero();
+        assertThat(repository.pendingPurges()).isZero();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void should_keep_order_id_of_deleted_transaction_until_it_is_purged() {
+        // Given
+        Long id = repository.save(transaction(1)).getId();
+        repository.deleteById(id);
+
+        // When/Then
+        assertThatThrownBy(() -> repository.save(transaction(1)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.saveAll(List.of(transaction(1), transaction(2))))
+                .extracting(Transaction::getOrderId).containsExactly("ORD-000002");
+        assertThat(repository.findByOrderId("ORD-000001")).isEmpty();
+
+        repository.purge();
+        assertThat(repository.save(transaction(1)).getId()).isNotEqualTo(id);
+    }
+
+    @Test
+    void should_free_order_id_at_once_without_sweeper() {
+        // Given
+        InMemoryTransactionRepositoryImpl inline = new InMemoryTransactionRepositoryImpl();
+        Long id = inline.save(transaction(1)).getId();
+
+        // When
+        inline.deleteById(id);
+
+        // Then
+        assertThat(inline.pendingPurges()).isZero();
+        assertThat(inline.save(transaction(1)).getId()).isNotEqualTo(id);
+    }
+
+    @Test
+    void should_split_into_id_ranges_skipping_deleted_transactions() {
+        // Given
+        saveTransactions(1_000);
+        for (long id = 3; id <= 1_000; id += 3) {
+            repository.deleteById(id);
+        }
+
+        // When
+        List<Spliterator<Transaction>> ranges = new ArrayList<>(List.of(repository.spliterator()));
+        for (int round = 0; round < 3; round++) {
+            List<Spliterator<Transaction>> split = new ArrayList<>();
+            for (Spliterator<Transaction> range : ranges) {
+                Spliterator<Transaction> prefix = range.trySplit();
+                if (prefix != null) {
+                    split.add(prefix);
+                }
+                split.add(range);
+            }
+            ranges = split;
+        }
+
+        // Then
+        assertThat(ranges).hasSize(8);
+        List<Long> seen = new ArrayList<>();
+        for (Spliterator<Transaction> range : ranges) {
+            List<Long> ids = new ArrayList<>();
+            range.forEachRemaining(transaction -> ids.add(transaction.getId()));
+            assertThat(ids).isNotEmpty().isSorted();
+            seen.addAll(ids);
+        }
+        assertThat(seen).isSorted().hasSize(667).doesNotContain(3L, 999L);
+    }
+
+    @Nested
+    class Contract extends TransactionRepositoryContract {
+
+        @Override
+        protected TransactionRepository createRepository() {
+            return new InMemoryTransactionRepositoryImpl();
+        }
+    }
+
+    private List<Transaction> saveTransactions(int count) {
+        List<Transaction> saved = new ArrayList<>(count);
+        for (int order = 1; order <= count; order++) {
+            saved.add(repository.save(transaction(order)));
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,282 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JdbcTransactionRepositoryImplTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcConnectionPool pool;
+    private JdbcTransactionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        pool = openPool();
+        repository = new JdbcTransactionRepositoryImpl(pool, new SequentialIdGenerator());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void should_read_back_saved_transaction() {
+        // Given
+        Transaction saved = repository.save(transaction(1));
+
+        // When
+        Transaction found = repository.findById(saved.getId()).orElseThrow();
+
+        // Then
+        assertThat(found.getOrderId()).isEqualTo(saved.getOrderId());
+        assertThat(found.getAccountId()).isEqualTo(saved.getAccountId());
+        assertThat(found.getAmount()).isEqualByComparingTo(saved.getAmount());
+        assertThat(found.getType()).isEqualTo(saved.getType());
+        assertThat(found.getCategory()).isEqualTo(saved.getCategory());
+        assertThat(found.getDescription()).isEqualTo(saved.getDescription());
+        assertThat(found.getCreatedAt()).isEqualTo(saved.getCreatedAt());
+        assertThat(found.getVersion()).isZero();
+        assertThat(repository.findByOrderId("ORD-000001"))
+                .hasValueSatisfying(byOrder -> assertThat(byOrder.getId()).isEqualTo(saved.getId()));
+        assertThat(repository.findById(999L)).isEmpty();
+    }
+
+    @Test
+    void should_reject_duplicate_order_id() {
+        // Given
+        repository.save(transaction(1));
+
+        // When/Then
+        assertThatThrownBy(() -> repository.save(transaction(1)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_skip_duplicates_of_a_batch() {
+        // Given
+        repository.save(transaction(2));
+        List<Transaction> batch = List.of(transaction(1), transaction(2), transaction(3), transaction(3));
+
+        // When
+        List<Transaction> saved = repository.saveAll(batch);
+
+        // Then
+        assertThat(saved).extracting(Transaction::getOrderId).containsExactly("ORD-000001", "ORD-000003");
+        assertThat(batch.get(1).getId()).isNull();
+        assertThat(batch.get(3).getId()).isNull();
+        assertThat(repository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void should_check_version_on_update() {
+        // Given
+        Transaction saved = repository.save(transaction(1));
+        Transaction current = repository.findById(saved.getId()).orElseThrow();
+        Transaction stale = repository.findById(saved.getId()).orElseThrow();
+
+        // When
+        current.setCategory(TransactionCategory.BONUS);
+        repository.update(current);
+
+        // Then
+        assertThat(current.getVersion()).isEqualTo(1);
+        assertThat(repository.findById(saved.getId())).hasValueSatisfying(found -> {
+            assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS);
+            assertThat(found.getVersion()).isEqualTo(1);
+        });
+        assertThatThrownBy(() -> repository.update(stale))
+                .isInstanceOf(ConcurrentUpdateException.class);
+
+        // When
+        repository.deleteById(saved.getId());
+
+        // Then
+        assertThatThrownBy(() -> repository.update(current))
+                .isInstanceOf(TransactionNotFoundException.class);
+    }
+
+    @Test
+    void should_page_by_offset_and_by_id() {
+        // Given
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 1; i <= 2_500; i++) {
+            batch.add(transaction(i));
+        }
+        repository.saveAll(batch);
+
+        // When
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        List<Transaction> page;
+        while (!(page = repository.findAfter(afterId, 700)).isEmpty()) {
+            page.forEach(transaction -> ids.add(transaction.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        // Then
+        assertThat(ids).hasSize(2_500).isSorted().doesNotHaveDuplicates();
+        assertThat(repository.findAll(1_998, 3)).extracting(Transaction::getId)
+                .containsExactly(1_999L, 2_000L, 2_001L);
+        assertThat(repository.stream().map(Transaction::getId).toList()).isEqualTo(ids);
+        assertThat(repository.findAllById(List.of(3L, 2_400L, 9_999L))).extracting(Transaction::getId)
+                .containsExactlyInAnyOrder(3L, 2_400L);
+    }
+
+    @Test
+    void should_continue_ids_after_reopen() {
+        // Given
+        repository.save(transaction(1));
+        repository.save(transaction(2));
+        pool.close();
+
+        // When
+        pool = openPool();
+        repository = new JdbcTransactionRepositoryImpl(pool, new SequentialIdGenerator());
+
+        // Then
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.save(transaction(3)).getId()).isEqualTo(3);
+    }
+
+    @Test
+    void should_not_hand_out_ids_of_deleted_newest_transactions_after_reopen() {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            repository.save(transaction(i));
+        }
+        repository.deleteById(5L);
+        repository.deleteIfVersion(4L, 0);
+        pool.close();
+
+        // When
+        pool = openPool();
+        repository = new JdbcTransactionRepositoryImpl(pool, new SequentialIdGenerator());
+
+        // Then
+        assertThat(repository.count()).isEqualTo(3);
+        assertThat(repository.save(transaction(6)).getId()).isEqualTo(6);
+    }
+
+    @Test
+    void should_continue_after_the_fence_of_a_restored_backup_after_reopen() {
+        // Given
+        List<Transaction> backup = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            backup.add(repository.save(transaction(i)).copy());
+        }
+        repository.restore(backup, 50);
+        pool.close();
+
+        // When
+        pool = openPool();
+        repository = new JdbcTransactionRepositoryImpl(pool, new SequentialIdGenerator());
+
+        // Then
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.save(transaction(3)).getId()).isEqualTo(51);
+    }
+
+    @Test
+    void should_find_audit_logs_by_entity() {
+        // Given
+        JdbcAuditLogRepositoryImpl auditLogs = new JdbcAuditLogRepositoryImpl(pool, new SequentialIdGenerator());
+        auditLogs.save(new AuditLog("CREATE", "Transaction", "1", "created"));
+        auditLogs.save(new AuditLog("UPDATE", "Transaction", "1", "updated"));
+        auditLogs.save(new AuditLog("CREATE", "Transaction", "2", "created"));
+
+        // When
+        List<AuditLog> found = auditLogs.findByEntityTypeAndEntityId("Transaction", "1");
+
+        // Then
+        assertThat(found).extracting(AuditLog::getOperation).containsExactly("CREATE", "UPDATE");
+        assertThat(found.get(0).getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void should_replace_audit_logs_on_restore() {
+        // Given
+        JdbcAuditLogRepositoryImpl auditLogs = new JdbcAuditLogRepositoryImpl(pool, new SequentialIdGenerator());
+        AuditLog kept = auditLogs.save(new AuditLog("CREATE", "Transaction", "1", "created"));
+        auditLogs.save(new AuditLog("CREATE", "Transaction", "2", "created"));
+
+        // When
+        auditLogs.restore(List.of(kept));
+
+        // Then
+        assertThat(auditLogs.stream()).extracting(AuditLog::getId).containsExactly(kept.getId());
+        assertThat(auditLogs.findByEntityTypeAndEntityId("Transaction", "2")).isEmpty();
+        assertThat(auditLogs.save(new AuditLog("UPDATE", "Transaction", "1", "updated")).getId())
+                .isGreaterThan(kept.getId());
+    }
+
+    @Test
+    void should_reopen_a_broken_connection_once_the_database_is_back() throws Exception {
+        // Given - the only connection broke, then its database went away
+        String url = "jdbc:h2:file:" + directory.resolve("flaky").toAbsolutePath();
+        DriverManager.getConnection(url, "sa", "").close();
+        Path file = directory.resolve("flaky.mv.db");
+        try (JdbcConnectionPool flaky = new JdbcConnectionPool(url + ";IFEXISTS=TRUE", "sa", "", 1,
+                Duration.ofMillis(200))) {
+            assertThatThrownBy(() -> flaky.execute(connection -> {
+                throw new SQLException("Connection lost", "08006");
+            })).hasMessage("Connection lost");
+            Files.move(file, directory.resolve("moved.mv.db"));
+
+            // When/Then - callers fail on the reconnect, not on a pool that lost its connection
+            assertThatThrownBy(() -> flaky.execute(connection -> true))
+                    .isInstanceOf(SQLException.class)
+                    .hasMessageContaining("not found");
+            Files.move(directory.resolve("moved.mv.db"), file);
+            boolean selected = flaky.execute(connection -> connection.prepare("SELECT 1").executeQuery().next());
+            assertThat(selected).isTrue();
+            assertThat(flaky.size()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    class Contract extends TransactionRepositoryContract {
+        private JdbcConnectionPool contractPool;
+
+        @Override
+        protected TransactionRepository createRepository() {
+            contractPool = new JdbcConnectionPool("jdbc:h2:file:" + directory.resolve("contract").toAbsolutePath(),
+                    "sa", "", 4, Duration.ofSeconds(5));
+            return new JdbcTransactionRepositoryImpl(contractPool, new SequentialIdGenerator());
+        }
+
+        @Override
+        protected void closeRepository(TransactionRepository repository) {
+            contractPool.close();
+        }
+    }
+
+    private JdbcConnectionPool openPool() {
+        return new JdbcConnectionPool("jdbc:h2:file:" + directory.resolve("transactions").toAbsolutePath(),
+                "sa", "", 4, Duration.ofSeconds(5));
+    }
+}
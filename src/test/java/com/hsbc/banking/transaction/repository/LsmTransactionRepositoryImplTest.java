@@ -0,0 +1,242 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LsmTransactionRepositoryImplTest {
+    // Small memtables so a few hundred transactions go through several flushes and level 0 compactions,
+    // while level 1 stays the bottom level and compaction can drop tombstones there
+    private static final LsmStore.Options OPTIONS = new LsmStore.Options(false, 16 * 1024, 8 * 1024, 1024,
+            10, 2, 256 * 1024);
+
+    @TempDir
+    Path directory;
+
+    private LsmTransactionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.destroy();
+    }
+
+    @Test
+    void should_read_transactions_from_flushed_tables() {
+        // Given
+        List<Transaction> saved = saveTransactions(500);
+
+        // When
+        repository.flush();
+
+        // Then
+        assertThat(repository.stats().flushes()).isGreaterThan(1);
+        assertThat(repository.count()).isEqualTo(500);
+        for (Transaction transaction : saved) {
+            Transaction found = repository.findById(transaction.getId()).orElseThrow();
+            assertThat(found.getOrderId()).isEqualTo(transaction.getOrderId());
+            assertThat(found.getAmount()).isEqualByComparingTo(transaction.getAmount());
+            assertThat(found.getDescription()).isEqualTo(transaction.getDescription());
+            assertThat(found.getCreatedAt()).isEqualTo(transaction.getCreatedAt());
+            assertThat(repository.findByOrderId(transaction.getOrderId()))
+                    .hasValueSatisfying(byOrder -> assertThat(byOrder.getId()).isEqualTo(transaction.getId()));
+        }
+        assertThat(repository.findById(999L)).isEmpty();
+        assertThat(repository.findByOrderId("ORD-999999")).isEmpty();
+    }
+
+    @Test
+    void should_list_transactions_in_id_order() {
+        // Given
+        saveTransactions(300);
+        repository.flush();
+        saveTransactions(20);
+
+        // When
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        List<Transaction> page;
+        while (!(page = repository.findAfter(afterId, 70)).isEmpty()) {
+            page.forEach(transaction -> ids.add(transaction.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        // Then
+        assertThat(ids).hasSize(320).isSorted().doesNotHaveDuplicates();
+        assertThat(repository.findAll(295, 10)).extracting(Transaction::getId)
+                .containsExactly(296L, 297L, 298L, 299L, 300L, 301L, 302L, 303L, 304L, 305L);
+    }
+
+    @Test
+    void should_update_with_version_check() {
+        // Given
+        Transaction saved = saveTransactions(1).get(0);
+        repository.flush();
+        Transaction current = repository.findById(saved.getId()).orElseThrow();
+        Transaction stale = repository.findById(saved.getId()).orElseThrow();
+
+        // When
+        current.setCategory(TransactionCategory.BONUS);
+        repository.update(current);
+
+        // Then
+        assertThat(repository.findById(saved.getId())).hasValueSatisfying(found -> {
+            assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS);
+            assertThat(found.getVersion()).isEqualTo(1);
+        });
+        assertThatThrownBy(() -> repository.update(stale))
+                .isInstanceOf(ConcurrentUpdateException.class);
+    }
+
+    @Test
+    void should_keep_order_ids_reserved_until_deleted() {
+        // Given
+        Transaction saved = saveTransactions(1).get(0);
+        repository.flush();
+
+        // When/Then
+        assertThatThrownBy(() -> repository.save(transaction(1)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.saveAll(List.of(transaction(1), transaction(2)))).hasSize(1);
+
+        // When
+        repository.deleteById(saved.getId());
+
+        // Then
+        assertThat(repository.findById(saved.getId())).isEmpty();
+        assertThat(repository.findByOrderId(saved.getOrderId())).isEmpty();
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.save(transaction(1)).getId()).isNotEqualTo(saved.getId());
+    }
+
+    @Test
+    void should_recover_flushed_and_logged_transactions_after_reopen() throws IOException {
+        // Given
+        saveTransactions(300);
+        repository.flush();
+        List<Transaction> logged = saveTransactions(5);
+        repository.deleteById(1L);
+        repository.destroy();
+
+        // When
+        repository = open();
+
+        // Then
+        assertThat(repository.count()).isEqualTo(304);
+        assertThat(repository.findById(1L)).isEmpty();
+        assertThat(repository.findByOrderId(logged.get(4).getOrderId())).isPresent();
+        assertThat(repository.save(transaction(1000)).getId()).isEqualTo(306);
+    }
+
+    @Test
+    void should_not_hand_out_ids_of_deleted_newest_transactions_after_reopen() throws IOException {
+        // Given - the two newest transactions deleted, one of them after a flush
+        saveTransactions(10);
+        repository.deleteById(10L);
+        repository.flush();
+        repository.deleteById(9L);
+        repository.destroy();
+
+        // When
+        repository = open();
+
+        // Then
+        assertThat(repository.count()).isEqualTo(8);
+        assertThat(repository.save(transaction(100)).getId()).isEqualTo(11);
+    }
+
+    @Test
+    void should_continue_after_the_fence_of_a_restored_backup_after_reopen() throws IOException {
+        // Given
+        List<Transaction> backup = saveTransactions(3).stream().map(Transaction::copy).toList();
+        repository.restore(backup, 50);
+        repository.destroy();
+
+        // When
+        repository = open();
+
+        // Then
+        assertThat(repository.count()).isEqualTo(3);
+        assertThat(repository.save(transaction(100)).getId()).isEqualTo(51);
+    }
+
+    @Test
+    void should_drop_deleted_transactions_in_compaction() {
+        // Given
+        List<Transaction> saved = saveTransactions(400);
+        repository.flush();
+        long storedBeforeDelete = repository.stats().tableEntries();
+
+        // When
+        saved.forEach(transaction -> repository.deleteById(transaction.getId()));
+        repository.flush();
+
+        // Then
+        assertThat(repository.count()).isZero();
+        assertThat(repository.findAll(0, 10)).isEmpty();
+        assertThat(repository.stats().compactions()).isPositive();
+        assertThat(repository.stats().tableEntries()).isLessThan(storedBeforeDelete);
+    }
+
+    @Test
+    void should_delete_files_on_clear() throws IOException {
+        // Given
+        saveTransactions(300);
+        repository.flush();
+
+        // When
+        repository.clear();
+
+        // Then
+        assertThat(repository.count()).isZero();
+        assertThat(repository.findById(1L)).isEmpty();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .noneMatch(name -> name.endsWith(".sst"));
+        }
+        assertThat(repository.save(transaction(1)).getId()).isEqualTo(1);
+    }
+
+    @Nested
+    class Contract extends TransactionRepositoryContract {
+
+        @Override
+        protected TransactionRepository createRepository() {
+            return new LsmTransactionRepositoryImpl(new SequentialIdGenerator(), directory.resolve("contract"), OPTIONS);
+        }
+    }
+
+    private LsmTransactionRepositoryImpl open() {
+        return new LsmTransactionRepositoryImpl(new SequentialIdGenerator(), directory, OPTIONS);
+    }
+
+    private List<Transaction> saveTransactions(int count) {
+        int first = (int) repository.count() + 1;
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            saved.add(repository.save(transaction(i)));
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,161 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.model.Transaction;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedTransactionRepositoryImplTest {
+
+    private final ShardedTransactionRepositoryImpl repository = new ShardedTransactionRepositoryImpl(4);
+
+    @Test
+    void should_find_transactions_saved_to_different_shards_by_id_and_order_id() {
+        // Given
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            saved.add(repository.save(transaction(i, i)));
+        }
+
+        // When/Then
+        for (Transaction transaction : saved) {
+            assertThat(repository.findById(transaction.getId())).containsSame(transaction);
+            assertThat(repository.findByOrderId(transaction.getOrderId())).containsSame(transaction);
+        }
+        assertThat(saved).extracting(Transaction::getId).doesNotHaveDuplicates();
+        assertThat(repository.count()).isEqualTo(20);
+    }
+
+    @Test
+    void should_reject_order_id_used_by_account_of_another_shard() {
+        // Given
+        repository.save(transaction(1, 1));
+        Transaction sameOrder = transaction(1, 2);
+        assertThat(repository.shardIndexOf(sameOrder.getAccountId()))
+                .isNotEqualTo(repository.shardIndexOf("ACC-000001"));
+
+        // When/Then
+        assertThatThrownBy(() -> repository.save(sameOrder))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.saveAll(List.of(sameOrder, transaction(2, 2)))).hasSize(1);
+    }
+
+    @Test
+    void should_list_pages_merged_across_shards_in_id_order() {
+        // Given
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            batch.add(transaction(i, i % 7));
+        }
+        repository.saveAll(batch);
+        List<Long> allIds = batch.stream().map(Transaction::getId).sorted().toList();
+
+        // When
+        List<Transaction> firstPage = repository.findAll(0, 20);
+        List<Transaction> lastPage = repository.findAll(40, 20);
+
+        // Then
+        assertThat(firstPage).extracting(Transaction::getId).containsExactlyElementsOf(allIds.subList(0, 20));
+        assertThat(lastPage).extracting(Transaction::getId).containsExactlyElementsOf(allIds.subList(40, 50));
+    }
+
+    @Test
+    void should_split_into_ranges_covering_every_transaction_once() {
+        // Given
+        for (int i = 1; i <= 200; i++) {
+            repository.save(transaction(i, i % 13));
+        }
+
+        // When
+        List<Spliterator<Transaction>> ranges = new ArrayList<>(List.of(repository.spliterator()));
+        for (int round = 0; round < 4; round++) {
+            List<Spliterator<Transaction>> split = new ArrayList<>();
+            for (Spliterator<Transaction> range : ranges) {
+                Spliterator<Transaction> prefix = range.trySplit();
+                if (prefix != null) {
+                    split.add(prefix);
+                }
+                split.add(range);
+            }
+            ranges = split;
+        }
+
+        // Then
+        Set<Long> seen = new HashSet<>();
+        for (Spliterator<Transaction> range : ranges) {
+            long[] previous = {Long.MIN_VALUE};
+            range.forEachRemaining(transaction -> {
+                assertThat(transaction.getId()).isGreaterThan(previous[0]);
+                previous[0] = transaction.getId();
+                assertThat(seen.add(transaction.getId())).isTrue();
+            });
+        }
+        assertThat(seen).hasSize(200);
+    }
+
+    @Test
+    void should_assign_unique_ids_to_concurrent_writers() throws Exception {
+        // Given
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int base = thread * 1_000;
+            futures.add(writers.submit(() -> {
+                for (int i = 1; i <= 1_000; i++) {
+                    repository.save(transaction(base + i, i % 5));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        writers.shutdown();
+
+        // Then
+        assertThat(repository.count()).isEqualTo(8_000);
+        assertThat(repository.stream().map(Transaction::getId).distinct().count()).isEqualTo(8_000);
+    }
+
+    @Test
+    void should_remove_deleted_transaction_and_free_its_order_id() {
+        // Given
+        Transaction transaction = repository.save(transaction(1, 1));
+
+        // When
+        repository.deleteById(transaction.getId());
+
+        // Then
+        assertThat(repository.findById(transaction.getId())).isEmpty();
+        assertThat(repository.count()).isZero();
+        assertThat(repository.save(transaction(1, 2)).getId()).isNotNull();
+    }
+
+    @Nested
+    class Contract extends TransactionRepositoryContract {
+
+        @Override
+        protected TransactionRepository createRepository() {
+            return new ShardedTransactionRepositoryImpl(4);
+        }
+    }
+
+    private static Transaction transaction(int order, int account) {
+        return Transaction.create(String.format("ORD-%06d", order), String.format("ACC-%06d", account),
+                new BigDecimal("10.00"), "CREDIT", "SALARY", "Sharding test");
+    }
+}
@@ -0,0 +1,281 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TieredTransactionRepositoryImplTest {
+
+    @TempDir
+    Path directory;
+
+    private TieredTransactionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        // Everything already written is old enough to move, moves only run when the test asks
+        repository = new TieredTransactionRepositoryImpl(new SequentialIdGenerator(), directory,
+                Duration.ZERO, 100, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        repository.destroy();
+    }
+
+    @Test
+    void should_read_migrated_transactions_from_segments() throws Exception {
+        // Given
+        List<Transaction> saved = saveTransactions(250);
+
+        // When
+        int migrated = repository.migrate();
+
+        // Then
+        assertThat(migrated).isEqualTo(250);
+        assertThat(repository.hotCount()).isZero();
+        assertThat(repository.segmentCount()).isEqualTo(3);
+        assertThat(repository.count()).isEqualTo(250);
+        for (Transaction transaction : saved) {
+            Transaction cold = repository.findById(transaction.getId()).orElseThrow();
+            assertThat(cold.getOrderId()).isEqualTo(transaction.getOrderId());
+            assertThat(cold.getAmount()).isEqualByComparingTo(transaction.getAmount());
+            assertThat(cold.getCategory()).isEqualTo(transaction.getCategory());
+            assertThat(cold.getDescription()).isEqualTo(transaction.getDescription());
+            assertThat(cold.getCreatedAt()).isEqualTo(transaction.getCreatedAt());
+            assertThat(repository.findByOrderId(transaction.getOrderId()))
+                    .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(transaction.getId()));
+        }
+        assertThat(repository.findById(999L)).isEmpty();
+    }
+
+    @Test
+    void should_list_both_tiers_in_id_order() throws Exception {
+        // Given
+        saveTransactions(150);
+        repository.migrate();
+        saveTransactions(30);
+
+        // When
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        List<Transaction> page;
+        while (!(page = repository.findAfter(afterId, 40)).isEmpty()) {
+            page.forEach(transaction -> ids.add(transaction.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        // Then
+        assertThat(ids).hasSize(180).isSorted().doesNotHaveDuplicates();
+        assertThat(repository.findAll(145, 10)).extracting(Transaction::getId)
+                .containsExactly(146L, 147L, 148L, 149L, 150L, 151L, 152L, 153L, 154L, 155L);
+    }
+
+    @Test
+    void should_move_updated_cold_transaction_back_to_hot_tier() throws Exception {
+        // Given
+        Transaction saved = saveTransactions(1).get(0);
+        repository.migrate();
+        Transaction cold = repository.findById(saved.getId()).orElseThrow();
+        Transaction stale = repository.findById(saved.getId()).orElseThrow();
+
+        // When
+        cold.setCategory(TransactionCategory.BONUS);
+        repository.update(cold);
+
+        // Then
+        assertThat(repository.hotCount()).isEqualTo(1);
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.findById(saved.getId())).hasValueSatisfying(found -> {
+            assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS);
+            assertThat(found.getVersion()).isEqualTo(1);
+        });
+        assertThat(repository.findAll(0, 10)).hasSize(1);
+        assertThatThrownBy(() -> repository.update(stale))
+                .isInstanceOf(ConcurrentUpdateException.class);
+    }
+
+    @Test
+    void should_keep_order_ids_of_cold_transactions_reserved_until_deleted() throws Exception {
+        // Given
+        Transaction saved = saveTransactions(1).get(0);
+        repository.migrate();
+
+        // When/Then
+        assertThatThrownBy(() -> repository.save(transaction(1)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.saveAll(List.of(transaction(1), transaction(2)))).hasSize(1);
+
+        // When
+        repository.deleteById(saved.getId());
+
+        // Then
+        assertThat(repository.findById(saved.getId())).isEmpty();
+        assertThat(repository.findByOrderId(saved.getOrderId())).isEmpty();
+        assertThat(repository.save(transaction(1)).getId()).isNotEqualTo(saved.getId());
+    }
+
+    @Test
+    void should_compact_segments_without_their_tombstoned_rows() throws Exception {
+        // Given - the oldest segment keeps 40 of its rows, the next one 50
+        saveTransactions(250);
+        repository.migrate();
+        for (long id = 1; id <= 60; id++) {
+            repository.deleteById(id);
+        }
+        for (long id = 101; id <= 150; id++) {
+            repository.update(repository.findById(id).orElseThrow());
+        }
+
+        // When
+        int replaced = repository.compact();
+
+        // Then
+        assertThat(replaced).isEqualTo(2);
+        assertThat(repository.segmentCount()).isEqualTo(2);
+        assertThat(repository.compact()).isZero();
+        assertThat(directory.toFile().list()).hasSize(2);
+        assertThat(repository.count()).isEqualTo(190);
+        assertThat(repository.findById(60L)).isEmpty();
+        assertThat(repository.findById(61L)).hasValueSatisfying(found ->
+                assertThat(found.getOrderId()).isEqualTo("ORD-000061"));
+        assertThat(repository.findByOrderId("ORD-000120")).hasValueSatisfying(found ->
+                assertThat(found.getVersion()).isEqualTo(1));
+        assertThat(repository.findAfter(0, 500)).extracting(Transaction::getId)
+                .hasSize(190).isSorted().doesNotHaveDuplicates();
+        assertThatThrownBy(() -> repository.save(transaction(61)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.save(transaction(1)).getId()).isEqualTo(251);
+    }
+
+    @Test
+    void should_rewrite_a_segment_with_a_quarter_of_its_rows_tombstoned() throws Exception {
+        // Given
+        saveTransactions(100);
+        repository.migrate();
+        for (long id = 1; id <= 25; id++) {
+            repository.deleteById(id);
+        }
+
+        // When
+        int replaced = repository.compact();
+
+        // Then
+        assertThat(replaced).isEqualTo(1);
+        assertThat(repository.segmentCount()).isEqualTo(1);
+        assertThat(repository.count()).isEqualTo(75);
+        assertThat(repository.stream().map(Transaction::getId).toList()).hasSize(75).startsWith(26L);
+        repository.deleteById(26L);
+        assertThat(repository.findById(26L)).isEmpty();
+        assertThat(repository.count()).isEqualTo(74);
+    }
+
+    @Test
+    void should_keep_a_row_whose_older_copy_is_tombstoned_in_a_compacted_segment() throws Exception {
+        // Given - the first segment holds a tombstoned copy, the second the current one
+        Transaction saved = saveTransactions(1).get(0);
+        repository.migrate();
+        repository.update(repository.findById(saved.getId()).orElseThrow());
+        repository.migrate();
+
+        // When
+        repository.compact();
+
+        // Then
+        assertThat(repository.segmentCount()).isEqualTo(1);
+        assertThat(repository.findById(saved.getId())).hasValueSatisfying(found ->
+                assertThat(found.getVersion()).isEqualTo(1));
+        assertThat(repository.findByOrderId(saved.getOrderId())).isPresent();
+    }
+
+    @Test
+    void should_keep_iterating_across_a_compaction() throws Exception {
+        // Given
+        saveTransactions(250);
+        repository.migrate();
+        for (long id = 1; id <= 250; id += 2) {
+            repository.deleteById(id);
+        }
+        Iterator<Transaction> iterator = repository.stream().iterator();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            ids.add(iterator.next().getId());
+        }
+
+        // When
+        repository.compact();
+        iterator.forEachRemaining(transaction -> ids.add(transaction.getId()));
+
+        // Then
+        assertThat(repository.segmentCount()).isEqualTo(2);
+        assertThat(ids).hasSize(125).isSorted().doesNotHaveDuplicates().allMatch(id -> id % 2 == 0);
+    }
+
+    @Test
+    void should_keep_recent_transactions_hot() throws Exception {
+        // Given
+        TieredTransactionRepositoryImpl recentOnly = new TieredTransactionRepositoryImpl(new SequentialIdGenerator(),
+                directory.resolve("recent"), Duration.ofHours(1), 100, Duration.ZERO);
+        recentOnly.save(transaction(1));
+
+        // When
+        int migrated = recentOnly.migrate();
+
+        // Then
+        assertThat(migrated).isZero();
+        assertThat(recentOnly.hotCount()).isEqualTo(1);
+        assertThat(recentOnly.segmentCount()).isZero();
+    }
+
+    @Test
+    void should_delete_segments_on_clear() throws Exception {
+        // Given
+        saveTransactions(10);
+        repository.migrate();
+
+        // When
+        repository.clear();
+
+        // Then
+        assertThat(repository.count()).isZero();
+        assertThat(repository.segmentCount()).isZero();
+        assertThat(directory).isEmptyDirectory();
+        assertThat(repository.save(transaction(1)).getId()).isEqualTo(1);
+    }
+
+    @Nested
+    class Contract extends TransactionRepositoryContract {
+
+        @Override
+        protected TransactionRepository createRepository() {
+            // Migrations every few milliseconds, so the contract also runs while rows move between tiers
+            return new TieredTransactionRepositoryImpl(new SequentialIdGenerator(), directory.resolve("contract"),
+                    Duration.ZERO, 100, Duration.ofMillis(10));
+        }
+    }
+
+    private List<Transaction> saveTransactions(int count) {
+        int first = (int) repository.count() + 1;
+        List<Transaction> saved = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            saved.add(repository.save(transaction(i)));
+        }
+        return saved;
+    }
+}
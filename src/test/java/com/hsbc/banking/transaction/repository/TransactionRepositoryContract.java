@@ -0,0 +1,373 @@
+package com.hsbc.banking.transaction.repository;
+
+import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
+import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
+import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Behaviour every {@link TransactionRepository} has to share, whatever it stores transactions in. An
+ * implementation's test runs it from a {@code @Nested} subclass that creates a fresh, empty repository.
+ * Nothing here assumes how IDs are assigned beyond being unique and increasing in listing order.
+ */
+public abstract class TransactionRepositoryContract {
+    private static final int WRITERS = 8;
+
+    private TransactionRepository repository;
+
+    protected abstract TransactionRepository createRepository() throws Exception;
+
+    protected void closeRepository(TransactionRepository repository) throws Exception {
+        if (repository instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    @BeforeEach
+    void createContractRepository() throws Exception {
+        repository = createRepository();
+    }
+
+    @AfterEach
+    void closeContractRepository() throws Exception {
+        closeRepository(repository);
+    }
+
+    @Test
+    void should_find_saved_transaction_by_id_and_order_id() {
+        // Given
+        Transaction saved = repository.save(transaction(1));
+
+        // When
+        Transaction byId = repository.findById(saved.getId()).orElseThrow();
+        Transaction byOrderId = repository.findByOrderId("ORD-000001").orElseThrow();
+
+        // Then
+        assertThat(saved.getId()).isNotNull();
+        assertThat(byOrderId.getId()).isEqualTo(saved.getId());
+        assertThat(byId.getOrderId()).isEqualTo("ORD-000001");
+        assertThat(byId.getAccountId()).isEqualTo("ACC-123456");
+        assertThat(byId.getAmount()).isEqualByComparingTo("10.50");
+        assertThat(byId.getCategory()).isEqualTo(TransactionCategory.SALARY);
+        assertThat(byId.getDescription()).isNull();
+        assertThat(byId.getCreatedAt()).isEqualTo(saved.getCreatedAt());
+        assertThat(byId.getVersion()).isZero();
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_return_empty_for_unknown_id_and_order_id() {
+        // Given
+        Transaction saved = repository.save(transaction(1));
+
+        // When/Then
+        assertThat(repository.findById(saved.getId() + 1_000_000)).isEmpty();
+        assertThat(repository.findByOrderId("ORD-999999")).isEmpty();
+        assertThat(repository.findAllById(List.of(saved.getId() + 1_000_000))).isEmpty();
+    }
+
+    @Test
+    void should_reject_duplicate_order_id() {
+        // Given
+        repository.save(transaction(1));
+
+        // When/Then
+        assertThatThrownBy(() -> repository.save(transaction(1)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_skip_stored_and_repeated_order_ids_in_batch() {
+        // Given
+        repository.save(transaction(2));
+        List<Transaction> batch = List.of(transaction(1), transaction(2), transaction(3), transaction(3));
+
+        // When
+        List<Transaction> saved = repository.saveAll(batch);
+
+        // Then
+        assertThat(saved).extracting(Transaction::getOrderId).containsExactly("ORD-000001", "ORD-000003");
+        assertThat(batch.get(1).getId()).isNull();
+        assertThat(batch.get(3).getId()).isNull();
+        assertThat(repository.count()).isEqualTo(3);
+        assertThat(repository.saveAll(List.of())).isEmpty();
+    }
+
+    @Test
+    void should_increment_version_and_reject_stale_update() {
+        // Given
+        Long id = repository.save(transaction(1)).getId();
+        Transaction first = repository.findById(id).orElseThrow().copy();
+        Transaction stale = repository.findById(id).orElseThrow().copy();
+
+        // When
+        first.setCategory(TransactionCategory.BONUS);
+        Transaction updated = repository.update(first);
+
+        // Then
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(repository.findById(id)).hasValueSatisfying(found -> {
+            assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS);
+            assertThat(found.getVersion()).isEqualTo(1);
+        });
+        assertThatThrownBy(() -> repository.update(stale))
+                .isInstanceOf(ConcurrentUpdateException.class);
+        assertThat(repository.findById(id).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void should_reject_update_of_unknown_or_deleted_transaction() {
+        // Given
+        Transaction saved = repository.save(transaction(1));
+        Transaction copy = repository.findById(saved.getId()).orElseThrow().copy();
+        repository.deleteById(saved.getId());
+
+        // When/Then
+        assertThatThrownBy(() -> repository.update(copy))
+                .isInstanceOf(TransactionNotFoundException.class);
+        assertThat(repository.findById(saved.getId())).isEmpty();
+    }
+
+    // Keeping the order ID taken for a while after the delete is up to the service, see OrderIdRetention
+    @Test
+    void should_free_order_id_of_deleted_transaction() {
+        // Given
+        Transaction saved = repository.save(transaction(1));
+        repository.save(transaction(2));
+
+        // When
+        repository.deleteById(saved.getId());
+        repository.deleteById(saved.getId());
+
+        // Then
+        assertThat(repository.count()).isEqualTo(1);
+        assertThat(repository.findByOrderId("ORD-000001")).isEmpty();
+        assertThat(repository.save(transaction(1)).getId()).isNotEqualTo(saved.getId());
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void should_delete_only_the_expected_version() {
+        // Given
+        Long id = repository.save(transaction(1)).getId();
+        Transaction updated = repository.findById(id).orElseThrow().copy();
+        updated.setCategory(TransactionCategory.BONUS);
+        repository.update(updated);
+
+        // When/Then
+        assertThat(repository.deleteIfVersion(id, 0)).isFalse();
+        assertThat(repository.findById(id)).isPresent();
+        assertThat(repository.deleteIfVersion(id, 1)).isTrue();
+        assertThat(repository.findById(id)).isEmpty();
+        assertThat(repository.deleteIfVersion(id, 1)).isFalse();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void should_page_over_every_transaction_once_in_id_order() {
+        // Given
+        saveTransactions(1, 250);
+
+        // When
+        List<Long> walked = new ArrayList<>();
+        long afterId = 0;
+        List<Transaction> page;
+        while (!(page = repository.findAfter(afterId, 40)).isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(40);
+            page.forEach(transaction -> walked.add(transaction.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        // Then
+        List<Long> streamed = repository.stream().map(Transaction::getId).toList();
+        assertThat(walked).hasSize(250).isSorted().doesNotHaveDuplicates().isEqualTo(streamed);
+        assertThat(repository.findAll(0, 250)).extracting(Transaction::getId).isEqualTo(streamed);
+        assertThat(repository.findAll(245, 10)).extracting(Transaction::getId)
+                .isEqualTo(streamed.subList(245, 250));
+        assertThat(repository.findAllById(List.of(streamed.get(7), streamed.get(99))))
+                .extracting(Transaction::getId).containsExactlyInAnyOrder(streamed.get(7), streamed.get(99));
+    }
+
+    @Test
+    void should_return_empty_pages_at_the_edges() {
+        // Given
+        saveTransactions(1, 5);
+        long lastId = repository.findAll(4, 1).get(0).getId();
+
+        // When/Then
+        assertThat(repository.findAll(5, 10)).isEmpty();
+        assertThat(repository.findAll(100, 10)).isEmpty();
+        assertThat(repository.findAll(0, 0)).isEmpty();
+        assertThat(repository.findAfter(lastId, 10)).isEmpty();
+        assertThat(repository.findAfter(0, 0)).isEmpty();
+        assertThat(repository.findAfter(0, 100)).hasSize(5);
+    }
+
+    @Test
+    void should_be_empty_after_clear() {
+        // Given
+        saveTransactions(1, 20);
+
+        // When
+        repository.clear();
+
+        // Then
+        assertThat(repository.count()).isZero();
+        assertThat(repository.findAll(0, 10)).isEmpty();
+        assertThat(repository.stream()).isEmpty();
+        assertThat(repository.findByOrderId("ORD-000001")).isEmpty();
+        assertThat(repository.save(transaction(1)).getId()).isNotNull();
+    }
+
+    @Test
+    void should_restore_transactions_with_their_ids_and_versions() {
+        // Given
+        saveTransactions(1, 5);
+        Transaction updated = repository.findByOrderId("ORD-000002").orElseThrow().copy();
+        updated.setCategory(TransactionCategory.BONUS);
+        repository.update(updated);
+        repository.deleteById(repository.findByOrderId("ORD-000004").orElseThrow().getId());
+        List<Transaction> backup = repository.stream().map(Transaction::copy).toList();
+        long idFence = backup.get(backup.size() - 1).getId() + 1_000;
+        repository.clear();
+        saveTransactions(10, 12);
+
+        // When
+        repository.restore(backup, idFence);
+
+        // Then
+        assertThat(repository.count()).isEqualTo(4);
+        assertThat(repository.stream()).extracting(Transaction::getId)
+                .isEqualTo(backup.stream().map(Transaction::getId).toList());
+        Transaction restored = repository.findByOrderId("ORD-000002").orElseThrow();
+        assertThat(restored.getId()).isEqualTo(updated.getId());
+        assertThat(restored.getCategory()).isEqualTo(TransactionCategory.BONUS);
+        assertThat(restored.getVersion()).isEqualTo(1);
+        assertThat(repository.findByOrderId("ORD-000004")).isEmpty();
+        assertThat(repository.findByOrderId("ORD-000010")).isEmpty();
+        assertThatThrownBy(() -> repository.save(transaction(1)))
+                .isInstanceOf(DuplicateTransactionException.class);
+        assertThat(repository.save(transaction(10)).getId()).isGreaterThan(idFence);
+    }
+
+    @Test
+    void should_keep_every_save_of_concurrent_writers() throws Exception {
+        // When
+        runConcurrently(writer -> () -> {
+            saveTransactions(writer * 1_000 + 1, 200);
+            return null;
+        });
+
+        // Then
+        assertThat(repository.count()).isEqualTo(WRITERS * 200);
+        assertThat(repository.stream().map(Transaction::getId).toList())
+                .hasSize(WRITERS * 200).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void should_store_each_order_id_once_under_concurrent_saves() throws Exception {
+        // Given
+        AtomicInteger duplicates = new AtomicInteger();
+
+        // When
+        runConcurrently(writer -> () -> {
+            for (int order = 1; order <= 100; order++) {
+                try {
+                    repository.save(transaction(order));
+                } catch (DuplicateTransactionException e) {
+                    duplicates.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        // Then
+        assertThat(repository.count()).isEqualTo(100);
+        assertThat(duplicates).hasValue((WRITERS - 1) * 100);
+    }
+
+    @Test
+    void should_let_one_of_concurrent_updates_of_a_version_win() throws Exception {
+        // Given
+        Long id = repository.save(transaction(1)).getId();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // When
+        runConcurrently(writer -> {
+            Transaction copy = repository.findById(id).orElseThrow().copy();
+            return () -> {
+                copy.setDescription("Writer " + writer);
+                try {
+                    repository.update(copy);
+                } catch (ConcurrentUpdateException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            };
+        });
+
+        // Then
+        assertThat(conflicts).hasValue(WRITERS - 1);
+        assertThat(repository.findById(id).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    private List<Transaction> saveTransactions(int firstOrder, int count) {
+        List<Transaction> saved = new ArrayList<>(count);
+        for (int order = firstOrder; order < firstOrder + count; order++) {
+            saved.add(repository.save(transaction(order)));
+        }
+        return saved;
+    }
+
+    // Creates every writer's task first, then releases all of them at once
+    private void runConcurrently(WriterTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                Callable<Object> work = task.create(writer);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return work.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @FunctionalInterface
+    private interface WriterTask {
+        Callable<Object> create(int writer);
+    }
+
+    // Order IDs ORD-000001 and up on one account, every second one described
+    public static Transaction transaction(int order) {
+        return Transaction.create(String.format("ORD-%06d", order), "ACC-123456", new BigDecimal("10.50"),
+                "CREDIT", "SALARY", order % 2 == 0 ? "Monthly salary" : null);
+    }
+}
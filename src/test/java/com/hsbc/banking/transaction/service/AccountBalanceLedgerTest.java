@@ -0,0 +1,156 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountBalanceLedgerTest {
+
+    private static final String ACCOUNT_ID = "ACC-123456";
+    private static final BigDecimal DEBIT = new BigDecimal("-100.00");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final AccountBalanceLedger ledger =
+            new AccountBalanceLedger(new BigDecimal("1000.00"), Duration.ofSeconds(30), clock::get);
+
+    @Test
+    void should_sync_once_and_approve_following_debits_locally() {
+        // When
+        for (int i = 0; i < 11; i++) {
+            assertThat(ledger.reserve(ACCOUNT_ID, DEBIT, remote(true))).isTrue();
+        }
+
+        // Then - the first sync confirms 100.00 plus 1000.00 of headroom
+        assertThat(remoteCalls).hasValue(1);
+        assertThat(ledger.availableCents(ACCOUNT_ID)).isZero();
+    }
+
+    @Test
+    void should_sync_again_when_headroom_is_used_up() {
+        // Given
+        for (int i = 0; i < 11; i++) {
+            ledger.reserve(ACCOUNT_ID, DEBIT, remote(true));
+        }
+
+        // When
+        boolean approved = ledger.reserve(ACCOUNT_ID, DEBIT, remote(true));
+
+        // Then
+        assertThat(approved).isTrue();
+        assertThat(remoteCalls).hasValue(2);
+    }
+
+    @Test
+    void should_sync_again_when_entry_is_stale() {
+        // Given
+        ledger.reserve(ACCOUNT_ID, DEBIT, remote(true));
+
+        // When
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        ledger.reserve(ACCOUNT_ID, DEBIT, remote(true));
+
+        // Then
+        assertThat(remoteCalls).hasValue(2);
+    }
+
+    @Test
+    void should_approve_debit_without_headroom_when_only_exact_amount_is_covered() {
+        // Given - the account covers the debit itself but not the extra headroom
+        Predicate<BigDecimal> exactOnly = amount -> {
+            remoteCalls.incrementAndGet();
+            return amount.compareTo(DEBIT) == 0;
+        };
+
+        // When/Then
+        assertThat(ledger.reserve(ACCOUNT_ID, DEBIT, exactOnly)).isTrue();
+        assertThat(remoteCalls).hasValue(2);
+        assertThat(ledger.availableCents(ACCOUNT_ID)).isZero();
+        assertThat(ledger.tryReserve(ACCOUNT_ID, DEBIT)).isFalse();
+    }
+
+    @Test
+    void should_reject_debit_when_account_service_rejects() {
+        assertThat(ledger.reserve(ACCOUNT_ID, DEBIT, remote(false))).isFalse();
+        assertThat(ledger.tryReserve(ACCOUNT_ID, DEBIT)).isFalse();
+    }
+
+    @Test
+    void should_add_credits_and_release_deleted_debits() {
+        // Given
+        ledger.reserve(ACCOUNT_ID, DEBIT, remote(true));
+        Transaction credit = Transaction.create("ORD-000001", ACCOUNT_ID, new BigDecimal("50.00"),
+                "CREDIT", "SALARY", "Salary");
+        Transaction debit = Transaction.create("ORD-000002", ACCOUNT_ID, DEBIT, "DEBIT", "SHOPPING", "Shop");
+
+        // When
+        ledger.onTransactionEvent(TransactionEvent.created(credit));
+        ledger.onTransactionEvent(TransactionEvent.deleted(debit));
+
+        // Then
+        assertThat(ledger.availableCents(ACCOUNT_ID)).isEqualTo(100_000 + 5_000 + 10_000);
+    }
+
+    @Test
+    void should_never_over_reserve_under_concurrent_debits() throws Exception {
+        // Given - 1100.00 confirmed in total
+        ledger.reserve(ACCOUNT_ID, DEBIT, remote(true));
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        AtomicInteger approved = new AtomicInteger();
+
+        // When
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            calls.add(callers.submit(() -> {
+                if (ledger.tryReserve(ACCOUNT_ID, new BigDecimal("-1.00"))) {
+                    approved.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        // Then
+        assertThat(approved).hasValue(1_000);
+        assertThat(ledger.availableCents(ACCOUNT_ID)).isZero();
+    }
+
+    @Test
+    void should_sync_the_next_debit_after_a_batch_debit_approved_by_the_account_service() {
+        // Given - 1000.00 of headroom, then a batch debit too large for it approved by the account service
+        LedgerExternalAccountService service = new LedgerExternalAccountService(
+                (accountId, amount) -> remote(true).test(amount), ledger, new ExternalAccountMetrics());
+        service.hasSufficientBalance(ACCOUNT_ID, DEBIT);
+        service.hasSufficientBalances(List.of(new BalanceCheck(ACCOUNT_ID, new BigDecimal("-1050.00"))));
+
+        // When
+        boolean approved = service.hasSufficientBalance(ACCOUNT_ID, DEBIT);
+
+        // Then - the headroom no longer counts, the debit went to the account service
+        assertThat(approved).isTrue();
+        assertThat(remoteCalls).hasValue(3);
+    }
+
+    private Predicate<BigDecimal> remote(boolean result) {
+        return amount -> {
+            remoteCalls.incrementAndGet();
+            return result;
+        };
+    }
+}
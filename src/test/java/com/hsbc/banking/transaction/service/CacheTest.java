@@ -1,6 +1,7 @@
 package com.hsbc.banking.transaction.service;
 
 import com.hsbc.banking.transaction.dto.CreateTransactionRequest;
+import com.hsbc.banking.transaction.model.Money;
 import com.hsbc.banking.transaction.model.Transaction;
 import com.hsbc.banking.transaction.model.TransactionCategory;
 import com.hsbc.banking.transaction.model.TransactionType;
@@ -10,8 +11,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCache;
 
-import java.math.BigDecimal;
-
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -29,7 +28,7 @@ public class CacheTest {
         CreateTransactionRequest request = new CreateTransactionRequest(
                 "ORD-123456",
                 "ACC-123456",
-                BigDecimal.valueOf(100),
+                Money.ofMinor(10000),
                 TransactionType.CREDIT.name(),
                 TransactionCategory.SALARY.name(),
                 "Test Transaction"
@@ -63,7 +62,7 @@ public class CacheTest {
         CreateTransactionRequest request = new CreateTransactionRequest(
                 "ORD-456789",
                 "ACC-456789",
-                BigDecimal.valueOf(200),
+                Money.ofMinor(20000),
                 TransactionType.CREDIT.name(),
                 TransactionCategory.SALARY.name(),
                 "Test Transaction for Eviction"
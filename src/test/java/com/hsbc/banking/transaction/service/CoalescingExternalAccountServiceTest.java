@@ -0,0 +1,238 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.AccountServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CoalescingExternalAccountServiceTest {
+
+    private BalanceAccountService accountService;
+    private CoalescingExternalAccountService coalescingService;
+
+    @BeforeEach
+    void setUp() {
+        accountService = new BalanceAccountService(Map.of("ACC-000001", new BigDecimal("100.00")));
+        // Long window so that checks submitted by the test always land in one batch
+        coalescingService = new CoalescingExternalAccountService(
+                accountService, Duration.ofMillis(200), 3, 1, Duration.ofSeconds(5), Executors.newCachedThreadPool());
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescingService.close();
+    }
+
+    @Test
+    void should_send_concurrent_checks_as_one_batch_call() throws Exception {
+        // When
+        CompletableFuture<Boolean> first = coalescingService.submit("ACC-000001", new BigDecimal("-10.00"));
+        CompletableFuture<Boolean> second = coalescingService.submit("ACC-000002", new BigDecimal("-10.00"));
+        CompletableFuture<Boolean> third = coalescingService.submit("ACC-000001", new BigDecimal("-20.00"));
+
+        // Then
+        assertThat(first.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(1, TimeUnit.SECONDS)).isFalse();
+        assertThat(third.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(accountService.batchCalls.get()).isEqualTo(1);
+        assertThat(accountService.singleCalls.get()).isZero();
+    }
+
+    @Test
+    void should_net_checks_for_the_same_account_within_a_batch() throws Exception {
+        // When
+        CompletableFuture<Boolean> first = coalescingService.submit("ACC-000001", new BigDecimal("-60.00"));
+        CompletableFuture<Boolean> second = coalescingService.submit("ACC-000001", new BigDecimal("-60.00"));
+        CompletableFuture<Boolean> third = coalescingService.submit("ACC-000001", new BigDecimal("-40.00"));
+
+        // Then - the second debit would overdraw the account once the first one is taken into account
+        assertThat(first.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(1, TimeUnit.SECONDS)).isFalse();
+        assertThat(third.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void should_close_batch_when_window_expires() {
+        // When
+        boolean result = coalescingService.hasSufficientBalance("ACC-000001", new BigDecimal("-10.00"));
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(accountService.batchCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void should_keep_checks_submitted_together_in_one_batch() {
+        // When
+        List<Boolean> results = coalescingService.hasSufficientBalances(List.of(
+                new BalanceCheck("ACC-000001", new BigDecimal("-50.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-50.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-0.01"))
+        ));
+
+        // Then
+        assertThat(results).containsExactly(true, true, false);
+        assertThat(accountService.batchCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void should_propagate_delegate_failure_to_every_caller() {
+        // Given
+        accountService.failure = new IllegalStateException("Account service unavailable");
+
+        // When/Then
+        assertThatThrownBy(() -> coalescingService.hasSufficientBalance("ACC-000001", new BigDecimal("-10.00")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Account service unavailable");
+    }
+
+    @Test
+    void should_split_checks_submitted_together_beyond_the_batch_size_and_keep_them_netted() {
+        // When
+        List<Boolean> results = coalescingService.hasSufficientBalances(List.of(
+                new BalanceCheck("ACC-000001", new BigDecimal("-30.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-30.00")),
+                new BalanceCheck("ACC-000002", new BigDecimal("10.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-30.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-30.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-10.00"))
+        ));
+
+        // Then - later calls start with the 60.00 approved in the first one
+        assertThat(results).containsExactly(true, true, true, true, false, true);
+        assertThat(accountService.batchCalls.get()).isEqualTo(3);
+        assertThat(accountService.largestBatch.get()).isEqualTo(3);
+    }
+
+    @Test
+    void should_close_the_batch_before_checks_it_cannot_hold() throws Exception {
+        // When
+        CompletableFuture<Boolean> first = coalescingService.submit("ACC-000001", new BigDecimal("-10.00"));
+        CompletableFuture<Boolean> second = coalescingService.submit("ACC-000001", new BigDecimal("-10.00"));
+        CompletableFuture<List<Boolean>> together = coalescingService.submit(List.of(
+                new BalanceCheck("ACC-000001", new BigDecimal("-50.00")),
+                new BalanceCheck("ACC-000001", new BigDecimal("-50.00"))));
+
+        // Then
+        assertThat(first.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(together.get(1, TimeUnit.SECONDS)).containsExactly(true, true);
+        assertThat(accountService.batchCalls.get()).isEqualTo(2);
+        assertThat(accountService.largestBatch.get()).isEqualTo(2);
+    }
+
+    @Test
+    void should_fail_every_caller_when_delegate_returns_too_few_results() {
+        // Given
+        accountService.results = List.of(true);
+        CompletableFuture<Boolean> first = coalescingService.submit("ACC-000001", new BigDecimal("-10.00"));
+        CompletableFuture<Boolean> second = coalescingService.submit("ACC-000001", new BigDecimal("-10.00"));
+
+        // When/Then
+        for (CompletableFuture<Boolean> future : List.of(first, second)) {
+            assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+                    .hasRootCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("Batch balance check returned 1 results for 2 checks");
+        }
+    }
+
+    @Test
+    void should_fail_every_caller_when_delegate_throws_an_error() {
+        // Given
+        accountService.error = new StackOverflowError();
+
+        // When/Then
+        assertThatThrownBy(() -> coalescingService.hasSufficientBalance("ACC-000001", new BigDecimal("-10.00")))
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(StackOverflowError.class);
+    }
+
+    @Test
+    void should_stop_waiting_for_a_batch_after_the_timeout() {
+        // Given
+        accountService.blocked = new CountDownLatch(1);
+        CoalescingExternalAccountService impatient = new CoalescingExternalAccountService(
+                accountService, Duration.ZERO, 3, 1, Duration.ofMillis(50), Executors.newCachedThreadPool());
+
+        // When/Then
+        try {
+            assertThatThrownBy(() -> impatient.hasSufficientBalance("ACC-000001", new BigDecimal("-10.00")))
+                    .isInstanceOf(AccountServiceUnavailableException.class);
+        } finally {
+            accountService.blocked.countDown();
+            impatient.close();
+        }
+    }
+
+    private static class BalanceAccountService implements ExternalAccountService {
+        private final Map<String, BigDecimal> balances = new ConcurrentHashMap<>();
+        private final AtomicInteger singleCalls = new AtomicInteger();
+        private final AtomicInteger batchCalls = new AtomicInteger();
+        private final AtomicInteger largestBatch = new AtomicInteger();
+        private volatile RuntimeException failure;
+        private volatile Error error;
+        private volatile List<Boolean> results;
+        private volatile CountDownLatch blocked;
+
+        BalanceAccountService(Map<String, BigDecimal> balances) {
+            this.balances.putAll(balances);
+        }
+
+        @Override
+        public boolean hasSufficientBalance(String accountId, BigDecimal amount) {
+            singleCalls.incrementAndGet();
+            return check(accountId, amount);
+        }
+
+        @Override
+        public List<Boolean> hasSufficientBalances(List<BalanceCheck> checks) {
+            batchCalls.incrementAndGet();
+            largestBatch.accumulateAndGet(checks.size(), Math::max);
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (error != null) {
+                throw error;
+            }
+            if (results != null) {
+                return results;
+            }
+            // Same netting as the default implementation, in one call
+            Map<String, BigDecimal> approved = new ConcurrentHashMap<>();
+            return checks.stream().map(check -> {
+                BigDecimal netted = approved.getOrDefault(check.accountId(), BigDecimal.ZERO).add(check.amount());
+                boolean sufficient = check(check.accountId(), netted);
+                if (sufficient) {
+                    approved.put(check.accountId(), netted);
+                }
+                return sufficient;
+            }).toList();
+        }
+
+        private boolean check(String accountId, BigDecimal amount) {
+            return balances.getOrDefault(accountId, BigDecimal.ZERO).add(amount).signum() >= 0;
+        }
+    }
+}
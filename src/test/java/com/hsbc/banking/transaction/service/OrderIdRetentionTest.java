@@ -0,0 +1,125 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderIdRetentionTest {
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private MutableClock clock;
+    private OrderIdRetention retention;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        retention = new OrderIdRetention(Duration.ofHours(1), clock);
+    }
+
+    @Test
+    void should_keep_order_id_retained_until_retention_ends() {
+        // Given
+        retention.retain("ORD-000001");
+
+        // When/Then
+        clock.advance(Duration.ofMinutes(59));
+        assertThat(retention.isRetained("ORD-000001")).isTrue();
+        assertThat(retention.isRetained("ORD-000002")).isFalse();
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(retention.isRetained("ORD-000001")).isFalse();
+    }
+
+    @Test
+    void should_release_expired_order_ids_when_retaining_another() {
+        // Given
+        retention.retain("ORD-000001");
+        retention.retain("ORD-000002");
+        clock.advance(Duration.ofHours(1));
+
+        // When
+        retention.retain("ORD-000003");
+
+        // Then
+        assertThat(retention.retainedCount()).isEqualTo(1);
+        assertThat(retention.isRetained("ORD-000003")).isTrue();
+    }
+
+    @Test
+    void should_keep_order_id_retained_again_for_a_full_retention() {
+        // Given
+        retention.retain("ORD-000001");
+        clock.advance(Duration.ofMinutes(30));
+        retention.retain("ORD-000001");
+
+        // When
+        clock.advance(Duration.ofMinutes(45));
+        retention.retain("ORD-000002");
+
+        // Then
+        assertThat(retention.isRetained("ORD-000001")).isTrue();
+    }
+
+    @Test
+    void should_retain_nothing_with_zero_retention() {
+        // Given
+        OrderIdRetention none = new OrderIdRetention(Duration.ZERO, clock);
+
+        // When
+        none.retain("ORD-000001");
+
+        // Then
+        assertThat(none.isRetained("ORD-000001")).isFalse();
+        assertThat(none.retainedCount()).isZero();
+    }
+
+    @Test
+    void should_release_every_order_id_on_restore() {
+        // Given
+        retention.retain("ORD-000001");
+
+        // When
+        retention.onTransactionsRestored(new TransactionsRestoredEvent(List.of()));
+
+        // Then
+        assertThat(retention.isRetained("ORD-000001")).isFalse();
+        assertThat(retention.retainedCount()).isZero();
+    }
+
+    // A clock the test moves forward by hand
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.AccountServiceUnavailableException;
+import com.hsbc.banking.transaction.service.ExternalAccountMetrics.Outcome;
+import com.hsbc.banking.transaction.service.ResilientExternalAccountService.CircuitBreakerSettings;
+import com.hsbc.banking.transaction.service.ResilientExternalAccountService.FallbackPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResilientExternalAccountServiceTest {
+
+    private static final String ACCOUNT_ID = "ACC-123456";
+    private static final BigDecimal DEBIT = new BigDecimal("-100.00");
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+
+    private final SlowAccountService slowAccountService = new SlowAccountService();
+    private final ExternalAccountMetrics metrics = new ExternalAccountMetrics();
+    private ResilientExternalAccountService service;
+
+    @AfterEach
+    void tearDown() {
+        slowAccountService.latencyMs = 0;
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void should_return_remote_result_when_account_service_is_healthy() {
+        // Given
+        service = resilientService(16, FallbackPolicy.REJECT, Duration.ofSeconds(10));
+
+        // When/Then
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        assertThat(metrics.count(Outcome.SUCCESS)).isEqualTo(1);
+    }
+
+    @Test
+    void should_bound_tail_latency_when_account_service_is_slow() throws Exception {
+        // Given - the remote call takes 5 seconds, far beyond the deadline
+        slowAccountService.latencyMs = 5_000;
+        service = resilientService(64, FallbackPolicy.REJECT, Duration.ofSeconds(10));
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+
+        // When
+        List<Future<Long>> latencies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            latencies.add(callers.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    service.hasSufficientBalance(ACCOUNT_ID, DEBIT);
+                } catch (AccountServiceUnavailableException e) {
+                    // Expected, the fallback rejects debits
+                }
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }));
+        }
+        long maxLatency = 0;
+        for (Future<Long> latency : latencies) {
+            maxLatency = Math.max(maxLatency, latency.get(10, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+
+        // Then - no caller waits much longer than the deadline, and the circuit has opened
+        assertThat(maxLatency).isLessThan(TIMEOUT.toMillis() * 5);
+        assertThat(metrics.count(Outcome.TIMEOUT)).isPositive();
+        assertThat(metrics.count(Outcome.CIRCUIT_OPEN)).isPositive();
+        assertThat(service.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void should_reject_debit_with_unavailable_error_when_call_times_out() {
+        // Given
+        slowAccountService.latencyMs = 1_000;
+        service = resilientService(16, FallbackPolicy.REJECT, Duration.ofSeconds(10));
+
+        // When/Then
+        assertThatThrownBy(() -> service.hasSufficientBalance(ACCOUNT_ID, DEBIT))
+                .isInstanceOf(AccountServiceUnavailableException.class)
+                .satisfies(thrown -> assertThat(((AccountServiceUnavailableException) thrown).getData())
+                        .containsEntry("accountId", ACCOUNT_ID));
+        assertThat(metrics.count(Outcome.TIMEOUT)).isEqualTo(1);
+        assertThat(metrics.count(Outcome.FALLBACK_REJECTED)).isEqualTo(1);
+    }
+
+    @Test
+    void should_allow_debits_under_per_account_limit_when_fallback_allows() {
+        // Given - limit of 250.00 per account
+        slowAccountService.latencyMs = 1_000;
+        service = resilientService(16, FallbackPolicy.ALLOW_UNDER_LIMIT, Duration.ofSeconds(10));
+
+        // When/Then
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        assertThatThrownBy(() -> service.hasSufficientBalance(ACCOUNT_ID, DEBIT))
+                .isInstanceOf(AccountServiceUnavailableException.class);
+        assertThat(service.hasSufficientBalance("ACC-654321", DEBIT)).isTrue();
+    }
+
+    @Test
+    void should_reject_calls_beyond_bulkhead_capacity() throws Exception {
+        // Given - only two concurrent calls allowed
+        slowAccountService.latencyMs = 500;
+        service = resilientService(2, FallbackPolicy.REJECT, Duration.ofSeconds(10));
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+
+        // When
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(callers.submit(() -> {
+                try {
+                    service.hasSufficientBalance(ACCOUNT_ID, DEBIT);
+                } catch (AccountServiceUnavailableException e) {
+                    // Expected for calls rejected by the bulkhead or timed out
+                }
+            }));
+        }
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        // Then
+        assertThat(metrics.count(Outcome.BULKHEAD_FULL)).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void should_reset_fallback_exposure_after_a_successful_call_with_the_circuit_closed() throws Exception {
+        // Given - a full bulkhead lets the fallback approve 200.00 of the 250.00 limit
+        service = resilientService(1, FallbackPolicy.ALLOW_UNDER_LIMIT, Duration.ofSeconds(10));
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        occupyBulkhead(callers);
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        Thread.sleep(1_000);
+        slowAccountService.latencyMs = 0;
+
+        // When - the account service answers for the account, then the bulkhead fills up again
+        service.hasSufficientBalance(ACCOUNT_ID, DEBIT);
+        occupyBulkhead(callers);
+
+        // Then
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        assertThat(service.hasSufficientBalance(ACCOUNT_ID, DEBIT)).isTrue();
+        assertThat(service.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        callers.shutdown();
+    }
+
+    @Test
+    void should_close_circuit_after_successful_half_open_probe() throws Exception {
+        // Given - the circuit opens after the failing calls
+        slowAccountService.latencyMs = 1_000;
+        service = resilientService(16, FallbackPolicy.ALLOW_UNDER_LIMIT, Duration.ofMillis(200));
+        for (int i = 0; i < 4; i++) {
+            service.hasSufficientBalance(ACCOUNT_ID, new BigDecimal("-1.00"));
+        }
+        assertThat(service.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // When - the account service recovers and the open duration elapses
+        slowAccountService.latencyMs = 0;
+        Thread.sleep(300);
+        boolean result = service.hasSufficientBalance(ACCOUNT_ID, DEBIT);
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(service.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(metrics.getCircuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void should_reopen_circuit_when_half_open_probe_fails() throws Exception {
+        // Given
+        slowAccountService.latencyMs = 1_000;
+        service = resilientService(16, FallbackPolicy.REJECT, Duration.ofMillis(200));
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> service.hasSufficientBalance(ACCOUNT_ID, DEBIT))
+                    .isInstanceOf(AccountServiceUnavailableException.class);
+        }
+
+        // When - the probe after the open duration still times out
+        Thread.sleep(300);
+        assertThatThrownBy(() -> service.hasSufficientBalance(ACCOUNT_ID, DEBIT))
+                .isInstanceOf(AccountServiceUnavailableException.class);
+
+        // Then
+        assertThat(service.getCircuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    // Holds the only bulkhead permit for a second; the caller gives up on it after the deadline
+    private void occupyBulkhead(ExecutorService callers) throws Exception {
+        slowAccountService.latencyMs = 1_000;
+        callers.submit(() -> service.hasSufficientBalance("ACC-654321", DEBIT));
+        Thread.sleep(50);
+    }
+
+    private ResilientExternalAccountService resilientService(int maxConcurrentCalls, FallbackPolicy fallback,
+                                                             Duration openDuration) {
+        return new ResilientExternalAccountService(
+                slowAccountService,
+                TIMEOUT,
+                maxConcurrentCalls,
+                Duration.ZERO,
+                new CircuitBreakerSettings(50, 4, 4, openDuration),
+                fallback,
+                new BigDecimal("250.00"),
+                metrics,
+                Executors.newCachedThreadPool());
+    }
+
+    private static class SlowAccountService implements ExternalAccountService {
+        private volatile long latencyMs;
+
+        @Override
+        public boolean hasSufficientBalance(String accountId, BigDecimal amount) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.hsbc.banking.transaction.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.InMemoryAuditLogRepositoryImpl;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.TransactionArchive;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import com.hsbc.banking.transaction.service.TransactionArchiver.ArchiveReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionArchiverTest {
+    private static final Duration MAX_AGE = Duration.ofDays(365);
+
+    @TempDir
+    Path directory;
+
+    private final InMemoryAuditLogRepositoryImpl auditLogs = new InMemoryAuditLogRepositoryImpl();
+    private final TransactionSearchIndex searchIndex = new TransactionSearchIndex();
+    private final List<TransactionEvent> publishedEvents = new ArrayList<>();
+    private final ApplicationEventPublisher eventPublisher = event -> {
+        publishedEvents.add((TransactionEvent) event);
+        searchIndex.onTransactionEvent((TransactionEvent) event);
+    };
+    private TransactionArchive archive;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        archive.close();
+    }
+
+    @Test
+    void should_move_old_transactions_and_their_audit_logs_to_archive_files() throws Exception {
+        // Given
+        InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl();
+        LocalDateTime cutoff = saveOldAndNew(transactions, 300, 20);
+
+        // When
+        ArchiveReport report = archiver(transactions, cutoff).archive();
+
+        // Then
+        assertThat(report.archived()).isEqualTo(300);
+        assertThat(report.keptLive()).isZero();
+        assertThat(transactions.count()).isEqualTo(20);
+        assertThat(transactions.findById(1L)).isEmpty();
+        assertThat(archive.count()).isEqualTo(300);
+        assertThat(archive.fileCount()).isEqualTo(3);
+        assertThat(archive.findById(150L)).hasValueSatisfying(found ->
+                assertThat(found.getOrderId()).isEqualTo("ORD-000150"));
+        assertThat(archive.findById(301L)).isEmpty();
+        assertThat(archive.findAuditLogs(150L)).extracting(AuditLog::getDetails).containsExactly("created 150");
+        assertThat(auditLogs.findByEntityTypeAndEntityId("Transaction", "150")).isEmpty();
+        assertThat(auditLogs.findByEntityTypeAndEntityId("Transaction", "301")).hasSize(1);
+    }
+
+    @Test
+    void should_keep_transaction_updated_during_archival_live() throws Exception {
+        // Given - transaction 5 changes between being written to the file and being removed
+        InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl() {
+            @Override
+            public boolean deleteIfVersion(Long id, long version) {
+                if (id == 5L) {
+                    Transaction updated = findById(id).orElseThrow().copy();
+                    updated.setCategory(TransactionCategory.BONUS);
+                    update(updated);
+                }
+                return super.deleteIfVersion(id, version);
+            }
+        };
+        LocalDateTime cutoff = saveOldAndNew(transactions, 10, 0);
+
+        // When
+        ArchiveReport report = archiver(transactions, cutoff).archive();
+
+        // Then
+        assertThat(report.archived()).isEqualTo(9);
+        assertThat(report.keptLive()).isEqualTo(1);
+        assertThat(transactions.findById(5L)).hasValueSatisfying(found ->
+                assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS));
+        assertThat(archive.findById(5L)).isEmpty();
+        assertThat(archive.findById(6L)).isPresent();
+        assertThat(archive.count()).isEqualTo(9);
+        assertThat(auditLogs.findByEntityTypeAndEntityId("Transaction", "5")).hasSize(1);
+    }
+
+    @Test
+    void should_find_archived_transactions_after_reopening() throws Exception {
+        // Given
+        InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl();
+        LocalDateTime cutoff = saveOldAndNew(transactions, 200, 0);
+        archiver(transactions, cutoff).archive();
+        archive.close();
+        Files.write(directory.resolve("transactions-0000000009-1-2.archive.partial"), new byte[]{1, 2, 3});
+
+        // When
+        archive = TransactionArchive.open(directory, Caffeine.newBuilder().maximumSize(4).build());
+
+        // Then
+        assertThat(archive.count()).isEqualTo(200);
+        assertThat(archive.findById(1L)).isPresent();
+        assertThat(archive.findById(200L)).hasValueSatisfying(found ->
+                assertThat(found.getAmount()).isEqualByComparingTo("10.50"));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).noneMatch(file -> file.toString().endsWith(".partial"));
+        }
+    }
+
+    @Test
+    void should_keep_order_ids_of_archived_transactions_taken() throws Exception {
+        // Given - transaction 5 changes during archival and stays live
+        InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl() {
+            @Override
+            public boolean deleteIfVersion(Long id, long version) {
+                if (id == 5L) {
+                    update(findById(id).orElseThrow().copy());
+                }
+                return super.deleteIfVersion(id, version);
+            }
+        };
+        LocalDateTime cutoff = saveOldAndNew(transactions, 1_000, 10);
+
+        // When
+        TransactionArchiver archiver = archiver(transactions, cutoff);
+        archiver.archive();
+
+        // Then
+        assertThat(archiver.isArchivedOrderId("ORD-000001")).isTrue();
+        assertThat(archiver.isArchivedOrderId("ORD-001000")).isTrue();
+        assertThat(archiver.isArchivedOrderId("ORD-000005")).isFalse();
+        assertThat(archiver.isArchivedOrderId("ORD-001001")).isFalse();
+        assertThat(archiver.isArchivedOrderId("ORD-999999")).isFalse();
+        archive.close();
+        archive = TransactionArchive.open(directory, Caffeine.newBuilder().maximumSize(4).build());
+        assertThat(archive.containsOrderId("ORD-000500")).isTrue();
+    }
+
+    @Test
+    void should_drop_archived_transactions_from_search_and_still_look_them_up() throws Exception {
+        // Given
+        InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl();
+        LocalDateTime cutoff = saveOldAndNew(transactions, 10, 10);
+        TransactionArchiver archiver = archiver(transactions, cutoff);
+        TransactionLookupService lookupService = new TransactionLookupService(transactions, archiver,
+                new ConcurrentMapCacheManager("transactions"));
+
+        // When
+        archiver.archive();
+
+        // Then - the described transactions are the even orders, 12 to 20 are still live
+        assertThat(publishedEvents).filteredOn(event -> event.type() == TransactionEvent.Type.ARCHIVED)
+                .extracting(event -> event.transaction().getId())
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(searchIndex.search("salary", null)).containsExactly(12L, 14L, 16L, 18L, 20L);
+        TransactionLookupService.LookupResult result = lookupService.lookup(List.of(2L, 12L, 99L));
+        assertThat(result.transactions()).extracting(Transaction::getId).containsExactly(2L, 12L);
+        assertThat(result.missingIds()).containsExactly(99L);
+    }
+
+    private TransactionArchiver archiver(TransactionRepository transactions, LocalDateTime cutoff)
+            throws IOException {
+        archive = TransactionArchive.open(directory, Caffeine.newBuilder().maximumSize(4).build());
+        // Now is one retention period after the cutoff
+        Clock clock = Clock.fixed(cutoff.plus(MAX_AGE).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        return new TransactionArchiver(transactions, auditLogs, archive, new TransactionWriteGate(), eventPublisher,
+                MAX_AGE, 128, Duration.ZERO, clock);
+    }
+
+    // Saves old transactions, then recent ones created at or after the returned cutoff
+    private LocalDateTime saveOldAndNew(TransactionRepository transactions, int old, int recent) {
+        save(transactions, 1, old);
+        LocalDateTime cutoff = waitForClockToMove();
+        save(transactions, old + 1, old + recent);
+        return cutoff;
+    }
+
+    private void save(TransactionRepository transactions, int from, int to) {
+        for (int order = from; order <= to; order++) {
+            Transaction saved = transactions.save(transaction(order));
+            searchIndex.onTransactionEvent(TransactionEvent.created(saved));
+            auditLogs.save(new AuditLog("CREATE", "Transaction", String.valueOf(saved.getId()), "created " + order));
+        }
+    }
+
+    private static LocalDateTime waitForClockToMove() {
+        LocalDateTime start = LocalDateTime.now();
+        LocalDateTime now = start;
+        while (!now.isAfter(start)) {
+            now = LocalDateTime.now();
+        }
+        return now;
+    }
+}
@@ -0,0 +1,295 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import com.hsbc.banking.transaction.repository.InMemoryAuditLogRepositoryImpl;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.SequentialIdGenerator;
+import com.hsbc.banking.transaction.repository.ShardedTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import com.hsbc.banking.transaction.service.TransactionBackupService.BackupReport;
+import com.hsbc.banking.transaction.service.TransactionBackupService.RestoreReport;
+import com.hsbc.banking.transaction.service.TransactionRollups.Aggregate;
+import com.hsbc.banking.transaction.service.TransactionRollups.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionBackupServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final TransactionChangeLog changeLog = new TransactionChangeLog(1_000);
+    private final TransactionRollups rollups = new TransactionRollups();
+    private final TransactionSearchIndex searchIndex = new TransactionSearchIndex();
+    private final List<Object> publishedEvents = new ArrayList<>();
+    // Delivers events to the views like the application context does
+    private final ApplicationEventPublisher eventPublisher = event -> {
+        publishedEvents.add(event);
+        if (event instanceof TransactionEvent transactionEvent) {
+            rollups.onTransactionEvent(transactionEvent);
+            searchIndex.onTransactionEvent(transactionEvent);
+            changeLog.onTransactionEvent(transactionEvent);
+        } else if (event instanceof TransactionsRestoredEvent restoredEvent) {
+            rollups.onTransactionsRestored(restoredEvent);
+            searchIndex.onTransactionsRestored(restoredEvent);
+            changeLog.onTransactionsRestored(restoredEvent);
+        }
+    };
+    private final SequentialIdGenerator transactionIds = new SequentialIdGenerator();
+    private final SequentialIdGenerator auditLogIds = new SequentialIdGenerator();
+    private final InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl(transactionIds);
+    private final InMemoryAuditLogRepositoryImpl auditLogs = new InMemoryAuditLogRepositoryImpl(auditLogIds);
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("transactions");
+
+    @Test
+    void should_restore_transactions_audit_logs_and_id_positions() throws Exception {
+        // Given
+        for (int i = 1; i <= 100; i++) {
+            Transaction saved = transactions.save(transaction(i));
+            auditLogs.save(new AuditLog("CREATE", "Transaction", String.valueOf(saved.getId()), "created " + i));
+        }
+        Transaction updated = transactions.findById(7L).orElseThrow().copy();
+        updated.setCategory(TransactionCategory.BONUS);
+        transactions.update(updated);
+        transactions.deleteById(100L);
+        BackupReport backup = service(transactions).backup();
+        transactions.save(transaction(101));
+        cacheManager.getCache("transactions").put(7L, "stale");
+
+        // When
+        RestoreReport restore = service(transactions).restore(backup.file());
+
+        // Then
+        assertThat(backup.transactions()).isEqualTo(99);
+        assertThat(backup.auditLogs()).isEqualTo(100);
+        assertThat(backup.bytes()).isEqualTo(Files.size(directory.resolve(backup.file())));
+        assertThat(restore.transactions()).isEqualTo(99);
+        assertThat(transactions.count()).isEqualTo(99);
+        assertThat(transactions.findByOrderId("ORD-000101")).isEmpty();
+        assertThat(transactions.findById(7L)).hasValueSatisfying(found -> {
+            assertThat(found.getCategory()).isEqualTo(TransactionCategory.BONUS);
+            assertThat(found.getVersion()).isEqualTo(1);
+        });
+        assertThat(auditLogs.findByEntityTypeAndEntityId("Transaction", "42"))
+                .extracting(AuditLog::getDetails).containsExactly("created 42");
+        // IDs already handed out before the backup, including deleted ones, are not used again
+        assertThat(transactions.save(transaction(102)).getId()).isGreaterThan(101);
+        assertThat(cacheManager.getCache("transactions").get(7L)).isNull();
+        assertThat(publishedEvents).singleElement().isInstanceOfSatisfying(TransactionsRestoredEvent.class,
+                event -> assertThat(event.transactions()).hasSize(99));
+        assertThat(Files.list(directory)).containsExactly(directory.resolve(backup.file()));
+    }
+
+    @Test
+    void should_rebuild_rollups_and_search_index_when_restoring_into_a_non_empty_store() throws Exception {
+        // Given - 10 salaries described as monthly in the backup, then other rows written through events
+        for (int i = 1; i <= 10; i++) {
+            publish(TransactionEvent.created(transactions.save(described(i, "Monthly salary"))));
+        }
+        BackupReport backup = service(transactions).backup();
+        for (int i = 11; i <= 15; i++) {
+            publish(TransactionEvent.created(transactions.save(described(i, "Yearly bonus"))));
+        }
+        Transaction deleted = transactions.findById(3L).orElseThrow();
+        transactions.deleteById(3L);
+        publish(TransactionEvent.deleted(deleted));
+
+        // When
+        service(transactions).restore(backup.file());
+
+        // Then
+        assertThat(rollups.query(null, Set.of(), Interval.DAY, null, null))
+                .extracting(Aggregate::count).containsExactly(10L);
+        assertThat(rollups.query(null, Set.of(), Interval.DAY, null, null))
+                .extracting(Aggregate::sumMinor).containsExactly(10_500L);
+        assertThat(searchIndex.search("monthly", null)).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(searchIndex.search("bonus", null)).isEmpty();
+        assertThat(searchIndex.search("salary", "ACC-123456")).hasSize(10);
+        // Changes from before the restore are gone from the feed
+        assertThat(changeLog.read(0, 100).changes()).isEmpty();
+    }
+
+    @Test
+    void should_hold_writes_until_the_restore_is_done() throws Exception {
+        // Given
+        transactions.save(transaction(1));
+        BackupReport backup = service(transactions).backup();
+        TransactionWriteGate gate = new TransactionWriteGate();
+        CountDownLatch restoring = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        InMemoryTransactionRepositoryImpl slowRestore = new InMemoryTransactionRepositoryImpl(transactionIds) {
+            @Override
+            public void restore(List<Transaction> restored, long idFence) {
+                restoring.countDown();
+                // Time for the write to get in, had it not been held
+                awaitQuietly(writing);
+                sleepQuietly(200);
+                super.restore(restored, idFence);
+            }
+        };
+        TransactionBackupService service = new TransactionBackupService(slowRestore, auditLogs, changeLog,
+                transactionIds, auditLogIds, eventPublisher, cacheManager, gate, directory);
+
+        // When - a write arrives while the restore is replacing the contents
+        Thread restore = new Thread(() -> {
+            try {
+                service.restore(backup.file());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        restore.start();
+        restoring.await();
+        Thread writer = new Thread(() -> {
+            writing.countDown();
+            gate.write(() -> {
+                Transaction saved = slowRestore.save(transaction(2));
+                publish(TransactionEvent.created(saved));
+            });
+        });
+        writer.start();
+        restore.join();
+        writer.join();
+
+        // Then - the write came after the restore and is in both the store and the views
+        assertThat(slowRestore.findByOrderId("ORD-000002")).isPresent();
+        assertThat(slowRestore.count()).isEqualTo(2);
+        assertThat(rollups.query(null, Set.of(), Interval.DAY, null, null))
+                .extracting(Aggregate::count).containsExactly(2L);
+    }
+
+    @Test
+    void should_include_changes_made_while_the_backup_scans() throws Exception {
+        // Given - the scan triggers changes that are published like the service would
+        boolean[] changed = {false};
+        InMemoryTransactionRepositoryImpl scanned = new InMemoryTransactionRepositoryImpl(transactionIds) {
+            @Override
+            public Stream<Transaction> stream() {
+                return super.stream().peek(transaction -> {
+                    if (!changed[0]) {
+                        changed[0] = true;
+                        changeDuringScan(this);
+                    }
+                });
+            }
+        };
+        for (int i = 1; i <= 10; i++) {
+            scanned.save(transaction(i));
+        }
+
+        // When
+        BackupReport backup = service(scanned).backup();
+        scanned.clear();
+        service(scanned).restore(backup.file());
+
+        // Then
+        assertThat(backup.changes()).isEqualTo(3);
+        assertThat(scanned.findById(2L)).isEmpty();
+        assertThat(scanned.findById(9L)).hasValueSatisfying(found ->
+                assertThat(found.getDescription()).isEqualTo("Changed during backup"));
+        assertThat(scanned.findByOrderId("ORD-000011")).isPresent();
+        assertThat(scanned.count()).isEqualTo(10);
+    }
+
+    @Test
+    void should_reject_unknown_incomplete_and_outside_files() throws Exception {
+        // Given
+        transactions.save(transaction(1));
+        BackupReport backup = service(transactions).backup();
+        byte[] complete = Files.readAllBytes(directory.resolve(backup.file()));
+        Files.write(directory.resolve("truncated.backup.gz"), Arrays.copyOf(complete, complete.length / 2));
+
+        // When/Then
+        assertThatThrownBy(() -> service(transactions).restore("missing.backup.gz"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service(transactions).restore("../" + backup.file()))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> service(transactions).restore("truncated.backup.gz"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(transactions.count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_restore_into_a_repository_whose_ids_name_their_shard() throws Exception {
+        // Given
+        ShardedTransactionRepositoryImpl sharded = new ShardedTransactionRepositoryImpl(4);
+        Transaction saved = sharded.save(transaction(1));
+        BackupReport backup = service(sharded).backup();
+        sharded.save(transaction(2));
+
+        // When
+        service(sharded).restore(backup.file());
+
+        // Then
+        assertThat(sharded.count()).isEqualTo(1);
+        assertThat(sharded.findById(saved.getId())).isPresent();
+        assertThat(sharded.findByOrderId("ORD-000002")).isEmpty();
+        assertThat(sharded.save(transaction(2)).getId()).isNotEqualTo(saved.getId());
+    }
+
+    private void changeDuringScan(TransactionRepository repository) {
+        Transaction deleted = repository.findById(2L).orElseThrow();
+        repository.deleteById(2L);
+        changeLog.onTransactionEvent(TransactionEvent.deleted(deleted));
+
+        Transaction current = repository.findById(9L).orElseThrow();
+        Transaction previous = current.copy();
+        Transaction updated = current.copy();
+        updated.setDescription("Changed during backup");
+        repository.update(updated);
+        changeLog.onTransactionEvent(TransactionEvent.updated(previous, updated));
+
+        changeLog.onTransactionEvent(TransactionEvent.created(repository.save(transaction(11))));
+    }
+
+    private TransactionBackupService service(TransactionRepository repository) {
+        return new TransactionBackupService(repository, auditLogs, changeLog, transactionIds, auditLogIds,
+                eventPublisher, cacheManager, new TransactionWriteGate(), directory);
+    }
+
+    private void publish(TransactionEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Transaction described(int order, String description) {
+        Transaction transaction = transaction(order);
+        transaction.setDescription(description);
+        return transaction;
+    }
+}
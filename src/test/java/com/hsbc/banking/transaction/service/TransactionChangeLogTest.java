@@ -0,0 +1,171 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionChange;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.service.TransactionChangeLog.ChangeBatch;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionChangeLogTest {
+
+    private final TransactionChangeLog changeLog = new TransactionChangeLog(4);
+
+    @Test
+    void should_assign_consecutive_offsets_in_publish_order() {
+        // Given
+        Transaction transaction = transaction(1L);
+        changeLog.onTransactionEvent(TransactionEvent.created(transaction));
+        Transaction previous = transaction.copy();
+        transaction.incrementVersion();
+        changeLog.onTransactionEvent(TransactionEvent.updated(previous, transaction));
+        changeLog.onTransactionEvent(TransactionEvent.deleted(transaction));
+
+        // When
+        ChangeBatch batch = changeLog.read(0, 10);
+
+        // Then
+        assertThat(batch.changes()).extracting(TransactionChange::offset).containsExactly(0L, 1L, 2L);
+        assertThat(batch.changes()).extracting(TransactionChange::type).containsExactly(
+                TransactionEvent.Type.CREATED, TransactionEvent.Type.UPDATED, TransactionEvent.Type.DELETED);
+        assertThat(batch.nextOffset()).isEqualTo(3);
+        assertThat(batch.earliestOffset()).isZero();
+    }
+
+    @Test
+    void should_drop_change_published_after_a_newer_one_of_the_same_transaction() {
+        // Given - two updates stored as versions 1 and 2, published the other way round
+        Transaction created = transaction(1L);
+        Transaction first = created.copy();
+        first.incrementVersion();
+        Transaction second = first.copy();
+        second.incrementVersion();
+        second.setDescription("Second");
+        changeLog.onTransactionEvent(TransactionEvent.created(created));
+        changeLog.onTransactionEvent(TransactionEvent.updated(first.copy(), second));
+        changeLog.onTransactionEvent(TransactionEvent.updated(created.copy(), first));
+        changeLog.onTransactionEvent(TransactionEvent.created(transaction(2L)));
+        changeLog.onTransactionEvent(TransactionEvent.deleted(second));
+        changeLog.onTransactionEvent(TransactionEvent.updated(created.copy(), second));
+
+        // When
+        ChangeBatch batch = changeLog.read(0, 10);
+
+        // Then
+        assertThat(batch.changes()).extracting(TransactionChange::offset).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(batch.changes()).extracting(change -> change.transaction().getId() + ":" + change.type() + ":"
+                + change.transaction().getVersion()).containsExactly("1:CREATED:0", "1:UPDATED:2", "2:CREATED:0",
+                "1:DELETED:2");
+    }
+
+    @Test
+    void should_keep_changes_of_a_new_transaction_that_reuses_an_id() {
+        // Given - the repository was cleared and hands out ID 1 again
+        Transaction old = transaction(1L);
+        old.incrementVersion();
+        changeLog.onTransactionEvent(TransactionEvent.updated(transaction(1L), old));
+        Transaction reused = Transaction.create("ORD-999999", "ACC-123456", new BigDecimal("5.00"), "CREDIT",
+                "SALARY", null);
+        reused.setId(1L);
+
+        // When
+        changeLog.onTransactionEvent(TransactionEvent.created(reused));
+
+        // Then
+        assertThat(changeLog.read(0, 10).changes()).extracting(change -> change.transaction().getOrderId())
+                .containsExactly("ORD-000001", "ORD-999999");
+    }
+
+    @Test
+    void should_resume_from_offset_with_limit() {
+        // Given
+        for (long id = 1; id <= 3; id++) {
+            changeLog.onTransactionEvent(TransactionEvent.created(transaction(id)));
+        }
+
+        // When
+        ChangeBatch first = changeLog.read(0, 2);
+        ChangeBatch second = changeLog.read(first.nextOffset(), 2);
+        ChangeBatch caughtUp = changeLog.read(second.nextOffset(), 2);
+
+        // Then
+        assertThat(first.changes()).extracting(change -> change.transaction().getId()).containsExactly(1L, 2L);
+        assertThat(second.changes()).extracting(change -> change.transaction().getId()).containsExactly(3L);
+        assertThat(caughtUp.changes()).isEmpty();
+        assertThat(caughtUp.nextOffset()).isEqualTo(3);
+    }
+
+    @Test
+    void should_skip_to_earliest_offset_when_changes_were_evicted() {
+        // Given - six changes in a log holding four
+        for (long id = 1; id <= 6; id++) {
+            changeLog.onTransactionEvent(TransactionEvent.created(transaction(id)));
+        }
+
+        // When
+        ChangeBatch batch = changeLog.read(0, 10);
+
+        // Then
+        assertThat(batch.earliestOffset()).isEqualTo(2);
+        assertThat(batch.changes()).extracting(TransactionChange::offset).containsExactly(2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void should_keep_snapshot_when_transaction_changes_later() {
+        // Given
+        Transaction transaction = transaction(1L);
+        changeLog.onTransactionEvent(TransactionEvent.created(transaction));
+
+        // When
+        transaction.setCategory(TransactionCategory.SHOPPING);
+        transaction.setDescription("Changed");
+
+        // Then
+        Transaction snapshot = changeLog.read(0, 1).changes().get(0).transaction();
+        assertThat(snapshot.getCategory()).isEqualTo(TransactionCategory.SALARY);
+        assertThat(snapshot.getDescription()).isEqualTo("Monthly salary");
+    }
+
+    @Test
+    void should_wake_waiting_reader_when_change_is_appended() throws Exception {
+        // Given
+        CompletableFuture<ChangeBatch> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return changeLog.await(0, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+
+        // When
+        changeLog.onTransactionEvent(TransactionEvent.created(transaction(1L)));
+
+        // Then
+        assertThat(waiting.get(5, TimeUnit.SECONDS).changes()).hasSize(1);
+    }
+
+    @Test
+    void should_return_empty_batch_when_wait_times_out() throws Exception {
+        // When
+        ChangeBatch batch = changeLog.await(0, 10, Duration.ofMillis(20));
+
+        // Then
+        assertThat(batch.changes()).isEmpty();
+        assertThat(batch.nextOffset()).isZero();
+    }
+
+    private static Transaction transaction(Long id) {
+        Transaction transaction = Transaction.create("ORD-" + String.format("%06d", id), "ACC-123456",
+                new BigDecimal("100.00"), "CREDIT", "SALARY", "Monthly salary");
+        transaction.setId(id);
+        return transaction;
+    }
+}
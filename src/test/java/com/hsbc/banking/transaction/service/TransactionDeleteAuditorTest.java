@@ -0,0 +1,95 @@
+package com.hsbc.banking.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.banking.transaction.model.AuditLog;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionDeleteAuditorTest {
+
+    @Mock
+    private AuditLogRepository auditLogRepository;
+
+    @Mock
+    private ObjectMapper objectMapper;
+
+    @Captor
+    private ArgumentCaptor<AuditLog> auditLogCaptor;
+
+    // Tasks are run when the test says so, like a background thread that has not caught up yet
+    private final List<Runnable> pending = new ArrayList<>();
+    private TransactionDeleteAuditor auditor;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        auditor = new TransactionDeleteAuditor(auditLogRepository, objectMapper, pending::add);
+        transaction = Transaction.create("ORD-012345", "ACC-012345", new BigDecimal("-100.00"),
+                "DEBIT", "SALARY", "Monthly salary");
+        transaction.setId(1L);
+    }
+
+    @Test
+    void should_write_audit_log_of_deleted_transaction_in_background() throws Exception {
+        // Given
+        when(objectMapper.writeValueAsString(any(Transaction.class))).thenReturn("transaction json");
+
+        // When
+        auditor.onTransactionEvent(TransactionEvent.deleted(transaction));
+
+        // Then
+        verify(auditLogRepository, never()).save(any());
+        pending.forEach(Runnable::run);
+        verify(auditLogRepository).save(auditLogCaptor.capture());
+        AuditLog capturedLog = auditLogCaptor.getValue();
+        assertThat(capturedLog.getOperation()).isEqualTo("DELETE");
+        assertThat(capturedLog.getEntityType()).isEqualTo("Transaction");
+        assertThat(capturedLog.getEntityId()).isEqualTo("1");
+        assertThat(capturedLog.getDetails()).contains("transaction json");
+    }
+
+    @Test
+    void should_create_audit_log_even_when_serialization_fails() throws Exception {
+        // Given
+        when(objectMapper.writeValueAsString(any(Transaction.class)))
+                .thenThrow(new RuntimeException("Serialization failed"));
+
+        // When
+        auditor.onTransactionEvent(TransactionEvent.deleted(transaction));
+        pending.forEach(Runnable::run);
+
+        // Then
+        verify(auditLogRepository).save(auditLogCaptor.capture());
+        assertThat(auditLogCaptor.getValue().getDetails())
+                .contains("Failed to serialize transaction: Serialization failed");
+    }
+
+    @Test
+    void should_ignore_created_and_updated_events() {
+        // When
+        auditor.onTransactionEvent(TransactionEvent.created(transaction));
+        auditor.onTransactionEvent(TransactionEvent.updated(transaction.copy(), transaction));
+
+        // Then
+        assertThat(pending).isEmpty();
+    }
+}
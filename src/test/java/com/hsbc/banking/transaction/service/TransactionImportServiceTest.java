@@ -0,0 +1,157 @@
+package com.hsbc.banking.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.hsbc.banking.transaction.config.MoneyJsonComponent;
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.repository.TransactionRepository;
+import com.hsbc.banking.transaction.service.TransactionImportService.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TransactionImportServiceTest {
+
+    private static final String ROW = """
+            {"orderId":"%s","accountId":"ACC-123456","amount":%s,"type":"CREDIT","category":"SALARY","description":"Backfill"}
+            """;
+
+    @TempDir
+    Path errorDir;
+
+    private final TransactionRepository transactionRepository = new InMemoryTransactionRepositoryImpl();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(Money.class, new MoneyJsonComponent.Serializer())
+            .addDeserializer(Money.class, new MoneyJsonComponent.Deserializer()));
+    private final AtomicInteger publishedEvents = new AtomicInteger();
+    private final ApplicationEventPublisher eventPublisher = event -> {
+        if (event instanceof TransactionEvent) {
+            publishedEvents.incrementAndGet();
+        }
+    };
+
+    @Test
+    void should_import_every_valid_row() throws Exception {
+        // Given - more rows than fit into one batch or one queue
+        StringBuilder input = new StringBuilder();
+        for (int i = 1; i <= 5_000; i++) {
+            input.append(ROW.formatted(String.format("ORD-%06d", i), "10.00"));
+        }
+
+        // When
+        ImportReport report = importService(4, 64, 100).importJsonLines(stream(input.toString()));
+
+        // Then
+        assertThat(report.rows()).isEqualTo(5_000);
+        assertThat(report.imported()).isEqualTo(5_000);
+        assertThat(report.rejected()).isZero();
+        assertThat(report.errorFile()).isNull();
+        assertThat(transactionRepository.count()).isEqualTo(5_000);
+        assertThat(publishedEvents.get()).isEqualTo(5_000);
+        try (var files = Files.list(errorDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void should_write_rejected_rows_to_error_file() throws Exception {
+        // Given - an invalid amount, malformed JSON, a duplicate in the input and one already stored
+        transactionRepository.save(Transaction.create("ORD-000009", "ACC-123456", Money.of(new BigDecimal("1.00")),
+                "CREDIT", "SALARY", "Existing"));
+        String input = ROW.formatted("ORD-000001", "10.00")
+                + ROW.formatted("ORD-000002", "10.001")
+                + "{not json\n"
+                + "\n"
+                + ROW.formatted("ORD-000001", "20.00")
+                + ROW.formatted("ORD-000009", "30.00")
+                + ROW.formatted("ORD-000003", "-5.00");
+
+        // When
+        ImportReport report = importService(2, 4, 2).importJsonLines(stream(input));
+
+        // Then
+        assertThat(report.rows()).isEqualTo(6);
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.rejected()).isEqualTo(5);
+        assertThat(transactionRepository.findByOrderId("ORD-000001")).isPresent();
+
+        List<JsonNode> rejects = Files.readAllLines(Path.of(report.errorFile())).stream()
+                .map(this::readTree)
+                .toList();
+        assertThat(rejects).hasSize(5);
+        // Either occurrence of the duplicated order ID may win, the other one is rejected
+        assertThat(rejects).extracting(reject -> reject.get("line").asInt())
+                .contains(2, 3, 6, 7)
+                .containsAnyOf(1, 5);
+        assertThat(rejects).extracting(reject -> reject.get("code").asText())
+                .containsOnly("INVALID_TRANSACTION", "TRANSACTION_CONFLICT");
+    }
+
+    @Test
+    void should_split_lines_at_any_line_ending_and_across_reads() throws Exception {
+        // Given - CRLF and CR endings, a row padded past the read buffer and a reject with non-ASCII text
+        String padded = ROW.formatted("ORD-000003", "30.00").replaceFirst("\\{", "{" + " ".repeat(100_000));
+        String input = ROW.formatted("ORD-000001", "10.00").replace("\n", "\r\n")
+                + ROW.formatted("ORD-000002", "20.00").replace("\n", "\r")
+                + padded
+                + "{\"orderId\": \"Bestellung-ü\"\r\n"
+                + ROW.formatted("ORD-000004", "40.00").stripTrailing();
+
+        // When
+        ImportReport report = importService(2, 4, 2).importJsonLines(stream(input));
+
+        // Then
+        assertThat(report.rows()).isEqualTo(5);
+        assertThat(report.imported()).isEqualTo(4);
+        assertThat(transactionRepository.findByOrderId("ORD-000003")).isPresent();
+        assertThat(transactionRepository.findByOrderId("ORD-000004")).isPresent();
+        JsonNode reject = readTree(Files.readString(Path.of(report.errorFile())));
+        assertThat(reject.get("line").asInt()).isEqualTo(4);
+        assertThat(reject.get("input").asText()).isEqualTo("{\"orderId\": \"Bestellung-ü\"");
+    }
+
+    @Test
+    void should_report_empty_input() throws Exception {
+        // When
+        ImportReport report = importService(2, 4, 10).importJsonLines(stream(""));
+
+        // Then
+        assertThat(report.rows()).isZero();
+        assertThat(report.imported()).isZero();
+        assertThat(report.errorFile()).isNull();
+    }
+
+    private TransactionImportService importService(int workers, int queueCapacity, int batchSize) {
+        return new TransactionImportService(transactionRepository, objectMapper, eventPublisher,
+                new TransactionWriteGate(), mock(TransactionArchiver.class), new OrderIdRetention(Duration.ZERO), workers, queueCapacity, batchSize, Duration.ofSeconds(5), errorDir);
+    }
+
+    private static InputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
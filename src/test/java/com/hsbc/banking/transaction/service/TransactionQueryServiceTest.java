@@ -0,0 +1,178 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Money;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.service.TransactionQueryService.QueryResult;
+import com.hsbc.banking.transaction.service.TransactionQueryService.Sort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionQueryServiceTest {
+    private static final int ROWS = 20_000;
+    private static final String[] DESCRIPTIONS = {"Coffee shop", "Grocery store", "Rent", "Online order", null};
+
+    private final InMemoryTransactionRepositoryImpl repository = new InMemoryTransactionRepositoryImpl();
+    private final TransactionQueryService queryService = new TransactionQueryService(repository, 4);
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        List<Transaction> transactions = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            boolean credit = random.nextBoolean();
+            long minor = 1 + random.nextInt(100_000);
+            transactions.add(Transaction.create(String.format("ORD-%06d", i), String.format("ACC-%06d", i % 50),
+                    Money.ofMinor(credit ? minor : -minor), credit ? "CREDIT" : "DEBIT",
+                    credit ? "SALARY" : "SHOPPING", DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]));
+        }
+        repository.saveAll(transactions);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queryService.destroy();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Sort.class)
+    void should_return_same_top_matches_as_sequential_scan(Sort sort) {
+        // Given
+        String query = "amount < -500 and description ~ 'o'";
+        TransactionQuery filter = TransactionQuery.parse(query);
+        List<Long> expected = repository.stream()
+                .filter(filter::test)
+                .sorted(comparator(sort))
+                .limit(100)
+                .map(Transaction::getId)
+                .toList();
+
+        // When
+        QueryResult result = queryService.query(query, sort, 100);
+
+        // Then
+        assertThat(result.transactions()).extracting(Transaction::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void should_stop_scanning_in_id_order_once_limit_is_reached() {
+        // When
+        QueryResult result = queryService.query("type = CREDIT", Sort.ID, 10);
+
+        // Then
+        assertThat(result.transactions()).hasSize(10);
+        assertThat(result.scanned()).isLessThan(ROWS);
+    }
+
+    @Test
+    void should_return_every_match_when_fewer_than_limit() {
+        // When
+        QueryResult result = queryService.query("accountId = ACC-000007 and amount > 99000", Sort.AMOUNT_DESC, 1000);
+
+        // Then
+        long expected = repository.stream()
+                .filter(t -> t.getAccountId().equals("ACC-000007") && t.getAmountMinor() > 9_900_000)
+                .count();
+        assertThat(result.transactions()).hasSize((int) expected);
+        assertThat(result.scanned()).isEqualTo(ROWS);
+    }
+
+    @Test
+    void should_scan_the_store_as_several_id_ranges() {
+        // Given
+        Set<Spliterator<Transaction>> scannedRanges = ConcurrentHashMap.newKeySet();
+        InMemoryTransactionRepositoryImpl recording = new InMemoryTransactionRepositoryImpl() {
+            @Override
+            public Spliterator<Transaction> spliterator() {
+                return new RecordingSpliterator(super.spliterator(), scannedRanges);
+            }
+        };
+        recording.saveAll(repository.stream().map(Transaction::copy).toList());
+        TransactionQueryService recordingService = new TransactionQueryService(recording, 4);
+
+        // When
+        QueryResult result = recordingService.query("amount > 0", Sort.AMOUNT, 10);
+        recordingService.destroy();
+
+        // Then
+        assertThat(result.scanned()).isEqualTo(ROWS);
+        assertThat(scannedRanges).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void should_reject_limit_out_of_range_and_unknown_sort() {
+        assertThatThrownBy(() -> queryService.query("amount > 0", Sort.ID, 0))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> queryService.query("amount > 0", Sort.ID, TransactionQueryService.MAX_LIMIT + 1))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> Sort.fromString("-merchant"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(Sort.fromString("-createdAt")).isEqualTo(Sort.CREATED_AT_DESC);
+    }
+
+    // Records every range that handed out at least one transaction
+    private static final class RecordingSpliterator implements Spliterator<Transaction> {
+        private final Spliterator<Transaction> range;
+        private final Set<Spliterator<Transaction>> scanned;
+
+        RecordingSpliterator(Spliterator<Transaction> range, Set<Spliterator<Transaction>> scanned) {
+            this.range = range;
+            this.scanned = scanned;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Transaction> action) {
+            boolean advanced = range.tryAdvance(action);
+            if (advanced) {
+                scanned.add(this);
+            }
+            return advanced;
+        }
+
+        @Override
+        public Spliterator<Transaction> trySplit() {
+            Spliterator<Transaction> prefix = range.trySplit();
+            return prefix == null ? null : new RecordingSpliterator(prefix, scanned);
+        }
+
+        @Override
+        public long estimateSize() {
+            return range.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return range.characteristics();
+        }
+    }
+
+    private static Comparator<Transaction> comparator(Sort sort) {
+        Comparator<Transaction> byId = Comparator.comparing(Transaction::getId);
+        return switch (sort) {
+            case ID -> byId;
+            case ID_DESC -> byId.reversed();
+            case AMOUNT -> Comparator.comparingLong(Transaction::getAmountMinor).thenComparing(byId);
+            case AMOUNT_DESC -> Comparator.comparingLong(Transaction::getAmountMinor).reversed()
+                    .thenComparing(byId);
+            case CREATED_AT -> Comparator.comparing(Transaction::getCreatedAt).thenComparing(byId);
+            case CREATED_AT_DESC -> Comparator.comparing(Transaction::getCreatedAt).reversed()
+                    .thenComparing(byId);
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionQueryTest {
+
+    private final Transaction coffee = transaction(1L, "ACC-000001", "-4.50", "DEBIT", "FOOD_DINING", "Morning Coffee");
+    private final Transaction salary = transaction(2L, "ACC-000002", "2500.00", "CREDIT", "SALARY", "Monthly salary");
+
+    @Test
+    void should_compare_amounts_in_minor_units() {
+        assertThat(TransactionQuery.parse("amount < 0").test(coffee)).isTrue();
+        assertThat(TransactionQuery.parse("amount >= -4.5").test(coffee)).isTrue();
+        assertThat(TransactionQuery.parse("amount > -4.50").test(coffee)).isFalse();
+        assertThat(TransactionQuery.parse("amount = 2500").test(salary)).isTrue();
+    }
+
+    @Test
+    void should_match_description_substring_ignoring_case() {
+        assertThat(TransactionQuery.parse("description ~ coffee").test(coffee)).isTrue();
+        assertThat(TransactionQuery.parse("description ~ 'morning co'").test(coffee)).isTrue();
+        assertThat(TransactionQuery.parse("description ~ coffee").test(salary)).isFalse();
+    }
+
+    @Test
+    void should_match_enums_ids_and_accounts() {
+        assertThat(TransactionQuery.parse("type = debit and category = food_dining").test(coffee)).isTrue();
+        assertThat(TransactionQuery.parse("category != SALARY").test(salary)).isFalse();
+        assertThat(TransactionQuery.parse("accountId = ACC-000002 and id >= 2").test(salary)).isTrue();
+        assertThat(TransactionQuery.parse("createdAt >= 2000-01-01").test(salary)).isTrue();
+    }
+
+    @Test
+    void should_bind_and_tighter_than_or_and_respect_parentheses() {
+        // Given
+        TransactionQuery withoutParentheses = TransactionQuery.parse("type = CREDIT or type = DEBIT and amount > 0");
+        TransactionQuery withParentheses = TransactionQuery.parse("(type = CREDIT or type = DEBIT) and amount > 0");
+
+        // When/Then
+        assertThat(withoutParentheses.test(salary)).isTrue();
+        assertThat(withoutParentheses.test(coffee)).isFalse();
+        assertThat(withParentheses.test(coffee)).isFalse();
+        assertThat(TransactionQuery.parse("not (amount > 0) and not category = SALARY").test(coffee)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "merchant = x",
+            "amount ~ 10",
+            "type > DEBIT",
+            "type = DEBT",
+            "amount < 1.001",
+            "amount <",
+            "(amount < 1",
+            "amount < 1 amount > 2",
+            "description ~ 'open",
+            "createdAt > yesterday"
+    })
+    void should_reject_invalid_query(String query) {
+        assertThatThrownBy(() -> TransactionQuery.parse(query))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private static Transaction transaction(Long id, String accountId, String amount, String type, String category,
+                                           String description) {
+        Transaction transaction = Transaction.create(String.format("ORD-%06d", id), accountId, new BigDecimal(amount),
+                type, category, description);
+        transaction.setId(id);
+        return transaction;
+    }
+}
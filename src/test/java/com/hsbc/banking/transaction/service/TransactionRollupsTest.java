@@ -0,0 +1,145 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionCategory;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import com.hsbc.banking.transaction.model.TransactionType;
+import com.hsbc.banking.transaction.service.TransactionRollups.Aggregate;
+import com.hsbc.banking.transaction.service.TransactionRollups.Dimension;
+import com.hsbc.banking.transaction.service.TransactionRollups.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TransactionRollupsTest {
+
+    private static final AtomicLong ORDER_IDS = new AtomicLong();
+
+    private final TransactionRollups rollups = new TransactionRollups();
+
+    @Test
+    void should_sum_created_transactions_per_group() {
+        // Given
+        rollups.onTransactionEvent(TransactionEvent.created(credit("ACC-000001", "100.00", "SALARY")));
+        rollups.onTransactionEvent(TransactionEvent.created(credit("ACC-000001", "50.50", "SALARY")));
+        rollups.onTransactionEvent(TransactionEvent.created(debit("ACC-000001", "-20.00", "SHOPPING")));
+        rollups.onTransactionEvent(TransactionEvent.created(credit("ACC-000002", "10.00", "SALARY")));
+
+        // When
+        List<Aggregate> byType = rollups.query("ACC-000001", EnumSet.of(Dimension.TYPE), Interval.DAY, null, null);
+        List<Aggregate> total = rollups.query(null, Set.of(), Interval.HOUR, null, null);
+
+        // Then
+        assertThat(byType).extracting(Aggregate::type, Aggregate::count, Aggregate::sumMinor)
+                .containsExactly(
+                        tuple(TransactionType.CREDIT, 2L, 15_050L),
+                        tuple(TransactionType.DEBIT, 1L, -2_000L));
+        assertThat(byType).allSatisfy(aggregate -> {
+            assertThat(aggregate.accountId()).isNull();
+            assertThat(aggregate.category()).isNull();
+        });
+        assertThat(total).hasSize(1);
+        assertThat(total.get(0).count()).isEqualTo(4);
+        assertThat(total.get(0).sumMinor()).isEqualTo(14_050);
+    }
+
+    @Test
+    void should_move_transaction_between_categories_on_update_and_remove_it_on_delete() {
+        // Given
+        Transaction transaction = credit("ACC-000001", "100.00", "SALARY");
+        rollups.onTransactionEvent(TransactionEvent.created(transaction));
+
+        // When
+        Transaction previous = transaction.copy();
+        transaction.setCategory(TransactionCategory.BONUS);
+        rollups.onTransactionEvent(TransactionEvent.updated(previous, transaction));
+
+        // Then
+        assertThat(rollups.query(null, EnumSet.of(Dimension.CATEGORY), Interval.DAY, null, null))
+                .extracting(Aggregate::category)
+                .containsExactly(TransactionCategory.BONUS);
+
+        // When
+        rollups.onTransactionEvent(TransactionEvent.deleted(transaction));
+
+        // Then
+        assertThat(rollups.query(null, EnumSet.of(Dimension.CATEGORY), Interval.DAY, null, null)).isEmpty();
+    }
+
+    @Test
+    void should_only_return_buckets_overlapping_range() {
+        // Given
+        Transaction transaction = credit("ACC-000001", "100.00", "SALARY");
+        rollups.onTransactionEvent(TransactionEvent.created(transaction));
+        LocalDateTime createdAt = transaction.getCreatedAt();
+
+        // When/Then
+        assertThat(rollups.query(null, Set.of(), Interval.HOUR, createdAt, createdAt))
+                .extracting(Aggregate::bucketStart)
+                .containsExactly(createdAt.withMinute(0).withSecond(0).withNano(0));
+        assertThat(rollups.query(null, Set.of(), Interval.DAY, createdAt.plusDays(1), null)).isEmpty();
+        assertThat(rollups.query(null, Set.of(), Interval.DAY, null, createdAt.minusDays(1))).isEmpty();
+    }
+
+    @Test
+    void should_count_every_concurrent_update() throws Exception {
+        // Given
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(writers.submit(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    rollups.onTransactionEvent(TransactionEvent.created(credit("ACC-000001", "1.00", "SALARY")));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        writers.shutdown();
+
+        // Then
+        Aggregate total = rollups.query(null, Set.of(), Interval.DAY, null, null).get(0);
+        assertThat(total.count()).isEqualTo(8_000);
+        assertThat(total.sumMinor()).isEqualTo(800_000);
+    }
+
+    @Test
+    void should_reject_unknown_dimension_and_inverted_range() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+
+        // When/Then
+        assertThatThrownBy(() -> Dimension.fromString("merchant"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(Interval.fromString("Hour")).isEqualTo(Interval.HOUR);
+        assertThatThrownBy(() -> rollups.query(null, Set.of(), Interval.DAY, now, now.minusDays(1)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private static Transaction credit(String accountId, String amount, String category) {
+        return Transaction.create(String.format("ORD-%06d", ORDER_IDS.incrementAndGet()), accountId, new BigDecimal(amount),
+                "CREDIT", category, "Rollup test");
+    }
+
+    private static Transaction debit(String accountId, String amount, String category) {
+        return Transaction.create(String.format("ORD-%06d", ORDER_IDS.incrementAndGet()), accountId, new BigDecimal(amount),
+                "DEBIT", category, "Rollup test");
+    }
+}
@@ -0,0 +1,105 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.exception.InvalidRequestException;
+import com.hsbc.banking.transaction.model.Transaction;
+import com.hsbc.banking.transaction.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionSearchIndexTest {
+
+    private final TransactionSearchIndex searchIndex = new TransactionSearchIndex();
+
+    @Test
+    void should_match_every_word_ignoring_case_and_punctuation() {
+        // Given
+        index(1L, "ACC-000001", "Coffee at Central Station");
+        index(2L, "ACC-000001", "coffee beans, online");
+        index(3L, "ACC-000002", "Station parking");
+
+        // When/Then
+        assertThat(searchIndex.search("COFFEE", null)).containsExactly(1L, 2L);
+        assertThat(searchIndex.search("coffee station", null)).containsExactly(1L);
+        assertThat(searchIndex.search("beans,online", null)).containsExactly(2L);
+        assertThat(searchIndex.search("coffee parking", null)).isEmpty();
+        assertThat(searchIndex.search("unknown", null)).isEmpty();
+    }
+
+    @Test
+    void should_match_prefix_terms_once_per_transaction() {
+        // Given
+        index(1L, "ACC-000001", "Station station-stationery");
+        index(2L, "ACC-000001", "Statue tour");
+        index(3L, "ACC-000001", "Bus stop");
+
+        // When/Then
+        assertThat(searchIndex.search("stat*", null)).containsExactly(1L, 2L);
+        assertThat(searchIndex.search("station*", null)).containsExactly(1L);
+        assertThat(searchIndex.search("stat* tour", null)).containsExactly(2L);
+    }
+
+    @Test
+    void should_scope_search_to_account() {
+        // Given
+        index(1L, "ACC-000001", "Rent");
+        index(2L, "ACC-000002", "Rent");
+
+        // When/Then
+        assertThat(searchIndex.search("rent", "ACC-000002")).containsExactly(2L);
+        assertThat(searchIndex.search("rent", "ACC-999999")).isEmpty();
+    }
+
+    @Test
+    void should_follow_description_changes_and_deletes() {
+        // Given
+        Transaction transaction = index(1L, "ACC-000001", "Coffee beans");
+
+        // When
+        Transaction previous = transaction.copy();
+        transaction.setDescription("Tea leaves and beans");
+        searchIndex.onTransactionEvent(TransactionEvent.updated(previous, transaction));
+
+        // Then
+        assertThat(searchIndex.search("coffee", null)).isEmpty();
+        assertThat(searchIndex.search("tea beans", null)).containsExactly(1L);
+
+        // When
+        searchIndex.onTransactionEvent(TransactionEvent.deleted(transaction));
+
+        // Then
+        assertThat(searchIndex.search("beans", null)).isEmpty();
+        assertThat(searchIndex.search("tea", "ACC-000001")).isEmpty();
+    }
+
+    @Test
+    void should_keep_posting_list_sorted_when_ids_arrive_out_of_order() {
+        // Given
+        index(5L, "ACC-000001", "Refund");
+        index(2L, "ACC-000001", "Refund");
+        index(9L, "ACC-000001", "Refund");
+        index(7L, "ACC-000001", "Refund");
+
+        // When/Then
+        assertThat(searchIndex.search("refund", null)).containsExactly(2L, 5L, 7L, 9L);
+    }
+
+    @Test
+    void should_reject_query_without_words_or_with_short_prefix() {
+        assertThatThrownBy(() -> searchIndex.search(" ,. ", null))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> searchIndex.search("c*", null))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private Transaction index(Long id, String accountId, String description) {
+        Transaction transaction = Transaction.create(String.format("ORD-%06d", id), accountId,
+                new BigDecimal("10.00"), "CREDIT", "SALARY", description);
+        transaction.setId(id);
+        searchIndex.onTransactionEvent(TransactionEvent.created(transaction));
+        return transaction;
+    }
+}
@@ -1,11 +1,13 @@
 package com.hsbc.banking.transaction.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hsbc.banking.transaction.dto.BatchCreateTransactionRequest;
 import com.hsbc.banking.transaction.dto.CreateTransactionRequest;
 import com.hsbc.banking.transaction.dto.UpdateTransactionRequest;
 import com.hsbc.banking.transaction.exception.ConcurrentUpdateException;
 import com.hsbc.banking.transaction.exception.DuplicateTransactionException;
 import com.hsbc.banking.transaction.exception.InsufficientBalanceException;
+import com.hsbc.banking.transaction.exception.InvalidTransactionException;
 import com.hsbc.banking.transaction.exception.TransactionNotFoundException;
 import com.hsbc.banking.transaction.model.*;
 import com.hsbc.banking.transaction.repository.AuditLogRepository;
@@ -14,17 +16,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -46,12 +50,21 @@ class TransactionServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionArchiver transactionArchiver;
+
+    @Spy
+    private OrderIdRetention orderIdRetention = new OrderIdRetention(Duration.ofHours(1));
+
+    @Spy
+    private TransactionWriteGate writeGate = new TransactionWriteGate();
+
     @InjectMocks
     private TransactionService transactionService;
 
-    @Captor
-    private ArgumentCaptor<AuditLog> auditLogCaptor;
-
     private Transaction mockTransaction;
     private static final String ORDER_ID = "ORD-012345";
     private static final String ACCOUNT_ID = "ACC-012345";
@@ -76,7 +89,7 @@ class TransactionServiceTest {
 
             // When
             Transaction result = transactionService.createTransaction(
-                    new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, AMOUNT, TYPE, CATEGORY, DESCRIPTION)
+                    new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, Money.of(AMOUNT), TYPE, CATEGORY, DESCRIPTION)
             );
             LocalDateTime afterCreation = LocalDateTime.now();
 
@@ -93,6 +106,7 @@ class TransactionServiceTest {
             assertThat(result.getUpdatedAt())
                     .isNotNull()
                     .isEqualTo(result.getCreatedAt());
+            verify(eventPublisher).publishEvent(TransactionEvent.created(mockTransaction));
         }
 
         @Test
@@ -103,7 +117,7 @@ class TransactionServiceTest {
             // When/Then
             assertThatThrownBy(() ->
                     transactionService.createTransaction(
-                            new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, AMOUNT, TYPE, CATEGORY, DESCRIPTION)
+                            new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, Money.of(AMOUNT), TYPE, CATEGORY, DESCRIPTION)
                     ))
                     .isInstanceOf(InsufficientBalanceException.class)
                     .satisfies(thrown -> {
@@ -127,7 +141,7 @@ class TransactionServiceTest {
             // When/Then
             assertThatThrownBy(() ->
                     transactionService.createTransaction(
-                           new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, AMOUNT, TYPE, CATEGORY, DESCRIPTION)
+                           new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, Money.of(AMOUNT), TYPE, CATEGORY, DESCRIPTION)
                     ))
                     .isInstanceOf(DuplicateTransactionException.class)
                     .satisfies(thrown -> {
@@ -137,29 +151,228 @@ class TransactionServiceTest {
                                 .containsEntry("message", "Transaction with order ID already exists");
                     });
         }
+
+        @Test
+        void should_reject_order_id_of_archived_transaction() {
+            // Given
+            when(externalAccountService.hasSufficientBalance(eq(ACCOUNT_ID), eq(AMOUNT))).thenReturn(true);
+            when(transactionArchiver.isArchivedOrderId(ORDER_ID)).thenReturn(true);
+
+            // When/Then
+            assertThatThrownBy(() ->
+                    transactionService.createTransaction(
+                           new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, Money.of(AMOUNT), TYPE, CATEGORY, DESCRIPTION)
+                    ))
+                    .isInstanceOf(DuplicateTransactionException.class);
+            verify(transactionRepository, never()).save(any(Transaction.class));
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
+        }
+
+        @Test
+        void should_undo_save_when_order_id_was_archived_meanwhile() {
+            // Given - the order ID is archived while the save runs
+            when(externalAccountService.hasSufficientBalance(eq(ACCOUNT_ID), eq(AMOUNT))).thenReturn(true);
+            when(transactionArchiver.isArchivedOrderId(ORDER_ID)).thenReturn(false, true);
+            when(transactionRepository.save(any(Transaction.class))).thenReturn(mockTransaction);
+
+            // When/Then
+            assertThatThrownBy(() ->
+                    transactionService.createTransaction(
+                           new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, Money.of(AMOUNT), TYPE, CATEGORY, DESCRIPTION)
+                    ))
+                    .isInstanceOf(DuplicateTransactionException.class);
+            verify(transactionRepository).deleteIfVersion(1L, 0L);
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
+        }
+    }
+
+    @Nested
+    class CreateTransactions {
+        private BatchCreateTransactionRequest.Item debit(String orderId, String amount) {
+            return new BatchCreateTransactionRequest.Item(orderId, ACCOUNT_ID, new BigDecimal(amount), TYPE, CATEGORY, DESCRIPTION);
+        }
+
+        @Test
+        void should_check_debits_in_one_call_and_save_in_one_batch() {
+            // Given
+            when(externalAccountService.hasSufficientBalances(anyList())).thenReturn(List.of(true, true));
+            when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Transaction> batch = invocation.getArgument(0);
+                long id = 1;
+                for (Transaction transaction : batch) {
+                    transaction.setId(id++);
+                }
+                return batch;
+            });
+
+            // When
+            List<BatchItemResult> results = transactionService.createTransactions(List.of(
+                    debit("ORD-000001", "-10.00"), debit("ORD-000002", "-20.00")));
+
+            // Then
+            assertThat(results).allMatch(BatchItemResult::isSuccess);
+            verify(externalAccountService).hasSufficientBalances(List.of(
+                    new BalanceCheck(ACCOUNT_ID, new BigDecimal("-10.00")),
+                    new BalanceCheck(ACCOUNT_ID, new BigDecimal("-20.00"))));
+            verify(transactionRepository).saveAll(anyList());
+            verify(transactionRepository, never()).save(any());
+            verify(eventPublisher, times(2)).publishEvent(any(TransactionEvent.class));
+        }
+
+        @Test
+        void should_reject_invalid_and_duplicate_items_without_failing_the_batch() {
+            // Given
+            when(externalAccountService.hasSufficientBalances(anyList())).thenReturn(List.of(true));
+            when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Transaction> batch = invocation.getArgument(0);
+                batch.forEach(transaction -> transaction.setId(1L));
+                return batch;
+            });
+
+            // When
+            List<BatchItemResult> results = transactionService.createTransactions(List.of(
+                    debit("ORD-000001", "-10.00"), debit("ORD-000001", "-20.00"), debit("ORD-000002", "10.00")));
+
+            // Then
+            assertThat(results.get(0).isSuccess()).isTrue();
+            assertThat(results.get(1).error()).isInstanceOf(DuplicateTransactionException.class);
+            assertThat(results.get(2).error()).isInstanceOf(InvalidTransactionException.class);
+        }
+
+        @Test
+        void should_reject_an_amount_with_three_decimal_places_without_failing_the_batch() {
+            // Given
+            when(externalAccountService.hasSufficientBalances(anyList())).thenReturn(List.of(true));
+            when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Transaction> batch = invocation.getArgument(0);
+                batch.forEach(transaction -> transaction.setId(1L));
+                return batch;
+            });
+
+            // When
+            List<BatchItemResult> results = transactionService.createTransactions(List.of(
+                    debit("ORD-000001", "-1.005"), debit("ORD-000002", "-20.00")));
+
+            // Then
+            assertThat(results.get(0).error()).isInstanceOf(InvalidTransactionException.class);
+            assertThat(results.get(0).error().getData())
+                    .containsEntry("errors", List.of("Amount cannot have more than 2 decimal places"));
+            assertThat(results.get(1).isSuccess()).isTrue();
+            verify(transactionRepository).saveAll(argThat(batch -> batch.size() == 1));
+        }
+
+        @Test
+        void should_report_insufficient_balance_and_already_stored_order_ids_per_item() {
+            // Given - the repository skips the second item, its order ID already exists
+            when(externalAccountService.hasSufficientBalances(anyList())).thenReturn(List.of(true, true, false));
+            when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Transaction> batch = invocation.getArgument(0);
+                batch.get(0).setId(1L);
+                return List.of(batch.get(0));
+            });
+
+            // When
+            List<BatchItemResult> results = transactionService.createTransactions(List.of(
+                    debit("ORD-000001", "-10.00"), debit("ORD-000002", "-20.00"), debit("ORD-000003", "-30.00")));
+
+            // Then
+            assertThat(results.get(0).isSuccess()).isTrue();
+            assertThat(results.get(1).error()).isInstanceOf(DuplicateTransactionException.class);
+            assertThat(results.get(2).error()).isInstanceOf(InsufficientBalanceException.class);
+            verify(eventPublisher).publishEvent(TransactionEvent.created(results.get(0).transaction()));
+        }
+
+        @Test
+        void should_reject_order_ids_of_archived_transactions_per_item() {
+            // Given
+            when(externalAccountService.hasSufficientBalances(anyList())).thenReturn(List.of(true, true, true));
+            when(transactionArchiver.isArchivedOrderId(anyString())).thenReturn(false);
+            when(transactionArchiver.isArchivedOrderId("ORD-000002")).thenReturn(true);
+            when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> {
+                List<Transaction> batch = invocation.getArgument(0);
+                batch.forEach(transaction -> transaction.setId(Long.valueOf(transaction.getOrderId().substring(4))));
+                return batch;
+            });
+
+            // When
+            List<BatchItemResult> results = transactionService.createTransactions(List.of(
+                    debit("ORD-000001", "-10.00"), debit("ORD-000002", "-20.00"), debit("ORD-000003", "-30.00")));
+
+            // Then
+            assertThat(results.get(0).isSuccess()).isTrue();
+            assertThat(results.get(1).error()).isInstanceOf(DuplicateTransactionException.class);
+            assertThat(results.get(2).isSuccess()).isTrue();
+            verify(transactionRepository).saveAll(argThat(batch -> batch.size() == 2));
+        }
     }
 
     @Nested
     class DeleteTransaction {
         @Test
-        void should_delete_transaction_successfully() throws Exception {
+        void should_delete_transaction_and_leave_audit_log_to_deleted_event() {
             // Given
             Long transactionId = 1L;
             when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(mockTransaction));
-            when(objectMapper.writeValueAsString(mockTransaction)).thenReturn("transaction json");
+            when(transactionRepository.deleteIfVersion(transactionId, 0L)).thenReturn(true);
+
+            // When
+            transactionService.deleteTransaction(transactionId);
+
+            // Then
+            verify(transactionRepository).deleteIfVersion(transactionId, 0L);
+            verify(eventPublisher).publishEvent(TransactionEvent.deleted(mockTransaction));
+            verify(auditLogRepository, never()).save(any());
+        }
+
+        @Test
+        void should_keep_order_id_of_deleted_transaction_taken() {
+            // Given
+            when(transactionRepository.findById(1L)).thenReturn(Optional.of(mockTransaction));
+            when(transactionRepository.deleteIfVersion(1L, 0L)).thenReturn(true);
+            when(externalAccountService.hasSufficientBalance(eq(ACCOUNT_ID), eq(AMOUNT))).thenReturn(true);
+            transactionService.deleteTransaction(1L);
+
+            // When/Then
+            assertThatThrownBy(() ->
+                    transactionService.createTransaction(
+                           new CreateTransactionRequest(ORDER_ID, ACCOUNT_ID, Money.of(AMOUNT), TYPE, CATEGORY, DESCRIPTION)
+                    ))
+                    .isInstanceOf(DuplicateTransactionException.class);
+            verify(transactionRepository, never()).save(any(Transaction.class));
+        }
+
+        @Test
+        void should_publish_the_version_it_removed_when_updated_meanwhile() {
+            // Given - version 0 is updated before it can be deleted
+            Long transactionId = 1L;
+            Transaction updated = mockTransaction.copy();
+            updated.incrementVersion();
+            when(transactionRepository.findById(transactionId))
+                    .thenReturn(Optional.of(mockTransaction), Optional.of(updated));
+            when(transactionRepository.deleteIfVersion(transactionId, 0L)).thenReturn(false);
+            when(transactionRepository.deleteIfVersion(transactionId, 1L)).thenReturn(true);
 
             // When
             transactionService.deleteTransaction(transactionId);
 
             // Then
-            verify(transactionRepository).deleteById(transactionId);
-            verify(auditLogRepository).save(auditLogCaptor.capture());
-            
-            AuditLog capturedLog = auditLogCaptor.getValue();
-            assertThat(capturedLog.getOperation()).isEqualTo("DELETE");
-            assertThat(capturedLog.getEntityType()).isEqualTo("Transaction");
-            assertThat(capturedLog.getEntityId()).isEqualTo(String.valueOf(transactionId));
-            assertThat(capturedLog.getDetails()).contains("transaction json");
+            verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof TransactionEvent deleted
+                    && deleted.type() == TransactionEvent.Type.DELETED && deleted.transaction().getVersion() == 1L));
+            verify(eventPublisher).publishEvent(any(Object.class));
+        }
+
+        @Test
+        void should_not_publish_when_another_call_deleted_it_first() {
+            // Given
+            Long transactionId = 1L;
+            when(transactionRepository.findById(transactionId))
+                    .thenReturn(Optional.of(mockTransaction), Optional.empty());
+            when(transactionRepository.deleteIfVersion(transactionId, 0L)).thenReturn(false);
+
+            // When/Then
+            assertThatThrownBy(() -> transactionService.deleteTransaction(transactionId))
+                    .isInstanceOf(TransactionNotFoundException.class);
+            verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
 
         @Test
@@ -178,30 +391,9 @@ class TransactionServiceTest {
                                 .containsEntry("message", "Transaction not found with ID: " + transactionId);
                     });
 
-            verify(transactionRepository, never()).deleteById(any());
+            verify(transactionRepository, never()).deleteIfVersion(any(), anyLong());
             verify(auditLogRepository, never()).save(any());
         }
-
-        @Test
-        void should_create_audit_log_even_when_serialization_fails() throws Exception {
-            // Given
-            Long transactionId = 1L;
-            when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(mockTransaction));
-            when(objectMapper.writeValueAsString(mockTransaction)).thenThrow(new RuntimeException("Serialization failed"));
-
-            // When
-            transactionService.deleteTransaction(transactionId);
-
-            // Then
-            verify(transactionRepository).deleteById(transactionId);
-            verify(auditLogRepository).save(auditLogCaptor.capture());
-            
-            AuditLog capturedLog = auditLogCaptor.getValue();
-            assertThat(capturedLog.getOperation()).isEqualTo("DELETE");
-            assertThat(capturedLog.getEntityType()).isEqualTo("Transaction");
-            assertThat(capturedLog.getEntityId()).isEqualTo(String.valueOf(transactionId));
-            assertThat(capturedLog.getDetails()).contains("Failed to serialize transaction: Serialization failed");
-        }
     }
 
     @Nested
@@ -405,6 +597,47 @@ class TransactionServiceTest {
 
     }
 
+    @Nested
+    class ExportTransactions {
+        @Test
+        void should_export_transactions_of_account_in_repository_order() {
+            // Given
+            Transaction other = Transaction.create("ORD-012346", "ACC-999999", AMOUNT, TYPE, CATEGORY, DESCRIPTION);
+            Transaction second = Transaction.create("ORD-012347", ACCOUNT_ID, AMOUNT, TYPE, CATEGORY, DESCRIPTION);
+            when(transactionRepository.stream()).thenReturn(Stream.of(mockTransaction, other, second));
+
+            // When
+            List<Transaction> result = transactionService.exportTransactions(ACCOUNT_ID, null, null).toList();
+
+            // Then
+            assertThat(result).containsExactly(mockTransaction, second);
+        }
+
+        @Test
+        void should_export_transactions_created_within_range() {
+            // Given
+            LocalDateTime now = LocalDateTime.now();
+            when(transactionRepository.stream()).thenAnswer(invocation -> Stream.of(mockTransaction));
+
+            // When/Then
+            assertThat(transactionService.exportTransactions(null, now.minusHours(1), now.plusHours(1)))
+                    .containsExactly(mockTransaction);
+            assertThat(transactionService.exportTransactions(null, now.plusHours(1), null)).isEmpty();
+            assertThat(transactionService.exportTransactions(null, null, now.minusHours(1))).isEmpty();
+        }
+
+        @Test
+        void should_reject_range_ending_before_it_starts() {
+            // Given
+            LocalDateTime from = LocalDateTime.now();
+
+            // When/Then
+            assertThatThrownBy(() -> transactionService.exportTransactions(null, from, from.minusDays(1)))
+                    .isInstanceOf(InvalidTransactionException.class);
+            verify(transactionRepository, never()).stream();
+        }
+    }
+
     @Nested
     class GetTransaction {
         @Test
@@ -432,6 +665,20 @@ class TransactionServiceTest {
             verify(transactionRepository).findById(transactionId);
         }
 
+        @Test
+        void should_get_archived_transaction_when_not_in_repository() {
+            // Given
+            Long transactionId = 1L;
+            when(transactionRepository.findById(transactionId)).thenReturn(Optional.empty());
+            when(transactionArchiver.findById(transactionId)).thenReturn(Optional.of(mockTransaction));
+
+            // When
+            Transaction result = transactionService.getTransaction(transactionId);
+
+            // Then
+            assertThat(result).isEqualTo(mockTransaction);
+        }
+
         @Test
         void should_throw_exception_when_getting_non_existent_transaction() {
             // Given
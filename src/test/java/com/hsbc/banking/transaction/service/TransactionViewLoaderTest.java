@@ -0,0 +1,53 @@
+package com.hsbc.banking.transaction.service;
+
+import com.hsbc.banking.transaction.model.TransactionsRestoredEvent;
+import com.hsbc.banking.transaction.repository.InMemoryTransactionRepositoryImpl;
+import com.hsbc.banking.transaction.service.TransactionRollups.Aggregate;
+import com.hsbc.banking.transaction.service.TransactionRollups.Interval;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.hsbc.banking.transaction.repository.TransactionRepositoryContract.transaction;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionViewLoaderTest {
+    private final TransactionRollups rollups = new TransactionRollups();
+    private final TransactionSearchIndex searchIndex = new TransactionSearchIndex();
+    private final List<Object> publishedEvents = new ArrayList<>();
+    private final ApplicationEventPublisher eventPublisher = event -> {
+        publishedEvents.add(event);
+        TransactionsRestoredEvent restoredEvent = (TransactionsRestoredEvent) event;
+        rollups.onTransactionsRestored(restoredEvent);
+        searchIndex.onTransactionsRestored(restoredEvent);
+    };
+    private final InMemoryTransactionRepositoryImpl transactions = new InMemoryTransactionRepositoryImpl();
+
+    @Test
+    void should_build_the_views_from_the_stored_transactions() {
+        // Given - stored by an earlier run, no event reached the views
+        for (int i = 1; i <= 10; i++) {
+            transactions.save(transaction(i));
+        }
+
+        // When
+        new TransactionViewLoader(transactions, eventPublisher, new TransactionWriteGate()).load();
+
+        // Then
+        assertThat(rollups.query(null, Set.of(), Interval.DAY, null, null))
+                .extracting(Aggregate::count).containsExactly(10L);
+        assertThat(searchIndex.search("salary", null)).containsExactly(2L, 4L, 6L, 8L, 10L);
+    }
+
+    @Test
+    void should_not_publish_anything_over_an_empty_repository() {
+        // When
+        new TransactionViewLoader(transactions, eventPublisher, new TransactionWriteGate()).load();
+
+        // Then
+        assertThat(publishedEvents).isEmpty();
+    }
+}
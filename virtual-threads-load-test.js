@@ -0,0 +1,49 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+// Compares throughput of debit creation with and without virtual threads.
+// Start the application with the "slow-account" profile (50 ms injected into the
+// stub ExternalAccountService), once with and once without the "virtual" profile:
+//   java -jar app.jar --spring.profiles.active=slow-account
+//   java -jar app.jar --spring.profiles.active=slow-account,virtual
+// then compare the http_reqs rate and http_req_duration percentiles of both runs.
+const PORT = __ENV.PORT || '8080';
+const BASE_URL = `http://localhost:${PORT}`;
+const RATE = parseInt(__ENV.RATE || '6000');
+
+export const options = {
+  scenarios: {
+    debit_creation: {
+      executor: 'constant-arrival-rate',
+      rate: RATE,               // Offered load in requests per second
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '1m',
+      preAllocatedVUs: 500,
+      maxVUs: 2000,
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+export default function () {
+  // Unique order ID per iteration, otherwise the request is rejected as duplicate
+  const orderId = `ORD-${String(__VU).padStart(4, '0')}${String(__ITER).padStart(8, '0')}`;
+  const res = http.post(
+    `${BASE_URL}/transactions`,
+    JSON.stringify({
+      orderId: orderId,
+      accountId: 'ACC-123456',
+      amount: -10.00,
+      type: 'DEBIT',
+      category: 'SHOPPING',
+      description: 'Virtual thread load test',
+    }),
+    { headers: { 'Content-Type': 'application/json' } }
+  );
+
+  check(res, {
+    'Create transaction status is 201': (r) => r.status === 201,
+  });
+}